@@ -166,6 +166,23 @@ public class DimensionCheck {
         }
     }
 
+    /**
+     * Throws if <i>C</i> cannot store the product of <i>A<sub>1</sub></i> and <i>A<sub>2</sub></i>, i.e.,
+     * <blockquote><code>A1.nCols() != A2.nRows() || C.nRows() != A1.nRows() || C.nCols() != A2.nCols()</code></blockquote>
+     *
+     * @param A1 a table
+     * @param A2 a table
+     * @param C  a table to store the product
+     */
+    public static void throwIfIncompatible4Multiplication(Table A1, Table A2, Table C) {
+        throwIfIncompatible4Multiplication(A1, A2);
+        if (C.nRows() != A1.nRows() || C.nCols() != A2.nCols()) {
+            throw new MatrixMismatchException(
+                    String.format("a %d x %d matrix cannot store the product of dimension %d x %d",
+                                  C.nRows(), C.nCols(), A1.nRows(), A2.nCols()));
+        }
+    }
+
     /**
      * Throws if
      * <blockquote><code>A.nCols() != v.size()</code></blockquote>
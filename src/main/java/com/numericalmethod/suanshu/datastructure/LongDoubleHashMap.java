@@ -0,0 +1,332 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.datastructure;
+
+import java.util.Arrays;
+
+/**
+ * This is a hash map from {@code long} keys to {@code double} values.
+ * Unlike {@code HashMap<Long, Double>}, it stores the keys and the values in two primitive arrays
+ * with open addressing and linear probing,
+ * so that neither {@link #put(long, double)} nor {@link #get(long)} creates any object.
+ * A removal shifts the following entries in the probe sequence back, so no tombstone is left.
+ * <p/>
+ * The entries are iterated by slots without creating any iterator.
+ * <blockquote><pre><code>
+ * for (int slot = map.nextSlot(0); slot &gt;= 0; slot = map.nextSlot(slot + 1)) {
+ *     long key = map.keyAt(slot);
+ *     double value = map.valueAt(slot);
+ * }
+ * </code></pre></blockquote>
+ * The map must not be modified during an iteration, except by {@link #setValueAt(int, double)}.
+ * <p/>
+ * This implementation is not synchronized.
+ *
+ * @author Haksun Li
+ * @see <a href="http://en.wikipedia.org/wiki/Open_addressing">Wikipedia: Open addressing</a>
+ */
+public class LongDoubleHashMap {
+
+    /** the maximum fraction of the slots in use before the table grows */
+    private static final double LOAD_FACTOR = 0.5;
+    private long[] keys;
+    private double[] values;
+    private boolean[] used;
+    /** {@code keys.length - 1}; the number of slots is a power of 2 */
+    private int mask;
+    private int size = 0;
+    private int threshold;
+
+    /**
+     * Construct an empty map.
+     *
+     * @param expectedSize the expected number of entries; the map grows as needed
+     */
+    public LongDoubleHashMap(int expectedSize) {
+        allocate(capacity(expectedSize));
+    }
+
+    /**
+     * Construct an empty map.
+     */
+    public LongDoubleHashMap() {
+        this(16);
+    }
+
+    /**
+     * Copy constructor.
+     *
+     * @param that the map to be copied
+     */
+    public LongDoubleHashMap(LongDoubleHashMap that) {
+        this.keys = that.keys.clone();
+        this.values = that.values.clone();
+        this.used = that.used.clone();
+        this.mask = that.mask;
+        this.size = that.size;
+        this.threshold = that.threshold;
+    }
+
+    /**
+     * Get the number of entries.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Check whether a key is in the map.
+     *
+     * @param key a key
+     * @return {@code true} if the map contains {@code key}
+     */
+    public boolean containsKey(long key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Get the value of a key.
+     *
+     * @param key a key
+     * @return the value of {@code key}, or 0 if {@code key} is not in the map
+     */
+    public double get(long key) {
+        int slot = find(key);
+        return slot >= 0 ? values[slot] : 0.;
+    }
+
+    /**
+     * Associate a value with a key, replacing the old value if any.
+     *
+     * @param key   a key
+     * @param value the value
+     */
+    public void put(long key, double value) {
+        int slot = hash(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        used[slot] = true;
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > threshold) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * Add to the value of a key, as if the value of a missing key were 0.
+     *
+     * @param key   a key
+     * @param value the increment
+     * @return the new value of {@code key}
+     */
+    public double add(long key, double value) {
+        int slot = find(key);
+        if (slot >= 0) {
+            return values[slot] += value;
+        }
+
+        put(key, value);
+        return value;
+    }
+
+    /**
+     * Remove a key.
+     *
+     * @param key a key
+     * @return {@code true} if {@code key} was in the map
+     */
+    public boolean remove(long key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return false;
+        }
+
+        //shift back the entries that probed past the removed slot
+        int hole = slot;
+        for (int next = (hole + 1) & mask; used[next]; next = (next + 1) & mask) {
+            int home = hash(keys[next]) & mask;
+            //move the entry into the hole if its home slot is not cyclically in (hole, next]
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+        }
+
+        used[hole] = false;
+        --size;
+        return true;
+    }
+
+    /**
+     * Remove all entries.
+     */
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    /**
+     * Get the first slot in use at or after a slot.
+     *
+     * @param slot the slot to start searching from, counting from 0
+     * @return the first slot in use at or after {@code slot}, or -1 if there is none
+     */
+    public int nextSlot(int slot) {
+        for (; slot < used.length; ++slot) {
+            if (used[slot]) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get the key in a slot in use.
+     *
+     * @param slot a slot returned by {@link #nextSlot(int)}
+     * @return the key
+     */
+    public long keyAt(int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * Get the value in a slot in use.
+     *
+     * @param slot a slot returned by {@link #nextSlot(int)}
+     * @return the value
+     */
+    public double valueAt(int slot) {
+        return values[slot];
+    }
+
+    /**
+     * Set the value in a slot in use.
+     *
+     * @param slot  a slot returned by {@link #nextSlot(int)}
+     * @param value the new value
+     */
+    public void setValueAt(int slot, double value) {
+        values[slot] = value;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final LongDoubleHashMap other = (LongDoubleHashMap) obj;
+        if (this.size != other.size) {
+            return false;
+        }
+        for (int slot = nextSlot(0); slot >= 0; slot = nextSlot(slot + 1)) {
+            int that = other.find(keys[slot]);
+            if (that < 0 || Double.compare(values[slot], other.values[that]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;//independent of the order of the entries, as in java.util.AbstractMap
+        for (int slot = nextSlot(0); slot >= 0; slot = nextSlot(slot + 1)) {
+            long bits = Double.doubleToLongBits(values[slot]);
+            hash += (int) (keys[slot] ^ (keys[slot] >>> 32)) ^ (int) (bits ^ (bits >>> 32));
+        }
+        return hash;
+    }
+
+    private int find(long key) {
+        for (int slot = hash(key) & mask; used[slot]; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        double[] oldValues = values;
+        boolean[] oldUsed = used;
+
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldUsed[i]) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (used[slot]) {
+                    slot = (slot + 1) & mask;
+                }
+                used[slot] = true;
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new double[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * Get the smallest power of 2 that holds {@code expectedSize} entries within the load factor.
+     */
+    private static int capacity(int expectedSize) {
+        int capacity = 2;
+        while (capacity * LOAD_FACTOR < Math.max(expectedSize, 1)) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * Scramble the bits of a key so that the low bits depend on all bits, by the finalizer of MurmurHash3.
+     */
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
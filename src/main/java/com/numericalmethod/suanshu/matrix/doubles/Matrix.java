@@ -56,21 +56,27 @@ public interface Matrix extends MatrixTable, MatrixRing, DeepCopyable {
 
     /**
      * Get the specified row in the matrix as a vector.
+     * For a part of a row of a {@link com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix}
+     * without copying, see
+     * {@link com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix#rowView(int, int, int) rowView}.
      *
      * @param i the row index
      * @return the vector <i>A[i, ]</i>
      * @throws MatrixAccessException when <i>i</i> &lt; 1, or when <i>i</i> &gt; the number of rows
      */
-    public Vector getRow(int i) throws MatrixAccessException;//TODO: extend to get a sub row efficiently
+    public Vector getRow(int i) throws MatrixAccessException;
 
     /**
      * Get the specified column in the matrix as a vector.
+     * For a part of a column of a {@link com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix}
+     * without copying, see
+     * {@link com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix#columnView(int, int, int) columnView}.
      *
      * @param j the column index
      * @return a vector <i>A[, j]</i>
      * @throws MatrixAccessException when <i>j</i> &lt; 1, or when <i>j</i> &gt; the number of columns
      */
-    public Vector getColumn(int j) throws MatrixAccessException;//TODO: extend to get a sub column efficiently
+    public Vector getColumn(int j) throws MatrixAccessException;
 
     @Override
     public Matrix deepCopy();//override the return type
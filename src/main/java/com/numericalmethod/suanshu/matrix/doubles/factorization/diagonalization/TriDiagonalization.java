@@ -1,19 +1,19 @@
 /*
  * Copyright (c) Numerical Method Inc.
  * http://www.numericalmethod.com/
- * 
+ *
  * THIS SOFTWARE IS LICENSED, NOT SOLD.
- * 
+ *
  * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
  * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
  * DO NOT USE THIS SOFTWARE.
- * 
+ *
  * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
  * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
  * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
  * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
  * TITLE AND USEFULNESS.
- * 
+ *
  * IN NO EVENT AND UNDER NO LEGAL THEORY,
  * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
  * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
@@ -22,10 +22,16 @@
  */
 package com.numericalmethod.suanshu.matrix.doubles.factorization.diagonalization;
 
+import com.numericalmethod.suanshu.datastructure.DimensionCheck;
 import com.numericalmethod.suanshu.matrix.doubles.IsMatrix;
 import com.numericalmethod.suanshu.matrix.doubles.Matrix;
 import com.numericalmethod.suanshu.matrix.doubles.factorization.eigen.qr.HessenbergDecomposition;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.diagonal.TridiagonalMatrix;
 import com.numericalmethod.suanshu.misc.SuanShuUtils;
+import com.numericalmethod.suanshu.parallel.LoopBody;
+import com.numericalmethod.suanshu.parallel.MultipleExecutionException;
+import com.numericalmethod.suanshu.parallel.ParallelExecutor;
 
 /**
  * A tri-diagonal matrix <i>A</i> is a matrix such that
@@ -35,17 +41,60 @@ import com.numericalmethod.suanshu.misc.SuanShuUtils;
  * The procedure is essentially the same as in Hessenberg decomposition, c.f., {@link HessenbergDecomposition},
  * except that here we apply the procedure only to symmetric matrix.
  * The trailing elements in rows are also zeroed out, due to symmetry.
+ * <p/>
+ * This implementation exploits the symmetry.
+ * Each reflection <i>H = I - &tau; * v * v'</i> is applied to both sides of the trailing sub-matrix at once by the rank-2 update
+ * <blockquote><i>A = A - v * w' - w * v'</i></blockquote>
+ * which touches only the lower triangle of a packed, row-major copy of <i>A</i>.
+ * The Householder vectors are kept so that <i>Q</i> can be applied to vectors, e.g., eigenvectors of <i>T</i>,
+ * without forming <i>Q</i>.
  *
  * @author Haksun Li
  * @see
  * <ul>
  * <li><a href="http://en.wikipedia.org/wiki/Tridiagonal_matrix">Wikipedia: Tridiagonal matrix</a>
  * <li><a href="http://en.wikipedia.org/wiki/Householder_transformation#TriDiagonalization">Wikipedia: TriDiagonalization</a>
+ * <li>"Gene H. Golub, Charles F. Van Loan, "Algorithm 8.3.1, Householder Tridiagonalization," Matrix Computations, 3rd edition."
  * </ul>
  */
 public class TriDiagonalization {
 
-    private final HessenbergDecomposition decomp;
+    /** the minimum number of multiplications to apply <i>Q</i> in parallel */
+    private static final long PARALLEL_THRESHOLD = 100L * 100L * 100L;
+    private final int dim;
+    /** the Householder vectors below the sub-diagonal, in a row-major <i>n x n</i> array */
+    private final double[] a;
+    /** the scaling factors of the Householder reflections */
+    private final double[] tau;
+    /** the main diagonal of <i>T</i> */
+    private final double[] diagonal;
+    /** the sub-diagonal (and super-diagonal) of <i>T</i> */
+    private final double[] subDiagonal;
+
+    /**
+     * Run the tri-diagonalization process for a symmetric matrix.
+     *
+     * @param A       a symmetric matrix
+     * @param epsilon a precision parameter: when a number |x| ≤ ε, it is considered 0
+     * @throws IllegalArgumentException if <i>A</i> is not symmetric
+     */
+    public TriDiagonalization(Matrix A, double epsilon) {
+        SuanShuUtils.assertArgument(DimensionCheck.isSquare(A), "Tridiagonalization applies to only square matrix");
+        SuanShuUtils.assertArgument(IsMatrix.symmetric(A, epsilon), "Tridiagonalization applies to only symmetric matrix");
+
+        this.dim = A.nRows();
+        this.a = new double[dim * dim];
+        for (int i = 1, k = 0; i <= dim; ++i, k += dim) {//copy the lower triangle
+            for (int j = 1; j <= i; ++j) {
+                a[k + j - 1] = A.get(i, j);
+            }
+        }
+        this.tau = new double[Math.max(dim - 2, 0)];
+        this.diagonal = new double[dim];
+        this.subDiagonal = new double[Math.max(dim - 1, 0)];
+
+        reduce();
+    }
 
     /**
      * Run the tri-diagonalization process for a symmetric matrix.
@@ -54,30 +103,225 @@ public class TriDiagonalization {
      * @throws IllegalArgumentException if <i>A</i> is not symmetric
      */
     public TriDiagonalization(Matrix A) {
-        SuanShuUtils.assertArgument(IsMatrix.symmetric(A, 0), "Tridiagonalization applies to only symmetric matrix");
-
-        this.decomp = new HessenbergDecomposition(A);
+        this(A, 0);
     }
 
     /**
-     * Get <i>T</i>, such that <i>T = Q * A * Q</i>.
-     * <i>T</i> is triangular.
+     * Get <i>T</i>, such that <i>T = Q' * A * Q</i>.
+     * <i>T</i> is tri-diagonal.
      * <i>Q</i> is orthogonal.
      *
      * @return the <i>T</i> matrix
      */
-    public Matrix T() {//TODO: return a TridiagonalMatrix
-        return decomp.H();
+    public TridiagonalMatrix T() {
+        return new TridiagonalMatrix(new double[][]{
+                    subDiagonal.clone(),
+                    diagonal.clone(),
+                    subDiagonal.clone()
+                });
     }
 
     /**
-     * Get <i>Q</i>, such that <i>Q * A * Q = T</i>.
+     * Get <i>Q</i>, such that <i>Q' * A * Q = T</i>.
      * <i>Q</i> is orthogonal.
-     * <i>T</i> is triangular.
+     * <i>T</i> is tri-diagonal.
      *
      * @return the <i>Q</i> matrix
      */
     public Matrix Q() {
-        return decomp.Q();
+        double[] Q = new double[dim * dim];
+        for (int i = 0; i < dim; ++i) {
+            Q[i * dim + i] = 1.;
+        }
+        applyQ(Q, dim);
+        return new DenseMatrix(Q, dim, dim);
+    }
+
+    /**
+     * Get the main diagonal of <i>T</i>.
+     *
+     * @return a copy of the main diagonal of <i>T</i>
+     */
+    public double[] diagonal() {
+        return diagonal.clone();
+    }
+
+    /**
+     * Get the sub-diagonal of <i>T</i>, which is the same as the super-diagonal.
+     *
+     * @return a copy of the sub-diagonal of <i>T</i>
+     */
+    public double[] subDiagonal() {
+        return subDiagonal.clone();
+    }
+
+    /**
+     * Overwrite <i>X</i> by <i>Q * X</i>.
+     * For example, if the columns of <i>X</i> are the eigenvectors of <i>T</i>, they become the eigenvectors of <i>A</i>.
+     *
+     * @param X     an <i>n x nCols</i> matrix in a row-major {@code double[]}
+     * @param nCols the number of columns of <i>X</i>
+     */
+    public void applyQ(final double[] X, final int nCols) {
+        SuanShuUtils.assertArgument(X.length == dim * nCols, "X must be an n x nCols matrix");
+
+        if (tau.length == 0 || nCols == 0) {
+            return;
+        }
+
+        final int blockSize = 64;
+        final int nBlocks = (nCols + blockSize - 1) / blockSize;
+        if (nBlocks == 1 || (long) dim * dim * nCols < PARALLEL_THRESHOLD) {
+            applyQ(X, nCols, 0, nCols);
+            return;
+        }
+
+        try {//the columns are independent of each other
+            ParallelExecutor.getSharedInstance().forLoop(0, nBlocks, new LoopBody() {
+
+                @Override
+                public void run(int block) throws Exception {
+                    applyQ(X, nCols, block * blockSize, Math.min((block + 1) * blockSize, nCols));
+                }
+            });
+        } catch (MultipleExecutionException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Apply <i>Q = H<sub>1</sub>...H<sub>n-2</sub></i> to the columns {@code [from, to)} of <i>X</i>.
+     */
+    private void applyQ(double[] X, int nCols, int from, int to) {
+        final double[] w = new double[to - from];
+
+        for (int k = tau.length - 1; k >= 0; --k) {
+            if (tau[k] == 0.) {
+                continue;
+            }
+
+            //w = v' * X, where v[k+1] = 1 and v[i] = a[i][k] for i > k+1
+            final int r0 = (k + 1) * nCols;
+            for (int c = from; c < to; ++c) {
+                w[c - from] = X[r0 + c];
+            }
+            for (int i = k + 2; i < dim; ++i) {
+                final double v = a[i * dim + k];
+                if (v != 0.) {
+                    final int ri = i * nCols;
+                    for (int c = from; c < to; ++c) {
+                        w[c - from] += v * X[ri + c];
+                    }
+                }
+            }
+
+            //X = X - tau * v * w
+            for (int c = from; c < to; ++c) {
+                w[c - from] *= tau[k];
+                X[r0 + c] -= w[c - from];
+            }
+            for (int i = k + 2; i < dim; ++i) {
+                final double v = a[i * dim + k];
+                if (v != 0.) {
+                    final int ri = i * nCols;
+                    for (int c = from; c < to; ++c) {
+                        X[ri + c] -= v * w[c - from];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reduce the lower triangle of {@link #a} to the tri-diagonal form.
+     */
+    private void reduce() {
+        final int n = dim;
+        final double[] p = new double[n];
+
+        for (int k = 0; k < n - 2; ++k) {
+            //the Householder vector that annihilates a[k+2:n, k]
+            final int kk = (k + 1) * n + k;
+            double scale = 0.;
+            for (int i = k + 2; i < n; ++i) {
+                scale = Math.max(scale, Math.abs(a[i * n + k]));
+            }
+            if (scale == 0.) {//already tri-diagonal in this column
+                tau[k] = 0.;
+                subDiagonal[k] = a[kk];
+                diagonal[k] = a[k * n + k];
+                continue;
+            }
+
+            scale = Math.max(scale, Math.abs(a[kk]));
+            double ssq = 0.;
+            for (int i = k + 1; i < n; ++i) {
+                final double x = a[i * n + k] / scale;
+                ssq += x * x;
+            }
+            final double norm = scale * Math.sqrt(ssq);
+            final double alpha = a[kk];
+            final double beta = alpha >= 0 ? -norm : norm;
+            final double t = (beta - alpha) / beta;
+            final double s = 1. / (alpha - beta);
+            for (int i = k + 2; i < n; ++i) {
+                a[i * n + k] *= s;
+            }
+            tau[k] = t;
+            subDiagonal[k] = beta;
+            diagonal[k] = a[k * n + k];
+
+            //p = tau * A22 * v, using only the lower triangle of A22
+            for (int i = k + 1; i < n; ++i) {
+                p[i] = 0.;
+            }
+            for (int i = k + 1; i < n; ++i) {
+                final int ri = i * n;
+                final double vi = v(k, i);
+                double sum = 0.;
+                for (int j = k + 1; j < i; ++j) {
+                    final double aij = a[ri + j];
+                    final double vj = v(k, j);
+                    sum += aij * vj;
+                    p[j] += aij * vi;
+                }
+                p[i] += sum + a[ri + i] * vi;
+            }
+
+            //w = p - (tau * p'v / 2) * v
+            double pv = 0.;
+            for (int i = k + 1; i < n; ++i) {
+                p[i] *= t;
+                pv += p[i] * v(k, i);
+            }
+            final double c = 0.5 * t * pv;
+            for (int i = k + 1; i < n; ++i) {
+                p[i] -= c * v(k, i);
+            }
+
+            //A22 = A22 - v * w' - w * v', lower triangle only
+            for (int i = k + 1; i < n; ++i) {
+                final int ri = i * n;
+                final double vi = v(k, i);
+                final double wi = p[i];
+                for (int j = k + 1; j <= i; ++j) {
+                    a[ri + j] -= vi * p[j] + wi * v(k, j);
+                }
+            }
+        }
+
+        for (int k = Math.max(n - 2, 0); k < n; ++k) {
+            diagonal[k] = a[k * n + k];
+        }
+        if (n >= 2) {
+            subDiagonal[n - 2] = a[(n - 1) * n + n - 2];
+        }
+    }
+
+    /**
+     * Get the <i>i</i>-th entry of the <i>k</i>-th Householder vector, for <i>i &gt; k</i>.
+     */
+    private double v(int k, int i) {
+        return i == k + 1 ? 1. : a[i * dim + k];
     }
 }
@@ -31,6 +31,7 @@ import static com.numericalmethod.suanshu.misc.SuanShuUtils.autoEpsilon;
 import com.numericalmethod.suanshu.number.DoubleUtils;
 import com.numericalmethod.suanshu.number.NumberUtils;
 import static com.numericalmethod.suanshu.number.NumberUtils.isReal;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
 import java.util.*;
 
 /**
@@ -60,7 +61,7 @@ public class Eigen implements Spectrum {//TODO: refactor this lenghty code
          */
         CHARACTERISTIC_POLYNOMIAL,
         /**
-         * for a symmetric matrix (<em>Not supported yet.</em>)
+         * for a symmetric matrix, c.f., {@link SymmetricQLAlgorithm}
          */
         SYMMETRY,
         /**
@@ -100,16 +101,17 @@ public class Eigen implements Spectrum {//TODO: refactor this lenghty code
                     }
                 });
 
+        if (method == Method.SYMMETRY) {//the eigenvectors come with the eigenvalues
+            putSymmetricEigenProperties(epsilon);
+            return;
+        }
+
         Spectrum impl;
         //select an implementation here
         switch (method) {
             case CHARACTERISTIC_POLYNOMIAL:
                 impl = new CharacteristicPolynomial(this.A);
                 break;
-            case SYMMETRY:
-                throw new UnsupportedOperationException("Not supported yet.");
-//                impl = null;
-//                break;
             case QR:
             default:
                 impl = new QRAlgorithm(this.A, Integer.MAX_VALUE, epsilon);
@@ -137,6 +139,30 @@ public class Eigen implements Spectrum {//TODO: refactor this lenghty code
         }
     }
 
+    /**
+     * Compute the eigenvalues and eigenvectors for a <em>symmetric</em> matrix by {@link SymmetricQLAlgorithm}.
+     * The eigenvalues within <i>ε</i> of each other are considered the same.
+     * Their orthonormal eigenvectors form the eigen basis.
+     */
+    private void putSymmetricEigenProperties(double epsilon) {
+        SymmetricQLAlgorithm ql = new SymmetricQLAlgorithm(A, epsilon);
+        double[] eigenvalues = ql.getRealEigenvalues();
+
+        TreeMap<Number, List<Vector>> bases = new TreeMap<Number, List<Vector>>(map.comparator());
+        for (int i = 0; i < eigenvalues.length; ++i) {
+            List<Vector> basis = bases.get(eigenvalues[i]);
+            if (basis == null) {
+                basis = new ArrayList<Vector>();
+                bases.put(eigenvalues[i], basis);
+            }
+            basis.add(ql.getEigenvector(i));
+        }
+
+        for (Map.Entry<Number, List<Vector>> entry : bases.entrySet()) {
+            map.put(entry.getKey(), new EigenProperty(entry.getKey(), entry.getValue()));
+        }
+    }
+
     /**
      * Compute the eigenvalues and eigenvectors for a <em>square</em> matrix.
      *
@@ -46,16 +46,29 @@ public class EigenDecomposition {
     private final Eigen eigen;
 
     /**
-     * Run the eigen decomposition on a <em>square</em> matrix.
+     * Run the eigen decomposition on a <em>square</em> matrix using the specified algorithm.
+     * For a symmetric matrix, {@link Eigen.Method#SYMMETRY} is much faster,
+     * and <i>Q</i> is orthogonal.
      *
      * @param A       a square, <em>diagonalizable</em> matrix
+     * @param method  the eigen decomposition algorithm, c.f., {@link Eigen.Method}
      * @param epsilon a precision parameter: when a number |x| ≤ ε, it is considered 0
      */
-    public EigenDecomposition(Matrix A, double epsilon) {
+    public EigenDecomposition(Matrix A, Eigen.Method method, double epsilon) {
         SuanShuUtils.assertArgument(DimensionCheck.isSquare(A), "eigen decomposition applies only to square matrices");
 
         this.dim = A.nRows();
-        this.eigen = new Eigen(A, Eigen.Method.QR, epsilon);
+        this.eigen = new Eigen(A, method, epsilon);
+    }
+
+    /**
+     * Run the eigen decomposition on a <em>square</em> matrix.
+     *
+     * @param A       a square, <em>diagonalizable</em> matrix
+     * @param epsilon a precision parameter: when a number |x| ≤ ε, it is considered 0
+     */
+    public EigenDecomposition(Matrix A, double epsilon) {
+        this(A, Eigen.Method.QR, epsilon);
     }
 
     /**
@@ -66,6 +66,20 @@ public class EigenProperty {
         }
     }
 
+    /**
+     * Construct the information for an eigenvalue whose eigenvectors are already known,
+     * e.g., from {@link SymmetricQLAlgorithm}.
+     * The algebraic multiplicity is the number of eigenvectors.
+     *
+     * @param eigenvalue an eigenvalue
+     * @param eigenBasis the linearly independent eigenvectors
+     */
+    EigenProperty(Number eigenvalue, List<Vector> eigenBasis) {
+        this.eigenvalue = eigenvalue;
+        this.multiplicity = eigenBasis.size();
+        this.eigenBasis.addAll(eigenBasis);
+    }
+
     //TODO: what is the proper way to numerically compute the eigenvectors?
     private ArrayList<Vector> getEigenVectors(double eigenvalue, int multiplicity, Matrix A, double epsilon) {
         double eps = epsilon != 0 ? epsilon : 1e-15;
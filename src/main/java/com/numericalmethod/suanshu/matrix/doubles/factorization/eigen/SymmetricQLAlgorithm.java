@@ -0,0 +1,506 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.factorization.eigen;
+
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.factorization.diagonalization.TriDiagonalization;
+import com.numericalmethod.suanshu.matrix.doubles.factorization.eigen.qr.QRAlgorithm;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix;
+import com.numericalmethod.suanshu.misc.SuanShuUtils;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This is the eigen decomposition of a <em>symmetric</em> matrix by the implicit QL algorithm.
+ * The matrix is first reduced to a tri-diagonal matrix <i>T = Q' * A * Q</i> by {@link TriDiagonalization}.
+ * The implicit QL iterations with Wilkinson shifts then drive the off-diagonal of <i>T</i> to 0.
+ * All eigenvalues are real, and the eigenvectors are orthonormal.
+ * <p/>
+ * There are two ways to compute the eigenvectors.
+ * <ul>
+ * <li>When all eigenvectors are wanted, the plane rotations are accumulated as in the procedure {@code tql2}.
+ * The rotations are applied to two contiguous rows of <i>Z'</i> so that the inner loop is vectorized.
+ * <li>When only the eigenvectors of the <i>k</i> largest eigenvalues are wanted,
+ * the eigenvalues are computed without the rotations,
+ * and each eigenvector of <i>T</i> is computed by inverse iteration on <i>T - &lambda;I</i> in <i>O(n)</i> operations,
+ * re-orthogonalized against the eigenvectors of the close eigenvalues.
+ * The cost after the reduction is <i>O(n<sup>2</sup>k)</i> instead of <i>O(n<sup>3</sup>)</i>.
+ * </ul>
+ * In both cases, the eigenvectors of <i>T</i> are transformed back by {@link TriDiagonalization#applyQ(double[], int)}.
+ * <p/>
+ * This is faster and more accurate than running the general {@link QRAlgorithm} on a symmetric matrix,
+ * which neither exploits the symmetry nor guarantees real eigenvalues and orthogonal eigenvectors.
+ * <p/>
+ * The eigenvalues are sorted in descending order.
+ * Each eigenvector has a unit norm, and its last non-zero entry is positive.
+ *
+ * @author Haksun Li
+ * @see
+ * <ul>
+ * <li>"H. Bowdler, R. S. Martin, C. Reinsch, J. H. Wilkinson, "The QR and QL algorithms for symmetric matrices," Numerische Mathematik, vol. 11, p. 293 - 306, 1968."
+ * <li>"Gene H. Golub, Charles F. Van Loan, "Section 8.3, The Symmetric QR Algorithm," Matrix Computations, 3rd edition."
+ * <li>"Inderjit S. Dhillon, "Current inverse iteration software can fail," BIT Numerical Mathematics, vol. 38, no. 4, p. 685 - 704, 1998."
+ * </ul>
+ */
+public class SymmetricQLAlgorithm implements Spectrum {
+
+    /** the maximum number of QL iterations to find an eigenvalue */
+    private static final int MAX_ITERATIONS = 30;
+    /** the number of inverse iterations for an eigenvector */
+    private static final int N_INVERSE_ITERATIONS = 3;
+    private static final double EPS = Math.ulp(1.);
+    private final int dim;
+    /** the eigenvalues in descending order */
+    private final double[] eigenvalues;
+    /** the eigenvectors of the {@link #nEigenvectors} largest eigenvalues, in the columns of a row-major <i>n x k</i> array */
+    private final double[] eigenvectors;
+    private final int nEigenvectors;
+
+    /**
+     * Compute all the eigenvalues and the eigenvectors of the <i>k</i> largest eigenvalues of a symmetric matrix.
+     *
+     * @param A             a symmetric matrix
+     * @param nEigenvectors the number of eigenvectors to compute, <i>k</i>, from 0 to the dimension of <i>A</i>
+     * @param epsilon       a precision parameter: when a number |x| ≤ ε, it is considered 0
+     * @throws IllegalArgumentException if <i>A</i> is not symmetric
+     */
+    public SymmetricQLAlgorithm(Matrix A, int nEigenvectors, double epsilon) {
+        SuanShuUtils.assertArgument(0 <= nEigenvectors && nEigenvectors <= A.nRows(),
+                                    "the number of eigenvectors must be between 0 and %d", A.nRows());
+
+        TriDiagonalization tridiagonal = new TriDiagonalization(A, epsilon);
+        this.dim = A.nRows();
+        this.nEigenvectors = nEigenvectors;
+
+        final double[] d = tridiagonal.diagonal();
+        final double[] e = Arrays.copyOf(tridiagonal.subDiagonal(), dim);//e[n-1] = 0
+
+        double[] lambda = d.clone();
+        double[] Zt = null;
+        if (nEigenvectors == dim) {//accumulate the rotations
+            Zt = new double[dim * dim];
+            for (int i = 0; i < dim; ++i) {
+                Zt[i * dim + i] = 1.;
+            }
+        }
+        ql(lambda, e.clone(), Zt);
+
+        final int[] order = descendingOrder(lambda);
+        this.eigenvalues = new double[dim];
+        for (int i = 0; i < dim; ++i) {
+            eigenvalues[i] = lambda[order[i]];
+        }
+
+        this.eigenvectors = new double[dim * nEigenvectors];
+        if (Zt != null) {
+            for (int j = 0; j < nEigenvectors; ++j) {
+                final int zj = order[j] * dim;
+                for (int i = 0; i < dim; ++i) {
+                    eigenvectors[i * nEigenvectors + j] = Zt[zj + i];
+                }
+            }
+        } else {
+            inverseIteration(d, e);
+        }
+
+        tridiagonal.applyQ(eigenvectors, nEigenvectors);
+        normalizeSigns();
+    }
+
+    /**
+     * Compute all the eigenvalues and eigenvectors of a symmetric matrix.
+     *
+     * @param A       a symmetric matrix
+     * @param epsilon a precision parameter: when a number |x| ≤ ε, it is considered 0
+     * @throws IllegalArgumentException if <i>A</i> is not symmetric
+     */
+    public SymmetricQLAlgorithm(Matrix A, double epsilon) {
+        this(A, A.nRows(), epsilon);
+    }
+
+    /**
+     * Compute all the eigenvalues and eigenvectors of a symmetric matrix.
+     *
+     * @param A a symmetric matrix
+     * @throws IllegalArgumentException if <i>A</i> is not symmetric
+     */
+    public SymmetricQLAlgorithm(Matrix A) {
+        this(A, SuanShuUtils.autoEpsilon(A));
+    }
+
+    /**
+     * {@inheritDoc}
+     * The eigenvalues are sorted in descending order.
+     *
+     * @return the eigenvalues
+     */
+    @Override
+    public List<Number> getEigenvalues() {
+        List<Number> result = new ArrayList<Number>(dim);
+        for (double eigenvalue : eigenvalues) {
+            result.add(eigenvalue);
+        }
+        return result;
+    }
+
+    /**
+     * Get the eigenvalues in descending order.
+     *
+     * @return the eigenvalues
+     */
+    public double[] getRealEigenvalues() {
+        return eigenvalues.clone();
+    }
+
+    /**
+     * Get the number of eigenvectors computed.
+     *
+     * @return the number of eigenvectors
+     */
+    public int nEigenvectors() {
+        return nEigenvectors;
+    }
+
+    /**
+     * Get the eigenvectors of the <i>k</i> largest eigenvalues.
+     * The <i>i</i>-th column is the eigenvector of the <i>i</i>-th largest eigenvalue.
+     *
+     * @return the <i>n x k</i> matrix of eigenvectors
+     */
+    public Matrix getEigenvectors() {
+        return new DenseMatrix(eigenvectors.clone(), dim, nEigenvectors);
+    }
+
+    /**
+     * Get the eigenvector of the <i>i</i>-th largest eigenvalue.
+     * The index counts from 0 to agree with the {@code List<Number>} convention.
+     *
+     * @param i an index, counting from 0
+     * @return the <i>i</i>-th eigenvector
+     */
+    public Vector getEigenvector(int i) {
+        SuanShuUtils.assertArgument(0 <= i && i < nEigenvectors, "only %d eigenvectors are computed", nEigenvectors);
+
+        double[] v = new double[dim];
+        for (int r = 0; r < dim; ++r) {
+            v[r] = eigenvectors[r * nEigenvectors + i];
+        }
+        return new DenseVector(v);
+    }
+
+    /**
+     * Run the implicit QL iterations on a symmetric tri-diagonal matrix.
+     * On return, {@code d} holds the (unsorted) eigenvalues.
+     * If {@code Zt} is not {@code null}, the rotations are accumulated in its rows.
+     *
+     * @param d  the diagonal
+     * @param e  the sub-diagonal, where {@code e[i]} couples {@code d[i]} and {@code d[i+1]}, and {@code e[n-1] = 0}
+     * @param Zt an <i>n x n</i> row-major array, or {@code null} if the eigenvectors are not wanted
+     * @see "EISPACK procedures tql1 and tql2"
+     */
+    private void ql(double[] d, double[] e, double[] Zt) {
+        final int n = dim;
+        double f = 0.;
+        double tst1 = 0.;
+
+        for (int l = 0; l < n; ++l) {
+            //look for a small sub-diagonal element
+            tst1 = Math.max(tst1, Math.abs(d[l]) + Math.abs(e[l]));
+            int m = l;
+            while (m < n - 1 && Math.abs(e[m]) > EPS * tst1) {
+                ++m;
+            }
+
+            if (m > l) {//d[l] is not yet an eigenvalue
+                int iter = 0;
+                do {
+                    if (++iter > MAX_ITERATIONS) {
+                        throw new RuntimeException("the QL algorithm does not converge");
+                    }
+
+                    //compute the implicit shift
+                    double g = d[l];
+                    double p = (d[l + 1] - g) / (2. * e[l]);
+                    double r = hypot(p, 1.);
+                    if (p < 0) {
+                        r = -r;
+                    }
+                    d[l] = e[l] / (p + r);
+                    d[l + 1] = e[l] * (p + r);
+                    final double dl1 = d[l + 1];
+                    double h = g - d[l];
+                    for (int i = l + 2; i < n; ++i) {
+                        d[i] -= h;
+                    }
+                    f += h;
+
+                    //the implicit QL transformation
+                    p = d[m];
+                    double c = 1., c2 = 1., c3 = 1.;
+                    final double el1 = e[l + 1];
+                    double s = 0., s2 = 0.;
+                    for (int i = m - 1; i >= l; --i) {
+                        c3 = c2;
+                        c2 = c;
+                        s2 = s;
+                        g = c * e[i];
+                        h = c * p;
+                        r = hypot(p, e[i]);
+                        e[i + 1] = s * r;
+                        s = e[i] / r;
+                        c = p / r;
+                        p = c * d[i] - s * g;
+                        d[i + 1] = h + s * (c * g + s * d[i]);
+
+                        if (Zt != null) {//rotate the rows i and i+1
+                            final int zi = i * n;
+                            final int zi1 = zi + n;
+                            for (int k = 0; k < n; ++k) {
+                                final double zk = Zt[zi1 + k];
+                                Zt[zi1 + k] = s * Zt[zi + k] + c * zk;
+                                Zt[zi + k] = c * Zt[zi + k] - s * zk;
+                            }
+                        }
+                    }
+                    p = -s * s2 * c3 * el1 * e[l] / dl1;
+                    e[l] = s * p;
+                    d[l] = c * p;
+                } while (Math.abs(e[l]) > EPS * tst1);
+            }
+
+            d[l] += f;
+            e[l] = 0.;
+        }
+    }
+
+    /**
+     * Compute the eigenvectors of <i>T</i> for the {@link #nEigenvectors} largest eigenvalues by inverse iteration.
+     * The eigenvectors of eigenvalues closer than 10<sup>-3</sup> * |T| are re-orthogonalized against each other.
+     *
+     * @param d the diagonal of <i>T</i>
+     * @param e the sub-diagonal of <i>T</i>, padded with a 0
+     */
+    private void inverseIteration(double[] d, double[] e) {
+        final int n = dim;
+        final int k = nEigenvectors;
+
+        double tNorm = 0.;
+        for (int i = 0; i < n; ++i) {
+            tNorm = Math.max(tNorm, Math.abs(d[i]) + Math.abs(e[i]) + (i > 0 ? Math.abs(e[i - 1]) : 0.));
+        }
+        final double tiny = tNorm > 0. ? EPS * tNorm : 1.;//replaces a 0 pivot
+        final double orthogonalizationTolerance = 1e-3 * tNorm;
+        final double perturbation = 10. * EPS * tNorm;
+
+        final TridiagonalLU lu = new TridiagonalLU(n);
+        final double[][] z = new double[k][];
+        final Random rng = new Random(1234567890L);
+
+        double shift = 0.;
+        int clusterStart = 0;
+        for (int j = 0; j < k; ++j) {
+            if (j == 0) {
+                shift = eigenvalues[0];
+            } else {
+                if (eigenvalues[j - 1] - eigenvalues[j] > orthogonalizationTolerance) {
+                    clusterStart = j;
+                }
+                shift = Math.min(eigenvalues[j], shift - perturbation);//separate equal eigenvalues
+            }
+            lu.factorize(d, e, shift, tiny);
+
+            double[] x = new double[n];
+            for (int i = 0; i < n; ++i) {
+                x[i] = rng.nextDouble() - 0.5;
+            }
+            for (int it = 0; it < N_INVERSE_ITERATIONS; ++it) {
+                lu.solve(x);
+                for (int l = clusterStart; l < j; ++l) {//modified Gram-Schmidt within the cluster
+                    final double dot = dot(z[l], x);
+                    for (int i = 0; i < n; ++i) {
+                        x[i] -= dot * z[l][i];
+                    }
+                }
+                final double norm = Math.sqrt(dot(x, x));
+                if (norm == 0. || Double.isInfinite(norm) || Double.isNaN(norm)) {//restart from another vector
+                    for (int i = 0; i < n; ++i) {
+                        x[i] = rng.nextDouble() - 0.5;
+                    }
+                    continue;
+                }
+                for (int i = 0; i < n; ++i) {
+                    x[i] /= norm;
+                }
+            }
+
+            z[j] = x;
+            for (int i = 0; i < n; ++i) {
+                eigenvectors[i * k + j] = x[i];
+            }
+        }
+    }
+
+    /**
+     * Make the last non-negligible entry of each eigenvector positive.
+     */
+    private void normalizeSigns() {
+        final double threshold = Math.sqrt(EPS);
+        for (int j = 0; j < nEigenvectors; ++j) {
+            for (int i = dim - 1; i >= 0; --i) {
+                final double x = eigenvectors[i * nEigenvectors + j];
+                if (Math.abs(x) > threshold) {
+                    if (x < 0) {
+                        for (int r = 0; r < dim; ++r) {
+                            eigenvectors[r * nEigenvectors + j] = -eigenvectors[r * nEigenvectors + j];
+                        }
+                    }
+                    break;
+                }
+            }
+        }
+    }
+
+    private static int[] descendingOrder(double[] x) {
+        final int[] order = new int[x.length];
+        for (int i = 0; i < x.length; ++i) {//insertion sort; the QL algorithm finds the eigenvalues nearly sorted
+            int j = i;
+            for (; j > 0 && x[order[j - 1]] < x[i]; --j) {
+                order[j] = order[j - 1];
+            }
+            order[j] = i;
+        }
+        return order;
+    }
+
+    private static double dot(double[] x, double[] y) {
+        double sum = 0.;
+        for (int i = 0; i < x.length; ++i) {
+            sum += x[i] * y[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Compute <i>sqrt(a<sup>2</sup> + b<sup>2</sup>)</i> without overflow.
+     * This is much faster than {@link Math#hypot(double, double)}, which is correctly rounded.
+     */
+    private static double hypot(double a, double b) {
+        final double absA = Math.abs(a);
+        final double absB = Math.abs(b);
+        if (absA > absB) {
+            final double r = absB / absA;
+            return absA * Math.sqrt(1. + r * r);
+        } else if (absB > 0.) {
+            final double r = absA / absB;
+            return absB * Math.sqrt(1. + r * r);
+        }
+        return 0.;
+    }
+
+    /**
+     * This is the LU decomposition with partial pivoting of a shifted symmetric tri-diagonal matrix, <i>T - &sigma;I</i>.
+     * <i>U</i> has two super-diagonals because of the row interchanges.
+     */
+    private static class TridiagonalLU {
+
+        private final int n;
+        private final double[] u1;//the diagonal of U
+        private final double[] u2;//the first super-diagonal of U
+        private final double[] u3;//the second super-diagonal of U
+        private final double[] multipliers;
+        private final boolean[] swapped;
+
+        private TridiagonalLU(int n) {
+            this.n = n;
+            this.u1 = new double[n];
+            this.u2 = new double[n];
+            this.u3 = new double[n];
+            this.multipliers = new double[n];
+            this.swapped = new boolean[n];
+        }
+
+        private void factorize(double[] d, double[] e, double shift, double tiny) {
+            double a = d[0] - shift;//the current row is (a, b) from the diagonal
+            double b = n > 1 ? e[0] : 0.;
+            for (int i = 0; i < n - 1; ++i) {
+                final double lower = e[i];//the next row is (lower, diag, upper)
+                final double diag = d[i + 1] - shift;
+                final double upper = i + 1 < n - 1 ? e[i + 1] : 0.;
+
+                if (Math.abs(a) >= Math.abs(lower)) {
+                    if (Math.abs(a) < tiny) {//avoid overflow in the back substitution
+                        a = a >= 0. ? tiny : -tiny;
+                    }
+                    final double m = lower / a;
+                    swapped[i] = false;
+                    multipliers[i] = m;
+                    u1[i] = a;
+                    u2[i] = b;
+                    u3[i] = 0.;
+                    a = diag - m * b;
+                    b = upper;
+                } else {
+                    final double m = a / lower;
+                    swapped[i] = true;
+                    multipliers[i] = m;
+                    u1[i] = lower;
+                    u2[i] = diag;
+                    u3[i] = upper;
+                    a = b - m * diag;
+                    b = -m * upper;
+                }
+            }
+            u1[n - 1] = Math.abs(a) >= tiny ? a : (a >= 0. ? tiny : -tiny);
+        }
+
+        /**
+         * Overwrite <i>x</i> by <i>(T - &sigma;I)<sup>-1</sup> * x</i>.
+         */
+        private void solve(double[] x) {
+            for (int i = 0; i < n - 1; ++i) {//forward elimination
+                if (swapped[i]) {
+                    final double xi = x[i];
+                    x[i] = x[i + 1];
+                    x[i + 1] = xi - multipliers[i] * x[i];
+                } else {
+                    x[i + 1] -= multipliers[i] * x[i];
+                }
+            }
+
+            for (int i = n - 1; i >= 0; --i) {//backward substitution
+                double value = x[i];
+                if (i + 1 < n) {
+                    value -= u2[i] * x[i + 1];
+                }
+                if (i + 2 < n) {
+                    value -= u3[i] * x[i + 2];
+                }
+                x[i] = value / u1[i];
+            }
+        }
+    }
+}
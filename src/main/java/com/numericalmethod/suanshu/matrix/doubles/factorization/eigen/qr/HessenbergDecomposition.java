@@ -24,7 +24,7 @@ package com.numericalmethod.suanshu.matrix.doubles.factorization.eigen.qr;
 
 import com.numericalmethod.suanshu.datastructure.DimensionCheck;
 import com.numericalmethod.suanshu.matrix.doubles.Matrix;
-import com.numericalmethod.suanshu.matrix.doubles.operation.CreateMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix;
 import com.numericalmethod.suanshu.matrix.doubles.operation.Householder;
 import com.numericalmethod.suanshu.matrix.doubles.operation.Householder.Context;
 import com.numericalmethod.suanshu.misc.SuanShuUtils;
@@ -101,7 +101,8 @@ public class HessenbergDecomposition {
             return;
         }
 
-        H = A.deepCopy();
+        DenseMatrix H = new DenseMatrix(A);//reduced in place
+        this.H = H;
         Hs = new Householder[dim - 1];//0-th element is not used
 
         //We apply the Householder operator repeatedly on each columns, hence looping over columns.
@@ -113,17 +114,11 @@ public class HessenbergDecomposition {
             Context defn = Householder.getContext(subVector(H.getColumn(i), i + 1, dim));
             Hs[i] = new Householder(defn.generator);
 
-            //TODO: how to avoid copying the sub-matrices back and forth?
-
-            //reflect columns
-            Matrix sub1 = CreateMatrix.subMatrix(H, i + 1, dim, i, dim);
-            Matrix Hxsub1 = Hs[i].reflect(sub1);//TODO: reflect takes DenseMatrix, but not SubMatrixRef
-            CreateMatrix.replace(H, i + 1, dim, i, dim, Hxsub1);
+            //reflect columns, in place on a view of the sub-matrix
+            Hs[i].reflectInPlace(H.subMatrixView(i + 1, dim, i, dim));
 
             //reflect rows
-            Matrix sub2 = CreateMatrix.subMatrix(H, 1, dim, i + 1, dim);
-            Matrix Hxsub2 = Hs[i].reflectRows(sub2);
-            CreateMatrix.replace(H, 1, dim, i + 1, dim, Hxsub2);
+            Hs[i].reflectRowsInPlace(H.subMatrixView(1, dim, i + 1, dim));
         }
     }
 
@@ -0,0 +1,592 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.factorization.qr;
+
+import com.numericalmethod.suanshu.matrix.MatrixSingularityException;
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.PermutationMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.BlockedMatrixMultiplication;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.triangle.UpperTriangularMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.operation.MatrixUtils;
+import com.numericalmethod.suanshu.misc.SuanShuUtils;
+import static com.numericalmethod.suanshu.number.DoubleUtils.compare;
+import static com.numericalmethod.suanshu.number.DoubleUtils.isZero;
+import com.numericalmethod.suanshu.parallel.MultipleExecutionException;
+import com.numericalmethod.suanshu.parallel.ParallelExecutor;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * This is a blocked Householder QR decomposition which keeps <i>Q</i> in the compact WY form.
+ * <p/>
+ * The factorization works on a packed, row-major {@code double[]} copy of <i>A</i>, as in LAPACK's {@code dgeqrf}.
+ * On return, the upper triangle is <i>R</i>, and the Householder vectors <i>v<sub>j</sub></i>
+ * (with an implicit 1 on the diagonal) are stored below it.
+ * The columns are processed in panels of {@value #NB}.
+ * The reflectors of a panel, <i>H<sub>1</sub>...H<sub>b</sub></i>, are accumulated into a block reflector
+ * <blockquote><i>I - V * T * V<sup>t</sup></i></blockquote>
+ * where <i>T</i> is a small <i>b x b</i> upper triangular matrix.
+ * The trailing columns are updated by the block reflector using the cache-blocked kernel {@link BlockedMatrixMultiplication},
+ * instead of one reflector at a time.
+ * <p/>
+ * <i>Q</i> is never formed unless {@link #Q()} or {@link #squareQ()} is called.
+ * {@link #applyQt(Vector)}, {@link #applyQ(Vector)} and {@link #solve(Vector)} apply the block reflectors directly
+ * in <i>O(mn)</i> operations and memory.
+ * For a tall-skinny matrix that does not fit in memory, or to factorize chunks of rows in parallel, see {@link TSQR}.
+ *
+ * @author Haksun Li
+ * @see
+ * <ul>
+ * <li>"Robert Schreiber, Charles Van Loan, "A storage-efficient WY representation for products of Householder transformations," SIAM Journal on Scientific and Statistical Computing, vol. 10, no. 1, p. 53 - 57, 1989."
+ * <li>"Gene H. Golub, Charles F. Van Loan, "Section 5.2.3, Block Householder QR Factorization," Matrix Computations, 3rd edition."
+ * </ul>
+ */
+public class BlockedHouseholderQR implements QRDecomposition {
+
+    /** the number of columns in a panel */
+    public static final int NB = 32;
+    /** the minimum number of multiplications to apply a block reflector in parallel */
+    private static final long PARALLEL_THRESHOLD = 100L * 100L * 100L;
+    /** <i>R</i> in the upper triangle and the Householder vectors below it, in a row-major <i>m x n</i> array */
+    private final double[] qr;
+    /** the scaling factors of the Householder reflectors, <i>H<sub>j</sub> = I - tau<sub>j</sub> * v<sub>j</sub> * v<sub>j</sub><sup>t</sup></i> */
+    private final double[] tau;
+    /** the <i>T</i> matrix of the block reflector of each panel, in row-major */
+    private final double[][] T;
+    private final int nRows;
+    private final int nCols;
+    /** the number of reflectors, <i>min(m, n)</i> */
+    private final int nReflectors;
+    private final double epsilon;
+
+    /**
+     * Run the blocked Householder QR decomposition on a matrix.
+     *
+     * @param A       a matrix, where the number of rows &ge; the number of columns
+     * @param epsilon a precision parameter: when a number |x| ≤ ε, it is considered 0
+     * @throws IllegalArgumentException if the number of rows &lt; the number of columns
+     */
+    public BlockedHouseholderQR(Matrix A, double epsilon) {
+        this(checkTall(A), A.nRows(), A.nCols(), epsilon);
+    }
+
+    /**
+     * Run the blocked Householder QR decomposition on a matrix.
+     *
+     * @param A a matrix, where the number of rows &ge; the number of columns
+     * @throws IllegalArgumentException if the number of rows &lt; the number of columns
+     */
+    public BlockedHouseholderQR(Matrix A) {
+        this(A, SuanShuUtils.autoEpsilon(A));
+    }
+
+    /**
+     * Run the blocked Householder QR decomposition on a matrix stored in a row-major {@code double[]}, which is overwritten.
+     * The matrix may have fewer rows than columns, in which case <i>R</i> is upper trapezoidal.
+     *
+     * @param A       the matrix entries in row-major order
+     * @param nRows   the number of rows
+     * @param nCols   the number of columns
+     * @param epsilon a precision parameter: when a number |x| ≤ ε, it is considered 0
+     */
+    BlockedHouseholderQR(double[] A, int nRows, int nCols, double epsilon) {
+        this.qr = A;
+        this.nRows = nRows;
+        this.nCols = nCols;
+        this.nReflectors = Math.min(nRows, nCols);
+        this.epsilon = epsilon;
+        this.tau = new double[nReflectors];
+        this.T = new double[(nReflectors + NB - 1) / NB][];
+
+        factorize();
+    }
+
+    private static double[] checkTall(Matrix A) {
+        SuanShuUtils.assertArgument((A.nRows() >= A.nCols()),
+                                    "QR decomposition by Householder Reflection applies to matrix where the number of rows >= the number of columns");
+        return MatrixUtils.to1DArray(A);
+    }
+
+    @Override
+    public UpperTriangularMatrix R() {
+        double[][] R = new double[nCols][];
+        for (int i = 0; i < nCols; ++i) {
+            R[i] = new double[nCols - i];
+            if (i < nRows) {
+                System.arraycopy(qr, i * nCols + i, R[i], 0, nCols - i);
+            }
+        }
+        return new UpperTriangularMatrix(R);
+    }
+
+    /**
+     * Get the <i>Q</i> matrix in the QR decomposition. The dimension of <i>Q</i> is <i>nRows x nCols</i>.
+     * This is computed by applying the block reflectors to the first <i>n</i> columns of an identity matrix.
+     *
+     * @return <i>Q</i>
+     */
+    @Override
+    public Matrix Q() {
+        return new DenseMatrix(identityTimesQ(nCols), nRows, nCols);
+    }
+
+    @Override
+    public Matrix squareQ() {
+        return new DenseMatrix(identityTimesQ(nRows), nRows, nRows);
+    }
+
+    private double[] identityTimesQ(int nColsOfQ) {
+        double[] I = new double[nRows * nColsOfQ];
+        for (int i = 0; i < Math.min(nRows, nColsOfQ); ++i) {
+            I[i * nColsOfQ + i] = 1.;
+        }
+        applyQInPlace(I, nColsOfQ);
+        return I;
+    }
+
+    @Override
+    public Matrix tallR() {
+        double[] tallR = new double[nRows * nCols];
+        for (int i = 0; i < nReflectors; ++i) {
+            System.arraycopy(qr, i * nCols + i, tallR, i * nCols + i, nCols - i);
+        }
+        return new DenseMatrix(tallR, nRows, nCols);
+    }
+
+    /**
+     * Get <i>P</i>, the pivoting matrix in the QR decomposition.
+     * Householder process does not need pivoting.
+     * Hence, <i>P</i> is always an identity matrix.
+     *
+     * @return an identity matrix
+     */
+    @Override
+    public PermutationMatrix P() {
+        return new PermutationMatrix(nCols);
+    }
+
+    /**
+     * This implementation computes the rank by counting the number of non-zero rows in <i>R</i>.
+     *
+     * @return the rank
+     */
+    @Override
+    public int rank() {
+        int result = 0;
+        for (int i = 0; i < nReflectors; ++i) {
+            if (compare(qr[i * nCols + i], 0, epsilon) != 0) {
+                ++result;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Compute <i>Q<sup>t</sup> * b</i> without forming <i>Q</i>.
+     *
+     * @param b a vector of length <i>m</i>
+     * @return <i>Q<sup>t</sup> * b</i>
+     */
+    public Vector applyQt(Vector b) {
+        SuanShuUtils.assertArgument(b.size() == nRows, "the size of b must equal the number of rows of A");
+
+        double[] x = b.toArray();
+        applyQtInPlace(x, 1);
+        return new DenseVector(x);
+    }
+
+    /**
+     * Compute <i>Q * b</i> without forming <i>Q</i>, where <i>Q</i> is the square <i>m x m</i> orthogonal matrix.
+     *
+     * @param b a vector of length <i>m</i>
+     * @return <i>Q * b</i>
+     */
+    public Vector applyQ(Vector b) {
+        SuanShuUtils.assertArgument(b.size() == nRows, "the size of b must equal the number of rows of A");
+
+        double[] x = b.toArray();
+        applyQInPlace(x, 1);
+        return new DenseVector(x);
+    }
+
+    /**
+     * Overwrite <i>B</i> by <i>Q<sup>t</sup> * B</i>.
+     *
+     * @param B    an <i>m x nRhs</i> matrix in a row-major {@code double[]}
+     * @param nRhs the number of columns of <i>B</i>
+     */
+    public void applyQtInPlace(double[] B, int nRhs) {
+        SuanShuUtils.assertArgument(B.length == nRows * nRhs, "B must be an m x nRhs matrix");
+
+        for (int p = 0; p < T.length; ++p) {//Q' = H_k...H_1
+            applyBlockReflector(p, true, B, 0, nRhs, nRhs);
+        }
+    }
+
+    /**
+     * Overwrite <i>B</i> by <i>Q * B</i>.
+     *
+     * @param B    an <i>m x nRhs</i> matrix in a row-major {@code double[]}
+     * @param nRhs the number of columns of <i>B</i>
+     */
+    public void applyQInPlace(double[] B, int nRhs) {
+        SuanShuUtils.assertArgument(B.length == nRows * nRhs, "B must be an m x nRhs matrix");
+
+        for (int p = T.length - 1; p >= 0; --p) {//Q = H_1...H_k
+            applyBlockReflector(p, false, B, 0, nRhs, nRhs);
+        }
+    }
+
+    /**
+     * Solve <i>Ax = b</i> in the least squares sense, i.e., <i>R * x = (Q<sup>t</sup> * b)[1:n]</i>.
+     *
+     * @param b a vector of length <i>m</i>
+     * @return <i>x</i> that minimizes <i>|Ax - b|<sub>2</sub></i>
+     * @throws MatrixSingularityException if <i>A</i> does not have full column rank
+     */
+    public Vector solve(Vector b) {
+        SuanShuUtils.assertArgument(b.size() == nRows, "the size of b must equal the number of rows of A");
+
+        double[] y = b.toArray();
+        applyQtInPlace(y, 1);
+
+        double[] x = new double[nCols];
+        for (int i = nCols - 1; i >= 0; --i) {
+            final int ri = i * nCols;
+            if (i >= nRows || isZero(qr[ri + i], epsilon)) {
+                throw new MatrixSingularityException("A does not have full column rank");
+            }
+
+            double value = y[i];
+            for (int j = i + 1; j < nCols; ++j) {
+                value -= qr[ri + j] * x[j];
+            }
+            x[i] = value / qr[ri + i];
+        }
+
+        return new DenseVector(x);
+    }
+
+    /**
+     * Factorize the panels from left to right.
+     */
+    private void factorize() {
+        for (int p = 0, k0 = 0; k0 < nReflectors; ++p, k0 += NB) {
+            final int k1 = Math.min(k0 + NB, nReflectors);
+
+            factorizePanel(k0, k1);
+            T[p] = formT(k0, k1);
+
+            if (k1 < nCols) {
+                applyBlockReflector(p, true, qr, k1, nCols, nCols - k1);
+            }
+        }
+    }
+
+    /**
+     * Factorize the columns {@code [k0, k1)} by applying one Householder reflector at a time.
+     * Each reflector is applied only to the rest of the panel.
+     */
+    private void factorizePanel(int k0, int k1) {
+        final int n = nCols;
+        final double[] w = new double[k1 - k0];
+
+        for (int j = k0; j < k1; ++j) {
+            final int jj = j * n + j;
+
+            //compute the norm of the sub-column with scaling to avoid overflow
+            double scaleBelow = 0.;
+            for (int i = j + 1, ij = jj + n; i < nRows; ++i, ij += n) {
+                scaleBelow = Math.max(scaleBelow, Math.abs(qr[ij]));
+            }
+            final double scale = Math.max(scaleBelow, Math.abs(qr[jj]));
+            double norm = 0.;
+            if (scale > 0.) {
+                double ssq = 0.;
+                for (int i = j, ij = jj; i < nRows; ++i, ij += n) {
+                    final double x = qr[ij] / scale;
+                    ssq += x * x;
+                }
+                norm = scale * Math.sqrt(ssq);
+            }
+
+            /*
+             * Treat the (sub-)column as 0, if the norm is too small.
+             * This is to prevent spurious Householder operation on a "zero" column,
+             * which may produce incorrect result.
+             */
+            if (isZero(norm, epsilon)) {//linear dependence on previous columns
+                tau[j] = 0.;
+                for (int i = j, ij = jj; i < nRows; ++i, ij += n) {
+                    qr[ij] = 0.;
+                }
+                continue;
+            }
+
+            final double alpha = qr[jj];
+            if (scaleBelow == 0.) {//nothing below the diagonal to annihilate, H_j = I
+                tau[j] = 0.;
+                continue;
+            }
+
+            final double beta = alpha >= 0 ? -norm : norm;
+            tau[j] = (beta - alpha) / beta;
+            final double s = 1. / (alpha - beta);
+            for (int i = j + 1, ij = jj + n; i < nRows; ++i, ij += n) {
+                qr[ij] *= s;
+            }
+            qr[jj] = beta;
+
+            //apply H_j = I - tau * v * v' to the columns (j, k1) of the panel
+            final int nw = k1 - j - 1;
+            if (nw == 0) {
+                continue;
+            }
+            for (int c = 0; c < nw; ++c) {//w = v' * A, where v[j] = 1
+                w[c] = qr[jj + 1 + c];
+            }
+            for (int i = j + 1, ri = (j + 1) * n; i < nRows; ++i, ri += n) {
+                final double v = qr[ri + j];
+                if (v != 0.) {
+                    for (int c = 0; c < nw; ++c) {
+                        w[c] += v * qr[ri + j + 1 + c];
+                    }
+                }
+            }
+            for (int c = 0; c < nw; ++c) {
+                w[c] *= tau[j];
+                qr[jj + 1 + c] -= w[c];
+            }
+            for (int i = j + 1, ri = (j + 1) * n; i < nRows; ++i, ri += n) {
+                final double v = qr[ri + j];
+                if (v != 0.) {
+                    for (int c = 0; c < nw; ++c) {
+                        qr[ri + j + 1 + c] -= v * w[c];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the (<i>r</i>, <i>a</i>) entry of the panel's <i>V</i>, counting from the top of the matrix,
+     * i.e., 0 above the diagonal, 1 on the diagonal and <i>v</i> below.
+     */
+    private double v(int r, int col) {
+        return r < col ? 0. : (r == col ? 1. : qr[r * nCols + col]);
+    }
+
+    /**
+     * Form the upper triangular <i>T</i> such that <i>H<sub>k0</sub>...H<sub>k1-1</sub> = I - V * T * V<sup>t</sup></i>,
+     * as in LAPACK's {@code dlarft}.
+     */
+    private double[] formT(int k0, int k1) {
+        final int nb = k1 - k0;
+        final int n = nCols;
+
+        //G = V' * V, strictly upper triangle only
+        final double[] G = new double[nb * nb];
+        for (int r = k0; r < nRows; ++r) {
+            final int ri = r * n;
+            for (int a = 0; a < nb; ++a) {
+                final double va = r < k1 ? v(r, k0 + a) : qr[ri + k0 + a];
+                if (va != 0.) {
+                    for (int b = a + 1; b < nb; ++b) {
+                        final double vb = r < k1 ? v(r, k0 + b) : qr[ri + k0 + b];
+                        G[a * nb + b] += va * vb;
+                    }
+                }
+            }
+        }
+
+        final double[] t = new double[nb * nb];
+        for (int b = 0; b < nb; ++b) {
+            final double tauB = tau[k0 + b];
+            t[b * nb + b] = tauB;
+            for (int a = 0; a < b; ++a) {//T[0:b, b] = -tau_b * T[0:b, 0:b] * G[0:b, b]
+                double sum = 0.;
+                for (int l = a; l < b; ++l) {
+                    sum += t[a * nb + l] * G[l * nb + b];
+                }
+                t[a * nb + b] = -tauB * sum;
+            }
+        }
+
+        return t;
+    }
+
+    /**
+     * Apply the block reflector of a panel, <i>I - V * T * V<sup>t</sup></i> (or its transpose), to the rows of <i>C</i>
+     * from the first row of the panel down.
+     *
+     * @param panel     the panel index
+     * @param transpose {@code true} to apply <i>I - V * T<sup>t</sup> * V<sup>t</sup></i>
+     * @param C         the array storing <i>C</i>, an <i>m x nc</i> matrix
+     * @param cOffset   the index of <i>C[0][0]</i>
+     * @param ldc       the leading dimension of <i>C</i>
+     * @param nc        the number of columns of <i>C</i>
+     */
+    private void applyBlockReflector(int panel, boolean transpose, final double[] C, final int cOffset, final int ldc, final int nc) {
+        final int k0 = panel * NB;
+        final int k1 = Math.min(k0 + NB, nReflectors);
+        final int nb = k1 - k0;
+        final double[] t = T[panel];
+        final ParallelExecutor parallel = ParallelExecutor.getSharedInstance();
+
+        //W = V' * C
+        final double[] W = computeVtC(k0, k1, C, cOffset, ldc, nc, parallel);
+
+        //W = T' * W or T * W, in place
+        final double[] tmp = new double[nb];
+        for (int j = 0; j < nc; ++j) {
+            for (int a = 0; a < nb; ++a) {
+                tmp[a] = W[a * nc + j];
+            }
+            for (int a = 0; a < nb; ++a) {
+                double sum = 0.;
+                if (transpose) {
+                    for (int b = 0; b <= a; ++b) {
+                        sum += t[b * nb + a] * tmp[b];
+                    }
+                } else {
+                    for (int b = a; b < nb; ++b) {
+                        sum += t[a * nb + b] * tmp[b];
+                    }
+                }
+                W[a * nc + j] = sum;
+            }
+        }
+
+        //C -= V * W, the unit lower triangle of V first
+        for (int r = k0; r < k1; ++r) {
+            final int cr = cOffset + r * ldc;
+            for (int a = 0; a <= r - k0; ++a) {
+                final double v = v(r, k0 + a);
+                if (v != 0.) {
+                    final int wa = a * nc;
+                    for (int j = 0; j < nc; ++j) {
+                        C[cr + j] -= v * W[wa + j];
+                    }
+                }
+            }
+        }
+        if (k1 < nRows) {//the rest of V is a sub-matrix of qr
+            BlockedMatrixMultiplication.multiply(
+                    -1.,
+                    qr, k1 * nCols + k0, nCols,
+                    W, 0, nc,
+                    C, cOffset + k1 * ldc, ldc,
+                    nRows - k1, nb, nc,
+                    parallel);
+        }
+    }
+
+    /**
+     * Compute <i>V<sup>t</sup> * C</i> by accumulating the outer products of the rows.
+     * For a big matrix, the rows are divided into chunks that are summed in parallel.
+     */
+    private double[] computeVtC(
+            final int k0, final int k1,
+            final double[] C, final int cOffset, final int ldc, final int nc,
+            ParallelExecutor parallel) {
+        final int nb = k1 - k0;
+        final double[] W = new double[nb * nc];
+
+        //the unit lower triangle of V
+        for (int r = k0; r < k1; ++r) {
+            final int cr = cOffset + r * ldc;
+            for (int a = 0; a <= r - k0; ++a) {
+                final double v = v(r, k0 + a);
+                if (v != 0.) {
+                    final int wa = a * nc;
+                    for (int j = 0; j < nc; ++j) {
+                        W[wa + j] += v * C[cr + j];
+                    }
+                }
+            }
+        }
+
+        //the rest of V
+        final int nChunks = (long) (nRows - k1) * nb * nc < PARALLEL_THRESHOLD
+                ? 1
+                : Math.max(1, Math.min(parallel.getConcurrency(), (nRows - k1) / NB));
+        if (nChunks == 1) {
+            accumulateVtC(k0, nb, k1, nRows, C, cOffset, ldc, nc, W);
+            return W;
+        }
+
+        final int chunkSize = (nRows - k1 + nChunks - 1) / nChunks;
+        List<Callable<double[]>> tasks = new ArrayList<Callable<double[]>>(nChunks);
+        for (int i = 0; i < nChunks; ++i) {
+            final int from = k1 + i * chunkSize;
+            final int to = Math.min(from + chunkSize, nRows);
+            tasks.add(new Callable<double[]>() {
+
+                @Override
+                public double[] call() throws Exception {
+                    double[] partial = new double[nb * nc];
+                    accumulateVtC(k0, nb, from, to, C, cOffset, ldc, nc, partial);
+                    return partial;
+                }
+            });
+        }
+
+        try {
+            for (double[] partial : parallel.executeAll(tasks)) {
+                for (int i = 0; i < W.length; ++i) {
+                    W[i] += partial[i];
+                }
+            }
+        } catch (MultipleExecutionException ex) {
+            throw new RuntimeException(ex);
+        }
+
+        return W;
+    }
+
+    /**
+     * Compute <i>W += V[from:to, ] ' * C[from:to, ]</i> for the rows below the diagonal block.
+     */
+    private void accumulateVtC(
+            int k0, int nb, int from, int to,
+            double[] C, int cOffset, int ldc, int nc,
+            double[] W) {
+        for (int r = from; r < to; ++r) {
+            final int vr = r * nCols + k0;
+            final int cr = cOffset + r * ldc;
+            for (int a = 0; a < nb; ++a) {
+                final double v = qr[vr + a];
+                if (v != 0.) {
+                    final int wa = a * nc;
+                    for (int j = 0; j < nc; ++j) {
+                        W[wa + j] += v * C[cr + j];
+                    }
+                }
+            }
+        }
+    }
+}
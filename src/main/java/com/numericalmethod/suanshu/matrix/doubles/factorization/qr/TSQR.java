@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.factorization.qr;
+
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.triangle.UpperTriangularMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.operation.MatrixUtils;
+import com.numericalmethod.suanshu.matrix.doubles.operation.SubMatrixRef;
+import com.numericalmethod.suanshu.misc.SuanShuUtils;
+import com.numericalmethod.suanshu.parallel.MultipleExecutionException;
+import com.numericalmethod.suanshu.parallel.ParallelExecutor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Tall-Skinny QR (TSQR) computes the <i>R</i> factor of a tall-skinny matrix chunk by chunk of rows.
+ * Only an <i>n x n</i> triangle is kept between chunks, so the rows can be streamed from a source
+ * that does not fit in memory.
+ * <p/>
+ * Each call to {@link #add(Matrix)} stacks the current <i>R</i> on top of the new rows and
+ * re-factorizes the (at most) <i>(n + rows) x n</i> matrix by {@link BlockedHouseholderQR}.
+ * Two partial factorizations of disjoint row sets are combined by {@link #merge(TSQR)},
+ * which factorizes the two stacked triangles.
+ * Hence, the chunks can be factorized independently in parallel, then merged by a reduction tree,
+ * as in {@link #factorize(Matrix, int)}.
+ * <p/>
+ * <i>R</i> is unique up to the signs of its rows.
+ * To solve a least squares problem <i>min |Ax - b|</i>, append <i>b</i> as the last column of <i>A</i>.
+ * The last column of the <i>(n+1) x (n+1)</i> <i>R</i> is then <i>Q<sup>t</sup> * b</i>,
+ * and the absolute value of its last entry is the residual norm.
+ *
+ * @author Haksun Li
+ * @see "James Demmel, Laura Grigori, Mark Hoemmen, Julien Langou, "Communication-optimal parallel and sequential QR and LU factorizations," SIAM Journal on Scientific Computing, vol. 34, no. 1, p. A206 - A239, 2012."
+ */
+public class TSQR {
+
+    private final int nCols;
+    /** the current <i>R</i> in a row-major array, with {@link #nRowsOfR} rows */
+    private double[] R;
+    private int nRowsOfR = 0;
+    private long nRowsSeen = 0;
+
+    /**
+     * Construct an empty factorization.
+     *
+     * @param nCols the number of columns of the matrix
+     */
+    public TSQR(int nCols) {
+        SuanShuUtils.assertArgument(nCols > 0, "the number of columns must be positive");
+
+        this.nCols = nCols;
+        this.R = new double[0];
+    }
+
+    /**
+     * Add a chunk of rows to the factorization.
+     *
+     * @param rows a chunk of rows of the matrix
+     * @return this
+     */
+    public TSQR add(Matrix rows) {
+        SuanShuUtils.assertArgument(rows.nCols() == nCols, "the number of columns must be %d", nCols);
+
+        return add(MatrixUtils.to1DArray(rows), rows.nRows());
+    }
+
+    /**
+     * Add a chunk of rows to the factorization.
+     *
+     * @param rows  the rows in a row-major array
+     * @param nRows the number of rows in the array
+     * @return this
+     */
+    public TSQR add(double[] rows, int nRows) {
+        SuanShuUtils.assertArgument(rows.length == nRows * nCols, "the array must have %d x %d entries", nRows, nCols);
+
+        stackAndFactorize(rows, nRows);
+        nRowsSeen += nRows;
+        return this;
+    }
+
+    /**
+     * Merge the factorization of another disjoint set of rows into this one.
+     *
+     * @param that another factorization of the same number of columns
+     * @return this
+     */
+    public TSQR merge(TSQR that) {
+        SuanShuUtils.assertArgument(that.nCols == nCols, "the number of columns must be %d", nCols);
+
+        stackAndFactorize(that.R, that.nRowsOfR);
+        nRowsSeen += that.nRowsSeen;
+        return this;
+    }
+
+    /**
+     * Get the number of rows added so far.
+     *
+     * @return the number of rows factorized
+     */
+    public long nRowsSeen() {
+        return nRowsSeen;
+    }
+
+    /**
+     * Get the <i>n x n</i> upper triangular <i>R</i> of all the rows added so far.
+     * If fewer than <i>n</i> rows are added, the missing rows are 0.
+     *
+     * @return <i>R</i>
+     */
+    public UpperTriangularMatrix R() {
+        double[][] result = new double[nCols][];
+        for (int i = 0; i < nCols; ++i) {
+            result[i] = new double[nCols - i];
+            if (i < nRowsOfR) {
+                System.arraycopy(R, i * nCols + i, result[i], 0, nCols - i);
+            }
+        }
+        return new UpperTriangularMatrix(result);
+    }
+
+    private void stackAndFactorize(double[] rows, int nRows) {
+        if (nRows == 0) {
+            return;
+        }
+
+        final int m = nRowsOfR + nRows;
+        double[] A = new double[m * nCols];
+        System.arraycopy(R, 0, A, 0, nRowsOfR * nCols);
+        System.arraycopy(rows, 0, A, nRowsOfR * nCols, nRows * nCols);
+
+        new BlockedHouseholderQR(A, m, nCols, 0);//R is left in the upper triangle of A
+
+        nRowsOfR = Math.min(m, nCols);
+        R = new double[nRowsOfR * nCols];
+        for (int i = 0; i < nRowsOfR; ++i) {
+            System.arraycopy(A, i * nCols + i, R, i * nCols + i, nCols - i);
+        }
+    }
+
+    /**
+     * Compute the TSQR factorization of a matrix by factorizing chunks of rows in parallel,
+     * then merging the partial results pairwise.
+     *
+     * @param A         a matrix
+     * @param chunkSize the number of rows in a chunk
+     * @return the factorization of <i>A</i>
+     */
+    public static TSQR factorize(final Matrix A, int chunkSize) {
+        SuanShuUtils.assertArgument(chunkSize > 0, "chunk size must be positive");
+
+        final int m = A.nRows();
+        final int n = A.nCols();
+
+        List<Callable<TSQR>> tasks = new ArrayList<Callable<TSQR>>();
+        for (int i = 1; i <= m; i += chunkSize) {
+            final int from = i;
+            final int to = Math.min(i + chunkSize - 1, m);
+            tasks.add(new Callable<TSQR>() {
+
+                @Override
+                public TSQR call() throws Exception {
+                    return new TSQR(n).add(new SubMatrixRef(A, from, to, 1, n));
+                }
+            });
+        }
+
+        List<TSQR> partials;
+        try {
+            partials = ParallelExecutor.getSharedInstance().executeAll(tasks);
+        } catch (MultipleExecutionException ex) {
+            throw new RuntimeException(ex);
+        }
+
+        while (partials.size() > 1) {//binary reduction tree
+            List<TSQR> merged = new ArrayList<TSQR>((partials.size() + 1) / 2);
+            for (int i = 0; i < partials.size(); i += 2) {
+                TSQR left = partials.get(i);
+                if (i + 1 < partials.size()) {
+                    left.merge(partials.get(i + 1));
+                }
+                merged.add(left);
+            }
+            partials = merged;
+        }
+
+        return partials.isEmpty() ? new TSQR(n) : partials.get(0);
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.factorization.svd;
+
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.factorization.qr.BlockedHouseholderQR;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.BlockedMatrixMultiplication;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.diagonal.DiagonalMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.operation.MatrixUtils;
+import com.numericalmethod.suanshu.misc.SuanShuUtils;
+import com.numericalmethod.suanshu.parallel.LoopBody;
+import com.numericalmethod.suanshu.parallel.MultipleExecutionException;
+import com.numericalmethod.suanshu.parallel.ParallelExecutor;
+import com.numericalmethod.suanshu.stats.random.univariate.normal.StandardNormalRng;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * This is a truncated SVD decomposition that computes only the <i>k</i> largest singular values
+ * and their singular vectors, by a randomized range finder.
+ * It decomposes a matrix <i>A</i> of dimension <i>m x n</i> such that
+ * <blockquote><i>A &asymp; U * D * V'</i></blockquote>
+ * <ul>
+ * <li><i>U</i> has orthonormal columns and has the dimension <i>m x k</i>.
+ * <li><i>D</i> is diagonal and has the dimension <i>k x k</i>.
+ * <li><i>V</i> has orthonormal columns and has the dimension <i>n x k</i>.
+ * </ul>
+ * The algorithm multiplies <i>A</i> by a Gaussian random <i>n x l</i> matrix, <i>l = k + p</i> with <i>p</i> oversampling columns,
+ * to sample its range, <i>Q</i>.
+ * A few power iterations, <i>(A * A')<sup>q</sup> * A</i>, with re-orthonormalization in between,
+ * sharpen the spectrum when the singular values decay slowly.
+ * The small matrix <i>Q' * A</i> (stored as its transpose, <i>n x l</i>) is then decomposed by the full {@link SVD}.
+ * <p/>
+ * <i>A</i> is only accessed by {@link Matrix#get(int, int)} in blocks of rows, and is neither copied nor modified.
+ * The workspace is <i>O((m + n) * l)</i>, compared to <i>O(m * n)</i> for a full decomposition.
+ * The products with <i>A</i> are computed by {@link BlockedMatrixMultiplication}, with the row blocks done in parallel.
+ * <p/>
+ * The random matrix is drawn from a seeded generator so that the results are reproducible.
+ *
+ * @author Haksun Li
+ * @see
+ * <ul>
+ * <li>"N. Halko, P. G. Martinsson, J. A. Tropp, "Finding structure with randomness: Probabilistic algorithms for constructing approximate matrix decompositions," SIAM Review, vol. 53, no. 2, p. 217 - 288, 2011."
+ * <li><a href="http://en.wikipedia.org/wiki/Singular_value_decomposition#Truncated_SVD">Wikipedia: Truncated SVD</a>
+ * </ul>
+ */
+public class TruncatedSVD implements SVDDecomposition {
+
+    /** the default number of oversampling columns */
+    public static final int DEFAULT_OVERSAMPLING = 10;
+    /** the default number of power iterations */
+    public static final int DEFAULT_POWER_ITERATIONS = 2;
+    /** the number of rows of <i>A</i> copied at a time */
+    private static final int ROW_BLOCK = 256;
+    private final int nRows;
+    private final int nCols;
+    private final int k;
+    /** the singular values in descending order */
+    private final double[] sigma;
+    /** <i>U</i> in a row-major <i>m x k</i> array */
+    private final double[] U;
+    /** <i>V</i> in a row-major <i>n x k</i> array */
+    private final double[] V;
+    private final ParallelExecutor parallel = ParallelExecutor.getSharedInstance();
+
+    /**
+     * Compute the <i>k</i> largest singular values and their singular vectors of a matrix.
+     *
+     * @param A                a matrix
+     * @param k                the number of singular values wanted, 1 &le; <i>k</i> &le; <i>min(m, n)</i>
+     * @param oversampling     the number of extra random columns to sample the range of <i>A</i>
+     * @param nPowerIterations the number of power iterations; 1 or 2 suffices unless the singular values decay very slowly
+     * @param seed             the seed of the random matrix
+     */
+    public TruncatedSVD(Matrix A, int k, int oversampling, int nPowerIterations, long seed) {
+        this.nRows = A.nRows();
+        this.nCols = A.nCols();
+        SuanShuUtils.assertArgument(k >= 1 && k <= Math.min(nRows, nCols), "k must be between 1 and min(nRows, nCols)");
+        SuanShuUtils.assertArgument(oversampling >= 0, "the number of oversampling columns must be non-negative");
+        SuanShuUtils.assertArgument(nPowerIterations >= 0, "the number of power iterations must be non-negative");
+        this.k = k;
+
+        final int l = Math.min(k + oversampling, Math.min(nRows, nCols));
+
+        //the range of A sampled by a Gaussian random matrix
+        StandardNormalRng rng = new StandardNormalRng();
+        rng.seed(seed);
+        double[] Omega = new double[nCols * l];
+        for (int i = 0; i < Omega.length; ++i) {
+            Omega[i] = rng.nextDouble();
+        }
+        double[] Q = orthonormalize(multiply(A, Omega, l), nRows, l);
+
+        for (int q = 0; q < nPowerIterations; ++q) {
+            double[] Z = orthonormalize(tMultiply(A, Q, l), nCols, l);
+            Q = orthonormalize(multiply(A, Z, l), nRows, l);
+        }
+
+        //A ~ Q * B; B' = A' * Q = Ub * D * Vb', so A ~ (Q * Vb) * D * Ub'
+        double[] Bt = tMultiply(A, Q, l);
+        SVD svd = new SVD(new DenseMatrix(Bt, nCols, l), true);
+        double[] Ub = MatrixUtils.to1DArray(svd.U());//n x l
+        double[] Vb = MatrixUtils.to1DArray(svd.V());//l x l
+
+        this.sigma = Arrays.copyOf(svd.getSingularValues(), k);
+
+        this.V = new double[nCols * k];
+        for (int i = 0; i < nCols; ++i) {
+            System.arraycopy(Ub, i * l, V, i * k, k);
+        }
+
+        double[] Vbk = new double[l * k];
+        for (int i = 0; i < l; ++i) {
+            System.arraycopy(Vb, i * l, Vbk, i * k, k);
+        }
+        this.U = new double[nRows * k];
+        BlockedMatrixMultiplication.multiply(Q, 0, l, Vbk, 0, k, U, 0, k, nRows, l, k, parallel);
+    }
+
+    /**
+     * Compute the <i>k</i> largest singular values and their singular vectors of a matrix,
+     * using {@value #DEFAULT_OVERSAMPLING} oversampling columns and {@value #DEFAULT_POWER_ITERATIONS} power iterations.
+     *
+     * @param A a matrix
+     * @param k the number of singular values wanted, 1 &le; <i>k</i> &le; <i>min(m, n)</i>
+     */
+    public TruncatedSVD(Matrix A, int k) {
+        this(A, k, DEFAULT_OVERSAMPLING, DEFAULT_POWER_ITERATIONS, 1234567890L);
+    }
+
+    /**
+     * Get the number of singular values computed.
+     *
+     * @return <i>k</i>
+     */
+    public int k() {
+        return k;
+    }
+
+    @Override
+    public double[] getSingularValues() {
+        return Arrays.copyOf(sigma, k);
+    }
+
+    @Override
+    public DiagonalMatrix D() {
+        return new DiagonalMatrix(getSingularValues());
+    }
+
+    @Override
+    public Matrix U() {
+        return new DenseMatrix(Arrays.copyOf(U, U.length), nRows, k);
+    }
+
+    @Override
+    public Matrix Ut() {
+        return U().t();
+    }
+
+    @Override
+    public Matrix V() {
+        return new DenseMatrix(Arrays.copyOf(V, V.length), nCols, k);
+    }
+
+    /**
+     * Get the orthonormal columns that span the same space as the columns of <i>Y</i>.
+     */
+    private static double[] orthonormalize(double[] Y, int nRows, int nCols) {
+        BlockedHouseholderQR qr = new BlockedHouseholderQR(new DenseMatrix(Y, nRows, nCols), 0.);
+        return MatrixUtils.to1DArray(qr.Q());
+    }
+
+    /**
+     * Copy the rows <i>[from, to)</i> (counting from 0) of <i>A</i> to a row-major array.
+     */
+    private static double[] copyRows(Matrix A, int from, int to) {
+        final int n = A.nCols();
+        double[] block = new double[(to - from) * n];
+        for (int i = from, b = 0; i < to; ++i) {
+            for (int j = 1; j <= n; ++j) {
+                block[b++] = A.get(i + 1, j);
+            }
+        }
+        return block;
+    }
+
+    /**
+     * Copy the rows <i>[from, to)</i> (counting from 0) of <i>A</i> to a row-major array of their transpose.
+     */
+    private static double[] copyRowsTransposed(Matrix A, int from, int to) {
+        final int n = A.nCols();
+        final int nb = to - from;
+        double[] block = new double[n * nb];
+        for (int i = from; i < to; ++i) {
+            for (int j = 1, b = i - from; j <= n; ++j, b += nb) {
+                block[b] = A.get(i + 1, j);
+            }
+        }
+        return block;
+    }
+
+    /**
+     * Compute <i>A * X</i>, where <i>X</i> is <i>n x l</i>.
+     * The row blocks of the product are independent and are computed in parallel.
+     */
+    private double[] multiply(final Matrix A, final double[] X, final int l) {
+        final double[] Y = new double[nRows * l];
+        final int nBlocks = (nRows + ROW_BLOCK - 1) / ROW_BLOCK;
+
+        try {
+            parallel.forLoop(0, nBlocks, new LoopBody() {
+
+                @Override
+                public void run(int b) throws Exception {
+                    final int from = b * ROW_BLOCK;
+                    final int to = Math.min(from + ROW_BLOCK, nRows);
+                    double[] block = copyRows(A, from, to);
+                    BlockedMatrixMultiplication.multiply(block, 0, nCols, X, 0, l, Y, from * l, l, to - from, nCols, l, null);
+                }
+            });
+        } catch (MultipleExecutionException ex) {
+            throw new RuntimeException(ex);
+        }
+
+        return Y;
+    }
+
+    /**
+     * Compute <i>A' * Y</i>, where <i>Y</i> is <i>m x l</i>.
+     * The rows are divided into chunks whose partial sums are computed in parallel.
+     */
+    private double[] tMultiply(final Matrix A, final double[] Y, final int l) {
+        final int nChunks = Math.max(1, Math.min(parallel.getConcurrency(), nRows / ROW_BLOCK));
+        final int chunkSize = (nRows + nChunks - 1) / nChunks;
+
+        List<Callable<double[]>> tasks = new ArrayList<Callable<double[]>>(nChunks);
+        for (int c = 0; c < nChunks; ++c) {
+            final int from = c * chunkSize;
+            final int to = Math.min(from + chunkSize, nRows);
+            tasks.add(new Callable<double[]>() {
+
+                @Override
+                public double[] call() throws Exception {
+                    double[] partial = new double[nCols * l];
+                    for (int i0 = from; i0 < to; i0 += ROW_BLOCK) {
+                        final int i1 = Math.min(i0 + ROW_BLOCK, to);
+                        double[] block = copyRowsTransposed(A, i0, i1);
+                        BlockedMatrixMultiplication.multiply(block, 0, i1 - i0, Y, i0 * l, l, partial, 0, l, nCols, i1 - i0, l, null);
+                    }
+                    return partial;
+                }
+            });
+        }
+
+        try {
+            List<double[]> partials = parallel.executeAll(tasks);
+            double[] Z = partials.get(0);
+            for (int c = 1; c < partials.size(); ++c) {
+                double[] partial = partials.get(c);
+                for (int i = 0; i < Z.length; ++i) {
+                    Z[i] += partial[i];
+                }
+            }
+            return Z;
+        } catch (MultipleExecutionException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.factorization.triangle;
+
+import com.numericalmethod.suanshu.matrix.MatrixMismatchException;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.MatrixBatch;
+import com.numericalmethod.suanshu.misc.SuanShuUtils;
+import com.numericalmethod.suanshu.parallel.RangeLoopBody;
+
+/**
+ * This is the Cholesky decomposition of every matrix in a {@link MatrixBatch} of small, symmetric, positive definite matrices,
+ * <i>A<sub>k</sub> = L<sub>k</sub> * L<sub>k</sub><sup>t</sup></i>.
+ * Only the lower triangles of <i>A<sub>k</sub></i> are read.
+ * <p/>
+ * An instance is a reusable workspace for batches of a fixed size and dimension.
+ * All the memory is allocated by the constructor;
+ * {@link #factorize(MatrixBatch)} and {@link #solve(MatrixBatch)} allocate nothing for the matrices,
+ * so a batch, e.g., of the covariance matrices in Kalman filter updates, can be re-factorized on every tick without creating garbage.
+ * Each factor is stored in the lower triangle of a row-major <i>dim x dim</i> block, as in {@link BlockedCholesky},
+ * and the matrices are divided among the threads of the shared pool.
+ * <p/>
+ * A matrix that is not positive definite does not stop the batch.
+ * It is flagged by {@link #isPositiveDefinite(int)}, and its solutions are {@code NaN}.
+ *
+ * @author Haksun Li
+ */
+public class BatchedCholesky {
+
+    private final MatrixBatch l;
+    private final boolean[] positiveDefinite;
+    private final int size;
+    private final int dim;
+
+    /**
+     * Construct a workspace to factorize batches of {@code size} matrices of dimension <i>dim x dim</i>.
+     *
+     * @param size the number of matrices
+     * @param dim  the dimension of the matrices
+     */
+    public BatchedCholesky(int size, int dim) {
+        this.size = size;
+        this.dim = dim;
+        this.l = new MatrixBatch(size, dim, dim);
+        this.positiveDefinite = new boolean[size];
+    }
+
+    /**
+     * Construct a workspace and factorize a batch of matrices.
+     *
+     * @param A a batch of symmetric, positive definite matrices
+     */
+    public BatchedCholesky(MatrixBatch A) {
+        this(A.size(), A.nRows());
+        factorize(A);
+    }
+
+    /**
+     * Factorize a batch of matrices, replacing the previous factors.
+     * {@code A} is not modified.
+     *
+     * @param A a batch of symmetric, positive definite matrices of the size and the dimension of this workspace
+     * @return {@code this}
+     */
+    public BatchedCholesky factorize(MatrixBatch A) {
+        SuanShuUtils.assertArgument(A.size() == size && A.nRows() == dim && A.nCols() == dim, "the batch does not match the workspace");
+
+        final double[] a = l.asArray();
+        System.arraycopy(A.asArray(), 0, a, 0, a.length);
+
+        MatrixBatch.forEach(size, dim * dim * dim / 6 + 1, new RangeLoopBody() {
+
+            @Override
+            public void run(int from, int to) throws Exception {
+                for (int k = from; k < to; ++k) {
+                    positiveDefinite[k] = factorize(a, k * dim * dim, dim);
+                }
+            }
+        });
+
+        return this;
+    }
+
+    /**
+     * Check whether the <i>k</i>-th matrix is positive definite, i.e., whether its factorization succeeded.
+     *
+     * @param k the matrix index, counting from 1
+     * @return {@code true} if the <i>k</i>-th matrix is positive definite
+     */
+    public boolean isPositiveDefinite(int k) {
+        l.offset(k);//check the index
+        return positiveDefinite[k - 1];
+    }
+
+    /**
+     * Get the factors.
+     * The lower triangle of each matrix is <i>L<sub>k</sub></i>; the strict upper triangle is not used.
+     *
+     * @return the factors
+     */
+    public MatrixBatch L() {
+        return l;
+    }
+
+    /**
+     * Solve <i>A<sub>k</sub> * X<sub>k</sub> = B<sub>k</sub></i> for all <i>k</i> in place, overwriting <i>B<sub>k</sub></i> by <i>X<sub>k</sub></i>.
+     * The solutions for the matrices that are not positive definite are {@code NaN}.
+     *
+     * @param B a batch of right hand sides, <i>dim x nRhs</i> each
+     * @return {@code B}, overwritten by the solutions
+     */
+    public MatrixBatch solve(MatrixBatch B) {
+        if (B.size() != size || B.nRows() != dim) {
+            throw new MatrixMismatchException("the right hand sides do not match the factorization");
+        }
+
+        final int nRhs = B.nCols();
+        final double[] a = l.asArray();
+        final double[] X = B.asArray();
+        MatrixBatch.forEach(size, dim * dim * nRhs, new RangeLoopBody() {
+
+            @Override
+            public void run(int from, int to) throws Exception {
+                for (int k = from; k < to; ++k) {
+                    final int x = k * dim * nRhs;
+                    if (!positiveDefinite[k]) {
+                        for (int p = x; p < x + dim * nRhs; ++p) {
+                            X[p] = Double.NaN;
+                        }
+                    } else {
+                        solve(a, k * dim * dim, dim, X, x, nRhs);
+                    }
+                }
+            }
+        });
+
+        return B;
+    }
+
+    /**
+     * Factorize a <i>dim x dim</i> matrix in place by the Cholesky-Banachiewicz algorithm.
+     *
+     * @return {@code false} if the matrix is not positive definite
+     */
+    private static boolean factorize(double[] a, int offset, int dim) {
+        for (int i = 0; i < dim; ++i) {
+            final int ri = offset + i * dim;
+
+            //for L[i,j], where j < i
+            for (int j = 0; j < i; ++j) {
+                final int rj = offset + j * dim;
+                double value = a[ri + j];
+                for (int k = 0; k < j; ++k) {
+                    value -= a[ri + k] * a[rj + k];
+                }
+                a[ri + j] = value / a[rj + j];
+            }
+
+            //for L[i,i]
+            double value = a[ri + i];
+            for (int k = 0; k < i; ++k) {
+                value -= a[ri + k] * a[ri + k];
+            }
+
+            if (!(value > 0.)) {//also catches NaN
+                return false;
+            }
+            a[ri + i] = Math.sqrt(value);
+        }
+
+        return true;
+    }
+
+    /**
+     * Overwrite the <i>dim x nRhs</i> right hand sides by the solutions using the factor.
+     */
+    private static void solve(double[] a, int offset, int dim, double[] X, int x, int nRhs) {
+        //forward substitution: L * Y = B
+        for (int i = 0; i < dim; ++i) {
+            final int xi = x + i * nRhs;
+            final int ri = offset + i * dim;
+            for (int p = 0; p < i; ++p) {
+                final double lip = a[ri + p];
+                final int xp = x + p * nRhs;
+                for (int j = 0; j < nRhs; ++j) {
+                    X[xi + j] -= lip * X[xp + j];
+                }
+            }
+            final double lii = a[ri + i];
+            for (int j = 0; j < nRhs; ++j) {
+                X[xi + j] /= lii;
+            }
+        }
+
+        //backward substitution: L' * X = Y
+        for (int i = dim - 1; i >= 0; --i) {
+            final int xi = x + i * nRhs;
+            for (int p = i + 1; p < dim; ++p) {
+                final double lpi = a[offset + p * dim + i];
+                final int xp = x + p * nRhs;
+                for (int j = 0; j < nRhs; ++j) {
+                    X[xi + j] -= lpi * X[xp + j];
+                }
+            }
+            final double lii = a[offset + i * dim + i];
+            for (int j = 0; j < nRhs; ++j) {
+                X[xi + j] /= lii;
+            }
+        }
+    }
+}
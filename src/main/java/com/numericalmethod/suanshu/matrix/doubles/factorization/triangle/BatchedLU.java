@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.factorization.triangle;
+
+import com.numericalmethod.suanshu.matrix.MatrixMismatchException;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.MatrixBatch;
+import com.numericalmethod.suanshu.misc.SuanShuUtils;
+import com.numericalmethod.suanshu.parallel.RangeLoopBody;
+
+/**
+ * This is the LU decomposition with partial pivoting of every matrix in a {@link MatrixBatch} of small square matrices,
+ * <i>P<sub>k</sub> * A<sub>k</sub> = L<sub>k</sub> * U<sub>k</sub></i>.
+ * <p/>
+ * An instance is a reusable workspace for batches of a fixed size and dimension.
+ * All the memory is allocated by the constructor;
+ * {@link #factorize(MatrixBatch)} and {@link #solve(MatrixBatch)} allocate nothing for the matrices,
+ * so a batch can be re-factorized, e.g., on every tick, without creating garbage.
+ * The factors are packed as in {@link BlockedLU}, one after another in a single array,
+ * and the matrices are divided among the threads of the shared pool.
+ * <p/>
+ * A singular matrix does not stop the batch.
+ * It is flagged by {@link #isSingular(int)}, and its solutions are {@code NaN}.
+ *
+ * @author Haksun Li
+ */
+public class BatchedLU {
+
+    private final MatrixBatch lu;
+    /** row {@code i} of the <i>k</i>-th matrix is swapped with row {@code ipiv[k * dim + i]} at step {@code i} (counting from 0) */
+    private final int[] ipiv;
+    private final boolean[] singular;
+    private final int size;
+    private final int dim;
+
+    /**
+     * Construct a workspace to factorize batches of {@code size} matrices of dimension <i>dim x dim</i>.
+     *
+     * @param size the number of matrices
+     * @param dim  the dimension of the matrices
+     */
+    public BatchedLU(int size, int dim) {
+        this.size = size;
+        this.dim = dim;
+        this.lu = new MatrixBatch(size, dim, dim);
+        this.ipiv = new int[size * dim];
+        this.singular = new boolean[size];
+    }
+
+    /**
+     * Construct a workspace and factorize a batch of matrices.
+     *
+     * @param A a batch of square matrices
+     */
+    public BatchedLU(MatrixBatch A) {
+        this(A.size(), A.nRows());
+        factorize(A);
+    }
+
+    /**
+     * Factorize a batch of matrices, replacing the previous factors.
+     * {@code A} is not modified.
+     *
+     * @param A a batch of square matrices of the size and the dimension of this workspace
+     * @return {@code this}
+     */
+    public BatchedLU factorize(MatrixBatch A) {
+        SuanShuUtils.assertArgument(A.size() == size && A.nRows() == dim && A.nCols() == dim, "the batch does not match the workspace");
+
+        final double[] a = lu.asArray();
+        System.arraycopy(A.asArray(), 0, a, 0, a.length);
+
+        MatrixBatch.forEach(size, dim * dim * dim / 3 + 1, new RangeLoopBody() {
+
+            @Override
+            public void run(int from, int to) throws Exception {
+                for (int k = from; k < to; ++k) {
+                    singular[k] = !factorize(a, k * dim * dim, ipiv, k * dim, dim);
+                }
+            }
+        });
+
+        return this;
+    }
+
+    /**
+     * Check whether the <i>k</i>-th matrix is singular.
+     *
+     * @param k the matrix index, counting from 1
+     * @return {@code true} if the <i>k</i>-th matrix is singular
+     */
+    public boolean isSingular(int k) {
+        lu.offset(k);//check the index
+        return singular[k - 1];
+    }
+
+    /**
+     * Get the packed factors.
+     * The strictly lower part of each matrix is <i>L<sub>k</sub></i> without the unit diagonal; the upper part is <i>U<sub>k</sub></i>.
+     *
+     * @return the packed factors
+     */
+    public MatrixBatch LU() {
+        return lu;
+    }
+
+    /**
+     * Solve <i>A<sub>k</sub> * X<sub>k</sub> = B<sub>k</sub></i> for all <i>k</i> in place, overwriting <i>B<sub>k</sub></i> by <i>X<sub>k</sub></i>.
+     * The solutions for the singular matrices are {@code NaN}.
+     *
+     * @param B a batch of right hand sides, <i>dim x nRhs</i> each
+     * @return {@code B}, overwritten by the solutions
+     */
+    public MatrixBatch solve(MatrixBatch B) {
+        if (B.size() != size || B.nRows() != dim) {
+            throw new MatrixMismatchException("the right hand sides do not match the factorization");
+        }
+
+        final int nRhs = B.nCols();
+        final double[] a = lu.asArray();
+        final double[] X = B.asArray();
+        MatrixBatch.forEach(size, dim * dim * nRhs, new RangeLoopBody() {
+
+            @Override
+            public void run(int from, int to) throws Exception {
+                for (int k = from; k < to; ++k) {
+                    final int x = k * dim * nRhs;
+                    if (singular[k]) {
+                        for (int p = x; p < x + dim * nRhs; ++p) {
+                            X[p] = Double.NaN;
+                        }
+                    } else {
+                        solve(a, k * dim * dim, ipiv, k * dim, dim, X, x, nRhs);
+                    }
+                }
+            }
+        });
+
+        return B;
+    }
+
+    /**
+     * Factorize a <i>dim x dim</i> matrix in place by unblocked elimination with partial pivoting.
+     *
+     * @return {@code false} if the matrix is singular
+     */
+    private static boolean factorize(double[] a, int offset, int[] ipiv, int pOffset, int dim) {
+        boolean nonsingular = true;
+        for (int k = 0; k < dim; ++k) {
+            //find the biggest entry in absolute value in column k
+            int pivotRow = k;
+            double maxPivot = Math.abs(a[offset + k * dim + k]);
+            for (int i = k + 1; i < dim; ++i) {
+                double pivot = Math.abs(a[offset + i * dim + k]);
+                if (pivot > maxPivot) {
+                    pivotRow = i;
+                    maxPivot = pivot;
+                }
+            }
+
+            ipiv[pOffset + k] = pivotRow;
+            final int rk = offset + k * dim;
+            if (pivotRow != k) {
+                final int rp = offset + pivotRow * dim;
+                for (int j = 0; j < dim; ++j) {
+                    double tmp = a[rk + j];
+                    a[rk + j] = a[rp + j];
+                    a[rp + j] = tmp;
+                }
+            }
+
+            final double ukk = a[rk + k];
+            if (ukk == 0.) {
+                nonsingular = false;
+                continue;
+            }
+
+            for (int i = k + 1; i < dim; ++i) {
+                final int ri = offset + i * dim;
+                final double l = a[ri + k] / ukk;
+                a[ri + k] = l;
+                for (int j = k + 1; j < dim; ++j) {
+                    a[ri + j] -= l * a[rk + j];
+                }
+            }
+        }
+
+        return nonsingular;
+    }
+
+    /**
+     * Overwrite the <i>dim x nRhs</i> right hand sides by the solutions using the packed factors.
+     */
+    private static void solve(double[] a, int offset, int[] ipiv, int pOffset, int dim, double[] X, int x, int nRhs) {
+        //X = P * B
+        for (int i = 0; i < dim; ++i) {
+            final int p = ipiv[pOffset + i];
+            if (p != i) {
+                for (int j = 0; j < nRhs; ++j) {
+                    double tmp = X[x + i * nRhs + j];
+                    X[x + i * nRhs + j] = X[x + p * nRhs + j];
+                    X[x + p * nRhs + j] = tmp;
+                }
+            }
+        }
+
+        //forward substitution: L * Y = P * B, L has a unit diagonal
+        for (int i = 1; i < dim; ++i) {
+            final int xi = x + i * nRhs;
+            for (int p = 0; p < i; ++p) {
+                final double l = a[offset + i * dim + p];
+                final int xp = x + p * nRhs;
+                for (int j = 0; j < nRhs; ++j) {
+                    X[xi + j] -= l * X[xp + j];
+                }
+            }
+        }
+
+        //backward substitution: U * X = Y
+        for (int i = dim - 1; i >= 0; --i) {
+            final int xi = x + i * nRhs;
+            for (int p = i + 1; p < dim; ++p) {
+                final double u = a[offset + i * dim + p];
+                final int xp = x + p * nRhs;
+                for (int j = 0; j < nRhs; ++j) {
+                    X[xi + j] -= u * X[xp + j];
+                }
+            }
+            final double uii = a[offset + i * dim + i];
+            for (int j = 0; j < nRhs; ++j) {
+                X[xi + j] /= uii;
+            }
+        }
+    }
+}
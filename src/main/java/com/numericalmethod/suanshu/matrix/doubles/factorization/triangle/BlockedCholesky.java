@@ -0,0 +1,413 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.factorization.triangle;
+
+import com.numericalmethod.suanshu.matrix.doubles.IsMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.BlockedMatrixMultiplication;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.triangle.LowerTriangularMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.triangle.SymmetricMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.triangle.UpperTriangularMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.operation.MatrixUtils;
+import com.numericalmethod.suanshu.misc.SuanShuUtils;
+import com.numericalmethod.suanshu.number.DoubleUtils;
+import com.numericalmethod.suanshu.parallel.LoopSchedule;
+import com.numericalmethod.suanshu.parallel.ParallelExecutor;
+import com.numericalmethod.suanshu.parallel.RangeLoopBody;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+
+/**
+ * This is a blocked, multi-threaded Cholesky decomposition of a real, symmetric and positive definite matrix,
+ * <i>A = L * L<sup>t</sup></i>.
+ * <p/>
+ * The factor is kept in the lower triangle of a row-major {@code double[]} workspace, as in LAPACK's {@code dpotrf}.
+ * The columns are processed in panels of {@value #NB}.
+ * For each panel, the diagonal block is factorized by the Cholesky-Banachiewicz algorithm;
+ * the block column below it is solved row by row in parallel;
+ * and the lower triangle of the trailing sub-matrix is updated by
+ * <blockquote><i>A<sub>22</sub> -= L<sub>21</sub> * L<sub>21</sub><sup>t</sup></i></blockquote>
+ * using the cache-blocked kernel {@link BlockedMatrixMultiplication}, one block row at a time in parallel.
+ * <p/>
+ * The factor can be reused to solve many systems by {@link #solve(Vector)}, {@link #solve(Matrix)} and
+ * {@link #solveInPlace(double[], int)}.
+ * When <i>A</i> changes by a rank-1 term, e.g., a covariance matrix gains or loses an observation,
+ * {@link #update(Vector)} and {@link #downdate(Vector)} modify the factor in <i>O(n<sup>2</sup>)</i> operations
+ * instead of refactorizing in <i>O(n<sup>3</sup>)</i>.
+ * <p/>
+ * A packed {@link SymmetricMatrix}, e.g., a {@code Hessian}, is symmetric by construction,
+ * so only its lower triangle is read and the symmetry check is skipped.
+ * However, the workspace is always a full <i>n x n</i> array,
+ * so a packed input is expanded and the memory saving of the packed storage is lost during the factorization.
+ *
+ * @author Haksun Li
+ * @see
+ * <ul>
+ * <li>"Gene H. Golub, Charles F. Van Loan, "Section 4.2.9, Block Cholesky," Matrix Computations, 3rd edition."
+ * <li>"Philip E. Gill, Gene H. Golub, Walter Murray, Michael A. Saunders, "Methods for modifying matrix factorizations," Mathematics of Computation, vol. 28, no. 126, p. 505 - 535, 1974."
+ * </ul>
+ */
+public class BlockedCholesky {
+
+    /** the number of columns in a panel */
+    public static final int NB = 64;
+    /** the minimum number of rows below a panel to solve them in parallel */
+    private static final int PARALLEL_THRESHOLD = 256;
+    /** the minimum number of multiplications in a trailing update to run it in parallel */
+    private static final long PARALLEL_UPDATE_THRESHOLD = 100L * 100L * 100L;
+    /** the factor <i>L</i>, in the lower triangle of a row-major <i>n x n</i> array; the upper triangle is not used */
+    private double[] l;
+    private final int dim;
+
+    /**
+     * Run the blocked Cholesky decomposition on a real, symmetric (hence square), and positive definite matrix.
+     * The entries are copied to an <i>n x n</i> workspace, also when <i>A</i> is a packed {@link SymmetricMatrix}.
+     *
+     * @param A       a real, symmetric (hence square), and positive definite matrix
+     * @param epsilon a precision parameter: when a number |x| ≤ ε, it is considered 0
+     * @throws IllegalArgumentException if <i>A</i> is not symmetric
+     * @throws RuntimeException         if <i>A</i> is not positive definite matrix
+     */
+    public BlockedCholesky(Matrix A, double epsilon) {
+        this.dim = A.nRows();
+
+        if (A instanceof SymmetricMatrix) {//symmetric by construction; only the lower triangle is read
+            this.l = new double[dim * dim];
+            for (int i = 0; i < dim; ++i) {
+                for (int j = 0; j <= i; ++j) {
+                    l[i * dim + j] = A.get(i + 1, j + 1);
+                }
+            }
+        } else {
+            if (!IsMatrix.symmetric(A, epsilon)) {
+                throw new IllegalArgumentException("Cholesky decomposition applies to only symmetric matrix");
+            }
+
+            this.l = MatrixUtils.to1DArray(A);
+        }
+
+        factorize();
+    }
+
+    /**
+     * Run the blocked Cholesky decomposition on a real, symmetric (hence square), and positive definite matrix.
+     *
+     * @param A a real, symmetric (hence square), and positive definite matrix
+     * @throws IllegalArgumentException if <i>A</i> is not symmetric
+     * @throws RuntimeException         if <i>A</i> is not positive definite matrix
+     */
+    public BlockedCholesky(Matrix A) {
+        this(A, 0);
+    }
+
+    /**
+     * Get the lower triangular matrix <i>L</i>.
+     *
+     * @return <i>L</i>
+     */
+    public LowerTriangularMatrix L() {
+        double[][] L = new double[dim][];
+        for (int i = 0; i < dim; ++i) {
+            L[i] = new double[i + 1];
+            System.arraycopy(l, i * dim, L[i], 0, i + 1);
+        }
+        return new LowerTriangularMatrix(L);
+    }
+
+    /**
+     * Get the transpose of the lower triangular matrix, <i>L'</i>.
+     * The transpose is upper triangular.
+     *
+     * @return <i>L'</i>
+     */
+    public UpperTriangularMatrix Lt() {
+        return L().t();
+    }
+
+    /**
+     * Solve <i>Ax = b</i> using the factorization.
+     *
+     * @param b a vector
+     * @return <i>x</i> such that <i>Ax = b</i>
+     */
+    public Vector solve(Vector b) {
+        SuanShuUtils.assertArgument(b.size() == dim, "the size of b must equal the dimension of A");
+
+        double[] x = b.toArray();
+        solveInPlace(x, 1);
+        return new DenseVector(x);
+    }
+
+    /**
+     * Solve <i>AX = B</i> using the factorization, for all the columns of <i>B</i> at once.
+     *
+     * @param B a matrix whose columns are the right hand sides
+     * @return <i>X</i> such that <i>AX = B</i>
+     */
+    public Matrix solve(Matrix B) {
+        SuanShuUtils.assertArgument(B.nRows() == dim, "the number of rows of B must equal the dimension of A");
+
+        final int nRhs = B.nCols();
+        double[] X = MatrixUtils.to1DArray(B);
+        solveInPlace(X, nRhs);
+        return new DenseMatrix(X, dim, nRhs);
+    }
+
+    /**
+     * Solve <i>AX = B</i> using the factorization, overwriting <i>B</i> by <i>X</i>.
+     * No memory is allocated.
+     *
+     * @param B    the right hand sides, an <i>n x nRhs</i> matrix in a row-major {@code double[]}
+     * @param nRhs the number of right hand sides, i.e., the number of columns of <i>B</i>
+     */
+    public void solveInPlace(double[] B, int nRhs) {
+        SuanShuUtils.assertArgument(B.length == dim * nRhs, "B must be an n x nRhs matrix");
+
+        //forward substitution: L * Y = B
+        for (int i = 0; i < dim; ++i) {
+            final int bi = i * nRhs;
+            final int ri = i * dim;
+            for (int p = 0; p < i; ++p) {
+                final double lip = l[ri + p];
+                if (lip != 0.) {
+                    final int bp = p * nRhs;
+                    for (int j = 0; j < nRhs; ++j) {
+                        B[bi + j] -= lip * B[bp + j];
+                    }
+                }
+            }
+            final double lii = l[ri + i];
+            for (int j = 0; j < nRhs; ++j) {
+                B[bi + j] /= lii;
+            }
+        }
+
+        //backward substitution: L' * X = Y, by column-oriented updates so that L is read row by row
+        for (int i = dim - 1; i >= 0; --i) {
+            final int bi = i * nRhs;
+            final int ri = i * dim;
+            final double lii = l[ri + i];
+            for (int j = 0; j < nRhs; ++j) {
+                B[bi + j] /= lii;
+            }
+            for (int p = 0; p < i; ++p) {//X[p] -= L[i][p] * X[i]
+                final double lip = l[ri + p];
+                if (lip != 0.) {
+                    final int bp = p * nRhs;
+                    for (int j = 0; j < nRhs; ++j) {
+                        B[bp + j] -= lip * B[bi + j];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Update the factor to that of <i>A + x * x'</i>.
+     *
+     * @param x a vector
+     */
+    public void update(Vector x) {
+        modify(x, 1);
+    }
+
+    /**
+     * Update the factor to that of <i>A - x * x'</i>.
+     * If <i>A - x * x'</i> is not positive definite, the factor is unchanged.
+     *
+     * @param x a vector
+     * @throws RuntimeException if <i>A - x * x'</i> is not positive definite
+     */
+    public void downdate(Vector x) {
+        modify(x, -1);
+    }
+
+    /**
+     * Apply a sequence of (hyperbolic, for a downdate) rotations to <i>[L x]</i> to eliminate <i>x</i>.
+     *
+     * @param sign 1 for an update; -1 for a downdate
+     */
+    private void modify(Vector x, double sign) {
+        SuanShuUtils.assertArgument(x.size() == dim, "the size of x must equal the dimension of A");
+
+        final double[] w = x.toArray();
+        final double[] L = sign > 0 ? l : l.clone();//a failed downdate does not corrupt the factor
+
+        for (int k = 0; k < dim; ++k) {
+            final int kk = k * dim + k;
+            final double lkk = L[kk];
+            final double r2 = lkk * lkk + sign * w[k] * w[k];
+            if (DoubleUtils.compare(r2, 0, 0) <= 0) {
+                throw new RuntimeException("A - x * x' is not positive definite");
+            }
+
+            final double r = Math.sqrt(r2);
+            final double c = r / lkk;
+            final double s = w[k] / lkk;
+            L[kk] = r;
+            for (int i = k + 1; i < dim; ++i) {
+                final int ik = i * dim + k;
+                L[ik] = (L[ik] + sign * s * w[i]) / c;
+                w[i] = c * w[i] - s * L[ik];
+            }
+        }
+
+        l = L;
+    }
+
+    /**
+     * Factorize the panels from left to right.
+     */
+    private void factorize() {
+        for (int k0 = 0; k0 < dim; k0 += NB) {
+            final int k1 = Math.min(k0 + NB, dim);
+
+            factorizeDiagonalBlock(k0, k1);
+
+            if (k1 < dim) {
+                solveBlockColumn(k0, k1);
+                updateTrailingMatrix(k0, k1);
+            }
+        }
+    }
+
+    /**
+     * Factorize the diagonal block {@code [k0, k1) x [k0, k1)} by the Cholesky-Banachiewicz algorithm.
+     *
+     * @throws RuntimeException if <i>A</i> is not positive definite
+     */
+    private void factorizeDiagonalBlock(int k0, int k1) {
+        for (int i = k0; i < k1; ++i) {
+            final int ri = i * dim;
+
+            //for L[i,j], where j < i
+            for (int j = k0; j < i; ++j) {
+                final int rj = j * dim;
+                double value = l[ri + j];
+                for (int k = k0; k < j; ++k) {
+                    value -= l[ri + k] * l[rj + k];
+                }
+                value /= l[rj + j];
+                l[ri + j] = value;
+            }
+
+            //for L[i,i]
+            double value = l[ri + i];
+            for (int k = k0; k < i; ++k) {
+                value -= l[ri + k] * l[ri + k];
+            }
+
+            if (DoubleUtils.compare(value, 0, 0) <= 0) {
+                throw new RuntimeException("A is not positive definite");
+            }
+            l[ri + i] = Math.sqrt(value);
+        }
+    }
+
+    /**
+     * Compute <i>L<sub>21</sub> = A<sub>21</sub> * L<sub>11</sub><sup>-t</sup></i>, for the rows below the diagonal block.
+     * The rows are independent of each other.
+     */
+    private void solveBlockColumn(final int k0, final int k1) {
+        RangeLoopBody body = new RangeLoopBody() {
+
+            @Override
+            public void run(int from, int to) throws Exception {
+                for (int i = from; i < to; ++i) {
+                    final int ri = i * dim;
+                    for (int j = k0; j < k1; ++j) {
+                        final int rj = j * dim;
+                        double value = l[ri + j];
+                        for (int k = k0; k < j; ++k) {
+                            value -= l[ri + k] * l[rj + k];
+                        }
+                        l[ri + j] = value / l[rj + j];
+                    }
+                }
+            }
+        };
+
+        try {
+            if (dim - k1 < PARALLEL_THRESHOLD) {
+                body.run(k1, dim);
+            } else {
+                ParallelExecutor.getSharedInstance().forLoop(
+                        k1, dim,
+                        new LoopSchedule(LoopSchedule.Type.STATIC, NB),
+                        body);
+            }
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Compute the lower triangle of <i>A<sub>22</sub> -= L<sub>21</sub> * L<sub>21</sub><sup>t</sup></i>.
+     * Each block row of <i>A<sub>22</sub></i> is updated up to its diagonal block by a matrix multiplication.
+     */
+    private void updateTrailingMatrix(final int k0, final int k1) {
+        final int nb = k1 - k0;
+        final int m = dim - k1;
+
+        final double[] L21t = new double[nb * m];//L21' in row-major, so that the multiplier is contiguous
+        for (int i = 0; i < m; ++i) {
+            final int ri = (k1 + i) * dim + k0;
+            for (int p = 0; p < nb; ++p) {
+                L21t[p * m + i] = l[ri + p];
+            }
+        }
+
+        final int nBlocks = (m + NB - 1) / NB;
+        final RangeLoopBody body = new RangeLoopBody() {
+
+            @Override
+            public void run(int from, int to) throws Exception {
+                for (int b = from; b < to; ++b) {
+                    final int i0 = b * NB;
+                    final int i1 = Math.min(i0 + NB, m);
+                    BlockedMatrixMultiplication.multiply(
+                            -1.,
+                            l, (k1 + i0) * dim + k0, dim,
+                            L21t, 0, m,
+                            l, (k1 + i0) * dim + k1, dim,
+                            i1 - i0, nb, i1,//up to the diagonal block
+                            null);
+                }
+            }
+        };
+
+        try {
+            if ((long) m * m * nb / 2 < PARALLEL_UPDATE_THRESHOLD) {
+                body.run(0, nBlocks);
+            } else {
+                ParallelExecutor.getSharedInstance().forLoop(
+                        0, nBlocks,
+                        new LoopSchedule(LoopSchedule.Type.DYNAMIC, 1),//the later block rows have more work
+                        body);
+            }
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+}
@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.factorization.triangle;
+
+import com.numericalmethod.suanshu.datastructure.DimensionCheck;
+import com.numericalmethod.suanshu.matrix.MatrixSingularityException;
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.PermutationMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.BlockedMatrixMultiplication;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.triangle.LowerTriangularMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.triangle.UpperTriangularMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.operation.MatrixUtils;
+import com.numericalmethod.suanshu.misc.SuanShuUtils;
+import static com.numericalmethod.suanshu.number.DoubleUtils.compare;
+import com.numericalmethod.suanshu.parallel.ParallelExecutor;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+
+/**
+ * This is a blocked, right-looking LU decomposition with partial pivoting of a <em>square</em> matrix.
+ * On success, we have <i>P * A = L * U</i>, where
+ * <i>P</i> is an <i>n x n</i> permutation matrix;
+ * <i>L</i> is an <i>n x n</i> unit lower triangular matrix;
+ * <i>U</i> is an <i>n x n</i> upper triangular matrix.
+ * <p/>
+ * The factorization works on a packed, row-major {@code double[]} copy of <i>A</i>, which is overwritten by
+ * the strictly lower part of <i>L</i> and by <i>U</i>, as in LAPACK's {@code dgetrf}.
+ * The columns are processed in panels of {@value #NB}.
+ * Each panel is factorized by unblocked elimination;
+ * the corresponding block row of <i>U</i> is solved by forward substitution;
+ * and the trailing sub-matrix is updated by a single matrix multiplication,
+ * <blockquote><i>A<sub>22</sub> -= L<sub>21</sub> * U<sub>12</sub></i></blockquote>
+ * which is computed by the (parallel) cache-blocked kernel {@link BlockedMatrixMultiplication}.
+ * Almost all the floating point operations are therefore done in the matrix multiplication.
+ * <p/>
+ * <i>L</i>, <i>U</i> and <i>P</i> are constructed only when asked for.
+ * To solve linear systems, use {@link #solve(Vector)} and {@link #solve(Matrix)},
+ * which work directly on the packed factors and can be called repeatedly for different right hand sides.
+ * <p/>
+ * The LU decomposition with partial pivoting always exists, even if the matrix is singular.
+ * Singularity is reported only when solving a system.
+ *
+ * @author Haksun Li
+ * @see
+ * <ul>
+ * <li>"Gene H. Golub, Charles F. Van Loan, "Section 3.2.11, Block LU," Matrix Computations, 3rd edition."
+ * <li>"E. Anderson et al., "dgetrf," LAPACK Users' Guide, 3rd edition."
+ * </ul>
+ */
+public class BlockedLU implements LUDecomposition {
+
+    /** the number of columns in a panel */
+    public static final int NB = 64;
+    /** the packed factors: the strictly lower part is <i>L</i> (without the unit diagonal); the upper part is <i>U</i> */
+    private final double[] lu;
+    /** row {@code i} is swapped with row {@code ipiv[i]} at step {@code i} (counting from 0) */
+    private final int[] ipiv;
+    private final int dim;
+    private final double epsilon;
+
+    /**
+     * Run the blocked LU decomposition on a square matrix.
+     *
+     * @param A       a square matrix
+     * @param epsilon a precision parameter: when a number |x| ≤ ε, it is considered 0
+     * @throws IllegalArgumentException if <i>A</i> is not square
+     */
+    public BlockedLU(Matrix A, double epsilon) {
+        SuanShuUtils.assertArgument(DimensionCheck.isSquare(A), "the LU decomposition applies to square matrix only");
+
+        this.dim = A.nRows();
+        this.epsilon = epsilon;
+        this.lu = MatrixUtils.to1DArray(A);
+        this.ipiv = new int[dim];
+
+        factorize();
+    }
+
+    /**
+     * Run the blocked LU decomposition on a square matrix.
+     *
+     * @param A a square matrix
+     * @throws IllegalArgumentException if <i>A</i> is not square
+     */
+    public BlockedLU(Matrix A) {
+        this(A, SuanShuUtils.autoEpsilon(A));
+    }
+
+    @Override
+    public LowerTriangularMatrix L() {
+        double[][] L = new double[dim][];
+        for (int i = 0; i < dim; ++i) {
+            L[i] = new double[i + 1];
+            System.arraycopy(lu, i * dim, L[i], 0, i);
+            L[i][i] = 1;
+        }
+        return new LowerTriangularMatrix(L);
+    }
+
+    @Override
+    public UpperTriangularMatrix U() {
+        double[][] U = new double[dim][];
+        for (int i = 0; i < dim; ++i) {
+            U[i] = new double[dim - i];
+            System.arraycopy(lu, i * dim + i, U[i], 0, dim - i);
+        }
+        return new UpperTriangularMatrix(U);
+    }
+
+    @Override
+    public PermutationMatrix P() {
+        PermutationMatrix P = new PermutationMatrix(dim);
+        for (int i = 0; i < dim; ++i) {
+            if (ipiv[i] != i) {
+                P.swapRow(i + 1, ipiv[i] + 1);
+            }
+        }
+        return P;
+    }
+
+    /**
+     * Solve <i>Ax = b</i> using the factorization.
+     *
+     * @param b a vector
+     * @return <i>x</i> such that <i>Ax = b</i>
+     * @throws MatrixSingularityException if <i>A</i> is singular
+     */
+    public Vector solve(Vector b) {
+        SuanShuUtils.assertArgument(b.size() == dim, "the size of b must equal the dimension of A");
+
+        double[] x = b.toArray();
+        solve(x, 1);
+        return new DenseVector(x);
+    }
+
+    /**
+     * Solve <i>AX = B</i> using the factorization, for all the columns of <i>B</i> at once.
+     *
+     * @param B a matrix whose columns are the right hand sides
+     * @return <i>X</i> such that <i>AX = B</i>
+     * @throws MatrixSingularityException if <i>A</i> is singular
+     */
+    public Matrix solve(Matrix B) {
+        SuanShuUtils.assertArgument(B.nRows() == dim, "the number of rows of B must equal the dimension of A");
+
+        final int nRhs = B.nCols();
+        double[] X = MatrixUtils.to1DArray(B);
+        solve(X, nRhs);
+        return new DenseMatrix(X, dim, nRhs);
+    }
+
+    /**
+     * Overwrite the packed, row-major <i>n x nRhs</i> right hand sides by the solutions.
+     */
+    private void solve(double[] X, int nRhs) {
+        for (int i = 0; i < dim; ++i) {
+            if (compare(lu[i * dim + i], 0, epsilon) == 0) {
+                throw new MatrixSingularityException("singularity detected during the LU decomposition; the system has no unique solution");
+            }
+        }
+
+        //X = P * B
+        for (int i = 0; i < dim; ++i) {
+            if (ipiv[i] != i) {
+                swapRows(X, nRhs, i, ipiv[i]);
+            }
+        }
+
+        //forward substitution: L * Y = P * B, L has a unit diagonal
+        for (int i = 1; i < dim; ++i) {
+            final int xi = i * nRhs;
+            for (int p = 0; p < i; ++p) {
+                final double l = lu[i * dim + p];
+                if (l != 0.) {
+                    final int xp = p * nRhs;
+                    for (int j = 0; j < nRhs; ++j) {
+                        X[xi + j] -= l * X[xp + j];
+                    }
+                }
+            }
+        }
+
+        //backward substitution: U * X = Y
+        for (int i = dim - 1; i >= 0; --i) {
+            final int xi = i * nRhs;
+            for (int p = i + 1; p < dim; ++p) {
+                final double u = lu[i * dim + p];
+                if (u != 0.) {
+                    final int xp = p * nRhs;
+                    for (int j = 0; j < nRhs; ++j) {
+                        X[xi + j] -= u * X[xp + j];
+                    }
+                }
+            }
+            final double uii = lu[i * dim + i];
+            for (int j = 0; j < nRhs; ++j) {
+                X[xi + j] /= uii;
+            }
+        }
+    }
+
+    /**
+     * Factorize the panels from left to right.
+     */
+    private void factorize() {
+        for (int k0 = 0; k0 < dim; k0 += NB) {
+            final int k1 = Math.min(k0 + NB, dim);
+
+            factorizePanel(k0, k1);
+
+            if (k1 < dim) {
+                //U12 = L11^-1 * A12
+                for (int i = k0 + 1; i < k1; ++i) {
+                    final int ri = i * dim;
+                    for (int p = k0; p < i; ++p) {
+                        final double l = lu[ri + p];
+                        if (l != 0.) {
+                            final int rp = p * dim;
+                            for (int j = k1; j < dim; ++j) {
+                                lu[ri + j] -= l * lu[rp + j];
+                            }
+                        }
+                    }
+                }
+
+                //A22 -= L21 * U12
+                BlockedMatrixMultiplication.multiply(
+                        -1.,
+                        lu, k1 * dim + k0, dim,
+                        lu, k0 * dim + k1, dim,
+                        lu, k1 * dim + k1, dim,
+                        dim - k1, k1 - k0, dim - k1,
+                        ParallelExecutor.getSharedInstance());
+            }
+        }
+    }
+
+    /**
+     * Factorize the columns {@code [k0, k1)} below the diagonal by unblocked elimination with partial pivoting.
+     * The whole rows are swapped.
+     */
+    private void factorizePanel(int k0, int k1) {
+        for (int k = k0; k < k1; ++k) {
+            //find the biggest entry in absolute value in column k
+            int pivotRow = k;
+            double maxPivot = Math.abs(lu[k * dim + k]);
+            for (int i = k + 1; i < dim; ++i) {
+                double pivot = Math.abs(lu[i * dim + k]);
+                if (pivot > maxPivot) {
+                    pivotRow = i;
+                    maxPivot = pivot;
+                }
+            }
+
+            ipiv[k] = pivotRow;
+            if (pivotRow != k) {
+                swapRows(lu, dim, k, pivotRow);
+            }
+
+            final int rk = k * dim;
+            final double ukk = lu[rk + k];
+            if (ukk == 0.) {
+                continue;//the column is all 0; nothing to eliminate
+            }
+
+            for (int i = k + 1; i < dim; ++i) {
+                final int ri = i * dim;
+                final double l = lu[ri + k] / ukk;
+                lu[ri + k] = l;
+                if (l != 0.) {
+                    for (int j = k + 1; j < k1; ++j) {//update the rest of the panel only
+                        lu[ri + j] -= l * lu[rk + j];
+                    }
+                }
+            }
+        }
+    }
+
+    private static void swapRows(double[] A, int nCols, int i1, int i2) {
+        final int r1 = i1 * nCols;
+        final int r2 = i2 * nCols;
+        for (int j = 0; j < nCols; ++j) {
+            double tmp = A[r1 + j];
+            A[r1 + j] = A[r2 + j];
+            A[r2 + j] = tmp;
+        }
+    }
+}
@@ -22,12 +22,9 @@
  */
 package com.numericalmethod.suanshu.matrix.doubles.factorization.triangle;
 
-import com.numericalmethod.suanshu.matrix.MatrixSingularityException;
-import com.numericalmethod.suanshu.matrix.doubles.IsMatrix;
 import com.numericalmethod.suanshu.matrix.doubles.Matrix;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.triangle.LowerTriangularMatrix;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.triangle.UpperTriangularMatrix;
-import com.numericalmethod.suanshu.number.DoubleUtils;
 
 /**
  * Cholesky decomposition decomposes a real, symmetric (hence square), and positive definite matrix <i>A</i> into
@@ -35,14 +32,15 @@ import com.numericalmethod.suanshu.number.DoubleUtils;
  * For any real, symmetric, positive definite matrix, there is a unique Cholesky decomposition, such that <i>L</i>'s diagonal entries are all positive.
  * This implementation uses the Cholesky-Crout algorithm,
  * which starts from the upper left corner of the matrix <i>L</i> and proceeds to calculate the matrix row by row.
+ * For a big matrix, the computation is blocked and multi-threaded; see {@link BlockedCholesky},
+ * which also solves linear systems and does rank-1 updates using the factor.
  *
  * @author Haksun Li
  * @see <a href="http://en.wikipedia.org/wiki/Cholesky_decomposition">Wikipedia: Cholesky decomposition</a>
  */
 public class Cholesky {
 
-    /** the resultant lower triangular matrix */
-    private LowerTriangularMatrix L;
+    private final BlockedCholesky impl;
 
     /**
      * Run the Cholesky decomposition on a real, symmetric (hence square), and positive definite matrix.
@@ -53,11 +51,7 @@ public class Cholesky {
      * @throws RuntimeException         if <i>A</i> is not positive definite matrix
      */
     public Cholesky(Matrix A, double epsilon) {
-        if (!IsMatrix.symmetric(A, epsilon)) {
-            throw new IllegalArgumentException("Cholesky decomposition applies to only symmetric matrix");
-        }
-
-        run(A);
+        impl = new BlockedCholesky(A, epsilon);
     }
 
     /**
@@ -77,7 +71,7 @@ public class Cholesky {
      * @return <i>L</i>
      */
     public LowerTriangularMatrix L() {
-        return new LowerTriangularMatrix(L);
+        return impl.L();
     }
 
     /**
@@ -87,42 +81,6 @@ public class Cholesky {
      * @return <i>L'</i>
      */
     public UpperTriangularMatrix Lt() {
-        return L.t();
-    }
-
-    /**
-     * An implementation of Cholesky-Banachiewicz algorithm.
-     *
-     * @param A a <em>square</em> matrix
-     * @throws MatrixSingularityException if the matrix is singular
-     * @see <a href="http://en.wikipedia.org/wiki/Cholesky_decomposition#The_Cholesky-Banachiewicz_and_Cholesky-Crout_algorithms">Wikipedia: The Cholesky-Banachiewicz and Cholesky-Crout algorithms</a>
-     */
-    private void run(Matrix A) {
-        final int dim = A.nRows();
-        L = new LowerTriangularMatrix(dim);
-
-        for (int i = 1; i <= dim; ++i) {
-            //for L[i,j], where j < i
-            for (int j = 1; j < i; ++j) {
-                double value = A.get(i, j);
-                for (int k = 1; k <= j - 1; ++k) {
-                    value -= L.get(i, k) * L.get(j, k);//TODO: improve efficiency by using sub-rows/columns
-                }
-                value /= L.get(j, j);
-                L.set(i, j, value);
-            }
-
-            //for L[i,i]
-            double value = A.get(i, i);
-            for (int k = 1; k <= i - 1; ++k) {
-                value -= L.get(i, k) * L.get(i, k);
-            }
-
-            if (DoubleUtils.compare(value, 0, 0) <= 0) {
-                throw new RuntimeException("A is not positive definite");
-            }
-            value = Math.sqrt(value);
-            L.set(i, i, value);
-        }
+        return impl.Lt();
     }
 }
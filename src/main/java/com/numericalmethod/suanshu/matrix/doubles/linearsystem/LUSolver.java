@@ -25,12 +25,14 @@ package com.numericalmethod.suanshu.matrix.doubles.linearsystem;
 import com.numericalmethod.suanshu.datastructure.DimensionCheck;
 import com.numericalmethod.suanshu.matrix.MatrixSingularityException;
 import com.numericalmethod.suanshu.matrix.doubles.ImmutableMatrix;
-import com.numericalmethod.suanshu.matrix.doubles.matrixtype.PermutationMatrix;
-import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.triangle.LowerTriangularMatrix;
-import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.triangle.UpperTriangularMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.factorization.triangle.BlockedLU;
+import com.numericalmethod.suanshu.matrix.doubles.operation.MatrixUtils;
+import com.numericalmethod.suanshu.matrix.floats.factorization.triangle.FloatLU;
+import com.numericalmethod.suanshu.matrix.floats.matrixtype.dense.FloatDenseMatrix;
 import com.numericalmethod.suanshu.misc.SuanShuUtils;
 import com.numericalmethod.suanshu.vector.doubles.ImmutableVector;
 import com.numericalmethod.suanshu.vector.doubles.Vector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
 
 /**
  * Use LU decomposition to solve <i>Ax = b</i> where <i>A</i> is square and
@@ -44,14 +46,51 @@ import com.numericalmethod.suanshu.vector.doubles.Vector;
  * We first solve
  * <i>Ly = b</i> by forward substitution and then <i>Ux = y</i> by backward
  * substitution.
+ * The factorization is done by {@link BlockedLU}, and the substitutions work directly on its packed factors.
+ * To solve many systems with the same <i>A</i>, factorize <i>A</i> once by {@link BlockedLU}
+ * and call {@link BlockedLU#solve(Vector)} or {@link BlockedLU#solve(com.numericalmethod.suanshu.matrix.doubles.Matrix)}.
+ * <p/>
+ * In the mixed-precision mode, <i>A</i> is factorized in single precision by {@link FloatLU},
+ * which moves half the data of a double-precision factorization.
+ * The solution is then refined iteratively in double precision,
+ * <blockquote><pre><i>
+ * r = b - Ax;
+ * solve Ad = r using the single-precision factors;
+ * x = x + d
+ * </i></pre></blockquote>
+ * until the residual is as small as that of a double-precision solver, as in LAPACK's {@code dsgesv}.
+ * If <i>A</i> is too ill-conditioned for the refinement to converge, or does not fit in single precision,
+ * the system is solved again in double precision.
  *
  * @author Haksun Li
- * @see <a
- * href="http://en.wikipedia.org/wiki/LU_decomposition#Solving_linear_equations">Wikipedia:
- * Solving linear equations</a>
+ * @see
+ * <ul>
+ * <li><a href="http://en.wikipedia.org/wiki/LU_decomposition#Solving_linear_equations">Wikipedia: Solving linear equations</a>
+ * <li>"Julie Langou et al., "Exploiting the performance of 32 bit floating point arithmetic in obtaining 64 bit accuracy," SC '06, 2006."
+ * </ul>
  */
 public class LUSolver {
 
+    /** the maximum number of iterative refinements in the mixed-precision mode */
+    private static final int MAX_REFINEMENTS = 30;
+    private final boolean mixedPrecision;
+
+    /**
+     * Construct a solver that factorizes in double precision.
+     */
+    public LUSolver() {
+        this(false);
+    }
+
+    /**
+     * Construct a solver.
+     *
+     * @param mixedPrecision {@code true} to factorize in single precision and refine the solution in double precision
+     */
+    public LUSolver(boolean mixedPrecision) {
+        this.mixedPrecision = mixedPrecision;
+    }
+
     /**
      * Solve <i>Ax = b</i>.
      *
@@ -65,24 +104,94 @@ public class LUSolver {
         
         SuanShuUtils.assertArgument(DimensionCheck.isSquare(A), "A must be a square matrix");
 
+        if (mixedPrecision) {
+            Vector x = solveByRefinement(A, b);
+            if (x != null) {
+                return x;
+            }
+        }
+
         try {
-            com.numericalmethod.suanshu.matrix.doubles.factorization.triangle.LU luDecomp =
-                    new com.numericalmethod.suanshu.matrix.doubles.factorization.triangle.LU(A,
-                                                                                             0);
-            LowerTriangularMatrix L = luDecomp.L();
-            UpperTriangularMatrix U = luDecomp.U();
-            PermutationMatrix P = luDecomp.P();
+            BlockedLU lu = new BlockedLU(A, 0);
+            return lu.solve(b);
+        } catch (MatrixSingularityException ex) {
+            throw new LinearSystemSolver.NoSolution("no solution to this system of linear equations");
+        }
+    }
 
-            Vector bb = P.multiply(b);
-            ForwardSubstitution forward = new ForwardSubstitution();
-            Vector y = forward.solve(L, bb);
+    /**
+     * Solve <i>Ax = b</i> by a single-precision factorization and double-precision iterative refinement.
+     *
+     * @return <i>x</i>, or {@code null} if the refinement does not converge
+     */
+    private static Vector solveByRefinement(ImmutableMatrix A, ImmutableVector b) {
+        final int n = A.nRows();
+        final double[] a = MatrixUtils.to1DArray(A);
 
-            BackwardSubstitution backward = new BackwardSubstitution();
-            Vector x = backward.solve(U, y);
+        double aNorm = 0;//the infinity norm
+        final float[] a32 = new float[a.length];
+        for (int i = 0, p = 0; i < n; ++i) {
+            double rowSum = 0;
+            for (int j = 0; j < n; ++j, ++p) {
+                if (Math.abs(a[p]) > Float.MAX_VALUE) {
+                    return null;//overflows in single precision
+                }
+                a32[p] = (float) a[p];
+                rowSum += Math.abs(a[p]);
+            }
+            aNorm = Math.max(aNorm, rowSum);
+        }
 
-            return x;
+        final FloatLU lu;
+        try {
+            lu = new FloatLU(new FloatDenseMatrix(a32, n, n));
         } catch (MatrixSingularityException ex) {
-            throw new LinearSystemSolver.NoSolution("no solution to this system of linear equations");
+            return null;
         }
+
+        final double[] rhs = b.toArray();
+        final double[] x = new double[n];
+        final double[] r = rhs.clone();
+        final float[] d = new float[n];
+        final double tolerance = aNorm * Math.ulp(1.) / 2 * Math.sqrt(n);
+
+        for (int iter = 0; iter <= MAX_REFINEMENTS; ++iter) {
+            //solve Ad = r
+            for (int i = 0; i < n; ++i) {
+                d[i] = (float) r[i];
+            }
+            try {
+                lu.solveInPlace(d, 1);
+            } catch (MatrixSingularityException ex) {
+                return null;
+            }
+
+            //x = x + d
+            double xNorm = 0;
+            for (int i = 0; i < n; ++i) {
+                x[i] += d[i];
+                xNorm = Math.max(xNorm, Math.abs(x[i]));
+            }
+
+            //r = b - Ax
+            double rNorm = 0;
+            for (int i = 0, p = 0; i < n; ++i) {
+                double sum = rhs[i];
+                for (int j = 0; j < n; ++j) {
+                    sum -= a[p++] * x[j];
+                }
+                r[i] = sum;
+                rNorm = Math.max(rNorm, Math.abs(sum));
+            }
+
+            if (Double.isNaN(rNorm) || Double.isInfinite(rNorm)) {
+                return null;
+            }
+            if (rNorm <= xNorm * tolerance) {
+                return new DenseVector(x);
+            }
+        }
+
+        return null;
     }
 }
@@ -24,9 +24,12 @@ package com.numericalmethod.suanshu.matrix.doubles.linearsystem;
 
 import com.numericalmethod.suanshu.matrix.doubles.ImmutableMatrix;
 import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.factorization.svd.TruncatedSVD;
 import com.numericalmethod.suanshu.matrix.doubles.operation.PseudoInverse;
+import com.numericalmethod.suanshu.misc.SuanShuUtils;
 import com.numericalmethod.suanshu.vector.doubles.ImmutableVector;
 import com.numericalmethod.suanshu.vector.doubles.Vector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
 
 /**
  * This class solves an over-determined system of linear equations in the
@@ -52,6 +55,11 @@ import com.numericalmethod.suanshu.vector.doubles.Vector;
  * Instead, we use SVD decomposition, an orthogonal decomposition method that is
  * numerically stable.
  * SVD allows approximation by truncating small singular values.
+ * When a rank is given, only the largest singular values and their singular vectors are computed by a {@link TruncatedSVD},
+ * so that the solution is
+ * <blockquote><i>
+ * x^ = V<sub>k</sub> * D<sub>k</sub><sup>-1</sup> * U<sub>k</sub><sup>t</sup> * y
+ * </i></blockquote>
  *
  * @author Haksun Li
  * @see
@@ -68,6 +76,22 @@ import com.numericalmethod.suanshu.vector.doubles.Vector;
 public class OLSSolverBySVD {
 
     private final double epsilon;
+    private final int rank;//0 if the full SVD is used
+
+    /**
+     * Construct an OLS solver for an over-determined system of linear
+     * equations, using only the <i>k</i> largest singular values.
+     *
+     * @param epsilon a precision parameter: when a number |x| ≤ ε, it is
+     * considered 0
+     * @param rank the number of singular values, <i>k</i>, to keep; 0 to use
+     * the full pseudo-inverse
+     */
+    public OLSSolverBySVD(double epsilon, int rank) {
+        SuanShuUtils.assertArgument(rank >= 0, "rank must be non-negative; 0 for the full pseudo-inverse");
+        this.epsilon = epsilon;
+        this.rank = rank;
+    }
 
     /**
      * Construct an OLS solver for an over-determined system of linear
@@ -77,7 +101,7 @@ public class OLSSolverBySVD {
      * considered 0
      */
     public OLSSolverBySVD(double epsilon) {
-        this.epsilon = epsilon;
+        this(epsilon, 0);
     }
 
     /**
@@ -92,7 +116,23 @@ public class OLSSolverBySVD {
         final ImmutableMatrix A = problem.A();
         final ImmutableVector b = problem.b();
 
+        if (rank > 0) {
+            return solveByTruncatedSVD(A, b);
+        }
+
         Matrix Ainv = new PseudoInverse(A, epsilon);
         return Ainv.multiply(b);
     }
+
+    private Vector solveByTruncatedSVD(Matrix A, Vector b) {
+        TruncatedSVD svd = new TruncatedSVD(A, Math.min(rank, Math.min(A.nRows(), A.nCols())));
+        double[] sigma = svd.getSingularValues();
+
+        double[] c = svd.Ut().multiply(b).toArray();
+        for (int i = 0; i < c.length; ++i) {
+            c[i] = sigma[i] > epsilon ? c[i] / sigma[i] : 0.;//truncate the small singular values as in the pseudo-inverse
+        }
+
+        return svd.V().multiply(new DenseVector(c));
+    }
 }
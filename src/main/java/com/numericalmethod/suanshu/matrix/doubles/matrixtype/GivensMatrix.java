@@ -325,15 +325,21 @@ public class GivensMatrix implements Matrix {
         throwIfIncompatible4Multiplication(this, A);
 
         DenseMatrix result = new DenseMatrix(A);
-        for (int k = 1; k <= A.nCols(); ++k) {
-            double t1 = result.get(i, k);
-            double t2 = result.get(j, k);
-            result.set(i, k, c * t1 + s * t2);
-            result.set(j, k, -s * t1 + c * t2);
-        }
+        multiplyInPlace(result);
         return result;
     }
 
+    /**
+     * Left multiplication by <i>G</i> in place, namely, <i>A = G * A</i>.
+     * Only the <i>i</i>-th and the <i>j</i>-th rows are rotated.
+     *
+     * @param A a matrix, modified
+     */
+    public void multiplyInPlace(DenseMatrix A) {
+        throwIfIncompatible4Multiplication(this, A);
+        A.rowView(i).rotateInPlace(A.rowView(j), c, s);
+    }
+
     @Override
     public Vector multiply(Vector v) {
         throwIfIncompatible4Multiplication(this, v);
@@ -356,15 +362,21 @@ public class GivensMatrix implements Matrix {
         throwIfIncompatible4Multiplication(A, this);
 
         DenseMatrix result = new DenseMatrix(A); // copy
-        for (int k = 1; k <= A.nRows(); ++k) {
-            double t1 = result.get(k, i);
-            double t2 = result.get(k, j);
-            result.set(k, i, c * t1 - s * t2);
-            result.set(k, j, s * t1 + c * t2);
-        }
+        rightMultiplyInPlace(result);
         return result;
     }
 
+    /**
+     * Right multiplication by <i>G</i> in place, namely, <i>A = A * G</i>.
+     * Only the <i>i</i>-th and the <i>j</i>-th columns are rotated.
+     *
+     * @param A a matrix, modified
+     */
+    public void rightMultiplyInPlace(DenseMatrix A) {
+        throwIfIncompatible4Multiplication(A, this);
+        A.columnView(i).rotateInPlace(A.columnView(j), c, -s);
+    }
+
     /**
      * Given an array of Givens matrices <i>{G<sub>i</sub>}</i>,
      * compute <i>G</i>, where
@@ -376,7 +388,7 @@ public class GivensMatrix implements Matrix {
      * @return <i>G</i>
      */
     public static Matrix product(GivensMatrix[] Gs) {
-        Matrix result = null;
+        DenseMatrix result = null;
 
         for (int i = Gs.length - 1; i >= 0; --i) {
             if (Gs[i] != null) {
@@ -384,7 +396,7 @@ public class GivensMatrix implements Matrix {
                     result = new DenseMatrix(Gs[i].dim, Gs[i].dim).ONE();
                 }
 
-                result = Gs[i].multiply(result);
+                Gs[i].multiplyInPlace(result);
             }
         }
 
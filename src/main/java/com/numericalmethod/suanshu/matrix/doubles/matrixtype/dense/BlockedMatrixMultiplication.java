@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense;
+
+import com.numericalmethod.suanshu.parallel.LoopBody;
+import com.numericalmethod.suanshu.parallel.MultipleExecutionException;
+import com.numericalmethod.suanshu.parallel.ParallelExecutor;
+
+/**
+ * This is a cache-blocked, register-tiled kernel for multiplying two row-major {@code double[]} matrices.
+ * It computes
+ * <blockquote><i>C += &alpha; * A * B</i></blockquote>
+ * where <i>A</i> is <i>m x k</i>, <i>B</i> is <i>k x n</i> and <i>C</i> is <i>m x n</i>.
+ * Each matrix is addressed by an offset and a leading dimension (the distance between two consecutive rows) so that
+ * the kernel can work on a sub-matrix of a larger array without copying.
+ * <p/>
+ * The output is partitioned into {@value #MC} x {@value #NC} tiles.
+ * For each tile, the inner dimension is swept in panels of {@value #KC} so that the panel of <i>B</i> stays in the L2 cache
+ * while the rows of <i>A</i> stream through the L1 cache.
+ * The innermost loop updates 2 rows of <i>C</i> using 4 rows of <i>B</i> at a time,
+ * so that each element of <i>B</i> loaded is used twice and each store to <i>C</i> accumulates 4 products.
+ * The products are added to <i>C</i> one at a time in the order of the inner dimension,
+ * so that, when <i>&alpha; = 1</i> and <i>C</i> starts at 0, each entry is rounded exactly as the dot product of a row of <i>A</i> and a column of <i>B</i>.
+ * The loop runs over contiguous memory and is vectorized by the JIT compiler.
+ * When the matrices are big, the output tiles are computed in parallel.
+ * Different tiles never write the same element, hence no synchronization is needed.
+ * <p/>
+ * Unlike the textbook algorithm, no transpose of <i>B</i> is needed.
+ *
+ * @author Haksun Li
+ * @see "Kazushige Goto and Robert A. van de Geijn, "Anatomy of high-performance matrix multiplication," ACM Transactions on Mathematical Software, vol. 34, issue 3, 2008."
+ */
+public class BlockedMatrixMultiplication {
+
+    /** the number of rows of an output tile */
+    public static final int MC = 64;
+    /** the depth of a panel of the inner dimension */
+    public static final int KC = 256;
+    /** the number of columns of an output tile */
+    public static final int NC = 512;
+    /** the minimum number of multiplications, <i>m * n * k</i>, to run in parallel */
+    private static final long PARALLEL_THRESHOLD = 100L * 100L * 100L;
+
+    private BlockedMatrixMultiplication() {
+        // private constructor for utility class
+    }
+
+    /**
+     * Compute <i>A * B</i>, where both matrices are stored in row-major {@code double[]}.
+     *
+     * @param A        the multiplicand, an <i>m x k</i> matrix
+     * @param B        the multiplier, a <i>k x n</i> matrix
+     * @param m        the number of rows of <i>A</i>
+     * @param k        the number of columns of <i>A</i> and the number of rows of <i>B</i>
+     * @param n        the number of columns of <i>B</i>
+     * @param parallel the executor to compute the tiles in parallel; {@code null} for single-threaded computation
+     * @return <i>A * B</i> as a row-major {@code double[]}
+     */
+    public static double[] multiply(double[] A, double[] B, int m, int k, int n, ParallelExecutor parallel) {
+        double[] C = new double[m * n];
+        multiply(A, 0, k, B, 0, n, C, 0, n, m, k, n, parallel);
+        return C;
+    }
+
+    /**
+     * Compute <i>C += A * B</i>.
+     * This is the same as calling
+     * <pre><code>
+     * multiply(1., A, aOffset, lda, B, bOffset, ldb, C, cOffset, ldc, m, k, n, parallel);
+     * </code></pre>
+     *
+     * @param A        the array storing the multiplicand, an <i>m x k</i> matrix
+     * @param aOffset  the index of <i>A[0][0]</i>
+     * @param lda      the leading dimension of <i>A</i>
+     * @param B        the array storing the multiplier, a <i>k x n</i> matrix
+     * @param bOffset  the index of <i>B[0][0]</i>
+     * @param ldb      the leading dimension of <i>B</i>
+     * @param C        the array storing the accumulator, an <i>m x n</i> matrix
+     * @param cOffset  the index of <i>C[0][0]</i>
+     * @param ldc      the leading dimension of <i>C</i>
+     * @param m        the number of rows of <i>A</i> and <i>C</i>
+     * @param k        the number of columns of <i>A</i> and the number of rows of <i>B</i>
+     * @param n        the number of columns of <i>B</i> and <i>C</i>
+     * @param parallel the executor to compute the tiles in parallel; {@code null} for single-threaded computation
+     */
+    public static void multiply(
+            double[] A, int aOffset, int lda,
+            double[] B, int bOffset, int ldb,
+            double[] C, int cOffset, int ldc,
+            int m, int k, int n,
+            ParallelExecutor parallel) {
+        multiply(1., A, aOffset, lda, B, bOffset, ldb, C, cOffset, ldc, m, k, n, parallel);
+    }
+
+    /**
+     * Compute <i>C += &alpha; * A * B</i>.
+     * All matrices are stored in row-major order in (possibly larger) {@code double[]}.
+     * The (<i>i</i>, <i>j</i>) entry (counting from 0) of <i>A</i> is {@code A[aOffset + i * lda + j]}, and similarly for <i>B</i> and <i>C</i>.
+     * <i>C</i> must not overlap with <i>A</i> or <i>B</i>.
+     *
+     * @param alpha    the scaling factor of <i>A * B</i>
+     * @param A        the array storing the multiplicand, an <i>m x k</i> matrix
+     * @param aOffset  the index of <i>A[0][0]</i>
+     * @param lda      the leading dimension of <i>A</i>
+     * @param B        the array storing the multiplier, a <i>k x n</i> matrix
+     * @param bOffset  the index of <i>B[0][0]</i>
+     * @param ldb      the leading dimension of <i>B</i>
+     * @param C        the array storing the accumulator, an <i>m x n</i> matrix
+     * @param cOffset  the index of <i>C[0][0]</i>
+     * @param ldc      the leading dimension of <i>C</i>
+     * @param m        the number of rows of <i>A</i> and <i>C</i>
+     * @param k        the number of columns of <i>A</i> and the number of rows of <i>B</i>
+     * @param n        the number of columns of <i>B</i> and <i>C</i>
+     * @param parallel the executor to compute the tiles in parallel; {@code null} for single-threaded computation
+     */
+    public static void multiply(
+            final double alpha,
+            final double[] A, final int aOffset, final int lda,
+            final double[] B, final int bOffset, final int ldb,
+            final double[] C, final int cOffset, final int ldc,
+            final int m, final int k, final int n,
+            ParallelExecutor parallel) {
+        if (m == 0 || n == 0 || k == 0 || alpha == 0.) {
+            return;
+        }
+
+        final int nRowTiles = (m + MC - 1) / MC;
+        final int nColTiles = (n + NC - 1) / NC;
+        final int nTiles = nRowTiles * nColTiles;
+
+        if (parallel == null || nTiles == 1 || (long) m * n * k < PARALLEL_THRESHOLD) {
+            for (int t = 0; t < nTiles; ++t) {
+                multiplyTile(alpha, A, aOffset, lda, B, bOffset, ldb, C, cOffset, ldc, m, k, n, t / nColTiles, t % nColTiles);
+            }
+            return;
+        }
+
+        try {
+            parallel.forLoop(0, nTiles, new LoopBody() {
+
+                @Override
+                public void run(int t) throws Exception {
+                    multiplyTile(alpha, A, aOffset, lda, B, bOffset, ldb, C, cOffset, ldc, m, k, n, t / nColTiles, t % nColTiles);
+                }
+            });
+        } catch (MultipleExecutionException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Compute the (<i>rowTile</i>, <i>colTile</i>) output tile of <i>C += &alpha; * A * B</i>.
+     */
+    private static void multiplyTile(
+            double alpha,
+            double[] A, int aOffset, int lda,
+            double[] B, int bOffset, int ldb,
+            double[] C, int cOffset, int ldc,
+            int m, int k, int n,
+            int rowTile, int colTile) {
+        final int i0 = rowTile * MC;
+        final int iEnd = Math.min(i0 + MC, m);
+        final int j0 = colTile * NC;
+        final int jEnd = Math.min(j0 + NC, n);
+
+        for (int p0 = 0; p0 < k; p0 += KC) {
+            final int pEnd = Math.min(p0 + KC, k);
+
+            int i = i0;
+            for (; i + 1 < iEnd; i += 2) {//2 rows of C at a time
+                final int c0 = cOffset + i * ldc;
+                final int c1 = c0 + ldc;
+                final int a0 = aOffset + i * lda;
+                final int a1 = a0 + lda;
+
+                int p = p0;
+                for (; p + 3 < pEnd; p += 4) {//4 rows of B at a time
+                    final double a00 = alpha * A[a0 + p], a01 = alpha * A[a0 + p + 1], a02 = alpha * A[a0 + p + 2], a03 = alpha * A[a0 + p + 3];
+                    final double a10 = alpha * A[a1 + p], a11 = alpha * A[a1 + p + 1], a12 = alpha * A[a1 + p + 2], a13 = alpha * A[a1 + p + 3];
+                    final int b0 = bOffset + p * ldb;
+                    final int b1 = b0 + ldb;
+                    final int b2 = b1 + ldb;
+                    final int b3 = b2 + ldb;
+                    for (int j = j0; j < jEnd; ++j) {
+                        final double x0 = B[b0 + j], x1 = B[b1 + j], x2 = B[b2 + j], x3 = B[b3 + j];
+                        //accumulate one product at a time in the order of k, so that the rounding is the same as that of a dot product
+                        double c = C[c0 + j];
+                        c += a00 * x0;
+                        c += a01 * x1;
+                        c += a02 * x2;
+                        c += a03 * x3;
+                        C[c0 + j] = c;
+                        c = C[c1 + j];
+                        c += a10 * x0;
+                        c += a11 * x1;
+                        c += a12 * x2;
+                        c += a13 * x3;
+                        C[c1 + j] = c;
+                    }
+                }
+
+                for (; p < pEnd; ++p) {//the remaining rows of B
+                    final double a00 = alpha * A[a0 + p];
+                    final double a10 = alpha * A[a1 + p];
+                    final int b0 = bOffset + p * ldb;
+                    for (int j = j0; j < jEnd; ++j) {
+                        final double x0 = B[b0 + j];
+                        C[c0 + j] += a00 * x0;
+                        C[c1 + j] += a10 * x0;
+                    }
+                }
+            }
+
+            for (; i < iEnd; ++i) {//the remaining row of C
+                final int c0 = cOffset + i * ldc;
+                final int a0 = aOffset + i * lda;
+                for (int p = p0; p < pEnd; ++p) {
+                    final double a00 = alpha * A[a0 + p];
+                    final int b0 = bOffset + p * ldb;
+                    for (int j = j0; j < jEnd; ++j) {
+                        C[c0 + j] += a00 * B[b0 + j];
+                    }
+                }
+            }
+        }
+    }
+}
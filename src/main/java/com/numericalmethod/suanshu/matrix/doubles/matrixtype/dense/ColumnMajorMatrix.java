@@ -0,0 +1,407 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense;
+
+import static com.numericalmethod.suanshu.datastructure.DimensionCheck.*;
+import com.numericalmethod.suanshu.matrix.MatrixAccessException;
+import com.numericalmethod.suanshu.matrix.MatrixMismatchException;
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.operation.MatrixUtils;
+import com.numericalmethod.suanshu.misc.SuanShuUtils;
+import com.numericalmethod.suanshu.number.DoubleUtils;
+import com.numericalmethod.suanshu.parallel.ParallelExecutor;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVectorView;
+import java.util.Arrays;
+
+/**
+ * This dense matrix stores its entries column by column in a 1D {@code double[]}.
+ * The (<i>i</i>, <i>j</i>) entry (counting from 1) is {@code data[(j - 1) * nRows + (i - 1)]}.
+ * A column is contiguous in memory, so column-oriented algorithms, e.g., Gram-Schmidt or Householder QR,
+ * sweep the columns with unit stride; see {@link #columnView(int)}.
+ * <p/>
+ * The column-major array of <i>A</i> is the same as the row-major array of <i>A'</i>.
+ * Hence, the conversions between this layout and {@link DenseMatrix} are free when the transpose is wanted,
+ * e.g., {@link #transposeView()} and {@link DenseMatrix#transposeView()} share the array without copying.
+ * The products are computed by {@link BlockedMatrixMultiplication} on the array,
+ * using <i>(A * B)' = B' * A'</i>.
+ *
+ * @author Haksun Li
+ */
+public class ColumnMajorMatrix implements Matrix, Densifiable {
+
+    /** the entries, column by column */
+    private final double[] data;
+    private final int nRows;
+    private final int nCols;
+
+    //<editor-fold defaultstate="collapsed" desc="Ctors">
+    /**
+     * Construct a 0 matrix of dimension <i>nRows x nCols</i>.
+     *
+     * @param nRows the number of rows
+     * @param nCols the number of columns
+     */
+    public ColumnMajorMatrix(int nRows, int nCols) {
+        this(new double[nRows * nCols], nRows, nCols);
+    }
+
+    /**
+     * Construct a matrix from a column-major 1D array.
+     * The array is not copied: changing the matrix changes the array and vice versa.
+     *
+     * @param data  the entries, column by column
+     * @param nRows the number of rows
+     * @param nCols the number of columns
+     * @throws IllegalArgumentException when the length of {@code data} is different from <i>nRows * nCols</i>
+     */
+    public ColumnMajorMatrix(double[] data, int nRows, int nCols) {
+        SuanShuUtils.assertArgument(data.length == nRows * nCols, "the data length does not match the matrix dimension");
+        this.data = data;
+        this.nRows = nRows;
+        this.nCols = nCols;
+    }
+
+    /**
+     * Construct a matrix from a 2D {@code double[][]} array, given row by row.
+     *
+     * @param data the 2D array input
+     * @throws IllegalArgumentException when {@code data} is a jagged array
+     */
+    public ColumnMajorMatrix(double[][] data) {
+        this(data.length, data[0].length);
+
+        for (int i = 0; i < nRows; ++i) {
+            SuanShuUtils.assertArgument(data[i].length == nCols, "data is a jagged array");
+            for (int j = 0, p = i; j < nCols; ++j, p += nRows) {
+                this.data[p] = data[i][j];
+            }
+        }
+    }
+
+    /**
+     * Copy any matrix to the column-major representation.
+     *
+     * @param A a matrix
+     */
+    public ColumnMajorMatrix(Matrix A) {
+        this(copyOf(A), A.nRows(), A.nCols());
+    }
+
+    private static double[] copyOf(Matrix A) {
+        if (A instanceof ColumnMajorMatrix) {
+            double[] data = ((ColumnMajorMatrix) A).data;
+            return Arrays.copyOf(data, data.length);
+        }
+
+        if (A instanceof DenseMatrix) {
+            return ((DenseMatrix) A).t().transposeView().data;//the row-major array of A' is the column-major array of A
+        }
+
+        final int nRows = A.nRows();
+        final int nCols = A.nCols();
+        double[] data = new double[nRows * nCols];
+        for (int j = 1, p = 0; j <= nCols; ++j) {
+            for (int i = 1; i <= nRows; ++i) {
+                data[p++] = A.get(i, j);
+            }
+        }
+
+        return data;
+    }
+    //</editor-fold>
+
+    @Override
+    public int nRows() {
+        return nRows;
+    }
+
+    @Override
+    public int nCols() {
+        return nCols;
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="setters and getters">
+    @Override
+    public double get(int i, int j) throws MatrixAccessException {
+        throwIfInvalidRow(this, i);
+        throwIfInvalidColumn(this, j);
+        return data[(j - 1) * nRows + (i - 1)];
+    }
+
+    @Override
+    public void set(int i, int j, double value) throws MatrixAccessException {
+        throwIfInvalidRow(this, i);
+        throwIfInvalidColumn(this, j);
+        data[(j - 1) * nRows + (i - 1)] = value;
+    }
+
+    @Override
+    public DenseVector getRow(int i) throws MatrixAccessException {
+        return rowView(i).deepCopy();
+    }
+
+    @Override
+    public DenseVector getColumn(int j) throws MatrixAccessException {
+        throwIfInvalidColumn(this, j);
+        return new DenseVector(Arrays.copyOfRange(data, (j - 1) * nRows, j * nRows));
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="views">
+    /**
+     * Get a view of the <i>j</i>-th column.
+     * The entries are contiguous in memory.
+     *
+     * @param j the column index, counting from 1
+     * @return a view of the column
+     */
+    public DenseVectorView columnView(int j) {
+        throwIfInvalidColumn(this, j);
+        return new DenseVectorView(data, (j - 1) * nRows, 1, nRows);
+    }
+
+    /**
+     * Get a view of the <i>i</i>-th row.
+     * The entries are <i>nRows</i> apart in memory.
+     *
+     * @param i the row index, counting from 1
+     * @return a view of the row
+     */
+    public DenseVectorView rowView(int i) {
+        throwIfInvalidRow(this, i);
+        return new DenseVectorView(data, i - 1, nRows, nCols);
+    }
+
+    /**
+     * Get the transpose as a {@link DenseMatrix} that shares the array with this matrix.
+     * No data is copied: changing the transpose changes this matrix and vice versa.
+     *
+     * @return a view of <i>this'</i>
+     */
+    public DenseMatrix transposeView() {
+        return new DenseMatrix(data, nCols, nRows);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="the math operations">
+    @Override
+    public ColumnMajorMatrix add(Matrix that) {
+        return deepCopy().addInPlace(1., that);
+    }
+
+    @Override
+    public ColumnMajorMatrix minus(Matrix that) {
+        return deepCopy().addInPlace(-1., that);
+    }
+
+    /**
+     * <i>this += c * that</i>, without allocating a new matrix.
+     *
+     * @param c    a scalar
+     * @param that a matrix
+     * @return {@code this}, modified
+     */
+    public ColumnMajorMatrix addInPlace(double c, Matrix that) {
+        throwIfDifferentDimension(this, that);
+
+        if (that instanceof ColumnMajorMatrix) {
+            final double[] other = ((ColumnMajorMatrix) that).data;
+            for (int p = 0; p < data.length; ++p) {
+                data[p] += c * other[p];
+            }
+        } else {
+            for (int j = 1, p = 0; j <= nCols; ++j) {
+                for (int i = 1; i <= nRows; ++i) {
+                    data[p++] += c * that.get(i, j);
+                }
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * <i>this *= c</i>, without allocating a new matrix.
+     *
+     * @param c a scalar
+     * @return {@code this}, modified
+     */
+    public ColumnMajorMatrix scaleInPlace(double c) {
+        for (int p = 0; p < data.length; ++p) {
+            data[p] *= c;
+        }
+
+        return this;
+    }
+
+    @Override
+    public ColumnMajorMatrix scaled(double c) {
+        return deepCopy().scaleInPlace(c);
+    }
+
+    @Override
+    public ColumnMajorMatrix opposite() {
+        return scaled(-1);
+    }
+
+    /**
+     * The row-major array of the transpose is the column-major array of this matrix,
+     * hence the transpose is a copy of the array without reordering.
+     *
+     * @return <i>this'</i>
+     */
+    @Override
+    public DenseMatrix t() {
+        return new DenseMatrix(Arrays.copyOf(data, data.length), nCols, nRows);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The product is computed as <i>(this * that)' = that' * this'</i> on the column-major arrays.
+     * If {@code that} is not column-major, it is copied first.
+     */
+    @Override
+    public ColumnMajorMatrix multiply(Matrix that) {
+        throwIfIncompatible4Multiplication(this, that);
+
+        final double[] other = that instanceof ColumnMajorMatrix ? ((ColumnMajorMatrix) that).data : copyOf(that);
+        final int n = that.nCols();
+        final double[] result = new double[nRows * n];
+        BlockedMatrixMultiplication.multiply(
+                other, 0, nCols,
+                data, 0, nRows,
+                result, 0, nRows,
+                n, nCols, nRows,
+                ParallelExecutor.getSharedInstance());
+
+        return new ColumnMajorMatrix(result, nRows, n);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The product is accumulated column by column, i.e., <i>this * v = &sum; v<sub>j</sub> * A<sub>j</sub></i>.
+     */
+    @Override
+    public DenseVector multiply(Vector v) {
+        throwIfIncompatible4Multiplication(this, v);
+
+        final double[] x = v.toArray();
+        final double[] result = new double[nRows];
+        for (int j = 0, p = 0; j < nCols; ++j) {
+            final double xj = x[j];
+            for (int i = 0; i < nRows; ++i) {
+                result[i] += data[p++] * xj;
+            }
+        }
+
+        return new DenseVector(result);
+    }
+
+    /**
+     * Compute <i>this' * v</i> without transposing this matrix.
+     * Each entry is the inner product of a (contiguous) column and <i>v</i>.
+     *
+     * @param v a vector of length <i>nRows</i>
+     * @return <i>this' * v</i>
+     */
+    public DenseVector tMultiply(Vector v) {
+        if (v.size() != nRows) {
+            throw new MatrixMismatchException("the length of v does not match the number of rows");
+        }
+
+        final double[] x = v.toArray();
+        final double[] result = new double[nCols];
+        for (int j = 0, p = 0; j < nCols; ++j) {
+            double sum = 0;
+            for (int i = 0; i < nRows; ++i) {
+                sum += data[p++] * x[i];
+            }
+            result[j] = sum;
+        }
+
+        return new DenseVector(result);
+    }
+
+    @Override
+    public ColumnMajorMatrix ZERO() {
+        return new ColumnMajorMatrix(nRows, nCols);
+    }
+
+    @Override
+    public ColumnMajorMatrix ONE() {
+        ColumnMajorMatrix result = new ColumnMajorMatrix(nRows, nCols);
+        for (int i = 0; i < Math.min(nRows, nCols); ++i) {
+            result.data[i * nRows + i] = 1;
+        }
+
+        return result;
+    }
+    //</editor-fold>
+
+    /**
+     * Copy the entries to a new row-major {@link DenseMatrix}.
+     *
+     * @return a copy of the entries in row-major order
+     */
+    @Override
+    public DenseMatrix toDense() {
+        return transposeView().t();
+    }
+
+    @Override
+    public ColumnMajorMatrix deepCopy() {
+        return new ColumnMajorMatrix(Arrays.copyOf(data, data.length), nRows, nCols);
+    }
+
+    @Override
+    public String toString() {
+        return MatrixUtils.toString(this);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final ColumnMajorMatrix other = (ColumnMajorMatrix) obj;
+        if (this.nRows != other.nRows || this.nCols != other.nCols) {
+            return false;
+        }
+        return DoubleUtils.equal(this.data, other.data, 0);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 5;
+        hash = 37 * hash + this.nRows;
+        hash = 37 * hash + Arrays.hashCode(this.data);
+        return hash;
+    }
+}
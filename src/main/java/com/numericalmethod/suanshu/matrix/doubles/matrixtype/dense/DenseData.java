@@ -119,6 +119,31 @@ public abstract class DenseData implements MatrixAccess, DeepCopyable {
         return doubleArrayOperation.scaled(data, c);
     }
 
+    /**
+     * Add a multiple of the elements in {@code that} to {@code this}, element-by-element, in place.
+     * That is, <i>this += c * that</i>.
+     *
+     * @param c    the scaling constant of {@code that}
+     * @param that an array of data
+     */
+    public void addInPlace(double c, DenseData that) {
+        final double[] thatData = that.data;
+        for (int i = 0; i < data.length; ++i) {
+            data[i] += c * thatData[i];
+        }
+    }
+
+    /**
+     * Multiply the elements in {@code this} by a scalar, element-by-element, in place.
+     *
+     * @param c the scaling constant
+     */
+    public void scaleInPlace(double c) {
+        for (int i = 0; i < data.length; ++i) {
+            data[i] *= c;
+        }
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == null) {
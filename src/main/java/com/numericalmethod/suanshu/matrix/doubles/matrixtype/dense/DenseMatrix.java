@@ -34,6 +34,7 @@ import com.numericalmethod.suanshu.parallel.MultipleExecutionException;
 import com.numericalmethod.suanshu.parallel.ParallelExecutor;
 import com.numericalmethod.suanshu.vector.doubles.Vector;
 import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVectorView;
 import java.util.Arrays;
 
 /**
@@ -48,11 +49,6 @@ import java.util.Arrays;
  */
 public class DenseMatrix implements Matrix, Densifiable {
 
-    private static class ParallelExecutorInstanceHolder { // thread-safe lazy initialization idiom
-
-        private static final ParallelExecutor instance = new ParallelExecutor();
-    }
-
     //<editor-fold defaultstate="collapsed" desc="customize the view/usage of the data array">
     private static class MyDenseDataImpl extends DenseData {
 
@@ -342,6 +338,83 @@ public class DenseMatrix implements Matrix, Densifiable {
     }
     //</editor-fold>
 
+    //<editor-fold defaultstate="collapsed" desc="views">
+    /**
+     * Get a writable view of the <i>i</i>-th row without copying.
+     *
+     * @param i the row index
+     * @return a view of the row
+     */
+    public DenseVectorView rowView(int i) {
+        return rowView(i, 1, nCols());
+    }
+
+    /**
+     * Get a writable view of a sub-row of the <i>i</i>-th row, from {@code beginCol} column to {@code endCol} column, inclusively,
+     * without copying.
+     *
+     * @param i        the row index
+     * @param beginCol the beginning column of the sub-row
+     * @param endCol   the ending column of the sub-row
+     * @return a view of the sub-row
+     */
+    public DenseVectorView rowView(int i, int beginCol, int endCol) {
+        return subMatrixView(i, i, beginCol, endCol).rowView(1);
+    }
+
+    /**
+     * Get a writable view of the <i>j</i>-th column without copying.
+     *
+     * @param j the column index
+     * @return a view of the column
+     */
+    public DenseVectorView columnView(int j) {
+        return columnView(j, 1, nRows());
+    }
+
+    /**
+     * Get a writable view of a sub-column of the <i>j</i>-th column, from {@code beginRow} row to {@code endRow} row, inclusively,
+     * without copying.
+     *
+     * @param j        the column index
+     * @param beginRow the beginning row of the sub-column
+     * @param endRow   the ending row of the sub-column
+     * @return a view of the sub-column
+     */
+    public DenseVectorView columnView(int j, int beginRow, int endRow) {
+        return subMatrixView(beginRow, endRow, j, j).columnView(1);
+    }
+
+    /**
+     * Get a writable view of a sub-matrix without copying.
+     *
+     * @param rowFrom the beginning row index
+     * @param rowTo   the ending row index
+     * @param colFrom the beginning column index
+     * @param colTo   the ending column index
+     * @return a view of the sub-matrix
+     */
+    public DenseMatrixView subMatrixView(int rowFrom, int rowTo, int colFrom, int colTo) {
+        throwIfInvalidRow(this, rowFrom);
+        throwIfInvalidRow(this, rowTo);
+        throwIfInvalidColumn(this, colFrom);
+        throwIfInvalidColumn(this, colTo);
+
+        final int nCols = nCols();
+        return new DenseMatrixView(storage.asArray(), (rowFrom - 1) * nCols + (colFrom - 1), nCols, rowTo - rowFrom + 1, colTo - colFrom + 1);
+    }
+
+    /**
+     * Get the transpose as a {@link ColumnMajorMatrix} that shares the array with this matrix.
+     * No data is copied: changing the transpose changes this matrix and vice versa.
+     *
+     * @return a view of <i>this'</i>
+     */
+    public ColumnMajorMatrix transposeView() {
+        return new ColumnMajorMatrix(storage.asArray(), nCols(), nRows());
+    }
+    //</editor-fold>
+
     //<editor-fold defaultstate="collapsed" desc="the math operations">
     @Override
     public Matrix add(Matrix that) {
@@ -377,56 +450,16 @@ public class DenseMatrix implements Matrix, Densifiable {
             return math.multiply(this, that);
         }
 
-        final DenseMatrix other_t = ((DenseMatrix) that).t();//we transpose the multiplicand for easy indexing
-
-        final double[] thisData = storage.asArray(); //for performance: avoid indirect access of the data array in the object
-        final double[] thatData = other_t.storage.asArray(); //for performance: avoid indirect access of the data array in the object
-        final double[] resultData = new double[this.nRows() * that.nCols()];
-
+        final int nRows = nRows();
         final int nCols = nCols();
         final int nThatCols = that.nCols();
-        /* original single-threaded algorithm */
-//        int m = 0;
-//        for (int i = 0; i < thisData.length; i += nCols) {//loop over rows of 'this'
-//            for (int j = 0; j < thatData.length; j += nCols) {//loop over cols of 'that'
-//                    /*
-//                 * dot product
-//                 * result[p][q] = Sum{this.row(p) * other.column(q)}
-//                 */
-//                double sum = 0.;
-//                for (int p = i, q = j; p < i + nCols; ++p, ++q) { //for performance: make p, q loop variables
-////                    sum += this.denseData.data[p] * other_t.denseData.data[q]; //slow
-//                    sum += thisData[p] * thatData[q];//TODO: to be parallelized
-//                }
-//
-//                resultData[m++] = sum;
-//            }
-//        }
-        try {
-            ParallelExecutorInstanceHolder.instance.conditionalForLoop(
-                    thisData.length >= LENGTH_THRESHOLD,
-                    0, thisData.length, nCols,
-                    new LoopBody() { //loop over rows of 'this'
 
-                        @Override
-                        public void run(int i) throws Exception {
-                            int resultIndex = i / nCols * nThatCols;
-                            final int rowLastIndex = i + nCols;
-                            for (int j = 0; j < thatData.length; j += nCols) {//loop over cols of 'that'
-                                double sum = 0.;
-                                for (int p = i, q = j; p < rowLastIndex; ++p, ++q) { //for performance: make p, q loop variables
-                                    sum += thisData[p] * thatData[q];
-                                }
-
-                                resultData[resultIndex++] = sum;
-                            }
-                        }
-                    });
-        } catch (MultipleExecutionException ex) {
-            throw new RuntimeException(ex);
-        }
+        final double[] resultData = BlockedMatrixMultiplication.multiply(
+                storage.asArray(), ((DenseMatrix) that).storage.asArray(),
+                nRows, nCols, nThatCols,
+                ParallelExecutor.getSharedInstance());
 
-        DenseMatrix result = new DenseMatrix(resultData, nRows(), that.nCols());
+        DenseMatrix result = new DenseMatrix(resultData, nRows, nThatCols);
         return result;
     }
 
@@ -466,7 +499,7 @@ public class DenseMatrix implements Matrix, Densifiable {
 //        }
 
         try {
-            ParallelExecutorInstanceHolder.instance.conditionalForLoop(
+            ParallelExecutor.getSharedInstance().conditionalForLoop(
                     thisData.length >= LENGTH_THRESHOLD,
                     0, nRows, new LoopBody() {
 
@@ -507,7 +540,7 @@ public class DenseMatrix implements Matrix, Densifiable {
 //            result.set(i / nCols + 1, sum);
 //        }
         try {
-            ParallelExecutorInstanceHolder.instance.conditionalForLoop(
+            ParallelExecutor.getSharedInstance().conditionalForLoop(
                     resultData.length >= LENGTH_THRESHOLD,
                     0, resultData.length, 1,
                     new LoopBody() {
@@ -541,6 +574,107 @@ public class DenseMatrix implements Matrix, Densifiable {
     }
     //</editor-fold>
 
+    //<editor-fold defaultstate="collapsed" desc="the in-place math operations">
+    /**
+     * <i>this += that</i>, without allocating a new matrix.
+     *
+     * @param that a matrix
+     * @return {@code this}, modified
+     */
+    public DenseMatrix addInPlace(Matrix that) {
+        return addInPlace(1., that);
+    }
+
+    /**
+     * <i>this -= that</i>, without allocating a new matrix.
+     *
+     * @param that a matrix
+     * @return {@code this}, modified
+     */
+    public DenseMatrix minusInPlace(Matrix that) {
+        return addInPlace(-1., that);
+    }
+
+    /**
+     * <i>this += c * that</i>, without allocating a new matrix.
+     *
+     * @param c    a scalar
+     * @param that a matrix
+     * @return {@code this}, modified
+     */
+    public DenseMatrix addInPlace(double c, Matrix that) {
+        throwIfDifferentDimension(this, that);
+
+        if (that instanceof DenseMatrix) {
+            storage.addInPlace(c, ((DenseMatrix) that).storage);
+        } else {
+            math.addInPlace(this, that, c);
+        }
+
+        return this;
+    }
+
+    /**
+     * <i>this *= c</i>, without allocating a new matrix.
+     *
+     * @param c a scalar
+     * @return {@code this}, modified
+     */
+    public DenseMatrix scaleInPlace(double c) {
+        storage.scaleInPlace(c);
+        return this;
+    }
+
+    /**
+     * <i>C = &alpha; * this * that + &beta; * C</i>, without allocating a new matrix.
+     * The content of <i>C</i> is ignored when <i>&beta;</i> is 0.
+     * This is useful for iterative algorithms that can reuse a workspace.
+     *
+     * @param that  the multiplier
+     * @param C     the matrix to store the result
+     * @param alpha the scaling factor of <i>this * that</i>
+     * @param beta  the scaling factor of <i>C</i>
+     * @return <i>C</i>, modified
+     */
+    public DenseMatrix multiplyInto(Matrix that, DenseMatrix C, double alpha, double beta) {
+        throwIfIncompatible4Multiplication(this, that, C);
+
+        if (!(that instanceof DenseMatrix)) {
+            math.multiplyInto(this, that, C, alpha, beta);
+            return C;
+        }
+
+        final double[] cData = C.storage.asArray();
+        double[] aData = storage.asArray();
+        double[] bData = ((DenseMatrix) that).storage.asArray();
+        //the kernel accumulates into C, so C must not share storage with the operands
+        if (aData == cData) {
+            aData = Arrays.copyOf(aData, aData.length);
+        }
+        if (bData == cData) {
+            bData = Arrays.copyOf(bData, bData.length);
+        }
+
+        if (beta == 0.) {
+            Arrays.fill(cData, 0.);//ignore the content of C, even if it is NaN
+        } else if (beta != 1.) {
+            C.storage.scaleInPlace(beta);
+        }
+
+        final int nCols = nCols();
+        final int nThatCols = that.nCols();
+        BlockedMatrixMultiplication.multiply(
+                alpha,
+                aData, 0, nCols,
+                bData, 0, nThatCols,
+                cData, 0, nThatCols,
+                nRows(), nCols, nThatCols,
+                ParallelExecutor.getSharedInstance());
+
+        return C;
+    }
+    //</editor-fold>
+
     @Override
     public String toString() {
         return MatrixUtils.toString(this);
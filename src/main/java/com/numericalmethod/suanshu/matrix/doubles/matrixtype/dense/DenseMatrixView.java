@@ -0,0 +1,483 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense;
+
+import static com.numericalmethod.suanshu.datastructure.DimensionCheck.*;
+import com.numericalmethod.suanshu.matrix.MatrixAccessException;
+import com.numericalmethod.suanshu.matrix.MatrixMismatchException;
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.operation.MatrixUtils;
+import com.numericalmethod.suanshu.parallel.ParallelExecutor;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVectorView;
+
+/**
+ * This is a writable view of a rectangular block of a row-major {@code double[]}, e.g., a sub-matrix of a {@link DenseMatrix}.
+ * The (<i>i</i>, <i>j</i>) entry (counting from 1) is {@code data[offset + (i - 1) * ld + (j - 1)]},
+ * where <i>ld</i>, the leading dimension, is the number of columns of the whole array.
+ * No data is copied: changing the view changes the array and vice versa.
+ * <p/>
+ * Unlike {@link com.numericalmethod.suanshu.matrix.doubles.operation.SubMatrixRef},
+ * which reads the entries through {@link Matrix#get(int, int)} of the referenced matrix,
+ * a view addresses the array directly.
+ * Its rows and columns are available as {@link DenseVectorView}s for in-place updates,
+ * and the products are computed by {@link BlockedMatrixMultiplication} on the array without copying the operands.
+ * The arithmetic operations of {@link Matrix}, e.g., {@link #add(Matrix)}, return new {@link DenseMatrix}s.
+ *
+ * @author Haksun Li
+ */
+public class DenseMatrixView implements Matrix, Densifiable {
+
+    /** the size of a square tile in {@link #addInPlace(double[], Matrix[], boolean[])} */
+    private static final int TILE = 64;
+    private final double[] data;
+    /** the index of the (1, 1) entry */
+    private final int offset;
+    /** the leading dimension, i.e., the distance between two consecutive rows */
+    private final int ld;
+    private final int nRows;
+    private final int nCols;
+
+    /**
+     * Construct a view of an <i>nRows x nCols</i> block of a row-major array.
+     *
+     * @param data   an array
+     * @param offset the index of the (1, 1) entry
+     * @param ld     the leading dimension, i.e., the distance between two consecutive rows
+     * @param nRows  the number of rows
+     * @param nCols  the number of columns
+     * @throws IllegalArgumentException if the view goes beyond the array
+     */
+    public DenseMatrixView(double[] data, int offset, int ld, int nRows, int nCols) {
+        if (nRows < 0 || nCols < 0 || offset < 0 || nCols > ld
+                || (nRows > 0 && nCols > 0 && offset + (nRows - 1) * ld + nCols > data.length)) {
+            throw new IllegalArgumentException("the view goes beyond the array");
+        }
+
+        this.data = data;
+        this.offset = offset;
+        this.ld = ld;
+        this.nRows = nRows;
+        this.nCols = nCols;
+    }
+
+    private int index(int i, int j) {
+        return offset + (i - 1) * ld + (j - 1);
+    }
+
+    @Override
+    public int nRows() {
+        return nRows;
+    }
+
+    @Override
+    public int nCols() {
+        return nCols;
+    }
+
+    @Override
+    public double get(int i, int j) throws MatrixAccessException {
+        throwIfInvalidRow(this, i);
+        throwIfInvalidColumn(this, j);
+        return data[index(i, j)];
+    }
+
+    @Override
+    public void set(int i, int j, double value) throws MatrixAccessException {
+        throwIfInvalidRow(this, i);
+        throwIfInvalidColumn(this, j);
+        data[index(i, j)] = value;
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="views">
+    /**
+     * Get a view of the <i>i</i>-th row.
+     *
+     * @param i the row index, counting from 1
+     * @return a view of the row
+     */
+    public DenseVectorView rowView(int i) {
+        throwIfInvalidRow(this, i);
+        return new DenseVectorView(data, index(i, 1), 1, nCols);
+    }
+
+    /**
+     * Get a view of the <i>j</i>-th column.
+     *
+     * @param j the column index, counting from 1
+     * @return a view of the column
+     */
+    public DenseVectorView columnView(int j) {
+        throwIfInvalidColumn(this, j);
+        return new DenseVectorView(data, index(1, j), ld, nRows);
+    }
+
+    /**
+     * Get a view of a sub-matrix, from rows {@code rowFrom} to {@code rowTo} and from columns {@code colFrom} to {@code colTo}, inclusively.
+     *
+     * @param rowFrom the beginning row index
+     * @param rowTo   the ending row index
+     * @param colFrom the beginning column index
+     * @param colTo   the ending column index
+     * @return a view of the sub-matrix
+     */
+    public DenseMatrixView subMatrixView(int rowFrom, int rowTo, int colFrom, int colTo) {
+        throwIfInvalidRow(this, rowFrom);
+        throwIfInvalidRow(this, rowTo);
+        throwIfInvalidColumn(this, colFrom);
+        throwIfInvalidColumn(this, colTo);
+        return new DenseMatrixView(data, index(rowFrom, colFrom), ld, rowTo - rowFrom + 1, colTo - colFrom + 1);
+    }
+    //</editor-fold>
+
+    @Override
+    public Vector getRow(int i) throws MatrixAccessException {
+        return rowView(i).deepCopy();
+    }
+
+    @Override
+    public Vector getColumn(int j) throws MatrixAccessException {
+        return columnView(j).deepCopy();
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="in-place operations">
+    /**
+     * <i>this = that</i>, entry by entry.
+     *
+     * @param that a matrix
+     * @return {@code this}, modified
+     */
+    public DenseMatrixView copyFrom(Matrix that) {
+        throwIfDifferentDimension(this, that);
+
+        double[] values = MatrixUtils.to1DArray(that);//the two may overlap
+        for (int i = 0; i < nRows; ++i) {
+            System.arraycopy(values, i * nCols, data, offset + i * ld, nCols);
+        }
+
+        return this;
+    }
+
+    /**
+     * <i>this *= c</i>.
+     *
+     * @param c a scalar
+     * @return {@code this}, modified
+     */
+    public DenseMatrixView scaleInPlace(double c) {
+        for (int i = 0; i < nRows; ++i) {
+            for (int p = offset + i * ld, end = p + nCols; p < end; ++p) {
+                data[p] *= c;
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * <i>this += c * that</i>.
+     *
+     * @param c    a scalar
+     * @param that a matrix
+     * @return {@code this}, modified
+     */
+    public DenseMatrixView addInPlace(double c, Matrix that) {
+        throwIfDifferentDimension(this, that);
+
+        DenseMatrixView other = view(that);
+        if (other.data == data) {//the two may overlap
+            other = view(other.toDense());
+        }
+        for (int i = 0; i < nRows; ++i) {
+            for (int j = 0, p = offset + i * ld, q = other.offset + i * other.ld; j < nCols; ++j) {
+                data[p++] += c * other.data[q++];
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * <i>this += c<sub>1</sub> * op(M<sub>1</sub>) + c<sub>2</sub> * op(M<sub>2</sub>) + ...</i>,
+     * where <i>op(M<sub>k</sub>)</i> is <i>M<sub>k</sub>'</i> if {@code transposed[k]}, and <i>M<sub>k</sub></i> otherwise.
+     * The sum is computed in one pass over this matrix, tile by tile, so that a tile is updated by all the terms
+     * while it is in the cache, and a transposed operand is read by rows within a tile.
+     *
+     * @param c          the scalars
+     * @param M          the matrices
+     * @param transposed whether each matrix is transposed
+     * @return {@code this}, modified
+     */
+    public DenseMatrixView addInPlace(double[] c, Matrix[] M, boolean[] transposed) {
+        if (c.length != M.length || transposed.length != M.length) {
+            throw new IllegalArgumentException("the numbers of scalars, matrices and transposition flags must be the same");
+        }
+
+        final int nTerms = M.length;
+        DenseMatrixView[] others = new DenseMatrixView[nTerms];
+        for (int k = 0; k < nTerms; ++k) {
+            if (transposed[k] ? M[k].nRows() != nCols || M[k].nCols() != nRows : M[k].nRows() != nRows || M[k].nCols() != nCols) {
+                throw new MatrixMismatchException("the dimension of a term does not match");
+            }
+            others[k] = view(M[k]);
+            if (others[k].data == data) {//the two may overlap
+                others[k] = view(others[k].toDense());
+            }
+        }
+
+        for (int i0 = 0; i0 < nRows; i0 += TILE) {
+            final int i1 = Math.min(i0 + TILE, nRows);
+            for (int j0 = 0; j0 < nCols; j0 += TILE) {
+                final int j1 = Math.min(j0 + TILE, nCols);
+                for (int k = 0; k < nTerms; ++k) {
+                    final double ck = c[k];
+                    final double[] m = others[k].data;
+                    final int mOffset = others[k].offset;
+                    final int mld = others[k].ld;
+                    if (transposed[k]) {
+                        for (int j = j0; j < j1; ++j) {
+                            for (int i = i0, p = offset + i0 * ld + j, q = mOffset + j * mld + i0; i < i1; ++i, p += ld) {
+                                data[p] += ck * m[q++];
+                            }
+                        }
+                    } else {
+                        for (int i = i0; i < i1; ++i) {
+                            for (int j = j0, p = offset + i * ld + j0, q = mOffset + i * mld + j0; j < j1; ++j) {
+                                data[p++] += ck * m[q++];
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * <i>this += &alpha; * x * y'</i>.
+     *
+     * @param alpha a scalar
+     * @param x     a vector of length <i>nRows</i>
+     * @param y     a vector of length <i>nCols</i>
+     * @return {@code this}, modified
+     */
+    public DenseMatrixView rank1UpdateInPlace(double alpha, Vector x, Vector y) {
+        throwIfIncompatible4Multiplication(this, y);
+        if (x.size() != nRows) {
+            throw new MatrixMismatchException("the length of x does not match the number of rows");
+        }
+
+        double[] x1 = x.toArray();
+        double[] y1 = y.toArray();
+        for (int i = 0; i < nRows; ++i) {
+            final double axi = alpha * x1[i];
+            if (axi != 0.) {
+                for (int j = 0, p = offset + i * ld; j < nCols; ++j) {
+                    data[p++] += axi * y1[j];
+                }
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * <i>this += &alpha; * A * B</i>.
+     * The operands are read in place if they are views or {@link DenseMatrix}s.
+     *
+     * @param alpha a scalar
+     * @param A     an <i>nRows x k</i> matrix
+     * @param B     a <i>k x nCols</i> matrix
+     * @return {@code this}, modified
+     */
+    public DenseMatrixView multiplyAddInPlace(double alpha, Matrix A, Matrix B) {
+        throwIfIncompatible4Multiplication(A, B, this);
+
+        DenseMatrixView a = view(A);
+        if (a.data == data) {//the two may overlap
+            a = view(a.toDense());
+        }
+        DenseMatrixView b = view(B);
+        if (b.data == data) {//the two may overlap
+            b = view(b.toDense());
+        }
+        BlockedMatrixMultiplication.multiply(
+                alpha,
+                a.data, a.offset, a.ld,
+                b.data, b.offset, b.ld,
+                data, offset, ld,
+                nRows, A.nCols(), nCols,
+                ParallelExecutor.getSharedInstance());
+
+        return this;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="arithmetic operations">
+    @Override
+    public DenseMatrix add(Matrix that) {
+        return toDense().addInPlace(that);
+    }
+
+    @Override
+    public DenseMatrix minus(Matrix that) {
+        return toDense().minusInPlace(that);
+    }
+
+    @Override
+    public DenseMatrix scaled(double c) {
+        return toDense().scaleInPlace(c);
+    }
+
+    @Override
+    public DenseMatrix opposite() {
+        return scaled(-1);
+    }
+
+    @Override
+    public DenseMatrix t() {
+        double[] result = new double[nRows * nCols];
+        for (int i = 0; i < nRows; ++i) {
+            for (int j = 0, p = offset + i * ld; j < nCols; ++j) {
+                result[j * nRows + i] = data[p++];
+            }
+        }
+
+        return new DenseMatrix(result, nCols, nRows);
+    }
+
+    @Override
+    public DenseMatrix multiply(Matrix that) {
+        throwIfIncompatible4Multiplication(this, that);
+
+        DenseMatrixView other = view(that);
+        final int n = that.nCols();
+        double[] result = new double[nRows * n];
+        BlockedMatrixMultiplication.multiply(
+                data, offset, ld,
+                other.data, other.offset, other.ld,
+                result, 0, n,
+                nRows, nCols, n,
+                ParallelExecutor.getSharedInstance());
+
+        return new DenseMatrix(result, nRows, n);
+    }
+
+    @Override
+    public DenseVector multiply(Vector v) {
+        throwIfIncompatible4Multiplication(this, v);
+
+        double[] x = v.toArray();
+        double[] result = new double[nRows];
+        for (int i = 0; i < nRows; ++i) {
+            double sum = 0;
+            for (int j = 0, p = offset + i * ld; j < nCols; ++j) {
+                sum += data[p++] * x[j];
+            }
+            result[i] = sum;
+        }
+
+        return new DenseVector(result);
+    }
+
+    /**
+     * Compute <i>this' * v</i> without transposing this matrix.
+     * The rows are read contiguously, and the <i>j</i>-th entry is summed in the order of the rows.
+     *
+     * @param v a vector of length <i>nRows</i>
+     * @return <i>this' * v</i>
+     */
+    public DenseVector tMultiply(Vector v) {
+        if (v.size() != nRows) {
+            throw new MatrixMismatchException("the length of v does not match the number of rows");
+        }
+
+        double[] x = v.toArray();
+        double[] result = new double[nCols];
+        for (int i = 0; i < nRows; ++i) {
+            final double xi = x[i];
+            for (int j = 0, p = offset + i * ld; j < nCols; ++j) {
+                result[j] += data[p++] * xi;
+            }
+        }
+
+        return new DenseVector(result);
+    }
+    //</editor-fold>
+
+    @Override
+    public DenseMatrix ZERO() {
+        return new DenseMatrix(nRows, nCols);
+    }
+
+    @Override
+    public DenseMatrix ONE() {
+        return new DenseMatrix(nRows, nCols).ONE();
+    }
+
+    /**
+     * Copy the entries to a new {@link DenseMatrix}.
+     *
+     * @return a copy of the entries
+     */
+    @Override
+    public DenseMatrix toDense() {
+        double[] result = new double[nRows * nCols];
+        for (int i = 0; i < nRows; ++i) {
+            System.arraycopy(data, offset + i * ld, result, i * nCols, nCols);
+        }
+
+        return new DenseMatrix(result, nRows, nCols);
+    }
+
+    /**
+     * Copy the entries to a new {@link DenseMatrix}.
+     * <em>The copy is no longer a view.</em>
+     *
+     * @return a copy of the entries
+     */
+    @Override
+    public DenseMatrix deepCopy() {
+        return toDense();
+    }
+
+    @Override
+    public String toString() {
+        return MatrixUtils.toString(this);
+    }
+
+    /**
+     * Get a view of a matrix for the fast paths, copying only if it is neither a view nor a {@link DenseMatrix}.
+     */
+    private static DenseMatrixView view(Matrix A) {
+        if (A instanceof DenseMatrixView) {
+            return (DenseMatrixView) A;
+        } else if (A instanceof DenseMatrix) {
+            return ((DenseMatrix) A).subMatrixView(1, A.nRows(), 1, A.nCols());
+        }
+
+        return new DenseMatrixView(MatrixUtils.to1DArray(A), 0, A.nCols(), A.nRows(), A.nCols());
+    }
+}
@@ -0,0 +1,462 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense;
+
+import static com.numericalmethod.suanshu.datastructure.DimensionCheck.*;
+import com.numericalmethod.suanshu.matrix.MatrixAccessException;
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.operation.MatrixUtils;
+import com.numericalmethod.suanshu.misc.SuanShuUtils;
+import com.numericalmethod.suanshu.parallel.LoopSchedule;
+import com.numericalmethod.suanshu.parallel.MultipleExecutionException;
+import com.numericalmethod.suanshu.parallel.ParallelExecutor;
+import com.numericalmethod.suanshu.parallel.RangeLoopBody;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DoubleBufferVectorView;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * This dense matrix is stored in a file and memory-mapped, so the entries live outside the Java heap.
+ * Opening a matrix takes no time regardless of its size:
+ * nothing is parsed or copied, and the operating system pages in the entries only when they are read.
+ * Changes to the entries are written back to the file by the operating system, or immediately by {@link #force()}.
+ * <p/>
+ * The file format is a 16-byte header, which is
+ * <blockquote><i>{@value #MAGIC}, nRows, nCols, 0</i></blockquote>
+ * as 4-byte integers, followed by the entries, row by row, as 8-byte {@code double}s.
+ * All numbers are little-endian.
+ * <p/>
+ * A single mapping cannot exceed 2<sup>31</sup> bytes,
+ * so the rows are mapped in chunks of whole rows, each of at most {@value #MAX_CHUNK_SIZE} entries.
+ * Hence, a matrix can have more than 2<sup>31</sup> entries as long as a row fits in one chunk.
+ * A row never spans two chunks, so {@link #rowView(int)} is a view of a contiguous range of a buffer.
+ * {@link #multiply(Vector)} and {@link #multiply(Matrix)} read the rows in bulk and run in parallel.
+ * The other operations of {@link Matrix}, e.g., {@link #add(Matrix)}, return in-memory {@link DenseMatrix}s,
+ * which requires the result to have fewer than 2<sup>31</sup> entries.
+ *
+ * @author Haksun Li
+ */
+public class MappedMatrix implements Matrix, Densifiable {
+
+    /** the first 4 bytes of a matrix file, "SSMM" */
+    public static final int MAGIC = 0x53534D4D;
+    /** the number of bytes before the first entry */
+    public static final int HEADER_SIZE = 16;
+    /** the maximum number of entries in a mapped chunk, i.e., 1GB */
+    public static final int MAX_CHUNK_SIZE = 1 << 27;
+    private static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+    /** the number of entries below which a product is computed in the calling thread */
+    private static final int GRAIN_SIZE = 100 * 100;
+    private final MappedByteBuffer[] mapped;
+    private final DoubleBuffer[] chunks;
+    private final int nRows;
+    private final int nCols;
+    private final int rowsPerChunk;
+
+    //<editor-fold defaultstate="collapsed" desc="Ctors">
+    /**
+     * Open a matrix file for reading only.
+     * Calling {@link #set(int, int, double)} throws {@link java.nio.ReadOnlyBufferException}.
+     *
+     * @param file a matrix file
+     * @throws IOException if the file cannot be read or is not a matrix file
+     */
+    public MappedMatrix(File file) throws IOException {
+        this(file, true);
+    }
+
+    /**
+     * Open a matrix file.
+     *
+     * @param file     a matrix file
+     * @param readOnly {@code true} if the entries are only read
+     * @throws IOException if the file cannot be opened or is not a matrix file
+     */
+    public MappedMatrix(File file, boolean readOnly) throws IOException {
+        this(file, readOnly, MAX_CHUNK_SIZE);
+    }
+
+    /**
+     * Create a matrix file of dimension <i>nRows x nCols</i>, with all entries 0.
+     * An existing file is overwritten.
+     *
+     * @param file  a file
+     * @param nRows the number of rows
+     * @param nCols the number of columns
+     * @throws IOException if the file cannot be created
+     */
+    public MappedMatrix(File file, int nRows, int nCols) throws IOException {
+        this(file, nRows, nCols, MAX_CHUNK_SIZE);
+    }
+
+    /**
+     * Create a matrix file with a copy of a matrix.
+     * An existing file is overwritten.
+     *
+     * @param file a file
+     * @param A    a matrix
+     * @throws IOException if the file cannot be created
+     */
+    public MappedMatrix(File file, Matrix A) throws IOException {
+        this(file, A.nRows(), A.nCols());
+
+        for (int i = 1; i <= nRows; ++i) {
+            rowView(i).copyFrom(A.getRow(i));
+        }
+    }
+
+    MappedMatrix(File file, boolean readOnly, int maxChunkSize) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, readOnly ? "r" : "rw");
+        try {
+            FileChannel channel = raf.getChannel();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(BYTE_ORDER);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    throw new IOException("not a matrix file: " + file);
+                }
+            }
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("not a matrix file: " + file);
+            }
+            this.nRows = header.getInt(4);
+            this.nCols = header.getInt(8);
+            if (nRows < 0 || nCols < 0 || channel.size() < HEADER_SIZE + 8L * nRows * nCols) {
+                throw new IOException("the matrix file is corrupted: " + file);
+            }
+
+            this.rowsPerChunk = rowsPerChunk(nCols, maxChunkSize);
+            this.mapped = map(channel, readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE);
+            this.chunks = asDoubleBuffers(mapped);
+        } finally {
+            raf.close();//the mappings stay valid
+        }
+    }
+
+    MappedMatrix(File file, int nRows, int nCols, int maxChunkSize) throws IOException {
+        SuanShuUtils.assertArgument(nRows >= 0 && nCols >= 0, "the dimension must be non-negative");
+
+        this.nRows = nRows;
+        this.nCols = nCols;
+        this.rowsPerChunk = rowsPerChunk(nCols, maxChunkSize);
+
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(0);
+            raf.setLength(HEADER_SIZE + 8L * nRows * nCols);//zero-filled
+
+            FileChannel channel = raf.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(BYTE_ORDER);
+            header.putInt(MAGIC).putInt(nRows).putInt(nCols).putInt(0);
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+
+            this.mapped = map(channel, FileChannel.MapMode.READ_WRITE);
+            this.chunks = asDoubleBuffers(mapped);
+        } finally {
+            raf.close();//the mappings stay valid
+        }
+    }
+
+    private static int rowsPerChunk(int nCols, int maxChunkSize) {
+        SuanShuUtils.assertArgument(nCols <= maxChunkSize, "a row is too long to fit in a chunk");
+        return nCols == 0 ? Integer.MAX_VALUE : maxChunkSize / nCols;
+    }
+
+    private MappedByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode) throws IOException {
+        final int nChunks = nCols == 0 ? 0 : (int) (((long) nRows + rowsPerChunk - 1) / rowsPerChunk);
+        MappedByteBuffer[] result = new MappedByteBuffer[nChunks];
+        for (int c = 0; c < nChunks; ++c) {
+            final long firstRow = (long) c * rowsPerChunk;
+            final long rows = Math.min(rowsPerChunk, nRows - firstRow);
+            result[c] = channel.map(mode, HEADER_SIZE + 8L * firstRow * nCols, 8L * rows * nCols);
+        }
+        return result;
+    }
+
+    private static DoubleBuffer[] asDoubleBuffers(MappedByteBuffer[] mapped) {
+        DoubleBuffer[] result = new DoubleBuffer[mapped.length];
+        for (int c = 0; c < mapped.length; ++c) {
+            result[c] = mapped[c].order(BYTE_ORDER).asDoubleBuffer();
+        }
+        return result;
+    }
+    //</editor-fold>
+
+    @Override
+    public int nRows() {
+        return nRows;
+    }
+
+    @Override
+    public int nCols() {
+        return nCols;
+    }
+
+    /**
+     * Write the changes to the file now.
+     */
+    public void force() {
+        for (MappedByteBuffer buffer : mapped) {
+            buffer.force();
+        }
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="setters and getters">
+    @Override
+    public double get(int i, int j) throws MatrixAccessException {
+        throwIfInvalidRow(this, i);
+        throwIfInvalidColumn(this, j);
+        return chunks[(i - 1) / rowsPerChunk].get(((i - 1) % rowsPerChunk) * nCols + j - 1);
+    }
+
+    @Override
+    public void set(int i, int j, double value) throws MatrixAccessException {
+        throwIfInvalidRow(this, i);
+        throwIfInvalidColumn(this, j);
+        chunks[(i - 1) / rowsPerChunk].put(((i - 1) % rowsPerChunk) * nCols + j - 1, value);
+    }
+
+    @Override
+    public DenseVector getRow(int i) throws MatrixAccessException {
+        return rowView(i).deepCopy();
+    }
+
+    @Override
+    public DenseVector getColumn(int j) throws MatrixAccessException {
+        throwIfInvalidColumn(this, j);
+
+        double[] result = new double[nRows];
+        for (int i = 0; i < nRows; ++i) {
+            result[i] = chunks[i / rowsPerChunk].get((i % rowsPerChunk) * nCols + j - 1);
+        }
+
+        return new DenseVector(result);
+    }
+
+    /**
+     * Get a view of the <i>i</i>-th row.
+     * No data is copied: changing the view changes this matrix and vice versa.
+     *
+     * @param i the row index, counting from 1
+     * @return a view of the row
+     */
+    public DoubleBufferVectorView rowView(int i) {
+        throwIfInvalidRow(this, i);
+        return new DoubleBufferVectorView(chunks[(i - 1) / rowsPerChunk], ((i - 1) % rowsPerChunk) * nCols, nCols);
+    }
+
+    /**
+     * Copy the rows from {@code from} to {@code to} (0-based, exclusive) into a row-major array, using the bulk gets of the buffers.
+     */
+    private void readRows(int from, int to, double[] dst) {
+        if (nCols == 0) {
+            return;
+        }
+
+        for (int i = from, p = 0; i < to;) {
+            final int c = i / rowsPerChunk;
+            final int last = Math.min(to, (c + 1) * rowsPerChunk);//the end of the chunk
+            final int length = (last - i) * nCols;
+
+            DoubleBuffer src = chunks[c].duplicate();
+            src.position((i % rowsPerChunk) * nCols);
+            src.get(dst, p, length);
+
+            p += length;
+            i = last;
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="the math operations">
+    @Override
+    public DenseMatrix add(Matrix that) {
+        return toDense().addInPlace(that);
+    }
+
+    @Override
+    public DenseMatrix minus(Matrix that) {
+        return toDense().minusInPlace(that);
+    }
+
+    @Override
+    public DenseMatrix scaled(double c) {
+        return toDense().scaleInPlace(c);
+    }
+
+    @Override
+    public DenseMatrix opposite() {
+        return scaled(-1);
+    }
+
+    @Override
+    public DenseMatrix t() {
+        return toDense().t();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The rows are read in blocks of {@value BlockedMatrixMultiplication#MC} and multiplied by {@link BlockedMatrixMultiplication},
+     * the blocks in parallel.
+     */
+    @Override
+    public DenseMatrix multiply(Matrix that) {
+        throwIfIncompatible4Multiplication(this, that);
+
+        final int n = that.nCols();
+        SuanShuUtils.assertArgument((long) nRows * n <= Integer.MAX_VALUE, "the product is too big to be stored in memory");
+
+        final double[] B = MatrixUtils.to1DArray(that);
+        final double[] C = new double[nRows * n];
+        final int MC = BlockedMatrixMultiplication.MC;
+        final int nBlocks = (nRows + MC - 1) / MC;
+
+        try {
+            ParallelExecutor.getSharedInstance().forLoop(0, nBlocks, LoopSchedule.STATIC, new RangeLoopBody() {
+
+                @Override
+                public void run(int from, int to) throws Exception {
+                    double[] A = new double[MC * nCols];
+                    for (int b = from; b < to; ++b) {
+                        final int i0 = b * MC;
+                        final int i1 = Math.min(i0 + MC, nRows);
+                        readRows(i0, i1, A);
+                        BlockedMatrixMultiplication.multiply(
+                                A, 0, nCols,
+                                B, 0, n,
+                                C, i0 * n, n,
+                                i1 - i0, nCols, n,
+                                null);
+                    }
+                }
+            });
+        } catch (MultipleExecutionException ex) {
+            throw new RuntimeException(ex);
+        }
+
+        return new DenseMatrix(C, nRows, n);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The rows are read in bulk, and the rows are divided among the threads.
+     */
+    @Override
+    public DenseVector multiply(Vector v) {
+        throwIfIncompatible4Multiplication(this, v);
+
+        final double[] x = v.toArray();
+        final double[] result = new double[nRows];
+        final int grainSize = Math.max(1, GRAIN_SIZE / Math.max(1, nCols));
+
+        try {
+            ParallelExecutor.getSharedInstance().forLoop(0, nRows, new LoopSchedule(LoopSchedule.Type.STATIC, grainSize), new RangeLoopBody() {
+
+                @Override
+                public void run(int from, int to) throws Exception {
+                    double[] row = new double[nCols];
+                    for (int i = from; i < to; ++i) {
+                        readRows(i, i + 1, row);
+                        double sum = 0;
+                        for (int j = 0; j < nCols; ++j) {
+                            sum += row[j] * x[j];
+                        }
+                        result[i] = sum;
+                    }
+                }
+            });
+        } catch (MultipleExecutionException ex) {
+            throw new RuntimeException(ex);
+        }
+
+        return new DenseVector(result);
+    }
+
+    /**
+     * Get an in-memory zero matrix of the same dimension.
+     *
+     * @return a zero {@link DenseMatrix}
+     * @throws IllegalArgumentException if there are too many entries for a {@code double[]}
+     */
+    @Override
+    public DenseMatrix ZERO() {
+        SuanShuUtils.assertArgument((long) nRows * nCols <= Integer.MAX_VALUE, "the matrix is too big to be stored in memory");
+        return new DenseMatrix(nRows, nCols);
+    }
+
+    /**
+     * Get an in-memory identity matrix of the same dimension.
+     *
+     * @return an identity {@link DenseMatrix}
+     * @throws IllegalArgumentException if there are too many entries for a {@code double[]}
+     */
+    @Override
+    public DenseMatrix ONE() {
+        return ZERO().ONE();
+    }
+    //</editor-fold>
+
+    /**
+     * Copy the entries to a new in-memory {@link DenseMatrix}.
+     *
+     * @return a copy of the entries
+     * @throws IllegalArgumentException if there are too many entries for a {@code double[]}
+     */
+    @Override
+    public DenseMatrix toDense() {
+        SuanShuUtils.assertArgument((long) nRows * nCols <= Integer.MAX_VALUE, "the matrix is too big to be stored in memory");
+
+        double[] result = new double[nRows * nCols];
+        readRows(0, nRows, result);
+        return new DenseMatrix(result, nRows, nCols);
+    }
+
+    /**
+     * Copy the entries to a new in-memory {@link DenseMatrix}.
+     * <em>The copy is not backed by the file.</em>
+     *
+     * @return a copy of the entries
+     */
+    @Override
+    public DenseMatrix deepCopy() {
+        return toDense();
+    }
+
+    @Override
+    public String toString() {
+        return MatrixUtils.toString(this);
+    }
+}
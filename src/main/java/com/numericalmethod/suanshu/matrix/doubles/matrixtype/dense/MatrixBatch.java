@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense;
+
+import com.numericalmethod.suanshu.matrix.MatrixMismatchException;
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.misc.SuanShuUtils;
+import com.numericalmethod.suanshu.parallel.LoopSchedule;
+import com.numericalmethod.suanshu.parallel.MultipleExecutionException;
+import com.numericalmethod.suanshu.parallel.ParallelExecutor;
+import com.numericalmethod.suanshu.parallel.RangeLoopBody;
+
+/**
+ * This is a batch of many small matrices of the same dimension, stored one after another in a single {@code double[]}.
+ * The <i>k</i>-th matrix (counting from 1) is stored row by row from {@code data[(k - 1) * nRows * nCols]}.
+ * <p/>
+ * A batch avoids the per-object overhead of handling, e.g., tens of thousands of 3x3 matrices as individual {@link DenseMatrix}s.
+ * The batched operations, e.g., {@link #multiply(MatrixBatch, MatrixBatch)},
+ * {@link com.numericalmethod.suanshu.matrix.doubles.factorization.triangle.BatchedLU} and
+ * {@link com.numericalmethod.suanshu.matrix.doubles.factorization.triangle.BatchedCholesky},
+ * sweep the array in one tight loop, write into preallocated batches,
+ * and divide the matrices among the threads of the shared {@link ParallelExecutor}.
+ * A single matrix in a batch can be accessed without copying by {@link #view(int)}.
+ *
+ * @author Haksun Li
+ */
+public class MatrixBatch {
+
+    /** the number of multiplications below which a batched operation runs in the calling thread */
+    private static final int GRAIN_SIZE = 1 << 14;
+    private final double[] data;
+    private final int size;
+    private final int nRows;
+    private final int nCols;
+
+    /**
+     * Construct a batch of zero matrices.
+     *
+     * @param size  the number of matrices
+     * @param nRows the number of rows of each matrix
+     * @param nCols the number of columns of each matrix
+     */
+    public MatrixBatch(int size, int nRows, int nCols) {
+        this(new double[size * nRows * nCols], size, nRows, nCols);
+    }
+
+    /**
+     * Construct a batch from an array of the matrices, stored one after another, each row by row.
+     * The array is not copied: changing the batch changes the array and vice versa.
+     *
+     * @param data  the matrices
+     * @param size  the number of matrices
+     * @param nRows the number of rows of each matrix
+     * @param nCols the number of columns of each matrix
+     * @throws IllegalArgumentException when the length of {@code data} is different from <i>size * nRows * nCols</i>
+     */
+    public MatrixBatch(double[] data, int size, int nRows, int nCols) {
+        SuanShuUtils.assertArgument(data.length == size * nRows * nCols, "the data length does not match the batch dimension");
+        this.data = data;
+        this.size = size;
+        this.nRows = nRows;
+        this.nCols = nCols;
+    }
+
+    /**
+     * Get the number of matrices.
+     *
+     * @return the number of matrices
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the number of rows of each matrix.
+     *
+     * @return the number of rows
+     */
+    public int nRows() {
+        return nRows;
+    }
+
+    /**
+     * Get the number of columns of each matrix.
+     *
+     * @return the number of columns
+     */
+    public int nCols() {
+        return nCols;
+    }
+
+    /**
+     * Cast this batch as a {@code double[]}.
+     * Modifying the returned value modifies the internal data.
+     *
+     * @return the matrices, one after another, each row by row
+     */
+    public double[] asArray() {
+        return data;
+    }
+
+    /**
+     * Get the index of the (1, 1) entry of the <i>k</i>-th matrix in the array.
+     *
+     * @param k the matrix index, counting from 1
+     * @return the offset of the <i>k</i>-th matrix
+     */
+    public int offset(int k) {
+        if (k < 1 || k > size) {
+            throw new IndexOutOfBoundsException(String.format("invalid matrix index %d; the batch size is %d", k, size));
+        }
+        return (k - 1) * nRows * nCols;
+    }
+
+    /**
+     * Get the (<i>i</i>, <i>j</i>) entry of the <i>k</i>-th matrix.
+     *
+     * @param k the matrix index, counting from 1
+     * @param i the row index
+     * @param j the column index
+     * @return <i>A<sub>k</sub>[i,j]</i>
+     */
+    public double get(int k, int i, int j) {
+        return view(k).get(i, j);
+    }
+
+    /**
+     * Set the (<i>i</i>, <i>j</i>) entry of the <i>k</i>-th matrix.
+     *
+     * @param k     the matrix index, counting from 1
+     * @param i     the row index
+     * @param j     the column index
+     * @param value the value to set <i>A<sub>k</sub>[i,j]</i> to
+     */
+    public void set(int k, int i, int j, double value) {
+        view(k).set(i, j, value);
+    }
+
+    /**
+     * Get a writable view of the <i>k</i>-th matrix without copying.
+     *
+     * @param k the matrix index, counting from 1
+     * @return a view of the <i>k</i>-th matrix
+     */
+    public DenseMatrixView view(int k) {
+        return new DenseMatrixView(data, offset(k), nCols, nRows, nCols);
+    }
+
+    /**
+     * Copy a matrix into the <i>k</i>-th position.
+     *
+     * @param k the matrix index, counting from 1
+     * @param A a matrix
+     */
+    public void set(int k, Matrix A) {
+        view(k).copyFrom(A);
+    }
+
+    /**
+     * Compute <i>C<sub>k</sub> = A<sub>k</sub> * B<sub>k</sub></i> for all <i>k</i>, where <i>A<sub>k</sub></i> are in this batch.
+     * No memory is allocated for the matrices.
+     *
+     * @param that   the batch of the multipliers, <i>B<sub>k</sub></i>
+     * @param result the batch to store the products, <i>C<sub>k</sub></i>; it must not be this batch or {@code that}
+     * @return {@code result}
+     */
+    public MatrixBatch multiply(final MatrixBatch that, final MatrixBatch result) {
+        if (that.size != size || that.nRows != nCols || result.size != size || result.nRows != nRows || result.nCols != that.nCols) {
+            throw new MatrixMismatchException("the batches are incompatible for multiplication");
+        }
+
+        final int n = that.nCols;
+        final double[] B = that.data;
+        final double[] C = result.data;
+        forEach(size, nRows * nCols * n, new RangeLoopBody() {
+
+            @Override
+            public void run(int from, int to) throws Exception {
+                for (int k = from; k < to; ++k) {
+                    final int a = k * nRows * nCols;
+                    final int b = k * nCols * n;
+                    final int c = k * nRows * n;
+                    for (int i = 0; i < nRows; ++i) {
+                        final int ci = c + i * n;
+                        for (int j = 0; j < n; ++j) {
+                            C[ci + j] = 0;
+                        }
+                        for (int p = 0; p < nCols; ++p) {
+                            final double aip = data[a + i * nCols + p];
+                            final int bp = b + p * n;
+                            for (int j = 0; j < n; ++j) {
+                                C[ci + j] += aip * B[bp + j];
+                            }
+                        }
+                    }
+                }
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Compute <i>A<sub>k</sub> * B<sub>k</sub></i> for all <i>k</i>, where <i>A<sub>k</sub></i> are in this batch.
+     *
+     * @param that the batch of the multipliers, <i>B<sub>k</sub></i>
+     * @return the batch of the products
+     */
+    public MatrixBatch multiply(MatrixBatch that) {
+        return multiply(that, new MatrixBatch(size, nRows, that.nCols));
+    }
+
+    /**
+     * Run a loop body over the matrix indices {@code [0, size)} (counting from 0),
+     * in chunks of at least {@value #GRAIN_SIZE} multiplications, using the shared {@link ParallelExecutor}.
+     *
+     * @param size the number of matrices
+     * @param work the number of multiplications per matrix
+     * @param body the loop body
+     */
+    public static void forEach(int size, int work, RangeLoopBody body) {
+        final int grainSize = Math.max(1, GRAIN_SIZE / Math.max(1, work));
+        try {
+            ParallelExecutor.getSharedInstance().forLoop(0, size, new LoopSchedule(LoopSchedule.Type.STATIC, grainSize), body);
+        } catch (MultipleExecutionException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+}
@@ -193,6 +193,16 @@ public class LowerTriangularMatrix implements Matrix, Densifiable {
     }
     //</editor-fold>
 
+    /**
+     * Get the packed storage, row by row; see {@link MyDenseDataImpl}.
+     * Modifying the returned value modifies this matrix.
+     *
+     * @return the packed storage
+     */
+    double[] data() {
+        return storage.asArray();
+    }
+
     @Override
     public LowerTriangularMatrix deepCopy() {
         return new LowerTriangularMatrix(this);
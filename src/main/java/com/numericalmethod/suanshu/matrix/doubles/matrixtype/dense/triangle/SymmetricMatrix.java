@@ -38,6 +38,9 @@ import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
 /**
  * A symmetric matrix is a square matrix such that its transpose equals to itself, i.e.,
  * <blockquote><code>A[i][j] = A[j][i]</code></blockquote>
+ * Only the lower triangular part (main diagonal inclusive) is stored, row by row, in a packed array of length <i>n(n+1)/2</i>.
+ * This halves the memory of a dense matrix, e.g., a covariance matrix or a Hessian.
+ * {@link #multiply(Vector)} sweeps the packed array once, using each stored entry for both <i>A[i][j]</i> and <i>A[j][i]</i>.
  *
  * @author Haksun Li
  * @see <a href="http://en.wikipedia.org/wiki/Symmetric_matrix"> Wikipedia: Symmetric matrix</a>
@@ -94,6 +97,18 @@ public class SymmetricMatrix implements Matrix, Densifiable {
         this(new LowerTriangularMatrix(data));
     }
 
+    /**
+     * Construct a symmetric matrix from the lower triangular part (main diagonal inclusive) of a square matrix.
+     * The upper triangular part is ignored.
+     * This packs, e.g., a dense covariance matrix into half of the storage.
+     *
+     * @param A a square matrix
+     * @throws IllegalArgumentException when {@code A} is not square
+     */
+    public SymmetricMatrix(Matrix A) {
+        this(new LowerTriangularMatrix(A));
+    }
+
     /**
      * Copy constructor.
      *
@@ -121,15 +136,17 @@ public class SymmetricMatrix implements Matrix, Densifiable {
 
     @Override
     public DenseMatrix toDense() {
-        DenseMatrix result = L.toDense();
+        final double[] packed = L.data();
 
-        for (int i = 1; i <= dim; ++i) {
-            for (int j = i + 1; j <= dim; ++j) {
-                result.set(i, j, L.get(j, i));
+        double[] result = new double[dim * dim];
+        for (int i = 0, p = 0; i < dim; ++i) {
+            for (int j = 0; j <= i; ++j, ++p) {
+                result[i * dim + j] = packed[p];
+                result[j * dim + i] = packed[p];
             }
         }
 
-        return result;
+        return new DenseMatrix(result, dim, dim);
     }
 
     //<editor-fold defaultstate="collapsed" desc="setters and getters">
@@ -251,9 +268,31 @@ public class SymmetricMatrix implements Matrix, Densifiable {
         return result;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * The packed array is read once, in order.
+     * The <i>i</i>-th row of the lower triangle contributes to the <i>i</i>-th entry of the product,
+     * and, as the <i>i</i>-th column of the upper triangle, to the first <i>i - 1</i> entries.
+     */
     @Override
     public Vector multiply(Vector v) {
-        return math.multiply(this, v);
+        throwIfIncompatible4Multiplication(this, v);
+
+        final double[] packed = L.data();
+        final double[] x = v.toArray();
+        final double[] result = new double[dim];
+        for (int i = 0, p = 0; i < dim; ++i) {
+            final double xi = x[i];
+            double sum = 0.;
+            for (int j = 0; j < i; ++j, ++p) {
+                sum += packed[p] * x[j];
+                result[j] += packed[p] * xi;
+            }
+            result[i] += sum + packed[p++] * xi;
+        }
+
+        return new DenseVector(result);
     }
     //</editor-fold>
 
@@ -22,6 +22,7 @@
  */
 package com.numericalmethod.suanshu.matrix.doubles.matrixtype.mathoperation;
 
+import com.numericalmethod.suanshu.datastructure.DimensionCheck;
 import com.numericalmethod.suanshu.matrix.doubles.Matrix;
 import com.numericalmethod.suanshu.matrix.doubles.MatrixAccess;
 import com.numericalmethod.suanshu.vector.doubles.Vector;
@@ -64,6 +65,29 @@ public interface MatrixMathOperation {//TODO: is this a good design?
      */
     public Matrix multiply(MatrixAccess A1, MatrixAccess A2);
 
+    /**
+     * <i>C = &alpha; * A<sub>1</sub> * A<sub>2</sub> + &beta; * C</i>.
+     * The result is written to <i>C</i> without allocating a new matrix.
+     * The content of <i>C</i> is ignored when <i>&beta;</i> is 0.
+     * The default implementation computes the product as a new matrix by {@link #multiply(MatrixAccess, MatrixAccess)},
+     * and then updates <i>C</i> by {@link #scaleInPlace(MatrixAccess, double)} and {@link #addInPlace(MatrixAccess, MatrixAccess, double)}.
+     *
+     * @param A1    a matrix
+     * @param A2    a matrix
+     * @param C     the matrix to store the result
+     * @param alpha the scaling factor of <i>A<sub>1</sub> * A<sub>2</sub></i>
+     * @param beta  the scaling factor of <i>C</i>
+     */
+    public default void multiplyInto(MatrixAccess A1, MatrixAccess A2, MatrixAccess C, double alpha, double beta) {
+        DimensionCheck.throwIfIncompatible4Multiplication(A1, A2, C);
+
+        Matrix product = multiply(A1, A2);//computed first, as C may be an operand
+        if (beta != 1.) {
+            scaleInPlace(C, beta);
+        }
+        addInPlace(C, product, alpha);
+    }
+
     /**
      * <i>A * v</i>
      *
@@ -82,6 +106,34 @@ public interface MatrixMathOperation {//TODO: is this a good design?
      */
     public Matrix scaled(MatrixAccess A, double c);
 
+    /**
+     * <i>A<sub>1</sub> += c * A<sub>2</sub></i>.
+     * The result is written to <i>A<sub>1</sub></i> without allocating a new matrix.
+     *
+     * The default implementation visits the non-zeros of <i>A<sub>2</sub></i> in the calling thread.
+     *
+     * @param A1 a matrix, modified
+     * @param A2 a matrix
+     * @param c  a scalar
+     */
+    public default void addInPlace(MatrixAccess A1, MatrixAccess A2, double c) {
+        DimensionCheck.throwIfDifferentDimension(A1, A2);
+        StructuredMatrixOperation.addInPlace(A1, A2, c);
+    }
+
+    /**
+     * <i>A *= c</i>.
+     * The result is written to <i>A</i> without allocating a new matrix.
+     *
+     * The default implementation visits the non-zeros of <i>A</i> in the calling thread.
+     *
+     * @param A a matrix, modified
+     * @param c a scalar
+     */
+    public default void scaleInPlace(MatrixAccess A, double c) {
+        StructuredMatrixOperation.scaleInPlace(A, c);
+    }
+
     /**
      * Get the transpose of <i>A</i>.
      *
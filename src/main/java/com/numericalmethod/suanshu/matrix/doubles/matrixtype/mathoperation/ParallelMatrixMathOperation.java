@@ -26,6 +26,7 @@ import static com.numericalmethod.suanshu.datastructure.DimensionCheck.*;
 import com.numericalmethod.suanshu.matrix.doubles.Matrix;
 import com.numericalmethod.suanshu.matrix.doubles.MatrixAccess;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.SparseMatrix;
 import com.numericalmethod.suanshu.parallel.LoopBody;
 import com.numericalmethod.suanshu.parallel.MultipleExecutionException;
 import com.numericalmethod.suanshu.parallel.ParallelExecutor;
@@ -39,8 +40,6 @@ import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
  */
 class ParallelMatrixMathOperation implements MatrixMathOperation {
 
-    private final ParallelExecutor parallel = new ParallelExecutor();
-
     @Override
     public Matrix add(final MatrixAccess A1, final MatrixAccess A2) {
         throwIfDifferentDimension(A1, A2);
@@ -48,7 +47,7 @@ class ParallelMatrixMathOperation implements MatrixMathOperation {
         final Matrix result = new DenseMatrix(A1.nRows(), A1.nCols());
         result.set(1, 1, 0.); // trigger space allocation in this main thread
         try {
-            parallel.forLoop(1, A1.nRows() + 1, new LoopBody() {
+            ParallelExecutor.getSharedInstance().forLoop(1, A1.nRows() + 1, new LoopBody() {
 
                 @Override
                 public void run(int i) throws Exception {
@@ -71,7 +70,7 @@ class ParallelMatrixMathOperation implements MatrixMathOperation {
         final Matrix result = new DenseMatrix(A1.nRows(), A1.nCols());
         result.set(1, 1, 0.); // trigger space allocation in this main thread
         try {
-            parallel.forLoop(1, A1.nRows() + 1, new LoopBody() {
+            ParallelExecutor.getSharedInstance().forLoop(1, A1.nRows() + 1, new LoopBody() {
 
                 @Override
                 public void run(int i) throws Exception {
@@ -94,7 +93,7 @@ class ParallelMatrixMathOperation implements MatrixMathOperation {
         final Matrix result = new DenseMatrix(A1.nRows(), A2.nCols());
         result.set(1, 1, 0.); // trigger space allocation in this main thread
         try {
-            parallel.forLoop(1, result.nRows() + 1, new LoopBody() {
+            ParallelExecutor.getSharedInstance().forLoop(1, result.nRows() + 1, new LoopBody() {
 
                 @Override
                 public void run(int i) throws Exception {
@@ -114,13 +113,61 @@ class ParallelMatrixMathOperation implements MatrixMathOperation {
         return result;
     }
 
+    @Override
+    public void multiplyInto(final MatrixAccess A1, final MatrixAccess A2, final MatrixAccess C, final double alpha, final double beta) {
+        throwIfIncompatible4Multiplication(A1, A2, C);
+
+        if (A1 instanceof DenseMatrix && A2 instanceof DenseMatrix && C instanceof DenseMatrix) {
+            ((DenseMatrix) A1).multiplyInto((DenseMatrix) A2, (DenseMatrix) C, alpha, beta);//already parallelized
+            return;
+        }
+
+        if (!(C instanceof DenseMatrix)) {//the set methods of the other matrices are not thread-safe
+            StructuredMatrixOperation.multiplyInto(this, A1, A2, C, alpha, beta);
+            return;
+        }
+
+        if (A1 instanceof SparseMatrix && C != A2) {//visit only the non-zeros of A1
+            if (beta != 1.) {
+                StructuredMatrixOperation.scaleInPlace(C, beta);
+            }
+            StructuredMatrixOperation.multiplyAdd((SparseMatrix) A1, A2, (DenseMatrix) C, alpha);
+            return;
+        }
+
+        //we must not overwrite an operand before we finish reading it
+        final Matrix product = C == A1 || C == A2 ? multiply(A1, A2) : null;
+        try {
+            ParallelExecutor.getSharedInstance().forLoop(1, C.nRows() + 1, new LoopBody() {
+
+                @Override
+                public void run(int i) throws Exception {
+                    for (int j = 1; j <= C.nCols(); ++j) {
+                        double sum = 0.;
+                        if (product != null) {
+                            sum = product.get(i, j);
+                        } else {
+                            for (int k = 1; k <= A1.nCols(); ++k) {
+                                sum += A1.get(i, k) * A2.get(k, j);
+                            }
+                        }
+                        double c = beta == 0. ? 0. : beta * C.get(i, j);
+                        C.set(i, j, c + alpha * sum);
+                    }
+                }
+            });
+        } catch (MultipleExecutionException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
     @Override
     public Vector multiply(final MatrixAccess A, final Vector v) {
         throwIfIncompatible4Multiplication(A, v);
 
         final DenseVector result = new DenseVector(A.nRows());
         try {
-            parallel.forLoop(1, result.size() + 1, new LoopBody() {
+            ParallelExecutor.getSharedInstance().forLoop(1, result.size() + 1, new LoopBody() {
 
                 @Override
                 public void run(int i) throws Exception {
@@ -143,7 +190,7 @@ class ParallelMatrixMathOperation implements MatrixMathOperation {
         final Matrix result = new DenseMatrix(A.nRows(), A.nCols());
         result.set(1, 1, 0.); // trigger space allocation in this main thread
         try {
-            parallel.forLoop(1, A.nRows() + 1, new LoopBody() {
+            ParallelExecutor.getSharedInstance().forLoop(1, A.nRows() + 1, new LoopBody() {
 
                 @Override
                 public void run(int i) throws Exception {
@@ -158,12 +205,34 @@ class ParallelMatrixMathOperation implements MatrixMathOperation {
         return result;
     }
 
+    @Override
+    public void addInPlace(final MatrixAccess A1, final MatrixAccess A2, final double c) {
+        throwIfDifferentDimension(A1, A2);
+
+        if (A1 instanceof DenseMatrix && A2 instanceof DenseMatrix) {
+            ((DenseMatrix) A1).addInPlace(c, (DenseMatrix) A2);
+            return;
+        }
+
+        StructuredMatrixOperation.addInPlace(A1, A2, c);//the set methods of the other matrices are not thread-safe
+    }
+
+    @Override
+    public void scaleInPlace(final MatrixAccess A, final double c) {
+        if (A instanceof DenseMatrix) {
+            ((DenseMatrix) A).scaleInPlace(c);
+            return;
+        }
+
+        StructuredMatrixOperation.scaleInPlace(A, c);//the set methods of the other matrices are not thread-safe
+    }
+
     @Override
     public Matrix transpose(final MatrixAccess A) {
         final Matrix result = new DenseMatrix(A.nCols(), A.nRows());
         result.set(1, 1, 0.); // trigger space allocation in this main thread
         try {
-            parallel.forLoop(1, A.nCols() + 1, new LoopBody() {
+            ParallelExecutor.getSharedInstance().forLoop(1, A.nCols() + 1, new LoopBody() {
 
                 @Override
                 public void run(int i) throws Exception {
@@ -26,6 +26,7 @@ import static com.numericalmethod.suanshu.datastructure.DimensionCheck.*;
 import com.numericalmethod.suanshu.matrix.doubles.Matrix;
 import com.numericalmethod.suanshu.matrix.doubles.MatrixAccess;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.SparseMatrix;
 import com.numericalmethod.suanshu.vector.doubles.Vector;
 import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
 
@@ -85,6 +86,51 @@ public class SimpleMatrixMathOperation implements MatrixMathOperation {
         return result;
     }
 
+    @Override
+    public void multiplyInto(MatrixAccess A1, MatrixAccess A2, MatrixAccess C, double alpha, double beta) {
+        throwIfIncompatible4Multiplication(A1, A2, C);
+
+        if (A1 instanceof DenseMatrix && A2 instanceof DenseMatrix && C instanceof DenseMatrix) {
+            ((DenseMatrix) A1).multiplyInto((DenseMatrix) A2, (DenseMatrix) C, alpha, beta);
+            return;
+        }
+
+        if (!(C instanceof DenseMatrix)) {//write only the stored entries of C
+            StructuredMatrixOperation.multiplyInto(this, A1, A2, C, alpha, beta);
+            return;
+        }
+
+        if (C == A1 || C == A2) {//we must not overwrite an operand before we finish reading it
+            Matrix product = multiply(A1, A2);
+            for (int i = 1; i <= C.nRows(); ++i) {
+                for (int j = 1; j <= C.nCols(); ++j) {
+                    double c = beta == 0. ? 0. : beta * C.get(i, j);
+                    C.set(i, j, c + alpha * product.get(i, j));
+                }
+            }
+            return;
+        }
+
+        if (A1 instanceof SparseMatrix) {//visit only the non-zeros of A1
+            if (beta != 1.) {
+                StructuredMatrixOperation.scaleInPlace(C, beta);
+            }
+            StructuredMatrixOperation.multiplyAdd((SparseMatrix) A1, A2, (DenseMatrix) C, alpha);
+            return;
+        }
+
+        for (int i = 1; i <= C.nRows(); ++i) {
+            for (int j = 1; j <= C.nCols(); ++j) {
+                double sum = 0.;
+                for (int k = 1; k <= A1.nCols(); ++k) {
+                    sum += A1.get(i, k) * A2.get(k, j);
+                }
+                double c = beta == 0. ? 0. : beta * C.get(i, j);
+                C.set(i, j, c + alpha * sum);
+            }
+        }
+    }
+
     @Override
     public Vector multiply(MatrixAccess A, Vector v) {
         throwIfIncompatible4Multiplication(A, v);
@@ -112,6 +158,28 @@ public class SimpleMatrixMathOperation implements MatrixMathOperation {
         return result;
     }
 
+    @Override
+    public void addInPlace(MatrixAccess A1, MatrixAccess A2, double c) {
+        throwIfDifferentDimension(A1, A2);
+
+        if (A1 instanceof DenseMatrix && A2 instanceof DenseMatrix) {
+            ((DenseMatrix) A1).addInPlace(c, (DenseMatrix) A2);
+            return;
+        }
+
+        StructuredMatrixOperation.addInPlace(A1, A2, c);
+    }
+
+    @Override
+    public void scaleInPlace(MatrixAccess A, double c) {
+        if (A instanceof DenseMatrix) {
+            ((DenseMatrix) A).scaleInPlace(c);
+            return;
+        }
+
+        StructuredMatrixOperation.scaleInPlace(A, c);
+    }
+
     @Override
     public Matrix transpose(MatrixAccess A) {
         Matrix result = new DenseMatrix(A.nCols(), A.nRows());
@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.mathoperation;
+
+import com.numericalmethod.suanshu.matrix.MatrixAccessException;
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.MatrixAccess;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.diagonal.BidiagonalMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.diagonal.DiagonalMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.diagonal.TridiagonalMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.triangle.LowerTriangularMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.triangle.SymmetricMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.triangle.UpperTriangularMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.CSRSparseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.SparseEntry;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.SparseMatrix;
+
+/**
+ * These are the in-place operations for the matrices that are not {@link DenseMatrix}.
+ * Only the stored entries of a matrix are visited, and zeros are not written, so that
+ * <ul>
+ * <li>a sparse matrix, e.g., {@link CSRSparseMatrix}, stays sparse and costs <i>O(nnz)</i>;</li>
+ * <li>a triangular, symmetric, diagonal, bidiagonal or tridiagonal matrix is never written outside its structure.</li>
+ * </ul>
+ * The operations are single-threaded because the {@code set} methods of these matrices are not thread-safe.
+ *
+ * @author Haksun Li
+ */
+final class StructuredMatrixOperation {
+
+    private StructuredMatrixOperation() {
+        // utility class has no instance
+    }
+
+    /**
+     * A visitor of the non-zero entries of a matrix.
+     */
+    private static interface EntryVisitor {
+
+        /**
+         * Visit an entry.
+         *
+         * @param i     the row index
+         * @param j     the column index
+         * @param value the entry
+         */
+        void visit(int i, int j, double value);
+    }
+
+    /**
+     * <i>A *= c</i>.
+     * The content of <i>A</i> is ignored when <i>c</i> is 0.
+     *
+     * @param A a matrix, modified
+     * @param c a scalar
+     */
+    static void scaleInPlace(final MatrixAccess A, final double c) {
+        if (A instanceof CSRSparseMatrix) {
+            ((CSRSparseMatrix) A).scaleInPlace(c);
+            return;
+        }
+
+        final boolean isSymmetric = A instanceof SymmetricMatrix;
+        forEachNonZero(A, new EntryVisitor() {
+
+            @Override
+            public void visit(int i, int j, double value) {
+                if (isSymmetric && i < j) {
+                    return;//setting the lower triangle sets the upper triangle too
+                }
+                A.set(i, j, c == 0. ? 0. : value * c);
+            }
+        });
+    }
+
+    /**
+     * <i>A<sub>1</sub> += c * A<sub>2</sub></i>.
+     * Only the non-zeros of <i>A<sub>2</sub></i> are visited.
+     * When <i>A<sub>1</sub></i> is a {@link SymmetricMatrix}, <i>A<sub>2</sub></i> is assumed symmetric and only its lower triangle is read.
+     *
+     * @param A1 a matrix, modified
+     * @param A2 a matrix
+     * @param c  a scalar
+     * @throws MatrixAccessException if <i>A<sub>2</sub></i> has a non-zero outside the structure of <i>A<sub>1</sub></i>
+     */
+    static void addInPlace(final MatrixAccess A1, MatrixAccess A2, final double c) {
+        if (c == 0.) {
+            return;
+        }
+
+        if (A1 instanceof CSRSparseMatrix && A2 instanceof Matrix) {
+            ((CSRSparseMatrix) A1).addInPlace(c, (Matrix) A2);
+            return;
+        }
+
+        final boolean isSymmetric = A1 instanceof SymmetricMatrix;
+        forEachNonZero(A2, new EntryVisitor() {
+
+            @Override
+            public void visit(int i, int j, double value) {
+                if (isSymmetric && i < j) {
+                    return;//setting the lower triangle sets the upper triangle too
+                }
+                set(A1, i, j, A1.get(i, j) + c * value);
+            }
+        });
+    }
+
+    /**
+     * <i>C = &alpha; * A<sub>1</sub> * A<sub>2</sub> + &beta; * C</i>, where <i>C</i> is not a {@link DenseMatrix}.
+     * The product is computed by the multiplication of <i>A<sub>1</sub></i>, e.g., a sparse product for sparse matrices,
+     * and is then added to the stored entries of <i>C</i>.
+     * The content of <i>C</i> is ignored when <i>&beta;</i> is 0.
+     *
+     * @param math  the operations to multiply the operands that are not {@link Matrix}
+     * @param A1    a matrix
+     * @param A2    a matrix
+     * @param C     the matrix to store the result
+     * @param alpha the scaling factor of <i>A<sub>1</sub> * A<sub>2</sub></i>
+     * @param beta  the scaling factor of <i>C</i>
+     */
+    static void multiplyInto(MatrixMathOperation math, MatrixAccess A1, MatrixAccess A2, MatrixAccess C, double alpha, double beta) {
+        Matrix product = A1 instanceof Matrix && A2 instanceof Matrix
+                         ? ((Matrix) A1).multiply((Matrix) A2)
+                         : math.multiply(A1, A2);
+
+        if (beta != 1.) {
+            scaleInPlace(C, beta);
+        }
+        addInPlace(C, product, alpha);
+    }
+
+    /**
+     * <i>C += &alpha; * A<sub>1</sub> * A<sub>2</sub></i>, where <i>A<sub>1</sub></i> is a {@link SparseMatrix}
+     * and <i>C</i> is a {@link DenseMatrix}.
+     * Only the non-zeros of <i>A<sub>1</sub></i> are visited, in <i>O(nnz * n)</i>.
+     *
+     * @param A1    a sparse matrix
+     * @param A2    a matrix
+     * @param C     the matrix to store the result; it must not be <i>A<sub>2</sub></i>
+     * @param alpha the scaling factor of <i>A<sub>1</sub> * A<sub>2</sub></i>
+     */
+    static void multiplyAdd(SparseMatrix A1, final MatrixAccess A2, final DenseMatrix C, final double alpha) {
+        final int n = C.nCols();
+        forEachNonZero(A1, new EntryVisitor() {
+
+            @Override
+            public void visit(int i, int k, double value) {
+                double a = alpha * value;
+                for (int j = 1; j <= n; ++j) {
+                    C.set(i, j, C.get(i, j) + a * A2.get(k, j));
+                }
+            }
+        });
+    }
+
+    /**
+     * Set an entry, checking that it is stored in the structure of the matrix.
+     */
+    private static void set(MatrixAccess A, int i, int j, double value) {
+        A.set(i, j, value);
+        if (Double.compare(A.get(i, j), value) != 0) {//e.g., a triangular matrix ignores the entries outside its triangle
+            throw new MatrixAccessException(String.format("(%d, %d) is outside the structure of the matrix", i, j));
+        }
+    }
+
+    /**
+     * Visit the non-zeros of a matrix, in the order of the rows when the storage allows.
+     * The values are read before they are visited, so a visitor can modify the visited entry.
+     */
+    private static void forEachNonZero(MatrixAccess A, EntryVisitor visitor) {
+        if (A instanceof CSRSparseMatrix) {
+            CSRSparseMatrix csr = (CSRSparseMatrix) A;
+            int[] rowPtr = csr.rowPointers();
+            int[] colInd = csr.columnIndices();
+            double[] value = csr.values();
+            for (int i = 0; i < csr.nRows(); ++i) {
+                for (int k = rowPtr[i]; k < rowPtr[i + 1]; ++k) {
+                    if (Double.compare(0., value[k]) != 0) {
+                        visitor.visit(i + 1, colInd[k], value[k]);
+                    }
+                }
+            }
+        } else if (A instanceof SparseMatrix) {
+            for (SparseEntry entry : ((SparseMatrix) A).getEntrytList()) {//a copy, so the matrix can be modified
+                if (Double.compare(0., entry.value) != 0) {
+                    visitor.visit(entry.coordinates.i, entry.coordinates.j, entry.value);
+                }
+            }
+        } else if (A instanceof UpperTriangularMatrix) {
+            for (int i = 1; i <= A.nRows(); ++i) {
+                for (int j = i; j <= A.nCols(); ++j) {
+                    visit(A, i, j, visitor);
+                }
+            }
+        } else if (A instanceof LowerTriangularMatrix) {
+            for (int i = 1; i <= A.nRows(); ++i) {
+                for (int j = 1; j <= i; ++j) {
+                    visit(A, i, j, visitor);
+                }
+            }
+        } else if (A instanceof DiagonalMatrix || A instanceof BidiagonalMatrix || A instanceof TridiagonalMatrix) {
+            for (int i = 1; i <= A.nRows(); ++i) {
+                for (int j = Math.max(1, i - 1); j <= Math.min(A.nCols(), i + 1); ++j) {
+                    visit(A, i, j, visitor);
+                }
+            }
+        } else {
+            for (int i = 1; i <= A.nRows(); ++i) {
+                for (int j = 1; j <= A.nCols(); ++j) {
+                    visit(A, i, j, visitor);
+                }
+            }
+        }
+    }
+
+    private static void visit(MatrixAccess A, int i, int j, EntryVisitor visitor) {
+        double value = A.get(i, j);
+        if (Double.compare(0., value) != 0) {
+            visitor.visit(i, j, value);
+        }
+    }
+}
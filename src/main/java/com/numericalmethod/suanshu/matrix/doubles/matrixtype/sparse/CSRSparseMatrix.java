@@ -24,17 +24,18 @@ package com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse;
 
 import static com.numericalmethod.suanshu.datastructure.DimensionCheck.*;
 import com.numericalmethod.suanshu.matrix.MatrixAccessException;
+import com.numericalmethod.suanshu.matrix.MatrixMismatchException;
 import com.numericalmethod.suanshu.matrix.doubles.Matrix;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.mathoperation.MatrixMathOperation;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.mathoperation.SimpleMatrixMathOperation;
 import com.numericalmethod.suanshu.misc.R;
 import com.numericalmethod.suanshu.misc.SuanShuUtils;
+import com.numericalmethod.suanshu.parallel.ParallelExecutor;
 import com.numericalmethod.suanshu.vector.doubles.Vector;
 import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 
 /**
@@ -63,6 +64,9 @@ import java.util.List;
  * <p/>
  * This format is very inefficient for incremental construction or changes using {@link #set(int, int, double)},
  * but efficient for matrix computation.
+ * To assemble a matrix, use {@link CSRSparseMatrixBuilder}.
+ * The matrix-vector multiplication, {@link #multiply(double, double[], double, double[])}, runs in parallel without allocation.
+ * For a matrix whose rows have similar numbers of non-zeros, {@link SELLSparseMatrix} may multiply faster.
  *
  * @author Ken Yiu
  * @see <a
@@ -96,9 +100,10 @@ public class CSRSparseMatrix implements SparseMatrix {
         this.row_ptr = new int[nRows + 1];
     }
 
-    // TODO: add 1 more ctor to allocate max nNonZeros
     /**
      * Construct a sparse matrix in CSR format.
+     * If a coordinate appears more than once, the last value is taken.
+     * To sum the values of the duplicated coordinates instead, use {@link CSRSparseMatrixBuilder}.
      *
      * @param nRows         the number of rows
      * @param nCols         the number of columns
@@ -111,25 +116,13 @@ public class CSRSparseMatrix implements SparseMatrix {
 
         SuanShuUtils.assertArgument(columnIndices.length == value.length && rowIndices.length == value.length,
                                     "input arrays size mismatch");
-
-        this.nnz = value.length;
-        this.value = new double[value.length];
-        this.col_ind = new int[value.length];
-
-        //TODO: why is this so complicated? why not just copy the three arrays as in the copy ctor?
-        LILSparseMatrix lil = new LILSparseMatrix(nRows, nCols, rowIndices, columnIndices, value);
-
-        int valueIndex = 0;
-        this.row_ptr[0] = valueIndex;// 0
-        for (int i = 1; i <= nRows; ++i) {
-            SparseVector row = lil.getRow(i);
-            for (SparseVector.Entry entry : row) {
-                this.value[valueIndex] = entry.value();
-                this.col_ind[valueIndex] = entry.index();
-                valueIndex++;
+        for (int k = 0; k < value.length; ++k) {
+            if (rowIndices[k] < 1 || rowIndices[k] > nRows || columnIndices[k] < 1 || columnIndices[k] > nCols) {
+                throw new IllegalArgumentException("out-of-range element coordinates");
             }
-            this.row_ptr[i] = valueIndex;
         }
+
+        copy(CSRSparseMatrixBuilder.compress(nRows, nCols, rowIndices, columnIndices, value, value.length, false));
     }
 
     /**
@@ -141,26 +134,43 @@ public class CSRSparseMatrix implements SparseMatrix {
      */
     public CSRSparseMatrix(int nRows, int nCols, List<SparseEntry> entries) {
         this(nRows, nCols);
-        Collections.sort(entries, SparseEntry.TopLeftFirstComparator.INSTANCE);
 
-        this.nnz = entries.size();
-        this.value = new double[nnz];
-        this.col_ind = new int[nnz];
-
-        int[] rowCounts = new int[nRows + 1];
-        int valueIndex = 0;
+        final int size = entries.size();
+        int[] rowIndices = new int[size];
+        int[] columnIndices = new int[size];
+        double[] values = new double[size];
+        int k = 0;
         for (SparseEntry entry : entries) {
             Coordinates coord = entry.coordinates;
             if (coord.i < 1 || coord.i > nRows || coord.j < 1 || coord.j > nCols) {
                 throw new IllegalArgumentException("out-of-range element coordinates");
             }
-            this.value[valueIndex] = entry.value;
-            this.col_ind[valueIndex] = entry.coordinates.j;
-            valueIndex++;
-            rowCounts[entry.coordinates.i]++; // count elements at row i
+            rowIndices[k] = coord.i;
+            columnIndices[k] = coord.j;
+            values[k] = entry.value;
+            ++k;
         }
 
-        this.row_ptr = R.cumsum(rowCounts);
+        copy(CSRSparseMatrixBuilder.compress(nRows, nCols, rowIndices, columnIndices, values, size, false));
+    }
+
+    /**
+     * Construct a sparse matrix in CSR format from the arrays, without copying.
+     *
+     * @param nRows   the number of rows
+     * @param nCols   the number of columns
+     * @param row_ptr the row pointers, counting from 0
+     * @param col_ind the sorted column indices in each row, counting from 1
+     * @param value   the non-zero values
+     * @param nnz     the number of non-zeros
+     */
+    CSRSparseMatrix(int nRows, int nCols, int[] row_ptr, int[] col_ind, double[] value, int nnz) {
+        this.nRows = nRows;
+        this.nCols = nCols;
+        this.row_ptr = row_ptr;
+        this.col_ind = col_ind;
+        this.value = value;
+        this.nnz = nnz;
     }
 
     /**
@@ -178,6 +188,16 @@ public class CSRSparseMatrix implements SparseMatrix {
         this.row_ptr = that.row_ptr.clone();
     }
 
+    /**
+     * Take the arrays of another matrix of the same dimension.
+     */
+    private void copy(CSRSparseMatrix that) {
+        this.row_ptr = that.row_ptr;
+        this.col_ind = that.col_ind;
+        this.value = that.value;
+        this.nnz = that.nnz;
+    }
+
     @Override
     public int nRows() {
         return nRows;
@@ -275,12 +295,10 @@ public class CSRSparseMatrix implements SparseMatrix {
     public SparseVector getRow(int i) throws MatrixAccessException {
         throwIfInvalidRow(this, i);
 
-        SparseVector row = new SparseVector(nCols);
-        for (int k = row_ptr[i - 1]; k < row_ptr[i]; ++k) {
-            row.set(col_ind[k], value[k]);
-        }
-
-        return row;
+        return new SparseVector(nCols,
+                                Arrays.copyOfRange(col_ind, row_ptr[i - 1], row_ptr[i]),
+                                Arrays.copyOfRange(value, row_ptr[i - 1], row_ptr[i]),
+                                row_ptr[i] - row_ptr[i - 1]);
     }
 
     @Override
@@ -291,7 +309,7 @@ public class CSRSparseMatrix implements SparseMatrix {
         for (int p = 1; p <= nRows; ++p) {
             for (int q = row_ptr[p - 1]; q < row_ptr[p]; ++q) {
                 if (col_ind[q] == j) {
-                    col.set(p, value[q]);
+                    col.set(p, value[q]);//appended in increasing order of the row index
                 }
             }
         }
@@ -416,19 +434,64 @@ public class CSRSparseMatrix implements SparseMatrix {
         return product;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The product is a {@link SparseVector} if {@code v} is a {@link SparseVector}, otherwise a {@link DenseVector}.
+     * The rows are multiplied in parallel when the matrix is big.
+     *
+     * @see #multiply(double, double[], double, double[])
+     */
     @Override
     public Vector multiply(Vector v) {
         throwIfIncompatible4Multiplication(this, v);
 
-        Vector Av = (v instanceof SparseVector)
-                    ? new SparseVector(nRows)
-                    : new DenseVector(nRows);
+        double[] Av = new double[nRows];
+        multiply(1., v.toArray(), 0., Av);
+        return SparseMatrixVectorMultiplication.toVector(v, Av);
+    }
 
-        for (int i = 1; i <= nRows; ++i) {
-            Av.set(i, this.getRow(i).innerProduct(v));
+    /**
+     * Compute <i>y = &alpha; * A * x + &beta; * y</i> in place, without allocating any vector.
+     * When the matrix is big, the rows are divided among the threads of the shared {@link ParallelExecutor}
+     * in ranges of about the same number of non-zeros.
+     *
+     * @param alpha the scaling factor of <i>A * x</i>
+     * @param x     the multiplier, of length {@link #nCols()}
+     * @param beta  the scaling factor of <i>y</i>; when it is 0, <i>y</i> is not read
+     * @param y     the accumulator, of length {@link #nRows()}, overwritten by the result; it must not be {@code x}
+     * @see SparseMatrixVectorMultiplication#csr
+     */
+    public void multiply(double alpha, double[] x, double beta, double[] y) {
+        if (x.length != nCols || y.length != nRows) {
+            throw new MatrixMismatchException("the vectors are incompatible with the matrix for multiplication");
         }
 
-        return Av;
+        SparseMatrixVectorMultiplication.csr(alpha, row_ptr, col_ind, value, nRows, x, beta, y, ParallelExecutor.getSharedInstance());
+    }
+
+    /**
+     * Compute <i>Y = &alpha; * A * X + &beta; * Y</i> in place for a block of vectors,
+     * e.g., the iterates of many right hand sides.
+     * Each non-zero is read once for all the vectors, so this is faster than multiplying the vectors one by one.
+     *
+     * @param alpha the scaling factor of <i>A * X</i>
+     * @param X     the multipliers, one array of length {@link #nCols()} per vector
+     * @param beta  the scaling factor of <i>Y</i>; when it is 0, <i>Y</i> is not read
+     * @param Y     the accumulators, one array of length {@link #nRows()} per vector, overwritten by the results; they must not be any of {@code X}
+     * @see SparseMatrixVectorMultiplication#csr(double, int[], int[], double[], int, double[][], double, double[][], ParallelExecutor)
+     */
+    public void multiply(double alpha, double[][] X, double beta, double[][] Y) {
+        if (X.length != Y.length) {
+            throw new MatrixMismatchException("X and Y must have the same number of vectors");
+        }
+        for (int j = 0; j < X.length; ++j) {
+            if (X[j].length != nCols || Y[j].length != nRows) {
+                throw new MatrixMismatchException("the vectors are incompatible with the matrix for multiplication");
+            }
+        }
+
+        SparseMatrixVectorMultiplication.csr(alpha, row_ptr, col_ind, value, nRows, X, beta, Y, ParallelExecutor.getSharedInstance());
     }
 
     @Override
@@ -444,6 +507,80 @@ public class CSRSparseMatrix implements SparseMatrix {
         return cA;
     }
 
+    /**
+     * <i>this *= c</i>, without allocating a new matrix.
+     * The non-zero values are scaled in place.
+     * When <i>c</i> is 0, all the entries are dropped.
+     *
+     * @param c a scalar
+     * @return {@code this}, modified
+     */
+    public CSRSparseMatrix scaleInPlace(double c) {
+        if (Double.compare(0., c) == 0) {
+            copy(new CSRSparseMatrix(nRows, nCols));
+            return this;
+        }
+
+        for (int k = 0; k < nnz; ++k) {
+            value[k] *= c;
+        }
+        return this;
+    }
+
+    /**
+     * <i>this += c * that</i>.
+     * If the non-zeros of <i>that</i> are all stored entries of {@code this},
+     * e.g., when both have the same sparsity pattern,
+     * the values are updated in place without allocating a new matrix;
+     * the entries that cancel out stay stored, so the pattern does not change.
+     * Otherwise, the two patterns are merged in one pass in <i>O(nnz(this) + nnz(that))</i>.
+     *
+     * @param c    a scalar
+     * @param that a matrix
+     * @return {@code this}, modified
+     */
+    public CSRSparseMatrix addInPlace(double c, Matrix that) {
+        throwIfDifferentDimension(this, that);
+
+        CSRSparseMatrix B = CSRSparseMatrixBuilder.toCSR(that);
+        if (!addInPlaceWithinPattern(c, B)) {
+            copy(add(B, c));
+        }
+        return this;
+    }
+
+    /**
+     * Add <i>c * that</i> to the stored values if the pattern of {@code this} covers the non-zeros of <i>that</i>.
+     *
+     * @return {@code false} if the pattern does not cover <i>that</i>, in which case {@code this} is not modified
+     */
+    private boolean addInPlaceWithinPattern(double c, CSRSparseMatrix that) {
+        final int[] position = new int[nCols];//the position of a column in the current row plus 1; 0 if not stored
+        for (int pass = 0; pass < 2; ++pass) {//check in the first pass; update in the second
+            for (int i = 0; i < nRows; ++i) {
+                for (int k = row_ptr[i]; k < row_ptr[i + 1]; ++k) {
+                    position[col_ind[k] - 1] = k + 1;
+                }
+
+                for (int q = that.row_ptr[i]; q < that.row_ptr[i + 1]; ++q) {
+                    final int k = position[that.col_ind[q] - 1];
+                    if (k == 0) {
+                        if (Double.compare(0., that.value[q]) != 0) {
+                            return false;//only in the first pass
+                        }
+                    } else if (pass == 1) {
+                        value[k - 1] += c * that.value[q];
+                    }
+                }
+
+                for (int k = row_ptr[i]; k < row_ptr[i + 1]; ++k) {
+                    position[col_ind[k] - 1] = 0;
+                }
+            }
+        }
+        return true;
+    }
+
     @Override
     public CSRSparseMatrix opposite() {
         return scaled(-1);
@@ -516,6 +653,35 @@ public class CSRSparseMatrix implements SparseMatrix {
         return nnz;
     }
 
+    /**
+     * Get a copy of the row pointers, counting from 0.
+     * The non-zeros of row <i>i</i> are stored at the positions from
+     * {@code rowPointers()[i - 1]} (inclusive) to {@code rowPointers()[i]} (exclusive).
+     *
+     * @return the row pointers, an array of length {@code nRows() + 1}
+     */
+    public int[] rowPointers() {
+        return Arrays.copyOf(row_ptr, nRows + 1);
+    }
+
+    /**
+     * Get a copy of the column indices of the non-zeros, counting from 1.
+     *
+     * @return the column indices, an array of length {@link #nNonZeros()}
+     */
+    public int[] columnIndices() {
+        return Arrays.copyOf(col_ind, nnz);
+    }
+
+    /**
+     * Get a copy of the non-zero values.
+     *
+     * @return the non-zero values, an array of length {@link #nNonZeros()}
+     */
+    public double[] values() {
+        return Arrays.copyOf(value, nnz);
+    }
+
     @Override
     public String toString() {
         return SparseMatrixUtils.toString(this);
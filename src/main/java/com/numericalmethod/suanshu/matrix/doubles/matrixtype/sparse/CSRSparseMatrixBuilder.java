@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse;
+
+import com.numericalmethod.suanshu.matrix.MatrixAccessException;
+import com.numericalmethod.suanshu.matrix.doubles.ImmutableMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import java.util.Arrays;
+
+/**
+ * This builder assembles a {@link CSRSparseMatrix} from (<i>i</i>, <i>j</i>, <i>value</i>) triplets, a.k.a. the coordinate (COO) format.
+ * The triplets are appended to growable primitive arrays in any order; duplicated coordinates are summed,
+ * which is what the assembly of, e.g., a finite element stiffness matrix needs.
+ * {@link #build()} sorts the triplets and compresses them directly to the CSR arrays
+ * in <i>O(nnz * log(nnz))</i> time without creating any object per entry.
+ * In comparison, {@link CSRSparseMatrix#set(int, int, double)} copies the arrays on every insertion.
+ * <p/>
+ * For example,
+ * <blockquote><pre><code>
+ * CSRSparseMatrixBuilder builder = new CSRSparseMatrixBuilder(n, n, 3 * n);
+ * for (int i = 1; i &lt;= n; ++i) {
+ *     builder.add(i, i, 2.);
+ *     if (i &gt; 1) {
+ *         builder.add(i, i - 1, -1.);
+ *         builder.add(i - 1, i, -1.);
+ *     }
+ * }
+ * CSRSparseMatrix A = builder.build();
+ * </code></pre></blockquote>
+ *
+ * @author Ken Yiu
+ * @see <a href="http://en.wikipedia.org/wiki/Sparse_matrix#Coordinate_list_.28COO.29">Wikipedia: Coordinate list (COO)</a>
+ */
+public class CSRSparseMatrixBuilder {
+
+    private final int nRows;
+    private final int nCols;
+    private int[] rowIndices;
+    private int[] columnIndices;
+    private double[] values;
+    private int size = 0;
+
+    /**
+     * Construct a builder for an <i>nRows x nCols</i> matrix.
+     *
+     * @param nRows            the number of rows
+     * @param nCols            the number of columns
+     * @param expectedNonZeros the expected number of triplets; the builder grows as needed
+     */
+    public CSRSparseMatrixBuilder(int nRows, int nCols, int expectedNonZeros) {
+        this.nRows = nRows;
+        this.nCols = nCols;
+        this.rowIndices = new int[Math.max(expectedNonZeros, 1)];
+        this.columnIndices = new int[rowIndices.length];
+        this.values = new double[rowIndices.length];
+    }
+
+    /**
+     * Construct a builder for an <i>nRows x nCols</i> matrix.
+     *
+     * @param nRows the number of rows
+     * @param nCols the number of columns
+     */
+    public CSRSparseMatrixBuilder(int nRows, int nCols) {
+        this(nRows, nCols, 16);
+    }
+
+    /**
+     * Add a value to the (<i>i</i>, <i>j</i>) entry.
+     *
+     * @param i     the row index, counting from 1
+     * @param j     the column index, counting from 1
+     * @param value the value to add
+     * @return {@code this}
+     * @throws MatrixAccessException if the coordinates are out of range
+     */
+    public CSRSparseMatrixBuilder add(int i, int j, double value) {
+        if (i < 1 || i > nRows || j < 1 || j > nCols) {
+            throw new MatrixAccessException(String.format("out of range [1:%d, 1:%d] coordinates: (%d, %d)", nRows, nCols, i, j));
+        }
+
+        if (size == values.length) {
+            int capacity = values.length << 1;
+            rowIndices = Arrays.copyOf(rowIndices, capacity);
+            columnIndices = Arrays.copyOf(columnIndices, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        rowIndices[size] = i;
+        columnIndices[size] = j;
+        values[size] = value;
+        ++size;
+        return this;
+    }
+
+    /**
+     * Get the number of triplets added, including the duplicated coordinates.
+     *
+     * @return the number of triplets
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Remove all triplets so that the builder can assemble another matrix of the same dimension.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Construct the matrix from the triplets.
+     * The values of the duplicated coordinates are summed; the entries that sum to 0 are not stored.
+     * The builder is not changed.
+     *
+     * @return the matrix in CSR format
+     */
+    public CSRSparseMatrix build() {
+        return compress(nRows, nCols, rowIndices, columnIndices, values, size, true);
+    }
+
+    /**
+     * Get a matrix in CSR format, e.g., for an algorithm that works directly on the CSR arrays.
+     * <ul>
+     * <li>A {@link CSRSparseMatrix} is returned as is.</li>
+     * <li>An {@link ImmutableMatrix} is unwrapped by a {@linkplain ImmutableMatrix#deepCopy() copy} of the referenced matrix.</li>
+     * <li>A {@link SparseMatrix} is converted from its {@linkplain SparseMatrix#getEntrytList() entries}.</li>
+     * <li>Any other matrix is scanned for the non-zeros in <i>O(nRows * nCols)</i> time.</li>
+     * </ul>
+     *
+     * @param A a matrix
+     * @return <i>A</i> in CSR format
+     */
+    public static CSRSparseMatrix toCSR(Matrix A) {
+        if (A instanceof ImmutableMatrix) {
+            A = A.deepCopy();
+        }
+
+        if (A instanceof CSRSparseMatrix) {
+            return (CSRSparseMatrix) A;
+        }
+        if (A instanceof SparseMatrix) {
+            return new CSRSparseMatrix(A.nRows(), A.nCols(), ((SparseMatrix) A).getEntrytList());
+        }
+
+        CSRSparseMatrixBuilder builder = new CSRSparseMatrixBuilder(A.nRows(), A.nCols());
+        for (int i = 1; i <= A.nRows(); ++i) {
+            for (int j = 1; j <= A.nCols(); ++j) {
+                double aij = A.get(i, j);
+                if (aij != 0.) {
+                    builder.add(i, j, aij);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Compress triplets to the CSR format.
+     * The triplets are distributed to the rows by a counting sort, which keeps the order of insertion.
+     * Then the columns of each row are sorted.
+     *
+     * @param nRows         the number of rows
+     * @param nCols         the number of columns
+     * @param rowIndices    the row indices, counting from 1
+     * @param columnIndices the column indices, counting from 1
+     * @param values        the values
+     * @param size          the number of triplets
+     * @param sum           {@code true} to sum the values of the duplicated coordinates; {@code false} to keep the last one
+     * @return the matrix in CSR format
+     */
+    static CSRSparseMatrix compress(int nRows, int nCols, int[] rowIndices, int[] columnIndices, double[] values, int size, boolean sum) {
+        //counting sort by row
+        int[] row_ptr = new int[nRows + 1];
+        for (int k = 0; k < size; ++k) {
+            row_ptr[rowIndices[k]]++;
+        }
+        int maxRowLength = 0;
+        for (int i = 0; i < nRows; ++i) {
+            maxRowLength = Math.max(maxRowLength, row_ptr[i + 1]);
+            row_ptr[i + 1] += row_ptr[i];
+        }
+
+        int[] next = Arrays.copyOf(row_ptr, nRows);
+        int[] byRowColumns = new int[size];
+        double[] byRowValues = new double[size];
+        for (int k = 0; k < size; ++k) {
+            int p = next[rowIndices[k] - 1]++;
+            byRowColumns[p] = columnIndices[k];
+            byRowValues[p] = values[k];
+        }
+
+        //sort each row by column; the key packs (column, position) so that the ties keep the order of insertion
+        int[] col_ind = new int[size];
+        double[] value = new double[size];
+        long[] keys = new long[maxRowLength];
+        int nnz = 0;
+        for (int i = 0; i < nRows; ++i) {
+            final int begin = row_ptr[i];
+            final int length = row_ptr[i + 1] - begin;
+            for (int t = 0; t < length; ++t) {
+                keys[t] = ((long) byRowColumns[begin + t] << 32) | t;
+            }
+            Arrays.sort(keys, 0, length);
+
+            row_ptr[i] = nnz;
+            for (int t = 0; t < length;) {
+                final int column = (int) (keys[t] >>> 32);
+                double v = byRowValues[begin + (int) keys[t]];
+                for (++t; t < length && (int) (keys[t] >>> 32) == column; ++t) {
+                    double w = byRowValues[begin + (int) keys[t]];
+                    v = sum ? v + w : w;
+                }
+                if (v != 0.) {
+                    col_ind[nnz] = column;
+                    value[nnz] = v;
+                    ++nnz;
+                }
+            }
+        }
+        row_ptr[nRows] = nnz;
+
+        return new CSRSparseMatrix(nRows, nCols, row_ptr, Arrays.copyOf(col_ind, nnz), Arrays.copyOf(value, nnz), nnz);
+    }
+}
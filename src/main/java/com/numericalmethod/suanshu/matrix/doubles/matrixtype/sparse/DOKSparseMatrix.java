@@ -23,6 +23,7 @@
 package com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse;
 
 import static com.numericalmethod.suanshu.datastructure.DimensionCheck.*;
+import com.numericalmethod.suanshu.datastructure.LongDoubleHashMap;
 import com.numericalmethod.suanshu.matrix.MatrixAccessException;
 import com.numericalmethod.suanshu.matrix.doubles.Matrix;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix;
@@ -31,8 +32,9 @@ import com.numericalmethod.suanshu.matrix.doubles.matrixtype.mathoperation.Simpl
 import com.numericalmethod.suanshu.misc.R;
 import com.numericalmethod.suanshu.misc.SuanShuUtils;
 import com.numericalmethod.suanshu.vector.doubles.Vector;
-import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * The Dictionary Of Key (DOK) format for sparse matrix uses the coordinates of
@@ -40,6 +42,10 @@ import java.util.*;
  * that adding, removing, retrieving values can be done in constant time. This
  * data structure is efficient for incremental construction but poor for
  * iterating non-zero elements in a matrix.
+ * <p/>
+ * The coordinates are packed into a {@code long} key of a {@link LongDoubleHashMap},
+ * so that no object is created to store, look up or iterate an entry.
+ * To assemble a big matrix for computation, {@link CSRSparseMatrixBuilder} is faster.
  *
  * @author Ken Yiu
  * @see <a
@@ -48,7 +54,7 @@ import java.util.*;
  */
 public class DOKSparseMatrix implements SparseMatrix {
 
-    private HashMap<Coordinates, Double> dictionary;
+    private final LongDoubleHashMap dictionary;
     private final int nRows;
     private final int nCols;
     private final MatrixMathOperation math = new SimpleMatrixMathOperation();
@@ -60,9 +66,13 @@ public class DOKSparseMatrix implements SparseMatrix {
      * @param nCols the number of columns
      */
     public DOKSparseMatrix(int nRows, int nCols) {
+        this(nRows, nCols, new LongDoubleHashMap());
+    }
+
+    private DOKSparseMatrix(int nRows, int nCols, LongDoubleHashMap dictionary) {
         this.nRows = nRows;
         this.nCols = nCols;
-        this.dictionary = new HashMap<Coordinates, Double>(0);
+        this.dictionary = dictionary;
     }
 
     /**
@@ -75,8 +85,7 @@ public class DOKSparseMatrix implements SparseMatrix {
      * @param value         the non-zero values
      */
     public DOKSparseMatrix(int nRows, int nCols, int[] rowIndices, int[] columnIndices, double[] value) {
-        this(nRows, nCols);
-        this.dictionary = new HashMap<Coordinates, Double>(value.length);
+        this(nRows, nCols, new LongDoubleHashMap(value.length));
 
         SuanShuUtils.assertArgument(rowIndices.length == columnIndices.length && rowIndices.length == value.length,
                                     "input arrays size mismatch");
@@ -94,10 +103,8 @@ public class DOKSparseMatrix implements SparseMatrix {
      * @param entries the entry list
      */
     public DOKSparseMatrix(int nRows, int nCols, List<SparseEntry> entries) {
-        this(nRows, nCols);
-        this.dictionary = new HashMap<Coordinates, Double>(entries.size());
+        this(nRows, nCols, new LongDoubleHashMap(entries.size()));
 
-        Collections.sort(entries, SparseEntry.TopLeftFirstComparator.INSTANCE);
         for (SparseEntry entry : entries) {
             this.set(entry.coordinates.i, entry.coordinates.j, entry.value);
         }
@@ -109,8 +116,7 @@ public class DOKSparseMatrix implements SparseMatrix {
      * @param that the matrix to be copied
      */
     public DOKSparseMatrix(DOKSparseMatrix that) {
-        this(that.nRows, that.nCols);
-        this.dictionary = new HashMap<Coordinates, Double>(that.dictionary); // it's okay since both key and value are immutable
+        this(that.nRows, that.nCols, new LongDoubleHashMap(that.dictionary));
     }
 
     @Override
@@ -125,9 +131,16 @@ public class DOKSparseMatrix implements SparseMatrix {
 
     @Override
     public List<SparseEntry> getEntrytList() {
-        ArrayList<SparseEntry> entries = new ArrayList<SparseEntry>(nNonZeros());
-        for (Map.Entry<Coordinates, Double> entry : dictionary.entrySet()) {
-            entries.add(new SparseEntry(entry.getKey(), entry.getValue()));
+        //the packed keys sort from top to bottom, and then from left to right
+        long[] keys = new long[nNonZeros()];
+        for (int slot = dictionary.nextSlot(0), k = 0; slot >= 0; slot = dictionary.nextSlot(slot + 1)) {
+            keys[k++] = dictionary.keyAt(slot);
+        }
+        Arrays.sort(keys);
+
+        ArrayList<SparseEntry> entries = new ArrayList<SparseEntry>(keys.length);
+        for (long key : keys) {
+            entries.add(new SparseEntry(new Coordinates(row(key), column(key)), dictionary.get(key)));
         }
 
         return entries;
@@ -139,9 +152,9 @@ public class DOKSparseMatrix implements SparseMatrix {
         throwIfInvalidColumn(this, col);
 
         if (Double.compare(0., value) != 0) {
-            dictionary.put(new Coordinates(row, col), value);
+            dictionary.put(key(row, col), value);
         } else {
-            dictionary.remove(new Coordinates(row, col));
+            dictionary.remove(key(row, col));
         }
     }
 
@@ -150,8 +163,7 @@ public class DOKSparseMatrix implements SparseMatrix {
         throwIfInvalidRow(this, i);
         throwIfInvalidColumn(this, j);
 
-        Double value = dictionary.get(new Coordinates(i, j));
-        return value == null ? 0. : value.doubleValue();
+        return dictionary.get(key(i, j));
     }
 
     @Override
@@ -159,9 +171,10 @@ public class DOKSparseMatrix implements SparseMatrix {
         throwIfInvalidRow(this, i);
 
         SparseVector row = new SparseVector(nCols);
-        for (Map.Entry<Coordinates, Double> entry : dictionary.entrySet()) {
-            if (entry.getKey().i == i) {
-                row.set(entry.getKey().j, entry.getValue());
+        for (int slot = dictionary.nextSlot(0); slot >= 0; slot = dictionary.nextSlot(slot + 1)) {
+            long key = dictionary.keyAt(slot);
+            if (row(key) == i) {
+                row.set(column(key), dictionary.valueAt(slot));
             }
         }
         return row;
@@ -172,9 +185,10 @@ public class DOKSparseMatrix implements SparseMatrix {
         throwIfInvalidColumn(this, j);
 
         SparseVector col = new SparseVector(nRows);
-        for (Map.Entry<Coordinates, Double> entry : dictionary.entrySet()) {
-            if (entry.getKey().j == j) {
-                col.set(entry.getKey().i, entry.getValue());
+        for (int slot = dictionary.nextSlot(0); slot >= 0; slot = dictionary.nextSlot(slot + 1)) {
+            long key = dictionary.keyAt(slot);
+            if (column(key) == j) {
+                col.set(row(key), dictionary.valueAt(slot));
             }
         }
 
@@ -194,14 +208,11 @@ public class DOKSparseMatrix implements SparseMatrix {
         throwIfDifferentDimension(this, that);
         DOKSparseMatrix result = new DOKSparseMatrix(this);
 
-        for (Map.Entry<Coordinates, Double> entry : that.dictionary.entrySet()) {
-            Coordinates coord = entry.getKey();
-            Double value = result.dictionary.get(coord);
-            value = value == null ? sign * entry.getValue() : value + sign * entry.getValue();
-            if (Double.compare(0., value) != 0) {
-                result.dictionary.put(coord, value);
-            } else {
-                result.dictionary.remove(coord);
+        for (int slot = that.dictionary.nextSlot(0); slot >= 0; slot = that.dictionary.nextSlot(slot + 1)) {
+            long key = that.dictionary.keyAt(slot);
+            double value = result.dictionary.add(key, sign * that.dictionary.valueAt(slot));
+            if (Double.compare(0., value) == 0) {
+                result.dictionary.remove(key);
             }
         }
 
@@ -226,10 +237,10 @@ public class DOKSparseMatrix implements SparseMatrix {
                          ? new DOKSparseMatrix(nRows, ncols)
                          : new DenseMatrix(nRows, ncols);
 
-        for (Map.Entry<Coordinates, Double> entry : dictionary.entrySet()) {
-            int i = entry.getKey().i;
-            int k = entry.getKey().j;
-            double value = entry.getValue();
+        for (int slot = dictionary.nextSlot(0); slot >= 0; slot = dictionary.nextSlot(slot + 1)) {
+            int i = row(dictionary.keyAt(slot));
+            int k = column(dictionary.keyAt(slot));
+            double value = dictionary.valueAt(slot);
             for (int j = 1; j <= ncols; ++j) {
                 product.set(i, j, product.get(i, j) + value * that.get(k, j));
             }
@@ -242,17 +253,14 @@ public class DOKSparseMatrix implements SparseMatrix {
     public Vector multiply(Vector v) {
         throwIfIncompatible4Multiplication(this, v);
 
-        Vector Av = (v instanceof SparseVector)
-                    ? new SparseVector(nRows)
-                    : new DenseVector(nRows);
-
-        for (Map.Entry<Coordinates, Double> entry : dictionary.entrySet()) {
-            double value = entry.getValue() * v.get(entry.getKey().j);
-            int index = entry.getKey().i;
-            Av.set(index, Av.get(index) + value);
+        double[] x = v.toArray();
+        double[] Av = new double[nRows];
+        for (int slot = dictionary.nextSlot(0); slot >= 0; slot = dictionary.nextSlot(slot + 1)) {
+            long key = dictionary.keyAt(slot);
+            Av[row(key) - 1] += dictionary.valueAt(slot) * x[column(key) - 1];
         }
 
-        return Av;
+        return SparseMatrixVectorMultiplication.toVector(v, Av);
     }
 
     @Override
@@ -261,9 +269,9 @@ public class DOKSparseMatrix implements SparseMatrix {
             return new DOKSparseMatrix(this.nRows, this.nCols);
         }
 
-        DOKSparseMatrix cA = new DOKSparseMatrix(this.nRows, this.nCols);
-        for (Map.Entry<Coordinates, Double> entry : this.dictionary.entrySet()) {
-            cA.dictionary.put(entry.getKey(), c * entry.getValue());
+        DOKSparseMatrix cA = new DOKSparseMatrix(this);
+        for (int slot = cA.dictionary.nextSlot(0); slot >= 0; slot = cA.dictionary.nextSlot(slot + 1)) {
+            cA.dictionary.setValueAt(slot, c * cA.dictionary.valueAt(slot));
         }
 
         return cA;
@@ -276,11 +284,11 @@ public class DOKSparseMatrix implements SparseMatrix {
 
     @Override
     public DOKSparseMatrix t() {
-        DOKSparseMatrix result = new DOKSparseMatrix(this.nCols, this.nRows);
+        DOKSparseMatrix result = new DOKSparseMatrix(this.nCols, this.nRows, new LongDoubleHashMap(nNonZeros()));
 
-        for (Map.Entry<Coordinates, Double> entry : this.dictionary.entrySet()) {
-            Coordinates coord = entry.getKey();
-            result.set(coord.j, coord.i, entry.getValue());
+        for (int slot = dictionary.nextSlot(0); slot >= 0; slot = dictionary.nextSlot(slot + 1)) {
+            long key = dictionary.keyAt(slot);
+            result.dictionary.put(key(column(key), row(key)), dictionary.valueAt(slot));
         }
 
         return result;
@@ -309,9 +317,9 @@ public class DOKSparseMatrix implements SparseMatrix {
     @Override
     public DenseMatrix toDense() {
         DenseMatrix result = new DenseMatrix(nRows, nCols);
-        for (Map.Entry<Coordinates, Double> entry : dictionary.entrySet()) {
-            Coordinates coord = entry.getKey();
-            result.set(coord.i, coord.j, entry.getValue());
+        for (int slot = dictionary.nextSlot(0); slot >= 0; slot = dictionary.nextSlot(slot + 1)) {
+            long key = dictionary.keyAt(slot);
+            result.set(row(key), column(key), dictionary.valueAt(slot));
         }
         return result;
     }
@@ -358,9 +366,24 @@ public class DOKSparseMatrix implements SparseMatrix {
     @Override
     public int hashCode() {
         int hash = 7;
-        hash = 71 * hash + (this.dictionary != null ? this.dictionary.hashCode() : 0);
+        hash = 71 * hash + this.dictionary.hashCode();
         hash = 71 * hash + this.nRows;
         hash = 71 * hash + this.nCols;
         return hash;
     }
+
+    /**
+     * Pack the coordinates (<i>i</i>, <i>j</i>) into a key.
+     */
+    private static long key(int i, int j) {
+        return ((long) i << 32) | j;
+    }
+
+    private static int row(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static int column(long key) {
+        return (int) key;
+    }
 }
@@ -138,8 +138,9 @@ public class LILSparseMatrix implements SparseMatrix {
         ArrayList<SparseEntry> entries = new ArrayList<SparseEntry>(nNonZeros());
         int k = 0;
         for (int i = 1; i <= nRows; ++i) { // from top to bottom
-            for (SparseVector.Entry entry : rows[i - 1]) { // from left to right
-                entries.add(k++, new SparseEntry(new Coordinates(i, entry.index()), entry.value()));
+            SparseVector row = rows[i - 1];
+            for (int p = 0; p < row.nNonZeros(); ++p) { // from left to right
+                entries.add(k++, new SparseEntry(new Coordinates(i, row.indexAt(p)), row.valueAt(p)));
             }
         }
         return entries;
@@ -247,9 +248,10 @@ public class LILSparseMatrix implements SparseMatrix {
 
         throwIfIncompatible4Multiplication(this, v);
 
+        double[] x = v.toArray();
         double[] Av = new double[nRows];
         for (int i = 0; i < nRows; ++i) {
-            Av[i] = rows[i].innerProduct(v);
+            Av[i] = rows[i].innerProduct(x);
         }
         return new DenseVector(Av);
     }
@@ -292,8 +294,8 @@ public class LILSparseMatrix implements SparseMatrix {
     public LILSparseMatrix t() {
         LILSparseMatrix result = new LILSparseMatrix(nCols, nRows);
         for (int i = 0; i < nRows; ++i) {
-            for (SparseVector.Entry entry : rows[i]) {
-                result.set(entry.index(), i + 1, entry.value());
+            for (int p = 0; p < rows[i].nNonZeros(); ++p) {
+                result.rows[rows[i].indexAt(p) - 1].set(i + 1, rows[i].valueAt(p));//appended in increasing order of the column index
             }
         }
         return result;
@@ -325,8 +327,8 @@ public class LILSparseMatrix implements SparseMatrix {
 
         int rowIndex = 1;
         for (SparseVector row : rows) {
-            for (SparseVector.Entry entry : row) {
-                result.set(rowIndex, entry.index(), entry.value());
+            for (int p = 0; p < row.nNonZeros(); ++p) {
+                result.set(rowIndex, row.indexAt(p), row.valueAt(p));
             }
             rowIndex++;
         }
@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse;
+
+import static com.numericalmethod.suanshu.datastructure.DimensionCheck.*;
+import com.numericalmethod.suanshu.matrix.MatrixAccessException;
+import com.numericalmethod.suanshu.matrix.MatrixMismatchException;
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix;
+import com.numericalmethod.suanshu.misc.SuanShuUtils;
+import com.numericalmethod.suanshu.parallel.ParallelExecutor;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The Sliced ELLPACK format with sorting, SELL-<i>C</i>-&sigma;, stores a sparse matrix for fast matrix-vector multiplication.
+ * The rows are cut into slices of <i>C</i> rows.
+ * The entries of a slice are padded with zeros to the length of its longest row,
+ * and stored column by column, so that the innermost loop of the multiplication runs over <i>C</i> independent rows,
+ * which the JIT compiler vectorizes.
+ * To reduce the padding, within each window of &sigma; rows, the rows are sorted by decreasing number of non-zeros
+ * before they are sliced.
+ * For example, with <i>C = 2</i> and <i>&sigma; = 1</i> (no sorting),
+ * \[
+ * \begin{bmatrix}
+ * 1 & 2 & 0 & 0\\
+ * 0 & 3 & 9 & 0\\
+ * 0 & 1 & 0 & 0
+ * \end{bmatrix}
+ * \]
+ * <blockquote><pre><code>
+ * value     = [ 1 3 2 9 | 1 0 ]
+ * col_ind   = [ 0 1 1 2 | 1 0 ]
+ * slice_ptr = [ 0 4 6 ]
+ * </code></pre></blockquote>
+ * <i>C = 1</i> gives the CSR format without the row pointers; <i>C = nRows</i> and <i>&sigma; = 1</i> gives the ELLPACK format.
+ * <p/>
+ * This format suits a matrix whose rows have similar numbers of non-zeros, e.g., one from a finite difference grid.
+ * A few long rows in a window make the padding, and hence the multiplication, expensive; use {@link CSRSparseMatrix} instead.
+ * <p/>
+ * This matrix is immutable. It keeps the {@link CSRSparseMatrix} it is constructed from,
+ * which serves all operations except the matrix-vector multiplication.
+ *
+ * @author Ken Yiu
+ * @see "Moritz Kreutzer, Georg Hager, Gerhard Wellein, Holger Fehske, and Alan R. Bishop, "A unified sparse matrix data format for efficient general sparse matrix-vector multiplication on modern processors with wide SIMD units," SIAM Journal on Scientific Computing, vol. 36, issue 5, 2014."
+ */
+public class SELLSparseMatrix implements SparseMatrix {
+
+    /** the default number of rows in a slice, a multiple of the SIMD width */
+    public static final int DEFAULT_CHUNK_SIZE = 8;
+    /** the default number of rows in a sorting window */
+    public static final int DEFAULT_SORTING_SCOPE = 256;
+    private final CSRSparseMatrix A;
+    private final int C;
+    private final int[] slice_ptr;
+    /** the column indices of the (padded) entries, counting from 0 */
+    private final int[] col_ind;
+    private final double[] value;
+    /** the original row index (counting from 0) of each sorted row */
+    private final int[] perm;
+
+    /**
+     * Construct a sparse matrix in SELL-<i>C</i>-&sigma; format.
+     *
+     * @param A     a sparse matrix in CSR format
+     * @param C     the number of rows in a slice
+     * @param sigma the number of rows in a sorting window; 1 for no sorting
+     */
+    public SELLSparseMatrix(CSRSparseMatrix A, int C, int sigma) {
+        SuanShuUtils.assertArgument(C >= 1, "the chunk size must be at least 1");
+        SuanShuUtils.assertArgument(sigma >= 1, "the sorting scope must be at least 1");
+
+        this.A = new CSRSparseMatrix(A);
+        this.C = C;
+
+        final int nRows = A.nRows();
+        final int[] row_ptr = this.A.rowPointers();
+        final int[] csr_col_ind = this.A.columnIndices();
+        final double[] csr_value = this.A.values();
+
+        //sort the rows in each window by decreasing length; the key packs (maxLength - length, row)
+        this.perm = new int[nRows];
+        long[] keys = new long[Math.min(sigma, nRows)];
+        for (int begin = 0; begin < nRows; begin += sigma) {
+            final int end = Math.min(begin + sigma, nRows);
+            for (int i = begin; i < end; ++i) {
+                keys[i - begin] = ((long) (Integer.MAX_VALUE - (row_ptr[i + 1] - row_ptr[i])) << 32) | i;
+            }
+            Arrays.sort(keys, 0, end - begin);
+            for (int i = begin; i < end; ++i) {
+                perm[i] = (int) keys[i - begin];
+            }
+        }
+
+        //the width of a slice is the length of its longest row
+        final int nSlices = (nRows + C - 1) / C;
+        this.slice_ptr = new int[nSlices + 1];
+        for (int s = 0; s < nSlices; ++s) {
+            int width = 0;
+            for (int i = s * C; i < Math.min((s + 1) * C, nRows); ++i) {
+                width = Math.max(width, row_ptr[perm[i] + 1] - row_ptr[perm[i]]);
+            }
+            slice_ptr[s + 1] = slice_ptr[s] + width * C;
+        }
+
+        //the padding has the value 0 in column 0
+        this.col_ind = new int[slice_ptr[nSlices]];
+        this.value = new double[slice_ptr[nSlices]];
+        for (int i = 0; i < nRows; ++i) {
+            final int s = i / C;
+            final int r = i % C;
+            final int row = perm[i];
+            for (int t = 0, k = row_ptr[row]; k < row_ptr[row + 1]; ++t, ++k) {
+                col_ind[slice_ptr[s] + t * C + r] = csr_col_ind[k] - 1;
+                value[slice_ptr[s] + t * C + r] = csr_value[k];
+            }
+        }
+    }
+
+    /**
+     * Construct a sparse matrix in SELL-<i>C</i>-&sigma; format
+     * with the {@linkplain #DEFAULT_CHUNK_SIZE default chunk size} and the {@linkplain #DEFAULT_SORTING_SCOPE default sorting scope}.
+     *
+     * @param A a sparse matrix in CSR format
+     */
+    public SELLSparseMatrix(CSRSparseMatrix A) {
+        this(A, DEFAULT_CHUNK_SIZE, DEFAULT_SORTING_SCOPE);
+    }
+
+    /**
+     * Get the number of stored entries including the padding.
+     * The ratio of this to {@link #nNonZeros()} is the overhead of this format over CSR.
+     *
+     * @return the number of stored entries
+     */
+    public int nStoredEntries() {
+        return value.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The product is a {@link SparseVector} if {@code v} is a {@link SparseVector}, otherwise a dense vector.
+     *
+     * @see #multiply(double, double[], double, double[])
+     */
+    @Override
+    public Vector multiply(Vector v) {
+        throwIfIncompatible4Multiplication(this, v);
+
+        double[] Av = new double[nRows()];
+        multiply(1., v.toArray(), 0., Av);
+        return SparseMatrixVectorMultiplication.toVector(v, Av);
+    }
+
+    /**
+     * Compute <i>y = &alpha; * A * x + &beta; * y</i> in place, without allocating any vector.
+     * When the matrix is big, the slices are divided among the threads of the shared {@link ParallelExecutor}
+     * in ranges of about the same number of stored entries.
+     *
+     * @param alpha the scaling factor of <i>A * x</i>
+     * @param x     the multiplier, of length {@link #nCols()}
+     * @param beta  the scaling factor of <i>y</i>; when it is 0, <i>y</i> is not read
+     * @param y     the accumulator, of length {@link #nRows()}, overwritten by the result; it must not be {@code x}
+     * @see SparseMatrixVectorMultiplication#sell
+     */
+    public void multiply(double alpha, double[] x, double beta, double[] y) {
+        if (x.length != nCols() || y.length != nRows()) {
+            throw new MatrixMismatchException("the vectors are incompatible with the matrix for multiplication");
+        }
+
+        SparseMatrixVectorMultiplication.sell(alpha, C, slice_ptr, col_ind, value, perm, nRows(), x, beta, y, ParallelExecutor.getSharedInstance());
+    }
+
+    @Override
+    public int nRows() {
+        return A.nRows();
+    }
+
+    @Override
+    public int nCols() {
+        return A.nCols();
+    }
+
+    @Override
+    public double get(int i, int j) throws MatrixAccessException {
+        return A.get(i, j);
+    }
+
+    /**
+     * Overridden to throw an exception when called.
+     *
+     * @throws MatrixAccessException always; this matrix is immutable
+     */
+    @Override
+    public void set(int row, int col, double value) throws MatrixAccessException {
+        throw new MatrixAccessException("this matrix is immutable");
+    }
+
+    @Override
+    public SparseVector getRow(int i) throws MatrixAccessException {
+        return A.getRow(i);
+    }
+
+    @Override
+    public SparseVector getColumn(int j) throws MatrixAccessException {
+        return A.getColumn(j);
+    }
+
+    @Override
+    public Matrix add(Matrix that) {
+        return A.add(that);
+    }
+
+    @Override
+    public Matrix minus(Matrix that) {
+        return A.minus(that);
+    }
+
+    @Override
+    public Matrix multiply(Matrix that) {
+        return A.multiply(that);
+    }
+
+    @Override
+    public CSRSparseMatrix scaled(double c) {
+        return A.scaled(c);
+    }
+
+    @Override
+    public CSRSparseMatrix opposite() {
+        return A.opposite();
+    }
+
+    @Override
+    public CSRSparseMatrix t() {
+        return A.t();
+    }
+
+    @Override
+    public CSRSparseMatrix ZERO() {
+        return A.ZERO();
+    }
+
+    @Override
+    public CSRSparseMatrix ONE() {
+        return A.ONE();
+    }
+
+    /**
+     * Make a deep copy of the underlying matrix.
+     * <em>The copy is a {@link CSRSparseMatrix} and is mutable.</em>
+     *
+     * @return a deep copy of the underlying matrix
+     */
+    @Override
+    public CSRSparseMatrix deepCopy() {
+        return A.deepCopy();
+    }
+
+    @Override
+    public DenseMatrix toDense() {
+        return A.toDense();
+    }
+
+    @Override
+    public List<SparseEntry> getEntrytList() {
+        return A.getEntrytList();
+    }
+
+    @Override
+    public int nNonZeros() {
+        return A.nNonZeros();
+    }
+
+    @Override
+    public String toString() {
+        return SparseMatrixUtils.toString(this);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final SELLSparseMatrix other = (SELLSparseMatrix) obj;
+        return A.equals(other.A);
+    }
+
+    @Override
+    public int hashCode() {
+        return A.hashCode();
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse;
+
+import com.numericalmethod.suanshu.parallel.LoopSchedule;
+import com.numericalmethod.suanshu.parallel.MultipleExecutionException;
+import com.numericalmethod.suanshu.parallel.ParallelExecutor;
+import com.numericalmethod.suanshu.parallel.RangeLoopBody;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+import java.util.Arrays;
+
+/**
+ * These are the sparse matrix-vector multiplication (SpMV) kernels for the compressed sparse formats.
+ * They compute
+ * <blockquote><i>y = &alpha; * A * x + &beta; * y</i></blockquote>
+ * in place on {@code double[]}s, so an iterative solver can multiply by the same matrix many times without allocating any vector.
+ * As in BLAS, when <i>&beta; = 0</i>, <i>y</i> is not read, so it may contain anything, even {@code NaN}.
+ * <p/>
+ * SpMV is bound by the memory bandwidth, not by the floating point operations.
+ * When the matrix is big, the rows are divided into one contiguous range per thread such that
+ * every range has about the same number of (stored) non-zeros, rather than the same number of rows.
+ * The ranges write disjoint parts of <i>y</i>, hence no synchronization is needed.
+ *
+ * @author Ken Yiu
+ * @see CSRSparseMatrix#multiply(double, double[], double, double[])
+ * @see SELLSparseMatrix#multiply(double, double[], double, double[])
+ */
+public class SparseMatrixVectorMultiplication {
+
+    /** the minimum number of (stored) non-zeros to run in parallel */
+    private static final int PARALLEL_THRESHOLD = 1 << 15;
+
+    private SparseMatrixVectorMultiplication() {
+        // private constructor for utility class
+    }
+
+    /**
+     * Compute <i>y = &alpha; * A * x + &beta; * y</i>, where <i>A</i> is stored in the CSR format as in {@link CSRSparseMatrix}.
+     *
+     * @param alpha    the scaling factor of <i>A * x</i>
+     * @param rowPtr   the row pointers, counting from 0; of length <i>nRows + 1</i>
+     * @param colInd   the column indices of the non-zeros, counting from 1
+     * @param value    the non-zeros
+     * @param nRows    the number of rows of <i>A</i>
+     * @param x        the multiplier
+     * @param beta     the scaling factor of <i>y</i>
+     * @param y        the accumulator, overwritten by the result; it must not be {@code x}
+     * @param parallel the executor to compute the row ranges in parallel; {@code null} for single-threaded computation
+     */
+    public static void csr(
+            final double alpha,
+            final int[] rowPtr, final int[] colInd, final double[] value, int nRows,
+            final double[] x,
+            final double beta, final double[] y,
+            ParallelExecutor parallel) {
+        run(rowPtr, nRows, parallel, new RangeLoopBody() {
+
+            @Override
+            public void run(int begin, int end) {
+                for (int i = begin; i < end; ++i) {
+                    double sum = 0.;
+                    for (int k = rowPtr[i]; k < rowPtr[i + 1]; ++k) {
+                        sum += value[k] * x[colInd[k] - 1];
+                    }
+                    y[i] = beta == 0. ? alpha * sum : alpha * sum + beta * y[i];
+                }
+            }
+        });
+    }
+
+    /**
+     * Compute <i>Y = &alpha; * A * X + &beta; * Y</i> for a block of vectors, where <i>A</i> is stored in the CSR format as in {@link CSRSparseMatrix}.
+     * Each non-zero of <i>A</i> is read once for all the columns of the block,
+     * which amortizes the memory traffic of <i>A</i> over many right hand sides.
+     *
+     * @param alpha    the scaling factor of <i>A * X</i>
+     * @param rowPtr   the row pointers, counting from 0; of length <i>nRows + 1</i>
+     * @param colInd   the column indices of the non-zeros, counting from 1
+     * @param value    the non-zeros
+     * @param nRows    the number of rows of <i>A</i>
+     * @param X        the multipliers, one array per column
+     * @param beta     the scaling factor of <i>Y</i>
+     * @param Y        the accumulators, one array per column, overwritten by the results; they must not be any of {@code X}
+     * @param parallel the executor to compute the row ranges in parallel; {@code null} for single-threaded computation
+     */
+    public static void csr(
+            final double alpha,
+            final int[] rowPtr, final int[] colInd, final double[] value, int nRows,
+            final double[][] X,
+            final double beta, final double[][] Y,
+            ParallelExecutor parallel) {
+        final int m = X.length;
+        run(rowPtr, nRows, parallel, new RangeLoopBody() {
+
+            @Override
+            public void run(int begin, int end) {
+                final double[] sum = new double[m];//one per range, not per row
+                for (int i = begin; i < end; ++i) {
+                    Arrays.fill(sum, 0.);
+                    for (int k = rowPtr[i]; k < rowPtr[i + 1]; ++k) {
+                        final double a = value[k];
+                        final int c = colInd[k] - 1;
+                        for (int j = 0; j < m; ++j) {
+                            sum[j] += a * X[j][c];
+                        }
+                    }
+                    for (int j = 0; j < m; ++j) {
+                        Y[j][i] = beta == 0. ? alpha * sum[j] : alpha * sum[j] + beta * Y[j][i];
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Compute <i>y = &alpha; * A * x + &beta; * y</i>, where <i>A</i> is stored in the SELL-<i>C</i>-&sigma; format as in {@link SELLSparseMatrix}.
+     * A slice of <i>C</i> rows is stored column by column, so the innermost loop runs over <i>C</i> independent rows and is vectorized by the JIT compiler.
+     *
+     * @param alpha    the scaling factor of <i>A * x</i>
+     * @param C        the number of rows in a slice
+     * @param slicePtr the slice pointers, counting from 0; of length <i>nSlices + 1</i>
+     * @param colInd   the column indices of the (padded) entries, counting from 0
+     * @param value    the (padded) entries
+     * @param perm     the original row index (counting from 0) of each sorted row
+     * @param nRows    the number of rows of <i>A</i>
+     * @param x        the multiplier
+     * @param beta     the scaling factor of <i>y</i>
+     * @param y        the accumulator, overwritten by the result; it must not be {@code x}
+     * @param parallel the executor to compute the slice ranges in parallel; {@code null} for single-threaded computation
+     */
+    public static void sell(
+            final double alpha,
+            final int C, final int[] slicePtr, final int[] colInd, final double[] value, final int[] perm, final int nRows,
+            final double[] x,
+            final double beta, final double[] y,
+            ParallelExecutor parallel) {
+        run(slicePtr, slicePtr.length - 1, parallel, new RangeLoopBody() {
+
+            @Override
+            public void run(int begin, int end) {
+                final double[] sum = new double[C];//one per range, not per slice
+                for (int s = begin; s < end; ++s) {
+                    Arrays.fill(sum, 0.);
+                    for (int p = slicePtr[s]; p < slicePtr[s + 1]; p += C) {
+                        for (int r = 0; r < C; ++r) {
+                            sum[r] += value[p + r] * x[colInd[p + r]];
+                        }
+                    }
+
+                    final int rows = Math.min(C, nRows - s * C);
+                    for (int r = 0; r < rows; ++r) {
+                        final int i = perm[s * C + r];
+                        y[i] = beta == 0. ? alpha * sum[r] : alpha * sum[r] + beta * y[i];
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Divide {@code [0, n)} into {@code nParts} contiguous ranges such that each range covers about the same number of entries.
+     * Range <i>p</i> is {@code [bounds[p], bounds[p + 1])}.
+     *
+     * @param ptr    the pointers, e.g., the row pointers of a CSR matrix; {@code ptr[i + 1] - ptr[i]} is the number of entries of item <i>i</i>
+     * @param n      the number of items
+     * @param nParts the number of ranges
+     * @return the range boundaries, of length <i>nParts + 1</i>
+     */
+    public static int[] partition(int[] ptr, int n, int nParts) {
+        int[] bounds = new int[nParts + 1];
+        final long total = ptr[n] - ptr[0];
+        for (int p = 1; p < nParts; ++p) {
+            //the last item that starts at or before the p-th quantile of the entries starts the range
+            final long target = ptr[0] + total * p / nParts;
+            int lo = bounds[p - 1];
+            int hi = n;
+            while (lo < hi) {//find the last i in [lo, n] such that ptr[i] <= target
+                int mid = (lo + hi + 1) >>> 1;
+                if (ptr[mid] <= target) {
+                    lo = mid;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            bounds[p] = lo;
+        }
+        bounds[nParts] = n;
+        return bounds;
+    }
+
+    /**
+     * Compute the product of a matrix and a vector from the product as a {@code double[]},
+     * as a {@link SparseVector} if the multiplier is a {@link SparseVector}, otherwise as a {@link DenseVector}.
+     */
+    static Vector toVector(Vector v, double[] y) {
+        return v instanceof SparseVector ? SparseVector.gather(y) : new DenseVector(y);
+    }
+
+    private static void run(final int[] ptr, int n, ParallelExecutor parallel, final RangeLoopBody body) {
+        final int nParts = parallel == null || ptr[n] - ptr[0] < PARALLEL_THRESHOLD ? 1 : Math.min(parallel.getConcurrency(), n);
+        if (nParts <= 1) {
+            try {
+                body.run(0, n);
+            } catch (RuntimeException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                throw new RuntimeException(ex);//the kernels throw no checked exception
+            }
+            return;
+        }
+
+        final int[] bounds = partition(ptr, n, nParts);
+        try {
+            parallel.forLoop(0, nParts, LoopSchedule.STATIC, new RangeLoopBody() {
+
+                @Override
+                public void run(int begin, int end) throws Exception {
+                    for (int p = begin; p < end; ++p) {
+                        body.run(bounds[p], bounds[p + 1]);
+                    }
+                }
+            });
+        } catch (MultipleExecutionException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+}
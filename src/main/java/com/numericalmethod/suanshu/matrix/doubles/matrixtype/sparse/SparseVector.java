@@ -30,12 +30,24 @@ import com.numericalmethod.suanshu.vector.doubles.IsVector;
 import com.numericalmethod.suanshu.vector.doubles.Vector;
 import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
 import java.util.Arrays;
-import java.util.Comparator;
-import java.util.LinkedList;
-import java.util.ListIterator;
+import java.util.NoSuchElementException;
 
 /**
  * A sparse vector stores only non-zero values.
+ * <p/>
+ * The indices and the values of the non-zeros are stored in two parallel primitive arrays, sorted by the indices.
+ * The operations on two sparse vectors, e.g., {@link #add(Vector)} and {@link #innerProduct(Vector)}, merge the two arrays in one pass.
+ * The non-zeros can be iterated without creating any object by
+ * <blockquote><pre><code>
+ * for (int k = 0; k &lt; v.nNonZeros(); ++k) {
+ *     int index = v.indexAt(k);
+ *     double value = v.valueAt(k);
+ * }
+ * </code></pre></blockquote>
+ * {@link #iterator()} is also available for convenience, but it creates an {@link Entry} for each non-zero.
+ * <p/>
+ * Setting the entries in increasing order of the indices takes amortized constant time per entry;
+ * setting an entry in the middle shifts the entries after it.
  *
  * @author Ken Yiu
  */
@@ -49,8 +61,8 @@ public class SparseVector implements
      */
     public static class Entry {
 
-        private int index;
-        private double value;
+        private final int index;
+        private final double value;
 
         Entry(int index, double value) {
             this.index = index;
@@ -82,25 +94,30 @@ public class SparseVector implements
     }
 
     /**
-     * This wrapper class overrides the {@link java.util.Iterator#remove()}
-     * method to throw an exception when called.
+     * This iterator over the non-zeros throws an exception when {@link java.util.Iterator#remove()} is called.
      */
     public static class Iterator implements java.util.Iterator<SparseVector.Entry> {
 
-        private final ListIterator<SparseVector.Entry> iterator;
+        private final SparseVector v;
+        private int k = 0;
 
-        private Iterator(ListIterator<SparseVector.Entry> iterator) {
-            this.iterator = iterator;
+        private Iterator(SparseVector v) {
+            this.v = v;
         }
 
         @Override
         public boolean hasNext() {
-            return iterator.hasNext();
+            return k < v.nnz;
         }
 
         @Override
         public SparseVector.Entry next() {
-            return iterator.next();
+            if (k >= v.nnz) {
+                throw new NoSuchElementException();
+            }
+            Entry entry = new Entry(v.indices[k], v.values[k]);
+            ++k;
+            return entry;
         }
 
         /**
@@ -116,8 +133,11 @@ public class SparseVector implements
     }
 
     private final int size;
-    /** Store non-zero entries in sorted order of indices */
-    private final LinkedList<Entry> entries;
+    /** the indices of the non-zeros, counting from 1, in increasing order; only the first {@code nnz} are used */
+    private int[] indices;
+    /** the non-zeros; only the first {@code nnz} are used */
+    private double[] values;
+    private int nnz;
 
     /**
      * Construct a sparse vector.
@@ -125,8 +145,7 @@ public class SparseVector implements
      * @param size the size of the vector
      */
     public SparseVector(int size) {
-        this.size = size;
-        this.entries = new LinkedList<SparseVector.Entry>();
+        this(size, new int[0], new double[0], 0);
     }
 
     /**
@@ -142,30 +161,29 @@ public class SparseVector implements
 
         this.size = size;
 
-        Entry[] tempEntries = new Entry[values.length];
+        //sort by the keys that pack (index, position)
+        long[] keys = new long[values.length];
         for (int i = 0; i < values.length; ++i) {
             // check indices range
             if (indices[i] < 1 || indices[i] > size) {
                 throw new IndexOutOfBoundsException("out-of-range index: " + indices[i]);
             }
-            tempEntries[i] = new Entry(indices[i], values[i]);
+            keys[i] = ((long) indices[i] << 32) | i;
         }
-        Arrays.sort(tempEntries, new Comparator<Entry>() {
-
-            @Override
-            public int compare(Entry o1, Entry o2) {
-                return o1.index < o2.index ? -1 : 1;
-            }
-        });
+        Arrays.sort(keys);
 
-        entries = new LinkedList<Entry>();
+        this.indices = new int[values.length];
+        this.values = new double[values.length];
+        this.nnz = values.length;
         int lastIndex = 0;
-        for (int i = 0; i < tempEntries.length; ++i) {
-            if (lastIndex >= tempEntries[i].index) {
-                throw new IllegalArgumentException("duplicated indices: " + tempEntries[i].index);
+        for (int i = 0; i < keys.length; ++i) {
+            int index = (int) (keys[i] >>> 32);
+            if (lastIndex >= index) {
+                throw new IllegalArgumentException("duplicated indices: " + index);
             }
-            lastIndex = tempEntries[i].index;
-            entries.add(tempEntries[i]);
+            lastIndex = index;
+            this.indices[i] = index;
+            this.values[i] = values[(int) keys[i]];
         }
     }
 
@@ -175,16 +193,95 @@ public class SparseVector implements
      * @param that the vector to be copied
      */
     public SparseVector(SparseVector that) {
-        this(that.size);
+        this(that.size, Arrays.copyOf(that.indices, that.nnz), Arrays.copyOf(that.values, that.nnz), that.nnz);
+    }
+
+    /**
+     * Construct a sparse vector from the arrays, without copying.
+     *
+     * @param size    the size of the vector
+     * @param indices the indices of the non-zeros, counting from 1, in increasing order
+     * @param values  the non-zeros
+     * @param nnz     the number of non-zeros, which are the first {@code nnz} entries in the arrays
+     */
+    SparseVector(int size, int[] indices, double[] values, int nnz) {
+        this.size = size;
+        this.indices = indices;
+        this.values = values;
+        this.nnz = nnz;
+    }
 
-        for (Entry entry : that.entries) { // copy all entries
-            this.entries.add(new Entry(entry.index, entry.value));
+    /**
+     * Gather the non-zeros of a {@code double[]} into a sparse vector.
+     *
+     * @param x a vector
+     * @return the non-zeros of {@code x} as a sparse vector
+     */
+    public static SparseVector gather(double[] x) {
+        int nnz = 0;
+        for (int i = 0; i < x.length; ++i) {
+            if (x[i] != 0.) {
+                ++nnz;
+            }
         }
+
+        int[] indices = new int[nnz];
+        double[] values = new double[nnz];
+        for (int i = 0, k = 0; i < x.length; ++i) {
+            if (x[i] != 0.) {
+                indices[k] = i + 1;
+                values[k++] = x[i];
+            }
+        }
+        return new SparseVector(x.length, indices, values, nnz);
     }
 
-    private SparseVector(int size, LinkedList<Entry> entries) {
-        this.size = size;
-        this.entries = entries;
+    /**
+     * Scatter this vector scaled by a constant to a {@code double[]}, i.e., <i>y = y + c * this</i>.
+     * Only the entries of {@code y} at the non-zeros of this vector are touched.
+     *
+     * @param c a constant
+     * @param y a vector, of length {@link #size()}, overwritten by the sum
+     */
+    public void scatter(double c, double[] y) {
+        for (int k = 0; k < nnz; ++k) {
+            y[indices[k] - 1] += c * values[k];
+        }
+    }
+
+    /**
+     * Compute the inner product with a {@code double[]}.
+     * Only the entries of {@code x} at the non-zeros of this vector are read.
+     *
+     * @param x a vector, of length {@link #size()}
+     * @return the inner product
+     */
+    public double innerProduct(double[] x) {
+        double sum = 0.;
+        for (int k = 0; k < nnz; ++k) {
+            sum += values[k] * x[indices[k] - 1];
+        }
+        return sum;
+    }
+
+    /**
+     * Get the index of the <i>k</i>-th non-zero.
+     *
+     * @param k the position of the non-zero, counting from 0, less than {@link #nNonZeros()}
+     * @return the index of the <i>k</i>-th non-zero, counting from 1
+     */
+    public int indexAt(int k) {
+        return indices[k];
+    }
+
+    /**
+     * Get the value of the <i>k</i>-th non-zero.
+     *
+     * @param k the position of the non-zero, counting from 0, less than {@link #nNonZeros()}
+     * @return the value of the <i>k</i>-th non-zero
+     */
+    public double valueAt(int k) {
+        return values[k];
     }
 
     @Override
@@ -196,45 +293,43 @@ public class SparseVector implements
     public double get(int index) {
         SuanShuUtils.assertArgument(index >= 1 && index <= size, "out-of-range [1:%d] index: %d", size, index);
 
-        for (Entry entry : entries) {
-            if (entry.index == index) {
-                return entry.value;
-            }
-            if (entry.index > index) {
-                return 0;
-            }
-        }
-        return 0;
+        int k = Arrays.binarySearch(indices, 0, nnz, index);
+        return k >= 0 ? values[k] : 0.;
     }
 
     @Override
     public void set(int index, double value) {
         SuanShuUtils.assertArgument(index >= 1 && index <= size, "out-of-range [1:%d] index: %d", size, index);
 
-        for (ListIterator<Entry> it = entries.listIterator(); it.hasNext();) {
-            Entry entry = it.next();
-            if (entry.index == index) {
-                if (Double.compare(0., value) != 0) {
-                    entry.value = value;
-                } else {
-                    it.remove();
-                }
-                return;
+        int k = nnz > 0 && indices[nnz - 1] < index ? -nnz - 1 : Arrays.binarySearch(indices, 0, nnz, index);//fast path for appending
+        if (k >= 0) {
+            if (Double.compare(0., value) != 0) {
+                values[k] = value;
+            } else {
+                // remove the zero entry
+                System.arraycopy(indices, k + 1, indices, k, nnz - k - 1);
+                System.arraycopy(values, k + 1, values, k, nnz - k - 1);
+                --nnz;
             }
-            if (entry.index > index) {
-                if (Double.compare(0., value) != 0) {
-                    it.previous(); // insert before this element
-                    it.add(new Entry(index, value));
-                }
-                return;
+        } else if (Double.compare(0., value) != 0) {
+            // insert the new value before position k
+            k = -k - 1;
+            if (nnz == indices.length) {
+                int capacity = Math.max(4, indices.length << 1);
+                indices = Arrays.copyOf(indices, capacity);
+                values = Arrays.copyOf(values, capacity);
             }
+            System.arraycopy(indices, k, indices, k + 1, nnz - k);
+            System.arraycopy(values, k, values, k + 1, nnz - k);
+            indices[k] = index;
+            values[k] = value;
+            ++nnz;
         }
-        entries.addLast(new Entry(index, value));
     }
 
     @Override
     public java.util.Iterator<SparseVector.Entry> iterator() {
-        return new Iterator(entries.listIterator());
+        return new Iterator(this);
     }
 
     @Override
@@ -244,40 +339,41 @@ public class SparseVector implements
         }
 
         IsVector.throwIfNotEqualSize(this, that);
-        Vector result = new DenseVector(that);
-        for (Entry entry : entries) {
-            result.set(entry.index, entry.value + result.get(entry.index));
-        }
-        return result;
+        double[] result = that.toArray();
+        scatter(1., result);
+        return new DenseVector(result);
     }
 
-    private SparseVector add(SparseVector that, int sign) {
+    /**
+     * Merge the non-zeros of two sparse vectors, <i>this + c * that</i>.
+     */
+    private SparseVector add(SparseVector that, double c) {
         IsVector.throwIfNotEqualSize(this, that);
 
-        LinkedList<Entry> resultEntries = new LinkedList<Entry>();
-        java.util.Iterator<Entry> thisIterator = this.entries.iterator();
-        java.util.Iterator<Entry> thatIterator = that.entries.iterator();
-
-        Entry thisEntry = thisIterator.hasNext() ? thisIterator.next() : null;
-        Entry thatEntry = thatIterator.hasNext() ? thatIterator.next() : null;
-        while (thisEntry != null || thatEntry != null) {
-            if (thisEntry != null && (thatEntry == null || thisEntry.index < thatEntry.index)) {
-                resultEntries.add(new Entry(thisEntry.index, thisEntry.value));
-                thisEntry = thisIterator.hasNext() ? thisIterator.next() : null;
-            } else if (thatEntry != null && (thisEntry == null || thisEntry.index > thatEntry.index)) {
-                resultEntries.add(new Entry(thatEntry.index, sign * thatEntry.value));
-                thatEntry = thatIterator.hasNext() ? thatIterator.next() : null;
+        int[] resultIndices = new int[this.nnz + that.nnz];
+        double[] resultValues = new double[resultIndices.length];
+        int n = 0;
+        int p = 0;
+        int q = 0;
+        while (p < this.nnz || q < that.nnz) {
+            if (q == that.nnz || (p < this.nnz && this.indices[p] < that.indices[q])) {
+                resultIndices[n] = this.indices[p];
+                resultValues[n++] = this.values[p++];
+            } else if (p == this.nnz || this.indices[p] > that.indices[q]) {
+                resultIndices[n] = that.indices[q];
+                resultValues[n++] = c * that.values[q++];
             } else {
-                double sum = thisEntry.value + sign * thatEntry.value;
+                double sum = this.values[p] + c * that.values[q];
                 if (Double.compare(0., sum) != 0) {
-                    resultEntries.add(new Entry(thisEntry.index, sum));
+                    resultIndices[n] = this.indices[p];
+                    resultValues[n++] = sum;
                 }
-                thisEntry = thisIterator.hasNext() ? thisIterator.next() : null;
-                thatEntry = thatIterator.hasNext() ? thatIterator.next() : null;
+                ++p;
+                ++q;
             }
         }
 
-        return new SparseVector(size, resultEntries);
+        return new SparseVector(size, resultIndices, resultValues, n);
     }
 
     @Override
@@ -287,11 +383,12 @@ public class SparseVector implements
         }
 
         IsVector.throwIfNotEqualSize(this, that);
-        Vector result = that.opposite();
-        for (Entry entry : entries) {
-            result.set(entry.index, entry.value + result.get(entry.index));
+        double[] result = that.toArray();
+        for (int i = 0; i < result.length; ++i) {
+            result[i] = -result[i];
         }
-        return result;
+        scatter(1., result);
+        return new DenseVector(result);
     }
 
     @Override
@@ -301,56 +398,65 @@ public class SparseVector implements
         }
 
         IsVector.throwIfNotEqualSize(this, v);
-        SparseVector result = new SparseVector(this);
-        for (Entry entry : result.entries) {
-            result.set(entry.index, entry.value * v.get(entry.index));
+        int[] resultIndices = new int[nnz];
+        double[] resultValues = new double[nnz];
+        int n = 0;
+        for (int k = 0; k < nnz; ++k) {
+            double product = values[k] * v.get(indices[k]);
+            if (Double.compare(0., product) != 0) {
+                resultIndices[n] = indices[k];
+                resultValues[n++] = product;
+            }
         }
-        return result;
+        return new SparseVector(size, resultIndices, resultValues, n);
     }
 
     SparseVector multiply(SparseVector that) {
         IsVector.throwIfNotEqualSize(this, that);
 
-        LinkedList<Entry> resultEntries = new LinkedList<Entry>();
-        java.util.Iterator<Entry> thisIterator = this.entries.iterator();
-        java.util.Iterator<Entry> thatIterator = that.entries.iterator();
-
-        Entry thisEntry = thisIterator.hasNext() ? thisIterator.next() : null;
-        Entry thatEntry = thatIterator.hasNext() ? thatIterator.next() : null;
-        while (thisEntry != null && thatEntry != null) {
-            if (thisEntry.index < thatEntry.index) {
-                thisEntry = thisIterator.hasNext() ? thisIterator.next() : null;
-            } else if (thisEntry.index > thatEntry.index) {
-                thatEntry = thatIterator.hasNext() ? thatIterator.next() : null;
+        int[] resultIndices = new int[Math.min(this.nnz, that.nnz)];
+        double[] resultValues = new double[resultIndices.length];
+        int n = 0;
+        for (int p = 0, q = 0; p < this.nnz && q < that.nnz;) {
+            if (this.indices[p] < that.indices[q]) {
+                ++p;
+            } else if (this.indices[p] > that.indices[q]) {
+                ++q;
             } else {
-                double product = thisEntry.value * thatEntry.value;
+                double product = this.values[p] * that.values[q];
                 if (Double.compare(0., product) != 0) {
-                    resultEntries.add(new Entry(thisEntry.index, product));
+                    resultIndices[n] = this.indices[p];
+                    resultValues[n++] = product;
                 }
-                thisEntry = thisIterator.hasNext() ? thisIterator.next() : null;
-                thatEntry = thatIterator.hasNext() ? thatIterator.next() : null;
+                ++p;
+                ++q;
             }
         }
 
-        return new SparseVector(size, resultEntries);
+        return new SparseVector(size, resultIndices, resultValues, n);
     }
 
     @Override
     public Vector divide(Vector that) {
         IsVector.throwIfNotEqualSize(this, that);
-        SparseVector result = new SparseVector(this);
-        for (Entry entry : result.entries) {
-            result.set(entry.index, entry.value / that.get(entry.index));
+
+        int[] resultIndices = new int[nnz];
+        double[] resultValues = new double[nnz];
+        int n = 0;
+        for (int k = 0; k < nnz; ++k) {
+            double quotient = values[k] / that.get(indices[k]);
+            if (Double.compare(0., quotient) != 0) {
+                resultIndices[n] = indices[k];
+                resultValues[n++] = quotient;
+            }
         }
-        return result;
+        return new SparseVector(size, resultIndices, resultValues, n);
     }
 
     @Override
     public Vector add(double c) {
         double[] data = R.rep(c, size);
-        for (Entry entry : entries) {
-            data[entry.index - 1] += entry.value;
-        }
+        scatter(1., data);
         return new DenseVector(data);
     }
 
@@ -367,8 +473,8 @@ public class SparseVector implements
 
         IsVector.throwIfNotEqualSize(this, that);
         double result = 0.;
-        for (Entry entry : entries) {
-            result += entry.value * that.get(entry.index);
+        for (int k = 0; k < nnz; ++k) {
+            result += values[k] * that.get(indices[k]);
         }
         return result;
     }
@@ -377,20 +483,13 @@ public class SparseVector implements
         IsVector.throwIfNotEqualSize(this, that);
 
         double sum = 0.;
-        java.util.Iterator<Entry> thisIterator = this.entries.iterator();
-        java.util.Iterator<Entry> thatIterator = that.entries.iterator();
-
-        Entry thisEntry = thisIterator.hasNext() ? thisIterator.next() : null;
-        Entry thatEntry = thatIterator.hasNext() ? thatIterator.next() : null;
-        while (thisEntry != null && thatEntry != null) {
-            if (thisEntry.index < thatEntry.index) {
-                thisEntry = thisIterator.hasNext() ? thisIterator.next() : null;
-            } else if (thisEntry.index > thatEntry.index) {
-                thatEntry = thatIterator.hasNext() ? thatIterator.next() : null;
+        for (int p = 0, q = 0; p < this.nnz && q < that.nnz;) {
+            if (this.indices[p] < that.indices[q]) {
+                ++p;
+            } else if (this.indices[p] > that.indices[q]) {
+                ++q;
             } else {
-                sum += thisEntry.value * thatEntry.value;
-                thisEntry = thisIterator.hasNext() ? thisIterator.next() : null;
-                thatEntry = thatIterator.hasNext() ? thatIterator.next() : null;
+                sum += this.values[p++] * that.values[q++];
             }
         }
 
@@ -402,18 +501,18 @@ public class SparseVector implements
         double zeroPow = Math.pow(0, c);
         if (Double.compare(0., zeroPow) != 0) { // if the power of zero is non-zero
             double[] data = R.rep(zeroPow, size);
-            for (Entry entry : entries) {
-                data[entry.index - 1] = Math.pow(entry.value, c);
+            for (int k = 0; k < nnz; ++k) {
+                data[indices[k] - 1] = Math.pow(values[k], c);
             }
             return new DenseVector(data);
         }
 
         // otherwise, all zeros remain zeros
-        LinkedList<Entry> resultEntries = new LinkedList<Entry>();
-        for (Entry entry : entries) {
-            resultEntries.add(new Entry(entry.index, Math.pow(entry.value, c)));
+        double[] resultValues = new double[nnz];
+        for (int k = 0; k < nnz; ++k) {
+            resultValues[k] = Math.pow(values[k], c);
         }
-        return new SparseVector(size, resultEntries);
+        return new SparseVector(size, Arrays.copyOf(indices, nnz), resultValues, nnz);
     }
 
     @Override
@@ -422,12 +521,12 @@ public class SparseVector implements
             return new SparseVector(size);
         }
 
-        LinkedList<Entry> cA = new LinkedList<Entry>();
-        for (Entry entry : entries) {
-            cA.add(new Entry(entry.index, c * entry.value));
+        double[] cA = new double[nnz];
+        for (int k = 0; k < nnz; ++k) {
+            cA[k] = c * values[k];
         }
 
-        return new SparseVector(size, cA);
+        return new SparseVector(size, Arrays.copyOf(indices, nnz), cA, nnz);
     }
 
     @Override
@@ -456,8 +555,8 @@ public class SparseVector implements
         }
 
         double result = 0.;
-        for (Entry entry : entries) {
-            result += Math.pow(entry.value, p);
+        for (int k = 0; k < nnz; ++k) {
+            result += Math.pow(values[k], p);
         }
 
         result = Math.pow(result, 1. / p);
@@ -480,9 +579,9 @@ public class SparseVector implements
 
     @Override
     public double[] toArray() {
-        double[] result = R.rep(0., size);
-        for (Entry entry : entries) {
-            result[entry.index - 1] = entry.value;
+        double[] result = new double[size];
+        for (int k = 0; k < nnz; ++k) {
+            result[indices[k] - 1] = values[k];
         }
         return result;
     }
@@ -494,26 +593,14 @@ public class SparseVector implements
 
     @Override
     public int nNonZeros() {
-        return entries.size();
-    }
-
-//    public int dropTolerance(double tol) {
-//        int nDrops = 0;
-//        for (java.util.Iterator<Entry> iterator = entries.iterator(); iterator.hasNext();) {
-//            Entry entry = iterator.next();
-//            if (Double.compare(Math.abs(entry.value), tol) <= 0) {
-//                iterator.remove();
-//                nDrops++;
-//            }
-//        }
-//
-//        return nDrops;
-//    }
+        return nnz;
+    }
+
     @Override
     public String toString() {
         StringBuilder buffer = new StringBuilder();
-        for (Entry entry : entries) {
-            buffer.append(entry.toString()).append("\n");
+        for (int k = 0; k < nnz; ++k) {
+            buffer.append(String.format("[%d] %.4f", indices[k], values[k])).append("\n");
         }
         return buffer.toString();
     }
@@ -69,6 +69,9 @@ import com.numericalmethod.suanshu.vector.doubles.Vector;
  * The second best alternatives are {@linkplain QuasiMinimalResidualSolver QMR}
  * or {@linkplain BiconjugateGradientSolver BiCG}.
  * QMR is numerically more stable than BiCG.
+ * If the preconditioner changes from one iteration to the next, e.g., it is an
+ * inner iterative solver, use
+ * {@linkplain FlexibleGeneralizedMinimalResidualSolver FGMRES}.
  *
  * When the transpose of a matrix is not available, there are transpose-free
  * methods such as
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative;
+
+import com.numericalmethod.suanshu.algorithm.iterative.monitor.NullMonitor;
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.linearsystem.LSProblem;
+import com.numericalmethod.suanshu.misc.SuanShuUtils;
+import com.numericalmethod.suanshu.parallel.LoopBody;
+import com.numericalmethod.suanshu.parallel.MultipleExecutionException;
+import com.numericalmethod.suanshu.parallel.ParallelExecutor;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+
+/**
+ * This class solves the same system against many right hand sides,
+ * <blockquote><i>
+ * Ax<sub>j</sub> = b<sub>j</sub>, j = 1, ..., m
+ * </i></blockquote>
+ * using any {@link IterativeLinearSystemSolver}, e.g.,
+ * {@linkplain com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.nonstationary.GeneralizedMinimalResidualSolver GMRES}
+ * for a non-symmetric system.
+ * The right hand sides are independent, so they are solved in parallel,
+ * and the convergence of each is tracked separately.
+ * A failing right hand side does not stop the others;
+ * the failure of the first failing one is thrown after all finish.
+ * <p/>
+ * The solver constructs a preconditioner for each right hand side.
+ * For a symmetric positive definite system,
+ * {@link com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.nonstationary.ConjugateGradientSolver#solve(Matrix, com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner.Preconditioner, double[][], double[][])}
+ * is faster because it shares one preconditioner and one sparse matrix-block multiplication per iteration among all the right hand sides.
+ *
+ * @author Ken Yiu
+ */
+public class MultipleRightHandSideSolver {
+
+    private final IterativeLinearSystemSolver solver;
+    private final ParallelExecutor parallel;
+
+    /**
+     * Construct a solver for many right hand sides.
+     *
+     * @param solver   the solver for each right hand side
+     * @param parallel the executor to solve the right hand sides in parallel
+     */
+    public MultipleRightHandSideSolver(IterativeLinearSystemSolver solver, ParallelExecutor parallel) {
+        this.solver = solver;
+        this.parallel = parallel;
+    }
+
+    /**
+     * Construct a solver for many right hand sides, using the shared executor.
+     *
+     * @param solver the solver for each right hand side
+     */
+    public MultipleRightHandSideSolver(IterativeLinearSystemSolver solver) {
+        this(solver, ParallelExecutor.getSharedInstance());
+    }
+
+    /**
+     * Solve <i>Ax<sub>j</sub> = b<sub>j</sub></i> for all the right hand sides.
+     *
+     * @param A  the coefficient matrix
+     * @param B  the right hand sides
+     * @param X0 the initial guesses, one for each right hand side
+     * @return the solutions, one for each right hand side
+     * @throws ConvergenceFailure if the algorithm fails to converge for any right hand side
+     */
+    public Vector[] solve(final Matrix A, final Vector[] B, final Vector[] X0) throws ConvergenceFailure {
+        SuanShuUtils.assertArgument(B.length == X0.length, "there must be one initial guess for each right hand side");
+
+        final Vector[] X = new Vector[B.length];
+        final ConvergenceFailure[] failures = new ConvergenceFailure[B.length];
+        try {
+            parallel.forLoop(0, B.length, new LoopBody() {
+
+                @Override
+                public void run(int j) throws Exception {
+                    try {
+                        X[j] = solver.solve(new LSProblem(A, B[j]), new NullMonitor<Vector>()).search(X0[j]);
+                    } catch (ConvergenceFailure ex) {
+                        failures[j] = ex;
+                    }
+                }
+            });
+        } catch (MultipleExecutionException ex) {
+            throw new RuntimeException(ex);
+        }
+
+        for (ConvergenceFailure failure : failures) {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        return X;
+    }
+}
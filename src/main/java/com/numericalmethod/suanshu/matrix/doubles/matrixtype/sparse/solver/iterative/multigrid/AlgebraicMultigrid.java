@@ -0,0 +1,467 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.multigrid;
+
+import com.numericalmethod.suanshu.datastructure.DimensionCheck;
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.factorization.triangle.BlockedLU;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.CSRSparseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.CSRSparseMatrixBuilder;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.stationary.SORSweep;
+import com.numericalmethod.suanshu.misc.SuanShuUtils;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Algebraic multigrid (AMG) solves a linear system <i>Ax = b</i> on a hierarchy of
+ * successively smaller systems that is built from the entries of <i>A</i> alone,
+ * without any knowledge of the underlying grid.
+ * The smoother, here Gauss-Seidel sweeps by {@link SORSweep}, quickly damps the
+ * oscillatory components of the error; the smooth components that remain are
+ * well represented and cheaply removed on the coarser levels.
+ * For Poisson-like and diffusion problems, the convergence rate of a V-cycle is
+ * independent of the grid size, so the number of iterations stays bounded as the
+ * problem grows.
+ * <p/>
+ * This implementation uses smoothed aggregation.
+ * On each level,
+ * <ol>
+ * <li>the unknowns are grouped into aggregates of strongly coupled neighbors, where
+ * <i>j</i> is strongly coupled to <i>i</i> if
+ * <i>|a<sub>ij</sub>| &ge; &theta; sqrt(|a<sub>ii</sub>a<sub>jj</sub>|)</i>;</li>
+ * <li>the tentative prolongator <i>T</i> interpolates the constant vector on each aggregate;</li>
+ * <li>the prolongator is smoothed by a damped Jacobi step,
+ * <i>P = (I - &omega;D<sup>-1</sup>A)T</i>, with <i>&omega; = 4 / (3&rho;(D<sup>-1</sup>A))</i>;</li>
+ * <li>the coarse matrix is the Galerkin product <i>P<sup>t</sup>AP</i>.</li>
+ * </ol>
+ * The coarsest system is solved by LU decomposition.
+ * If the coarsening stalls before the coarsest system is small enough,
+ * the coarsest level is smoothed instead.
+ * <p/>
+ * The V-cycle uses forward sweeps before and backward sweeps after the coarse grid
+ * correction, so that one V-cycle is a symmetric operator when <i>A</i> is symmetric.
+ * It can therefore precondition {@linkplain com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.nonstationary.ConjugateGradientSolver CG};
+ * see {@link AlgebraicMultigridPreconditioner}.
+ * A V-cycle works in place on work arrays allocated during the set-up,
+ * so the V-cycles on the same instance are serialized.
+ *
+ * @author Ken Yiu
+ * @see
+ * <ul>
+ * <li>"Petr Vanek, Jan Mandel, Marian Brezina, "Algebraic multigrid by smoothed aggregation for second and fourth order elliptic problems," <i>Computing</i>, 56(3), 179-196, 1996."</li>
+ * <li>"William L. Briggs, Van Emden Henson, Steve F. McCormick, "Chapter 8, Algebraic Multigrid (AMG)," <i>A Multigrid Tutorial</i>, 2nd ed., SIAM, 2000."</li>
+ * <li><a href="http://en.wikipedia.org/wiki/Multigrid_method">Wikipedia: Multigrid method</a></li>
+ * </ul>
+ */
+public class AlgebraicMultigrid {
+
+    /** the default strength of connection threshold <i>&theta;</i> */
+    public static final double DEFAULT_STRENGTH_THRESHOLD = 0.08;
+    /** the default maximum size of the coarsest system */
+    public static final int DEFAULT_MAX_COARSE_SIZE = 100;
+    /** the default number of sweeps before and after the coarse grid correction */
+    public static final int DEFAULT_N_SWEEPS = 1;
+    /** the maximum number of levels */
+    private static final int MAX_LEVELS = 25;
+    /** the number of symmetric sweeps to smooth the coarsest level when it is not solved directly */
+    private static final int N_COARSEST_SWEEPS = 10;
+    private final int nSweeps;
+    /** the coefficient matrices, the finest first */
+    private final CSRSparseMatrix[] A;
+    /** the prolongators from level l + 1 to l */
+    private final CSRSparseMatrix[] P;
+    /** the restrictors from level l to l + 1 */
+    private final CSRSparseMatrix[] R;
+    /** the factorization of the coarsest matrix; {@code null} if it is smoothed instead */
+    private final BlockedLU coarsest;
+    // the CSR arrays of the coefficient matrices, for the smoother
+    private final int[][] ptr;
+    private final int[][] col;
+    private final double[][] val;
+    /** the work arrays of the calling thread, so that the threads can run V-cycles concurrently */
+    private final ThreadLocal<WorkArrays> work = new ThreadLocal<WorkArrays>() {
+
+        @Override
+        protected WorkArrays initialValue() {
+            return new WorkArrays();
+        }
+    };
+
+    /**
+     * The work arrays of each level for a V-cycle.
+     */
+    private class WorkArrays {
+
+        private final double[][] x = new double[A.length][];
+        private final double[][] b = new double[A.length][];
+        private final double[][] r = new double[A.length][];
+
+        private WorkArrays() {
+            for (int l = 0; l < A.length; ++l) {
+                int n = A[l].nRows();
+                r[l] = new double[n];
+                if (l > 0) {// the finest level uses the arrays of the caller
+                    x[l] = new double[n];
+                    b[l] = new double[n];
+                }
+            }
+        }
+    }
+
+    /**
+     * Construct an AMG hierarchy.
+     *
+     * @param A             a square coefficient matrix with non-zero diagonal entries,
+     *                      in CSR format for an efficient set-up
+     * @param theta         the strength of connection threshold, in [0, 1)
+     * @param maxCoarseSize the maximum size of the coarsest system
+     * @param nSweeps       the number of Gauss-Seidel sweeps before and after the coarse grid correction
+     */
+    public AlgebraicMultigrid(Matrix A, double theta, int maxCoarseSize, int nSweeps) {
+        SuanShuUtils.assertArgument(DimensionCheck.isSquare(A), "A must be a square matrix");
+        SuanShuUtils.assertArgument(0 <= theta && theta < 1, "theta must be in [0, 1)");
+        SuanShuUtils.assertArgument(maxCoarseSize > 0, "maxCoarseSize must be positive");
+        SuanShuUtils.assertArgument(nSweeps > 0, "nSweeps must be positive");
+
+        this.nSweeps = nSweeps;
+
+        List<CSRSparseMatrix> As = new ArrayList<CSRSparseMatrix>();
+        List<CSRSparseMatrix> Ps = new ArrayList<CSRSparseMatrix>();
+        CSRSparseMatrix Al = CSRSparseMatrixBuilder.toCSR(A);
+        As.add(Al);
+        while (Al.nRows() > maxCoarseSize && As.size() < MAX_LEVELS) {
+            int[] aggregates = new int[Al.nRows()];
+            int nAggregates = aggregate(Al, theta, aggregates);
+            if (nAggregates == 0 || nAggregates == Al.nRows()) {
+                break; // the coarsening stalls
+            }
+
+            CSRSparseMatrix Pl = prolongator(Al, aggregates, nAggregates);
+            Al = (CSRSparseMatrix) Pl.t().multiply(Al.multiply(Pl));
+            Ps.add(Pl);
+            As.add(Al);
+        }
+
+        final int nLevels = As.size();
+        this.A = As.toArray(new CSRSparseMatrix[nLevels]);
+        this.P = Ps.toArray(new CSRSparseMatrix[nLevels - 1]);
+        this.R = new CSRSparseMatrix[nLevels - 1];
+        for (int l = 0; l < nLevels - 1; ++l) {
+            R[l] = P[l].t();
+        }
+
+        CSRSparseMatrix Ac = this.A[nLevels - 1];
+        this.coarsest = Ac.nRows() <= maxCoarseSize ? new BlockedLU(Ac.toDense()) : null;
+
+        this.ptr = new int[nLevels][];
+        this.col = new int[nLevels][];
+        this.val = new double[nLevels][];
+        for (int l = 0; l < nLevels; ++l) {
+            ptr[l] = this.A[l].rowPointers();
+            col[l] = this.A[l].columnIndices();
+            val[l] = this.A[l].values();
+        }
+    }
+
+    /**
+     * Construct an AMG hierarchy using the default parameters.
+     *
+     * @param A a square coefficient matrix with non-zero diagonal entries,
+     *          in CSR format for an efficient set-up
+     */
+    public AlgebraicMultigrid(Matrix A) {
+        this(A, DEFAULT_STRENGTH_THRESHOLD, DEFAULT_MAX_COARSE_SIZE, DEFAULT_N_SWEEPS);
+    }
+
+    /**
+     * Get the number of levels in the hierarchy.
+     *
+     * @return the number of levels
+     */
+    public int nLevels() {
+        return A.length;
+    }
+
+    /**
+     * Get the coefficient matrix of a level.
+     *
+     * @param level a level, counting from 1 as the finest
+     * @return the coefficient matrix of the level
+     */
+    public CSRSparseMatrix A(int level) {
+        return A[level - 1];
+    }
+
+    /**
+     * Get the operator complexity, i.e., the total number of non-zeros of the
+     * coefficient matrices of all levels divided by that of the finest one.
+     * It measures the memory use and the cost of a V-cycle relative to a sweep on the finest level.
+     *
+     * @return the operator complexity
+     */
+    public double operatorComplexity() {
+        double nnz = 0;
+        for (CSRSparseMatrix Al : A) {
+            nnz += Al.nNonZeros();
+        }
+        return nnz / A[0].nNonZeros();
+    }
+
+    /**
+     * Perform a V-cycle to improve an approximate solution of <i>Ax = b</i> in place.
+     * No memory is allocated except for the coarsest solve,
+     * and for the work arrays on the first call from a thread.
+     * Different threads can run V-cycles concurrently, e.g., to precondition
+     * many right hand sides in parallel.
+     *
+     * @param b the right hand side
+     * @param x an approximate solution, overwritten by the improved one
+     */
+    public void vcycle(double[] b, double[] x) {
+        SuanShuUtils.assertArgument(b.length == A[0].nRows() && x.length == A[0].nRows(), "the vectors must have the same size as A");
+
+        final WorkArrays w = work.get();
+        w.b[0] = b;
+        w.x[0] = x;
+        try {
+            vcycle(0, w);
+        } finally {
+            w.b[0] = null;
+            w.x[0] = null;
+        }
+    }
+
+    /**
+     * Perform a V-cycle to improve an approximate solution of <i>Ax = b</i>.
+     *
+     * @param b the right hand side
+     * @param x an approximate solution
+     * @return the improved solution
+     */
+    public Vector vcycle(Vector b, Vector x) {
+        double[] y = x.toArray();
+        vcycle(b.toArray(), y);
+        return new DenseVector(y);
+    }
+
+    private void vcycle(int l, WorkArrays w) {
+        final CSRSparseMatrix Al = A[l];
+        final double[] xl = w.x[l];
+        final double[] bl = w.b[l];
+
+        if (l == A.length - 1) {// the coarsest level
+            if (coarsest != null) {
+                System.arraycopy(coarsest.solve(new DenseVector(bl)).toArray(), 0, xl, 0, xl.length);
+            } else {
+                for (int k = 0; k < N_COARSEST_SWEEPS; ++k) {
+                    SORSweep.forward(ptr[l], col[l], val[l], bl, xl, 1.);
+                    SORSweep.backward(ptr[l], col[l], val[l], bl, xl, 1.);
+                }
+            }
+            return;
+        }
+
+        for (int k = 0; k < nSweeps; ++k) {// pre-smoothing
+            SORSweep.forward(ptr[l], col[l], val[l], bl, xl, 1.);
+        }
+
+        final double[] rl = w.r[l];
+        System.arraycopy(bl, 0, rl, 0, rl.length);
+        Al.multiply(-1., xl, 1., rl); // r = b - Ax
+        R[l].multiply(1., rl, 0., w.b[l + 1]); // restrict the residual
+        Arrays.fill(w.x[l + 1], 0.);
+        vcycle(l + 1, w);
+        P[l].multiply(1., w.x[l + 1], 1., xl); // coarse grid correction
+
+        for (int k = 0; k < nSweeps; ++k) {// post-smoothing
+            SORSweep.backward(ptr[l], col[l], val[l], bl, xl, 1.);
+        }
+    }
+
+    /**
+     * Group the unknowns into aggregates of strongly coupled neighbors in three passes.
+     * <ol>
+     * <li>An unknown whose strong neighbors are all free forms an aggregate with them.</li>
+     * <li>A free unknown joins the aggregate of its strongest aggregated neighbor.</li>
+     * <li>The remaining free unknowns form aggregates with their free strong neighbors.</li>
+     * </ol>
+     * An unknown without a strong neighbor is not aggregated; its error is damped by the smoother alone.
+     *
+     * @param A          a coefficient matrix
+     * @param theta      the strength of connection threshold
+     * @param aggregates the aggregate of each unknown, counting from 0, or -1 if not aggregated
+     * @return the number of aggregates
+     */
+    private static int aggregate(CSRSparseMatrix A, double theta, int[] aggregates) {
+        final int n = A.nRows();
+        final int[] ptr = A.rowPointers();
+        final int[] col = A.columnIndices();
+        final double[] val = A.values();
+
+        final double[] diag = diagonal(A);
+        final boolean[] isStrong = new boolean[ptr[n]];
+        final int FREE = -1, ISOLATED = -2;
+        Arrays.fill(aggregates, FREE);
+        for (int i = 0; i < n; ++i) {
+            boolean isIsolated = true;
+            for (int k = ptr[i]; k < ptr[i + 1]; ++k) {
+                int j = col[k] - 1;
+                if (j != i && Math.abs(val[k]) >= theta * Math.sqrt(Math.abs(diag[i] * diag[j]))) {
+                    isStrong[k] = val[k] != 0.;
+                    isIsolated &= !isStrong[k];
+                }
+            }
+            if (isIsolated) {
+                aggregates[i] = ISOLATED;
+            }
+        }
+
+        int nAggregates = 0;
+        for (int i = 0; i < n; ++i) {// pass 1
+            if (aggregates[i] != FREE) {
+                continue;
+            }
+
+            boolean isFree = true;
+            for (int k = ptr[i]; k < ptr[i + 1] && isFree; ++k) {
+                isFree = !isStrong[k] || aggregates[col[k] - 1] < 0;
+            }
+            if (isFree) {
+                aggregates[i] = nAggregates;
+                for (int k = ptr[i]; k < ptr[i + 1]; ++k) {
+                    if (isStrong[k] && aggregates[col[k] - 1] == FREE) {
+                        aggregates[col[k] - 1] = nAggregates;
+                    }
+                }
+                ++nAggregates;
+            }
+        }
+
+        final int nPass1 = nAggregates;
+        for (int i = 0; i < n; ++i) {// pass 2
+            if (aggregates[i] != FREE) {
+                continue;
+            }
+
+            double strongest = 0;
+            for (int k = ptr[i]; k < ptr[i + 1]; ++k) {
+                int a = aggregates[col[k] - 1];
+                if (isStrong[k] && a >= 0 && a < nPass1 && Math.abs(val[k]) > strongest) {
+                    strongest = Math.abs(val[k]);
+                    aggregates[i] = a;
+                }
+            }
+        }
+
+        for (int i = 0; i < n; ++i) {// pass 3
+            if (aggregates[i] != FREE) {
+                continue;
+            }
+
+            aggregates[i] = nAggregates;
+            for (int k = ptr[i]; k < ptr[i + 1]; ++k) {
+                if (isStrong[k] && aggregates[col[k] - 1] == FREE) {
+                    aggregates[col[k] - 1] = nAggregates;
+                }
+            }
+            ++nAggregates;
+        }
+
+        return nAggregates;
+    }
+
+    /**
+     * Construct the smoothed prolongator <i>P = (I - &omega;D<sup>-1</sup>A)T</i>.
+     *
+     * @param A           a coefficient matrix
+     * @param aggregates  the aggregate of each unknown
+     * @param nAggregates the number of aggregates
+     * @return the prolongator
+     */
+    private static CSRSparseMatrix prolongator(CSRSparseMatrix A, int[] aggregates, int nAggregates) {
+        final int n = A.nRows();
+        final int[] ptr = A.rowPointers();
+        final int[] col = A.columnIndices();
+        final double[] val = A.values();
+        final double[] diag = diagonal(A);
+
+        // the tentative prolongator, with the columns normalized
+        int[] sizes = new int[nAggregates];
+        for (int i = 0; i < n; ++i) {
+            if (aggregates[i] >= 0) {
+                ++sizes[aggregates[i]];
+            }
+        }
+        CSRSparseMatrixBuilder T = new CSRSparseMatrixBuilder(n, nAggregates, n);
+        for (int i = 0; i < n; ++i) {
+            if (aggregates[i] >= 0) {
+                T.add(i + 1, aggregates[i] + 1, 1. / Math.sqrt(sizes[aggregates[i]]));
+            }
+        }
+
+        // the Gershgorin bound of the spectral radius of D^-1 A
+        double rho = 0;
+        for (int i = 0; i < n; ++i) {
+            double sum = 0;
+            for (int k = ptr[i]; k < ptr[i + 1]; ++k) {
+                sum += Math.abs(val[k]);
+            }
+            rho = Math.max(rho, sum / Math.abs(diag[i]));
+        }
+        final double omega = 4. / (3. * rho);
+
+        // the Jacobi smoother I - omega * D^-1 * A
+        CSRSparseMatrixBuilder S = new CSRSparseMatrixBuilder(n, n, ptr[n] + n);
+        for (int i = 0; i < n; ++i) {
+            S.add(i + 1, i + 1, 1.);
+            for (int k = ptr[i]; k < ptr[i + 1]; ++k) {
+                S.add(i + 1, col[k], -omega * val[k] / diag[i]);
+            }
+        }
+
+        return (CSRSparseMatrix) S.build().multiply(T.build());
+    }
+
+    private static double[] diagonal(CSRSparseMatrix A) {
+        final int n = A.nRows();
+        final int[] ptr = A.rowPointers();
+        final int[] col = A.columnIndices();
+        final double[] val = A.values();
+
+        double[] diag = new double[n];
+        for (int i = 0; i < n; ++i) {
+            for (int k = ptr[i]; k < ptr[i + 1]; ++k) {
+                if (col[k] - 1 == i) {
+                    diag[i] = val[k];
+                }
+            }
+            if (diag[i] == 0.) {
+                throw new IllegalArgumentException("diagonal entries must be non-zero");
+            }
+        }
+        return diag;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.multigrid;
+
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner.InPlacePreconditioner;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner.Preconditioner;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner.PreconditionerFactory;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+import java.util.Arrays;
+
+/**
+ * The AMG preconditioner applies one {@linkplain AlgebraicMultigrid AMG} V-cycle
+ * from the zero initial guess, i.e., <i>M<sup>-1</sup>x</i> is the approximate
+ * solution of <i>Av = x</i> after one V-cycle.
+ * As the V-cycle is symmetric for a symmetric <i>A</i>, this preconditioner can be used with
+ * {@linkplain com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.nonstationary.ConjugateGradientSolver CG}
+ * for a symmetric positive definite system.
+ * The number of iterations is then almost independent of the grid size for Poisson-like problems.
+ *
+ * @author Ken Yiu
+ */
+public class AlgebraicMultigridPreconditioner implements InPlacePreconditioner {
+
+    /**
+     * This factory constructs an {@link AlgebraicMultigridPreconditioner} for a coefficient matrix.
+     */
+    public static class Factory implements PreconditionerFactory {
+
+        private final double theta;
+        private final int maxCoarseSize;
+        private final int nSweeps;
+
+        /**
+         * Construct a factory of AMG preconditioners.
+         *
+         * @param theta         the strength of connection threshold, in [0, 1)
+         * @param maxCoarseSize the maximum size of the coarsest system
+         * @param nSweeps       the number of Gauss-Seidel sweeps before and after the coarse grid correction
+         */
+        public Factory(double theta, int maxCoarseSize, int nSweeps) {
+            this.theta = theta;
+            this.maxCoarseSize = maxCoarseSize;
+            this.nSweeps = nSweeps;
+        }
+
+        /**
+         * Construct a factory of AMG preconditioners using the default hierarchy parameters.
+         */
+        public Factory() {
+            this(AlgebraicMultigrid.DEFAULT_STRENGTH_THRESHOLD,
+                    AlgebraicMultigrid.DEFAULT_MAX_COARSE_SIZE,
+                    AlgebraicMultigrid.DEFAULT_N_SWEEPS);
+        }
+
+        @Override
+        public Preconditioner newInstance(Matrix A) {
+            return new AlgebraicMultigridPreconditioner(new AlgebraicMultigrid(A, theta, maxCoarseSize, nSweeps));
+        }
+    }
+
+    private final AlgebraicMultigrid amg;
+
+    /**
+     * Construct an AMG preconditioner from an AMG hierarchy.
+     *
+     * @param amg an AMG hierarchy
+     */
+    public AlgebraicMultigridPreconditioner(AlgebraicMultigrid amg) {
+        this.amg = amg;
+    }
+
+    /**
+     * Construct an AMG preconditioner using the default hierarchy parameters.
+     *
+     * @param A a square coefficient matrix
+     */
+    public AlgebraicMultigridPreconditioner(Matrix A) {
+        this(new AlgebraicMultigrid(A));
+    }
+
+    /**
+     * Apply one V-cycle to <i>Av = x</i> from <i>v = 0</i>.
+     *
+     * @param x a vector
+     * @return <i>M<sup>-1</sup>x</i>
+     */
+    @Override
+    public Vector solve(Vector x) {
+        double[] v = new double[x.size()];
+        amg.vcycle(x.toArray(), v);
+        return new DenseVector(v);
+    }
+
+    /**
+     * <i>M<sup>t</sup> = M</i> when <i>A</i> is symmetric.
+     *
+     * @param x a vector
+     * @return {@code solve(x)}
+     */
+    @Override
+    public Vector transposeSolve(Vector x) {
+        return solve(x);
+    }
+
+    /**
+     * Apply one V-cycle to <i>Ay = x</i> from <i>y = 0</i>.
+     *
+     * @param x a vector
+     * @param y the output <i>M<sup>-1</sup>x</i>; it must not be {@code x}
+     */
+    @Override
+    public void solve(double[] x, double[] y) {
+        Arrays.fill(y, 0.);
+        amg.vcycle(x, y);
+    }
+
+    /**
+     * <i>M<sup>t</sup> = M</i> when <i>A</i> is symmetric.
+     *
+     * @param x a vector
+     * @param y the output <i>M<sup>-t</sup>x</i>; it must not be {@code x}
+     */
+    @Override
+    public void transposeSolve(double[] x, double[] y) {
+        solve(x, y);
+    }
+}
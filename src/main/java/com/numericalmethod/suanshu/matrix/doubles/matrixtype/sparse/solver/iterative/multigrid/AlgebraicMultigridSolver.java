@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.multigrid;
+
+import com.numericalmethod.suanshu.algorithm.iterative.monitor.IterationMonitor;
+import com.numericalmethod.suanshu.algorithm.iterative.monitor.NullMonitor;
+import com.numericalmethod.suanshu.algorithm.iterative.tolerance.Tolerance;
+import com.numericalmethod.suanshu.datastructure.DimensionCheck;
+import com.numericalmethod.suanshu.matrix.doubles.linearsystem.LSProblem;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.CSRSparseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.CSRSparseMatrixBuilder;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.ConvergenceFailure;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.ConvergenceFailure.Reason;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.IterativeLinearSystemSolver;
+import com.numericalmethod.suanshu.misc.SuanShuUtils;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+
+/**
+ * This solver iterates {@linkplain AlgebraicMultigrid AMG} V-cycles until the
+ * residual is small. For Poisson-like and diffusion problems, each V-cycle
+ * reduces the error by a factor independent of the grid size.
+ * For harder problems, using AMG as a preconditioner of a Krylov solver,
+ * e.g., {@linkplain com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.nonstationary.ConjugateGradientSolver CG},
+ * is usually more robust; see {@link AlgebraicMultigridPreconditioner}.
+ * <p/>
+ * This implementation does not support preconditioning.
+ *
+ * @author Ken Yiu
+ */
+public class AlgebraicMultigridSolver implements IterativeLinearSystemSolver {
+
+    private final double theta;
+    private final int maxCoarseSize;
+    private final int nSweeps;
+    private final int maxIteration;
+    private final Tolerance tolerance;
+
+    /**
+     * Construct an AMG solver.
+     *
+     * @param theta         the strength of connection threshold, in [0, 1)
+     * @param maxCoarseSize the maximum size of the coarsest system
+     * @param nSweeps       the number of Gauss-Seidel sweeps before and after the coarse grid correction
+     * @param maxIteration  the maximum number of V-cycles
+     * @param tolerance     the convergence threshold
+     */
+    public AlgebraicMultigridSolver(double theta, int maxCoarseSize, int nSweeps, int maxIteration, Tolerance tolerance) {
+        this.theta = theta;
+        this.maxCoarseSize = maxCoarseSize;
+        this.nSweeps = nSweeps;
+        this.maxIteration = maxIteration;
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Construct an AMG solver using the default hierarchy parameters.
+     *
+     * @param maxIteration the maximum number of V-cycles
+     * @param tolerance    the convergence threshold
+     */
+    public AlgebraicMultigridSolver(int maxIteration, Tolerance tolerance) {
+        this(AlgebraicMultigrid.DEFAULT_STRENGTH_THRESHOLD,
+                AlgebraicMultigrid.DEFAULT_MAX_COARSE_SIZE,
+                AlgebraicMultigrid.DEFAULT_N_SWEEPS,
+                maxIteration, tolerance);
+    }
+
+    public IterativeLinearSystemSolver.Solution solve(LSProblem problem) throws ConvergenceFailure {
+        return solve(problem, new NullMonitor<Vector>());
+    }
+
+    @Override
+    public IterativeLinearSystemSolver.Solution solve(final LSProblem problem, final IterationMonitor<Vector> monitor) throws ConvergenceFailure {
+        SuanShuUtils.assertArgument(DimensionCheck.isSquare(problem.A()), "A must be a square matrix");
+
+        return new IterativeLinearSystemSolver.Solution() {
+
+            private final CSRSparseMatrix A = CSRSparseMatrixBuilder.toCSR(problem.A());
+            private final AlgebraicMultigrid amg = new AlgebraicMultigrid(A, theta, maxCoarseSize, nSweeps);
+            private final double[] b = problem.b().toArray();
+            private double[] x;
+            private final double[] r = new double[b.length]; // residual
+            private boolean isConverged;
+            int count = 0;
+
+            @Override
+            public void setInitials(Vector... initials) {
+                x = initials[0].toArray();
+                updateResidual();
+                isConverged = tolerance.isResidualSmall(norm(r));
+            }
+
+            @Override
+            public IterationMonitor<Vector> step() throws ConvergenceFailure {
+                monitor.addIterate(new DenseVector(x.clone()));
+
+                amg.vcycle(b, x);
+                updateResidual();
+
+                return monitor;
+            }
+
+            @Override
+            public Vector search(Vector... initials) throws ConvergenceFailure {
+                setInitials(initials);
+
+                for (; count < maxIteration && !isConverged;
+                        ++count, isConverged |= tolerance.isResidualSmall(norm(r))) {
+                    step();
+                }
+
+                Vector solution = new DenseVector(x);
+                monitor.addIterate(solution);
+
+                if (!isConverged) {
+                    throw new ConvergenceFailure(Reason.MAX_ITERATIONS_EXCEEDED, maxIteration + " exceeded");
+                }
+
+                return solution;
+            }
+
+            private void updateResidual() {
+                System.arraycopy(b, 0, r, 0, b.length);
+                A.multiply(-1., x, 1., r); // r = b - Ax
+            }
+        };
+    }
+
+    private static double norm(double[] v) {
+        double sum = 0;
+        for (double vi : v) {
+            sum += vi * vi;
+        }
+        return Math.sqrt(sum);
+    }
+}
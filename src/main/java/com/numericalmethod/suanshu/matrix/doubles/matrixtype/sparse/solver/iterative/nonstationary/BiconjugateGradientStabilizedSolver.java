@@ -34,6 +34,7 @@ import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.itera
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner.Preconditioner;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner.PreconditionerFactory;
 import com.numericalmethod.suanshu.vector.doubles.Vector;
+import java.util.Arrays;
 
 /**
  * The Biconjugate Gradient Stabilized (BiCGSTAB) method is useful for solving
@@ -45,6 +46,10 @@ import com.numericalmethod.suanshu.vector.doubles.Vector;
  * convergence than CGS does.
  * <p/>
  * Only left preconditioning is supported in this implementation.
+ * <p/>
+ * For solving many systems of the same dimension, the workspace mode
+ * {@link #solve(Matrix, Preconditioner, double[], double[], KrylovWorkspace)}
+ * works on primitive arrays and creates no object per iteration.
  *
  * @author Ken Yiu
  * @see "Yousef Saad, "BICGSTAB," in <i>Iterative Methods for Sparse Linear Systems</i>, 2nd ed. 2000, ch. 7, sec. 7.4.2, p. 216-219."
@@ -201,4 +206,119 @@ public class BiconjugateGradientStabilizedSolver implements IterativeLinearSyste
             }
         };
     }
+
+    /**
+     * Solve <i>Ax = b</i> in the workspace mode, using a preconditioner constructed by the factory of this solver.
+     *
+     * @param A         a square coefficient matrix
+     * @param b         the right hand side
+     * @param x         the initial guess, overwritten by the solution
+     * @param workspace a workspace of the dimension of <i>A</i>
+     * @return the number of iterations
+     * @throws ConvergenceFailure if the algorithm fails to converge
+     * @see #solve(Matrix, Preconditioner, double[], double[], KrylovWorkspace)
+     */
+    public int solve(Matrix A, double[] b, double[] x, KrylovWorkspace workspace) throws ConvergenceFailure {
+        return solve(A, leftPreconditionerFactory.newInstance(A), b, x, workspace);
+    }
+
+    /**
+     * Solve <i>Ax = b</i> in the workspace mode.
+     * All the Krylov vectors are taken from the workspace, and the vector operations
+     * are fused loops on the arrays, so no object is created per iteration
+     * if <i>A</i> and <i>M</i> support the in-place operations (see {@link KrylovWorkspace}).
+     * The iterations are the same as those of {@link #solve(LSProblem, IterationMonitor)}.
+     *
+     * @param A         a square coefficient matrix
+     * @param M         a left preconditioner
+     * @param b         the right hand side
+     * @param x         the initial guess, overwritten by the solution
+     * @param workspace a workspace of the dimension of <i>A</i>
+     * @return the number of iterations
+     * @throws ConvergenceFailure if the algorithm fails to converge
+     */
+    public int solve(Matrix A, Preconditioner M, double[] b, double[] x, KrylovWorkspace workspace) throws ConvergenceFailure {
+        workspace.check(A, b, x);
+
+        final int n = x.length;
+        final int maxIteration = Math.min(maxIteration0, A.nCols()); // guaranteed to converge in n iterations
+        final double[] r = workspace.vector(0); // residual
+        final double[] ri = workspace.vector(1);
+        final double[] p = workspace.vector(2);
+        final double[] v = workspace.vector(3);
+        final double[] pHat = workspace.vector(4);
+        final double[] s = workspace.vector(5);
+        final double[] sHat = workspace.vector(6);
+        final double[] t = workspace.vector(7);
+
+        KrylovWorkspace.residual(A, b, x, r);
+        System.arraycopy(r, 0, ri, 0, n);
+        Arrays.fill(p, 0.);
+        Arrays.fill(v, 0.);
+        double rho0 = 1.;
+        double alpha = 1.;
+        double omega = 1.;
+
+        int count = 0;
+        for (boolean isConverged = tolerance.isResidualSmall(KrylovWorkspace.norm(r));
+                !isConverged; ++count, isConverged = tolerance.isResidualSmall(KrylovWorkspace.norm(r))) {
+            if (count >= maxIteration) {
+                throw new ConvergenceFailure(Reason.MAX_ITERATIONS_EXCEEDED, maxIteration + " iterations exceeded");
+            }
+
+            if (Double.compare(omega, 0.) == 0) {
+                throw new ConvergenceFailure(Reason.BREAKDOWN, "omega = 0");
+            }
+
+            double rho = KrylovWorkspace.dot(ri, r);
+            if (Double.compare(rho, 0.) == 0) {
+                throw new ConvergenceFailure(Reason.BREAKDOWN, "<rTilde, r> = 0");
+            }
+
+            double beta = (rho / rho0) * (alpha / omega);
+            for (int i = 0; i < n; ++i) {
+                p[i] = r[i] + beta * (p[i] - omega * v[i]);
+            }
+
+            KrylovWorkspace.precondition(M, p, pHat);
+            KrylovWorkspace.multiply(A, pHat, v);
+
+            double sigma = KrylovWorkspace.dot(ri, v);
+            if (Double.compare(sigma, 0.) == 0) {
+                throw new ConvergenceFailure(Reason.BREAKDOWN, "<rTilde, v> = 0");
+            }
+
+            alpha = rho / sigma;
+            for (int i = 0; i < n; ++i) {
+                s[i] = r[i] - alpha * v[i];
+            }
+            // check norm of s for convergence
+            if (tolerance.isResidualSmall(KrylovWorkspace.norm(s))) {
+                // update x and stop
+                KrylovWorkspace.axpy(alpha, pHat, x);
+                return count + 1;
+            }
+
+            KrylovWorkspace.precondition(M, s, sHat);
+            KrylovWorkspace.multiply(A, sHat, t);
+
+            omega = KrylovWorkspace.dot(t, s) / KrylovWorkspace.dot(t, t);
+
+            for (int i = 0; i < n; ++i) {
+                x[i] += alpha * pHat[i] + omega * sHat[i];
+            }
+
+            if ((count + 1) % residualRefreshRate != 0) {
+                for (int i = 0; i < n; ++i) {
+                    r[i] = s[i] - omega * t[i];
+                }
+            } else {
+                KrylovWorkspace.residual(A, b, x, r);
+            }
+
+            rho0 = rho;
+        }
+
+        return count;
+    }
 }
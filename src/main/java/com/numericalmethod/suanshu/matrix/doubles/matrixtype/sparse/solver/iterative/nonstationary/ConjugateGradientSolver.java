@@ -27,13 +27,17 @@ import com.numericalmethod.suanshu.algorithm.iterative.monitor.NullMonitor;
 import com.numericalmethod.suanshu.algorithm.iterative.tolerance.Tolerance;
 import com.numericalmethod.suanshu.matrix.doubles.Matrix;
 import com.numericalmethod.suanshu.matrix.doubles.linearsystem.LSProblem;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.CSRSparseMatrix;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.ConvergenceFailure;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.ConvergenceFailure.Reason;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.IterativeLinearSystemSolver;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner.IdentityPreconditioner;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner.Preconditioner;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner.PreconditionerFactory;
+import com.numericalmethod.suanshu.misc.SuanShuUtils;
+import com.numericalmethod.suanshu.parallel.LoopBody;
 import com.numericalmethod.suanshu.vector.doubles.Vector;
+import java.util.Arrays;
 
 /**
  * The Conjugate Gradient method (CG) is useful for solving a symmetric n-by-n
@@ -57,6 +61,13 @@ import com.numericalmethod.suanshu.vector.doubles.Vector;
  * <p/>
  * Only left preconditioning is supported in this implementation.
  * The preconditioner must be symmetric and positive definite.
+ * <p/>
+ * For solving many systems of the same dimension, the workspace mode
+ * {@link #solve(Matrix, Preconditioner, double[], double[], KrylovWorkspace)}
+ * works on primitive arrays and creates no object per iteration.
+ * For solving the same system against many right hand sides,
+ * {@link #solve(Matrix, Preconditioner, double[][], double[][])}
+ * iterates all the columns together and shares one sparse matrix-block multiplication per iteration.
  *
  * @author Ken Yiu
  * @see "Yousef Saad, "The Conjugate Gradient Algorithm," in <i>Iterative Methods for Sparse Linear Systems</i>, 2nd ed. 2000, ch. 6, sec. 6.7, p. 174-181."
@@ -187,4 +198,250 @@ public class ConjugateGradientSolver implements IterativeLinearSystemSolver {
             }
         };
     }
+
+    /**
+     * Solve <i>Ax = b</i> in the workspace mode, using a preconditioner constructed by the factory of this solver.
+     *
+     * @param A         a symmetric positive definite coefficient matrix
+     * @param b         the right hand side
+     * @param x         the initial guess, overwritten by the solution
+     * @param workspace a workspace of the dimension of <i>A</i>
+     * @return the number of iterations
+     * @throws ConvergenceFailure if the algorithm fails to converge
+     * @see #solve(Matrix, Preconditioner, double[], double[], KrylovWorkspace)
+     */
+    public int solve(Matrix A, double[] b, double[] x, KrylovWorkspace workspace) throws ConvergenceFailure {
+        return solve(A, leftPreconditionerFactory.newInstance(A), b, x, workspace);
+    }
+
+    /**
+     * Solve <i>Ax = b</i> in the workspace mode.
+     * All the Krylov vectors are taken from the workspace, and the vector operations
+     * are fused loops on the arrays, so no object is created per iteration
+     * if <i>A</i> and <i>M</i> support the in-place operations (see {@link KrylovWorkspace}).
+     * The iterations are the same as those of {@link #solve(LSProblem, IterationMonitor)}.
+     *
+     * @param A         a symmetric positive definite coefficient matrix
+     * @param M         a symmetric positive definite left preconditioner
+     * @param b         the right hand side
+     * @param x         the initial guess, overwritten by the solution
+     * @param workspace a workspace of the dimension of <i>A</i>
+     * @return the number of iterations
+     * @throws ConvergenceFailure if the algorithm fails to converge
+     */
+    public int solve(Matrix A, Preconditioner M, double[] b, double[] x, KrylovWorkspace workspace) throws ConvergenceFailure {
+        workspace.check(A, b, x);
+
+        final int maxIteration = Math.min(maxIteration0, A.nCols()); // guaranteed to converge in n iterations
+        final double[] r = workspace.vector(0); // residual
+        final double[] z = workspace.vector(1);
+        final double[] p = workspace.vector(2); // search direction
+        final double[] q = workspace.vector(3);
+
+        KrylovWorkspace.residual(A, b, x, r);
+        Arrays.fill(p, 0.);
+        double rtz0 = 1.;
+
+        int count = 0;
+        for (boolean isConverged = tolerance.isResidualSmall(KrylovWorkspace.norm(r));
+                !isConverged; ++count, isConverged = tolerance.isResidualSmall(KrylovWorkspace.norm(r))) {
+            if (count >= maxIteration) {
+                throw new ConvergenceFailure(Reason.MAX_ITERATIONS_EXCEEDED, maxIteration + " iterations exceeded");
+            }
+
+            KrylovWorkspace.precondition(M, r, z);
+            double rtz1 = KrylovWorkspace.dot(r, z);
+            if (Double.compare(rtz1, 0.) == 0) {
+                throw new ConvergenceFailure(Reason.BREAKDOWN, "<r, z> = 0");
+            }
+
+            KrylovWorkspace.xpay(z, rtz1 / rtz0, p); // p = z + beta * p
+            KrylovWorkspace.multiply(A, p, q);
+
+            double ptq = KrylovWorkspace.dot(p, q);
+            if (Double.compare(ptq, 0.) == 0) {
+                throw new ConvergenceFailure(Reason.BREAKDOWN, "<p, q> = 0");
+            }
+            double alpha = rtz1 / ptq;
+
+            KrylovWorkspace.axpy(alpha, p, x);
+
+            if ((count + 1) % residualRefreshRate != 0) {
+                KrylovWorkspace.axpy(-alpha, q, r);
+            } else {
+                KrylovWorkspace.residual(A, b, x, r);
+            }
+
+            rtz0 = rtz1;
+        }
+
+        return count;
+    }
+
+    /**
+     * Solve <i>AX = B</i> for many right hand sides, using a preconditioner constructed by the factory of this solver.
+     *
+     * @param A a symmetric positive definite coefficient matrix
+     * @param B the right hand sides, one array per column
+     * @param X the initial guesses, one array per column, overwritten by the solutions
+     * @return the numbers of iterations of the columns
+     * @throws ConvergenceFailure if the algorithm fails to converge for any column
+     * @see #solve(Matrix, Preconditioner, double[][], double[][])
+     */
+    public int[] solve(Matrix A, double[][] B, double[][] X) throws ConvergenceFailure {
+        return solve(A, leftPreconditionerFactory.newInstance(A), B, X);
+    }
+
+    /**
+     * Solve <i>AX = B</i> for many right hand sides.
+     * Each column runs its own CG iterations, the same as those of {@link #solve(LSProblem, IterationMonitor)},
+     * but the columns are iterated together so that one iteration multiplies <i>A</i> with
+     * the block of search directions at once (see {@link CSRSparseMatrix#multiply(double, double[][], double, double[][])}).
+     * This reads <i>A</i> once per iteration instead of once per column.
+     * The preconditioning and the vector operations of the columns run in parallel,
+     * so <i>M</i> must support concurrent {@code solve} calls.
+     * <p/>
+     * The convergence is tracked per column.
+     * A column leaves the block when it converges or fails,
+     * so the work per iteration shrinks as the columns converge.
+     * A failing column does not stop the others;
+     * the failure of the first failing column is thrown after all columns finish.
+     *
+     * @param A a symmetric positive definite coefficient matrix
+     * @param M a symmetric positive definite left preconditioner
+     * @param B the right hand sides, one array per column
+     * @param X the initial guesses, one array per column, overwritten by the solutions
+     * @return the numbers of iterations of the columns
+     * @throws ConvergenceFailure if the algorithm fails to converge for any column
+     */
+    public int[] solve(final Matrix A, final Preconditioner M, final double[][] B, final double[][] X) throws ConvergenceFailure {
+        final int n = A.nCols();
+        final int m = B.length;
+        SuanShuUtils.assertArgument(A.nRows() == n, "A must be a square matrix");
+        SuanShuUtils.assertArgument(X.length == m, "B and X must have the same number of columns");
+        for (int j = 0; j < m; ++j) {
+            SuanShuUtils.assertArgument(B[j].length == n && X[j].length == n, "the columns of B and X must have the same size as A");
+        }
+
+        final int maxIteration = Math.min(maxIteration0, n); // guaranteed to converge in n iterations
+        final double[][] R = new double[m][n]; // residuals
+        final double[][] Z = new double[m][n];
+        final double[][] P = new double[m][n]; // search directions
+        final double[][] Q = new double[m][n];
+        final double[] rtz0 = new double[m];
+        final double[] rtz1 = new double[m];
+        final boolean[] isActive = new boolean[m];
+        final int[] counts = new int[m];
+        final ConvergenceFailure[] failures = new ConvergenceFailure[m];
+
+        KrylovWorkspace.residual(A, B, X, R);
+        Arrays.fill(rtz0, 1.);
+        for (int j = 0; j < m; ++j) {
+            isActive[j] = !tolerance.isResidualSmall(KrylovWorkspace.norm(R[j]));
+        }
+
+        int[] active = select(isActive);
+        for (int count = 0; active.length > 0; ++count) {
+            if (count >= maxIteration) {
+                for (int j : active) {
+                    failures[j] = new ConvergenceFailure(Reason.MAX_ITERATIONS_EXCEEDED, maxIteration + " iterations exceeded for column " + j);
+                }
+                break;
+            }
+
+            final int[] columns1 = active;
+            KrylovWorkspace.forEachColumn(columns1.length, n, new LoopBody() {
+
+                @Override
+                public void run(int k) {
+                    final int j = columns1[k];
+                    KrylovWorkspace.precondition(M, R[j], Z[j]);
+                    rtz1[j] = KrylovWorkspace.dot(R[j], Z[j]);
+                    if (Double.compare(rtz1[j], 0.) == 0) {
+                        failures[j] = new ConvergenceFailure(Reason.BREAKDOWN, "<r, z> = 0 for column " + j);
+                        isActive[j] = false;
+                        return;
+                    }
+
+                    KrylovWorkspace.xpay(Z[j], rtz1[j] / rtz0[j], P[j]); // p = z + beta * p
+                }
+            });
+
+            final int[] columns2 = select(isActive);
+            KrylovWorkspace.multiply(A, select(P, columns2), select(Q, columns2));
+
+            final boolean isRefresh = (count + 1) % residualRefreshRate == 0;
+            KrylovWorkspace.forEachColumn(columns2.length, n, new LoopBody() {
+
+                @Override
+                public void run(int k) {
+                    final int j = columns2[k];
+                    double ptq = KrylovWorkspace.dot(P[j], Q[j]);
+                    if (Double.compare(ptq, 0.) == 0) {
+                        failures[j] = new ConvergenceFailure(Reason.BREAKDOWN, "<p, q> = 0 for column " + j);
+                        isActive[j] = false;
+                        return;
+                    }
+                    double alpha = rtz1[j] / ptq;
+
+                    KrylovWorkspace.axpy(alpha, P[j], X[j]);
+                    if (!isRefresh) {
+                        KrylovWorkspace.axpy(-alpha, Q[j], R[j]);
+                    }
+
+                    rtz0[j] = rtz1[j];
+                }
+            });
+
+            final int[] columns3 = select(isActive);
+            if (isRefresh) {
+                KrylovWorkspace.residual(A, select(B, columns3), select(X, columns3), select(R, columns3));
+            }
+
+            for (int j : columns3) {
+                counts[j] = count + 1;
+                isActive[j] = !tolerance.isResidualSmall(KrylovWorkspace.norm(R[j]));
+            }
+            active = select(isActive);
+        }
+
+        for (int j = 0; j < m; ++j) {
+            if (failures[j] != null) {
+                throw failures[j];
+            }
+        }
+
+        return counts;
+    }
+
+    /**
+     * Get the indices of the active columns.
+     */
+    private static int[] select(boolean[] isActive) {
+        int size = 0;
+        for (boolean b : isActive) {
+            if (b) {
+                ++size;
+            }
+        }
+
+        int[] columns = new int[size];
+        for (int j = 0, k = 0; j < isActive.length; ++j) {
+            if (isActive[j]) {
+                columns[k++] = j;
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Get the sub-block of the columns.
+     */
+    private static double[][] select(double[][] V, int[] columns) {
+        double[][] result = new double[columns.length][];
+        for (int k = 0; k < columns.length; ++k) {
+            result[k] = V[columns[k]];
+        }
+        return result;
+    }
 }
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.nonstationary;
+
+import com.numericalmethod.suanshu.algorithm.iterative.monitor.IterationMonitor;
+import com.numericalmethod.suanshu.algorithm.iterative.monitor.NullMonitor;
+import com.numericalmethod.suanshu.algorithm.iterative.tolerance.Tolerance;
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.linearsystem.LSProblem;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.ConvergenceFailure;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.ConvergenceFailure.Reason;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.IterativeLinearSystemSolver;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner.IdentityPreconditioner;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner.Preconditioner;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner.PreconditionerFactory;
+import com.numericalmethod.suanshu.misc.SuanShuUtils;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+import java.util.Arrays;
+
+/**
+ * The Flexible Generalized Minimal Residual method (FGMRES) is a variant of
+ * {@linkplain GeneralizedMinimalResidualSolver GMRES} with right preconditioning,
+ * in which the preconditioner may change from one iteration to the next.
+ * For example, the preconditioner can be an inner iterative solver
+ * run to a loose tolerance, or a multigrid cycle with adaptive smoothing.
+ * GMRES assumes that the same preconditioner is applied to every basis vector;
+ * FGMRES instead stores the preconditioned basis vectors
+ * <i>z<sub>i</sub> = M<sub>i</sub><sup>-1</sup>v<sub>i</sub></i>
+ * and updates the solution by <i>x = x<sub>0</sub> + Zy</i>.
+ * <p/>
+ * This implementation is a restarted version, FGMRES(<i>m</i>).
+ * The memory is bounded by <i>2m + 3</i> vectors of the system dimension <i>n</i>,
+ * namely the <i>m</i> basis vectors <i>V</i>, the <i>m</i> preconditioned basis vectors <i>Z</i>,
+ * a work vector, the residual and the iterate,
+ * plus <i>O(m<sup>2</sup>)</i> for the Hessenberg matrix,
+ * no matter how many iterations are run.
+ * As the preconditioning is on the right, the residual norm is that of the original system, <i>||b - Ax||</i>.
+ * With a fixed preconditioner, FGMRES computes the same iterates as right-preconditioned GMRES.
+ *
+ * @author Ken Yiu
+ * @see "Yousef Saad, "Flexible Variants," in <i>Iterative Methods for Sparse Linear Systems</i>, 2nd ed. 2000, ch. 9, sec. 9.4, p. 287-292."
+ */
+public class FlexibleGeneralizedMinimalResidualSolver implements IterativeLinearSystemSolver {
+
+    /** restart parameter of FGMRES */
+    private final int m0;
+    private final PreconditionerFactory rightPreconditionerFactory;
+    private final int maxIteration;
+    private final Tolerance tolerance;
+
+    /**
+     * Construct a FGMRES solver with restarts.
+     *
+     * @param rightPreconditionerFactory constructs a new right preconditioner, which may vary between iterations
+     * @param m                          the solver restarts every {@code m} iterations;
+     * the memory cost increases by <i>O(2mn)</i>.
+     * @param maxIteration               the maximum number of iterations
+     * @param tolerance                  the convergence threshold
+     */
+    public FlexibleGeneralizedMinimalResidualSolver(PreconditionerFactory rightPreconditionerFactory, int m, int maxIteration, Tolerance tolerance) {
+        SuanShuUtils.assertArgument(m > 0, "m must be positive");
+
+        this.rightPreconditionerFactory = rightPreconditionerFactory;
+        this.m0 = m;
+        this.maxIteration = maxIteration;
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Construct a FGMRES solver with restarts and no preconditioning.
+     *
+     * @param m            the solver restarts every {@code m} iterations
+     * @param maxIteration the maximum number of iterations
+     * @param tolerance    the convergence threshold
+     */
+    public FlexibleGeneralizedMinimalResidualSolver(int m, int maxIteration, Tolerance tolerance) {
+        this(
+                new PreconditionerFactory() {
+
+                    @Override
+                    public Preconditioner newInstance(Matrix A) {
+                        return new IdentityPreconditioner();
+                    }
+                },
+                m, maxIteration, tolerance);
+    }
+
+    public IterativeLinearSystemSolver.Solution solve(LSProblem problem) throws ConvergenceFailure {
+        return solve(problem, new NullMonitor<Vector>());
+    }
+
+    @Override
+    public IterativeLinearSystemSolver.Solution solve(LSProblem problem, IterationMonitor<Vector> monitor) throws ConvergenceFailure {
+        return solve(problem, monitor, new NullMonitor<Double>());
+    }
+
+    /**
+     * Solves iteratively <i>Ax = b</i>, recording the residual norms at the restarts.
+     *
+     * @param problem         a system of linear equations
+     * @param monitor         an iteration monitor
+     * @param residualMonitor records the residual norm, <i>||b - Ax||</i>,
+     *                        for the initial guess and at the end of every restart cycle
+     * @return an (approximate) solution to the linear problem
+     * @throws ConvergenceFailure if the algorithm fails to converge
+     */
+    public IterativeLinearSystemSolver.Solution solve(final LSProblem problem, final IterationMonitor<Vector> monitor, final IterationMonitor<Double> residualMonitor) throws ConvergenceFailure {
+        return new IterativeLinearSystemSolver.Solution() {
+
+            private final Matrix A = problem.A();
+            private final Vector b = problem.b();
+            private final int n = A.nCols();
+            private final Preconditioner M = rightPreconditionerFactory.newInstance(A);
+            private final int m = Math.min(m0, n);
+            private final double[][] V = new double[m][]; // the Arnoldi basis
+            private final double[][] Z = new double[m][]; // the preconditioned basis
+            private final HessenbergLeastSquares H = new HessenbergLeastSquares(m); // upper Hessenberg matrix
+            private final double[] h = new double[m + 1]; // a column of H
+            private final double[] w = new double[n];
+            private Vector x; // initial guess
+            private double[] r; // residual
+            private double rNorm; // residual norm
+            private boolean isConverged;
+            private int count = 0;
+
+            @Override
+            public void setInitials(Vector... initials) {
+                x = initials[0];
+                residual();
+                isConverged = tolerance.isResidualSmall(rNorm);
+            }
+
+            @Override
+            public IterationMonitor<Vector> step() throws ConvergenceFailure {
+                V[0] = allocate(V[0]);
+                for (int k = 0; k < n; ++k) {
+                    V[0][k] = r[k] / rNorm;
+                }
+                H.reset(rNorm);
+
+                for (int i = 0; i < m && count < maxIteration && !isConverged;) { // inner iterations; restart every m iterations
+                    monitor.addIterate(x); // Note: FGMRES does not compute intermediate iterates
+
+                    Z[i] = allocate(Z[i]);
+                    KrylovWorkspace.precondition(M, V[i], Z[i]); // the preconditioner may differ in each iteration
+                    KrylovWorkspace.multiply(A, Z[i], w);
+
+                    for (int k = 0; k <= i; ++k) { // Arnoldi's iteration
+                        h[k] = KrylovWorkspace.dot(w, V[k]);
+                        KrylovWorkspace.axpy(-h[k], V[k], w);
+                    }
+
+                    double wNorm = KrylovWorkspace.norm(w);
+                    h[i + 1] = wNorm;
+                    rNorm = H.add(h); // the residual norm after the Givens rotations
+
+                    ++i;
+                    ++count;
+                    isConverged = tolerance.isResidualSmall(rNorm);
+
+                    if (Double.compare(wNorm, 0.) == 0) {
+                        break; // the Krylov subspace is invariant, so the update is exact
+                    }
+                    if (i < m) {
+                        V[i] = allocate(V[i]);
+                        for (int k = 0; k < n; ++k) {
+                            V[i][k] = w[k] / wNorm;
+                        }
+                    }
+                }
+
+                // solve for the minimizer y, and update by the preconditioned basis
+                double[] y = H.solve();
+                Arrays.fill(w, 0.);
+                for (int k = 0; k < y.length; ++k) {
+                    KrylovWorkspace.axpy(y[k], Z[k], w);
+                }
+                x = x.add(new DenseVector(w)); // xm = x0 + Zy
+
+                residual();
+
+                return monitor;
+            }
+
+            @Override
+            public Vector search(Vector... initials) throws ConvergenceFailure {
+                setInitials(initials);
+                for (; count < maxIteration && !isConverged;
+                        isConverged |= tolerance.isResidualSmall(rNorm)) {
+                    step();
+                }
+
+                monitor.addIterate(x);
+
+                if (!isConverged) {
+                    throw new ConvergenceFailure(Reason.MAX_ITERATIONS_EXCEEDED, maxIteration + " iterations exceeded");
+                }
+
+                return x;
+            }
+
+            /**
+             * Compute the residual and its norm.
+             */
+            private void residual() {
+                r = b.minus(A.multiply(x)).toArray();
+                rNorm = KrylovWorkspace.norm(r);
+                residualMonitor.addIterate(rNorm);
+            }
+
+            /**
+             * Allocate a basis vector on first use.
+             */
+            private double[] allocate(double[] v) {
+                return v != null ? v : new double[n];
+            }
+        };
+    }
+}
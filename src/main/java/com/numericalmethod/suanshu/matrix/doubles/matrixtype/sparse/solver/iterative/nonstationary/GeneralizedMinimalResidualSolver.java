@@ -26,22 +26,16 @@ import com.numericalmethod.suanshu.algorithm.iterative.monitor.IterationMonitor;
 import com.numericalmethod.suanshu.algorithm.iterative.monitor.NullMonitor;
 import com.numericalmethod.suanshu.algorithm.iterative.tolerance.Tolerance;
 import com.numericalmethod.suanshu.matrix.doubles.Matrix;
-import com.numericalmethod.suanshu.matrix.doubles.linearsystem.BackwardSubstitution;
 import com.numericalmethod.suanshu.matrix.doubles.linearsystem.LSProblem;
-import com.numericalmethod.suanshu.matrix.doubles.matrixtype.GivensMatrix;
-import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix;
-import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.triangle.UpperTriangularMatrix;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.ConvergenceFailure;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.ConvergenceFailure.Reason;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.IterativeLinearSystemSolver;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner.IdentityPreconditioner;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner.Preconditioner;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner.PreconditionerFactory;
-import com.numericalmethod.suanshu.matrix.doubles.operation.CreateMatrix;
-import com.numericalmethod.suanshu.matrix.doubles.operation.SubMatrixRef;
+import com.numericalmethod.suanshu.misc.SuanShuUtils;
 import com.numericalmethod.suanshu.vector.doubles.Vector;
 import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
-import static com.numericalmethod.suanshu.vector.doubles.dense.operation.CreateVector.subVector;
 import java.util.Arrays;
 
 /**
@@ -55,12 +49,22 @@ import java.util.Arrays;
  * a restarted version, computation and storage costs are limited by specifying a
  * fixed number of vectors to be generated.
  * <p/>
- * This implementation is a restarted version.
+ * This implementation is a restarted version, GMRES(<i>m</i>).
+ * The memory is bounded by <i>m + 3</i> vectors of the system dimension <i>n</i>,
+ * plus <i>O(m<sup>2</sup>)</i> for the Hessenberg matrix,
+ * no matter how many iterations are run.
+ * The basis vectors are allocated on first use, so a full GMRES
+ * ({@link #GeneralizedMinimalResidualSolver(int, Tolerance)}) grows its memory
+ * with the number of iterations, up to <i>n</i> vectors.
  * In addition, it uses a Givens rotation to transform the
  * intermediate Hessenberg matrix into an upper triangular matrix,
  * such that convergence can be determined as soon as the residual norm at each
  * sub-step is small enough.
+ * The residual norm at each restart can be recorded by
+ * {@link #solve(LSProblem, IterationMonitor, IterationMonitor)} for tuning <i>m</i>.
  * Only left preconditioning is supported.
+ * For a preconditioner that changes from one iteration to the next,
+ * use {@link FlexibleGeneralizedMinimalResidualSolver} instead.
  *
  * @author Ken Yiu
  * @see "Yousef Saad, "GMRES," in <i>Iterative Methods for Sparse Linear Systems</i>, 2nd ed. 2000, ch. 6, sec. 6.5, p. 157-172."
@@ -85,6 +89,8 @@ public class GeneralizedMinimalResidualSolver implements IterativeLinearSystemSo
      * @param tolerance                 the convergence threshold
      */
     public GeneralizedMinimalResidualSolver(PreconditionerFactory leftPreconditionerFactory, int m, int maxIteration, Tolerance tolerance) {
+        SuanShuUtils.assertArgument(m > 0, "m must be positive");
+
         this.leftPreconditionerFactory = leftPreconditionerFactory;
         this.m0 = m;
         this.maxIteration0 = maxIteration;
@@ -129,21 +135,38 @@ public class GeneralizedMinimalResidualSolver implements IterativeLinearSystemSo
     }
 
     @Override
-    public IterativeLinearSystemSolver.Solution solve(final LSProblem problem, final IterationMonitor<Vector> monitor) throws ConvergenceFailure {
+    public IterativeLinearSystemSolver.Solution solve(LSProblem problem, IterationMonitor<Vector> monitor) throws ConvergenceFailure {
+        return solve(problem, monitor, new NullMonitor<Double>());
+    }
+
+    /**
+     * Solves iteratively <i>Ax = b</i>, recording the residual norms at the restarts.
+     *
+     * @param problem         a system of linear equations
+     * @param monitor         an iteration monitor
+     * @param residualMonitor records the norm of the preconditioned residual, <i>||M<sup>-1</sup>(b - Ax)||</i>,
+     *                        for the initial guess and at the end of every restart cycle
+     * @return an (approximate) solution to the linear problem
+     * @throws ConvergenceFailure if the algorithm fails to converge
+     */
+    public IterativeLinearSystemSolver.Solution solve(final LSProblem problem, final IterationMonitor<Vector> monitor, final IterationMonitor<Double> residualMonitor) throws ConvergenceFailure {
         return new IterativeLinearSystemSolver.Solution() {
 
             private final Matrix A = problem.A();
             private final Vector b = problem.b();
-            private final int maxIteration = (m0 >= problem.A().nCols())
-                                             ? Math.min(maxIteration0, problem.A().nCols()) // full: guaranteed to converge in n iterations
+            private final int n = A.nCols();
+            private final int maxIteration = (m0 >= n)
+                                             ? Math.min(maxIteration0, n) // full: guaranteed to converge in n iterations
                                              : maxIteration0; // restarted
             private final Preconditioner M = leftPreconditionerFactory.newInstance(A);
-            private final int m = Math.min(m0, A.nCols()); // use restart or full version
-            private Vector[] V = new Vector[m + 1]; // basis from Krylov subspace {v, A*v, A^2*v, ..., A^m*v}
-            private Matrix H = new DenseMatrix(m + 1, m).ZERO(); // upper Hessenberg matrix
-            private GivensMatrix[] Gs = new GivensMatrix[m]; // for Givens rotations
+            private final int m = Math.min(m0, n); // use restart or full version
+            private final double[][] V = new double[m][]; // basis from Krylov subspace {v, A*v, A^2*v, ..., A^(m-1)*v}
+            private final HessenbergLeastSquares H = new HessenbergLeastSquares(m); // upper Hessenberg matrix
+            private final double[] h = new double[m + 1]; // a column of H
+            private final double[] w = new double[n];
+            private final double[] Av = new double[n];
             private Vector x; // initial guess
-            private Vector r; // residual
+            private double[] r; // preconditioned residual
             private double rNorm; // residual norm
             private boolean isConverged;
             private int count = 0;
@@ -151,76 +174,57 @@ public class GeneralizedMinimalResidualSolver implements IterativeLinearSystemSo
             @Override
             public void setInitials(Vector... initials) {
                 x = initials[0];
-                r = b.minus(A.multiply(x));
-                r = M.solve(r); // preconditioning
-                rNorm = r.norm();
+                residual();
                 isConverged = tolerance.isResidualSmall(rNorm);
             }
 
             @Override
             public IterationMonitor<Vector> step() throws ConvergenceFailure {
-                V[0] = r.scaled(1. / rNorm); // normalize residual as the first basis in V
-                Vector s = new DenseVector(m + 1, 0.);
-                s.set(1, rNorm);
-
-                int i = 1;
-                for (; i <= m && count < maxIteration && !isConverged;
-                        ++i, ++count, isConverged = tolerance.isResidualSmall(rNorm)) { // inner iterations; restart every m iterations
+                V[0] = allocate(V[0]);
+                for (int k = 0; k < n; ++k) {
+                    V[0][k] = r[k] / rNorm; // normalize residual as the first basis in V
+                }
+                H.reset(rNorm);
 
+                for (int i = 0; i < m && count < maxIteration && !isConverged;) { // inner iterations; restart every m iterations
                     monitor.addIterate(x); // Note: GMRES does not compute intermediate iterates
 
-                    Vector w = A.multiply(V[i - 1]);
-                    w = M.solve(w); // preconditioning
-
-                    Vector Hi = new DenseVector(m + 1, 0.); // construct the i-th column of H
-                    for (int k = 1; k <= i; ++k) { // Arnoldi's iteration
-                        double Hki = w.innerProduct(V[k - 1]);
-                        Hi.set(k, Hki);
-                        w = w.minus(V[k - 1].scaled(Hki));
-                    }
-
-                    double wNorm = w.norm();
-                    Hi.set(i + 1, wNorm);
-                    if (Double.compare(wNorm, 0.) != 0) {
-                        V[i] = w.scaled(1. / wNorm); // normalize the new basis in V
-                    }
+                    KrylovWorkspace.multiply(A, V[i], Av);
+                    KrylovWorkspace.precondition(M, Av, w); // preconditioning
 
-                    // apply previous Givens rotations to the new column
-                    for (int k = 1; k <= i - 1; ++k) {
-                        Hi = Gs[k - 1].multiply(Hi);
+                    for (int k = 0; k <= i; ++k) { // Arnoldi's iteration
+                        h[k] = KrylovWorkspace.dot(w, V[k]);
+                        KrylovWorkspace.axpy(-h[k], V[k], w);
                     }
 
-                    // generate the i-th rotation
-                    Gs[i - 1] = GivensMatrix.CtorToRotateRows(m + 1, i, i + 1, Hi.get(i), Hi.get(i + 1));
+                    double wNorm = KrylovWorkspace.norm(w);
+                    h[i + 1] = wNorm;
+                    rNorm = H.add(h); // the residual norm after the Givens rotations
 
-                    // apply the rotation to the right-hand side s
-                    s = Gs[i - 1].multiply(s);
+                    ++i;
+                    ++count;
+                    isConverged = tolerance.isResidualSmall(rNorm);
 
-                    // apply the rotation to the new column of the Hessenberg matrix H
-                    Hi = Gs[i - 1].multiply(Hi); // zero out H(i + 1, i) after rotation
-
-                    for (int k = 1; k <= i; ++k) { // assign the new rotated column to H
-                        H.set(k, i, Hi.get(k));
+                    if (Double.compare(wNorm, 0.) == 0) {
+                        break; // the Krylov subspace is invariant, so the update is exact
+                    }
+                    if (i < m) {
+                        V[i] = allocate(V[i]);
+                        for (int k = 0; k < n; ++k) {
+                            V[i][k] = w[k] / wNorm; // normalize the new basis in V
+                        }
                     }
-
-                    rNorm = Math.abs(s.get(i + 1)); // s(i + 1) is the residual norm
-
                 }
 
-                i--; // undo the last increment in the for-loop
-                Vector sTrunc = subVector(s, 1, i); // truncate s as the right-hand side
-                UpperTriangularMatrix utmH = new UpperTriangularMatrix(new SubMatrixRef(H, 1, i, 1, i)); // truncate H as a triangular system
-
                 // solve for the minimizer y (the linear combination of the basis to approximate x)
-                Vector y = new BackwardSubstitution().solve(utmH, sTrunc);
-                x = x.add(CreateMatrix.cbind(Arrays.copyOf(V, i)).multiply(y)); // xm = x0 + Vy
-
-                // compute residual
-                r = b.minus(A.multiply(x));
-                r = M.solve(r); // preconditioning
+                double[] y = H.solve();
+                Arrays.fill(w, 0.);
+                for (int k = 0; k < y.length; ++k) {
+                    KrylovWorkspace.axpy(y[k], V[k], w);
+                }
+                x = x.add(new DenseVector(w)); // xm = x0 + Vy
 
-                // residual norm
-                rNorm = r.norm();
+                residual();
 
                 return monitor;
             }
@@ -241,6 +245,22 @@ public class GeneralizedMinimalResidualSolver implements IterativeLinearSystemSo
 
                 return x;
             }
+
+            /**
+             * Compute the preconditioned residual and its norm.
+             */
+            private void residual() {
+                r = M.solve(b.minus(A.multiply(x))).toArray(); // preconditioning
+                rNorm = KrylovWorkspace.norm(r);
+                residualMonitor.addIterate(rNorm);
+            }
+
+            /**
+             * Allocate a basis vector on first use.
+             */
+            private double[] allocate(double[] v) {
+                return v != null ? v : new double[n];
+            }
         };
     }
 }
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.nonstationary;
+
+/**
+ * This is the least squares problem of GMRES,
+ * <blockquote><i>
+ * min<sub>y</sub> ||&beta;e<sub>1</sub> - H<sub>i</sub>y||
+ * </i></blockquote>
+ * where <i>H<sub>i</sub></i> is the <i>(i + 1) x i</i> upper Hessenberg matrix generated by the Arnoldi process.
+ * The columns of <i>H</i> are added one at a time and reduced to an upper triangular matrix by Givens rotations,
+ * so that the residual norm is known after every column.
+ * A column is allocated on first use and reused after a restart,
+ * so the storage is <i>O(i<sup>2</sup>)</i> for <i>i</i> columns, independent of the dimension of the system.
+ *
+ * @author Ken Yiu
+ */
+class HessenbergLeastSquares {
+
+    private final double[][] R; // the rotated columns of H; the k-th column has k + 1 entries
+    private final double[] cos; // the Givens rotations
+    private final double[] sin;
+    private final double[] g; // the rotated right hand side
+    private int size = 0;
+
+    /**
+     * Construct a least squares problem for at most <i>m</i> columns.
+     *
+     * @param m the maximum number of columns
+     */
+    HessenbergLeastSquares(int m) {
+        this.R = new double[m][];
+        this.cos = new double[m];
+        this.sin = new double[m];
+        this.g = new double[m + 1];
+    }
+
+    /**
+     * Start a new problem with no column.
+     *
+     * @param beta the norm of the initial residual
+     */
+    void reset(double beta) {
+        size = 0;
+        g[0] = beta;
+    }
+
+    /**
+     * Get the number of columns.
+     *
+     * @return the number of columns
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Add the next column of <i>H</i>.
+     *
+     * @param h the <i>i</i>-th column of <i>H</i> in the first <i>i + 1</i> entries; it is overwritten
+     * @return the residual norm of the least squares problem
+     */
+    double add(double[] h) {
+        final int i = size;
+
+        // apply the previous rotations to the new column
+        for (int k = 0; k < i; ++k) {
+            double t = cos[k] * h[k] + sin[k] * h[k + 1];
+            h[k + 1] = -sin[k] * h[k] + cos[k] * h[k + 1];
+            h[k] = t;
+        }
+
+        // generate the i-th rotation to zero out h[i + 1]
+        double rho = Math.hypot(h[i], h[i + 1]);
+        if (Double.compare(rho, 0.) == 0) {
+            cos[i] = 1.;
+            sin[i] = 0.;
+        } else {
+            cos[i] = h[i] / rho;
+            sin[i] = h[i + 1] / rho;
+        }
+        h[i] = rho;
+
+        // apply the rotation to the right hand side
+        g[i + 1] = -sin[i] * g[i];
+        g[i] = cos[i] * g[i];
+
+        if (R[i] == null) {
+            R[i] = new double[i + 1];
+        }
+        System.arraycopy(h, 0, R[i], 0, i + 1);
+        ++size;
+
+        return Math.abs(g[i + 1]);
+    }
+
+    /**
+     * Solve for the minimizer <i>y</i> by backward substitution.
+     *
+     * @return the minimizer
+     */
+    double[] solve() {
+        double[] y = new double[size];
+        for (int i = size - 1; i >= 0; --i) {
+            double sum = g[i];
+            for (int k = i + 1; k < size; ++k) {
+                sum -= R[k][i] * y[k];
+            }
+            y[i] = sum / R[i][i];
+        }
+        return y;
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.nonstationary;
+
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.CSRSparseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.SELLSparseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner.InPlacePreconditioner;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner.Preconditioner;
+import com.numericalmethod.suanshu.misc.SuanShuUtils;
+import com.numericalmethod.suanshu.parallel.LoopBody;
+import com.numericalmethod.suanshu.parallel.MultipleExecutionException;
+import com.numericalmethod.suanshu.parallel.ParallelExecutor;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+
+/**
+ * A workspace holds the Krylov vectors of an iterative solver as primitive arrays,
+ * so that a solver in the workspace mode creates no object per iteration.
+ * The arrays are allocated on first use and are reused by all subsequent solves of the same dimension,
+ * e.g., in a calibration loop that solves millions of small systems. For example,
+ * <blockquote><pre><code>
+ * ConjugateGradientSolver solver = new ConjugateGradientSolver(maxIteration, tolerance);
+ * KrylovWorkspace workspace = new KrylovWorkspace(n);
+ * double[] x = new double[n];
+ * for (...) {
+ *     // ... update A and b
+ *     Arrays.fill(x, 0.); // the initial guess
+ *     solver.solve(A, M, b, x, workspace); // x is overwritten by the solution
+ * }
+ * </code></pre></blockquote>
+ * <p/>
+ * No memory is allocated per iteration when
+ * <ul>
+ * <li>the coefficient matrix is a {@link CSRSparseMatrix} or a {@link SELLSparseMatrix}, and</li>
+ * <li>the preconditioner is an {@link InPlacePreconditioner}.</li>
+ * </ul>
+ * Otherwise, the matrix-vector multiplication or the preconditioning falls back
+ * to the {@link com.numericalmethod.suanshu.vector.doubles.Vector} operations.
+ * <p/>
+ * A workspace is not thread-safe. Use one workspace per thread.
+ *
+ * @author Ken Yiu
+ */
+public class KrylovWorkspace {
+
+    /**
+     * the minimum number of entries in a block of vectors to process the columns in parallel
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 15;
+
+    private final int n;
+    private final double[][] vectors;
+
+    /**
+     * Construct a workspace for systems of dimension <i>n</i>.
+     *
+     * @param n the dimension of the systems
+     */
+    public KrylovWorkspace(int n) {
+        SuanShuUtils.assertArgument(n > 0, "n must be positive");
+
+        this.n = n;
+        this.vectors = new double[11][];//the most used by a solver, i.e., QMR
+    }
+
+    /**
+     * Get the dimension of the systems that this workspace supports.
+     *
+     * @return the dimension
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Get a work vector. The vector is allocated on first use and keeps its values between calls.
+     *
+     * @param k the index of the work vector, counting from 0
+     * @return the <i>k</i>-th work vector
+     */
+    double[] vector(int k) {
+        if (vectors[k] == null) {
+            vectors[k] = new double[n];
+        }
+        return vectors[k];
+    }
+
+    /**
+     * Check that a system is compatible with this workspace.
+     *
+     * @param A a coefficient matrix
+     * @param b the right hand side
+     * @param x the initial guess
+     */
+    void check(Matrix A, double[] b, double[] x) {
+        SuanShuUtils.assertArgument(A.nRows() == n && A.nCols() == n, "A must be an n x n matrix where n is the workspace size");
+        SuanShuUtils.assertArgument(b.length == n && x.length == n, "b and x must have the workspace size");
+    }
+
+    /**
+     * Compute <i>y = Ax</i>.
+     *
+     * @param A a matrix
+     * @param x a vector
+     * @param y the output; it must not be {@code x}
+     */
+    static void multiply(Matrix A, double[] x, double[] y) {
+        if (A instanceof CSRSparseMatrix) {
+            ((CSRSparseMatrix) A).multiply(1., x, 0., y);
+        } else if (A instanceof SELLSparseMatrix) {
+            ((SELLSparseMatrix) A).multiply(1., x, 0., y);
+        } else {
+            System.arraycopy(A.multiply(new DenseVector(x)).toArray(), 0, y, 0, y.length);
+        }
+    }
+
+    /**
+     * Compute <i>Y = AX</i> for a block of vectors.
+     * A {@link CSRSparseMatrix} reads each non-zero once for all the vectors.
+     *
+     * @param A a matrix
+     * @param X the vectors, one array per column
+     * @param Y the outputs, one array per column; they must not be any of {@code X}
+     */
+    static void multiply(final Matrix A, final double[][] X, final double[][] Y) {
+        if (A instanceof CSRSparseMatrix) {
+            ((CSRSparseMatrix) A).multiply(1., X, 0., Y);
+        } else {
+            forEachColumn(X.length, A.nRows(), new LoopBody() {
+
+                @Override
+                public void run(int j) throws Exception {
+                    multiply(A, X[j], Y[j]);
+                }
+            });
+        }
+    }
+
+    /**
+     * Compute the residuals <i>R = B - AX</i> for a block of vectors.
+     *
+     * @param A a matrix
+     * @param B the right hand sides, one array per column
+     * @param X the vectors, one array per column
+     * @param R the outputs, one array per column; they must not be any of {@code X}
+     */
+    static void residual(Matrix A, double[][] B, double[][] X, double[][] R) {
+        multiply(A, X, R);
+        for (int j = 0; j < R.length; ++j) {
+            for (int i = 0; i < R[j].length; ++i) {
+                R[j][i] = B[j][i] - R[j][i];
+            }
+        }
+    }
+
+    /**
+     * Run a loop body for each column of a block of vectors,
+     * in parallel if the block is big enough.
+     * The body must not throw.
+     *
+     * @param nColumns the number of columns
+     * @param n        the dimension of the vectors
+     * @param body     the loop body, called with the column index counting from 0
+     */
+    static void forEachColumn(int nColumns, int n, LoopBody body) {
+        try {
+            ParallelExecutor.getSharedInstance().conditionalForLoop(
+                    nColumns > 1 && (long) nColumns * n >= PARALLEL_THRESHOLD,
+                    0, nColumns, body);
+        } catch (MultipleExecutionException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Compute the residual <i>r = b - Ax</i>.
+     *
+     * @param A a matrix
+     * @param b a vector
+     * @param x a vector
+     * @param r the output; it must not be {@code x}
+     */
+    static void residual(Matrix A, double[] b, double[] x, double[] r) {
+        multiply(A, x, r);
+        for (int i = 0; i < r.length; ++i) {
+            r[i] = b[i] - r[i];
+        }
+    }
+
+    /**
+     * Compute <i>y = M<sup>-1</sup>x</i>.
+     *
+     * @param M a preconditioner
+     * @param x a vector
+     * @param y the output; it must not be {@code x}
+     */
+    static void precondition(Preconditioner M, double[] x, double[] y) {
+        if (M instanceof InPlacePreconditioner) {
+            ((InPlacePreconditioner) M).solve(x, y);
+        } else {
+            System.arraycopy(M.solve(new DenseVector(x)).toArray(), 0, y, 0, y.length);
+        }
+    }
+
+    /**
+     * Compute <i>y = M<sup>-t</sup>x</i>.
+     *
+     * @param M a preconditioner
+     * @param x a vector
+     * @param y the output; it must not be {@code x}
+     */
+    static void transposePrecondition(Preconditioner M, double[] x, double[] y) {
+        if (M instanceof InPlacePreconditioner) {
+            ((InPlacePreconditioner) M).transposeSolve(x, y);
+        } else {
+            System.arraycopy(M.transposeSolve(new DenseVector(x)).toArray(), 0, y, 0, y.length);
+        }
+    }
+
+    /**
+     * Compute <i>y = y + a * x</i>.
+     */
+    static void axpy(double a, double[] x, double[] y) {
+        for (int i = 0; i < y.length; ++i) {
+            y[i] += a * x[i];
+        }
+    }
+
+    /**
+     * Compute <i>y = x + a * y</i>.
+     */
+    static void xpay(double[] x, double a, double[] y) {
+        for (int i = 0; i < y.length; ++i) {
+            y[i] = x[i] + a * y[i];
+        }
+    }
+
+    /**
+     * Compute the inner product <i>&lt;x, y&gt;</i>.
+     */
+    static double dot(double[] x, double[] y) {
+        double sum = 0;
+        for (int i = 0; i < x.length; ++i) {
+            sum += x[i] * y[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Compute the 2-norm of <i>x</i>.
+     */
+    static double norm(double[] x) {
+        return Math.sqrt(dot(x, x));
+    }
+}
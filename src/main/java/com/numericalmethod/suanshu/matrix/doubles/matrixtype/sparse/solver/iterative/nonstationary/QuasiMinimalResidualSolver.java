@@ -34,8 +34,10 @@ import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.itera
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner.IdentityPreconditioner;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner.Preconditioner;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner.PreconditionerFactory;
+import com.numericalmethod.suanshu.misc.SuanShuUtils;
 import com.numericalmethod.suanshu.vector.doubles.Vector;
 import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+import java.util.Arrays;
 import static java.lang.Math.abs;
 import static java.lang.Math.sqrt;
 
@@ -51,6 +53,14 @@ import static java.lang.Math.sqrt;
  * <p/>
  * This implementation does not have a look ahead mechanism.
  * This implementation uses the split preconditioning (<i>M = M<sub>1</sub>M<sub>2</sub></i>).
+ * <p/>
+ * For solving many systems of the same dimension, the workspace mode
+ * {@link #solve(Matrix, Preconditioner, Preconditioner, double[], double[], KrylovWorkspace)}
+ * works on primitive arrays and creates no object per iteration.
+ * For solving many systems with the same coefficient matrix, the caller can also compute
+ * the transpose and the preconditioners once and pass them to
+ * {@link #solve(Matrix, Matrix, Preconditioner, Preconditioner, double[], double[], KrylovWorkspace)},
+ * so that no object is created per solve either.
  *
  * @author Ken Yiu
  * @see "Yousef Saad, "Quasi-Minimal Residual Algorithm," in <i>Iterative Methods for Sparse Linear Systems</i>, 2nd ed. 2000, ch. 7, sec. 7.3.2, p. 211-212."
@@ -120,6 +130,185 @@ public class QuasiMinimalResidualSolver implements IterativeLinearSystemSolver {
         return new Solution2(problem, monitor);
     }
 
+    /**
+     * Solve <i>Ax = b</i> in the workspace mode, using the preconditioners constructed by the factories of this solver.
+     * The preconditioners and the transpose of <i>A</i> are constructed on each call;
+     * only the iterations are free of allocation.
+     *
+     * @param A         a coefficient matrix
+     * @param b         the right hand side
+     * @param x         the initial guess, overwritten by the solution
+     * @param workspace a workspace of the dimension of <i>A</i>
+     * @return the number of iterations
+     * @throws ConvergenceFailure if the algorithm fails to converge
+     * @see #solve(Matrix, Preconditioner, Preconditioner, double[], double[], KrylovWorkspace)
+     */
+    public int solve(Matrix A, double[] b, double[] x, KrylovWorkspace workspace) throws ConvergenceFailure {
+        return solve(A, leftPreconditionerFactory.newInstance(A), rightPreconditionerFactory.newInstance(A), b, x, workspace);
+    }
+
+    /**
+     * Solve <i>Ax = b</i> in the workspace mode.
+     * All the Krylov vectors are taken from the workspace, and the vector operations
+     * are fused loops on the arrays, so no object is created per iteration
+     * if <i>A</i>, <i>M<sub>1</sub></i> and <i>M<sub>2</sub></i> support the in-place operations (see {@link KrylovWorkspace}).
+     * The transpose of <i>A</i> is computed on each call.
+     * The iterations are the same as those of {@link #solve(LSProblem, IterationMonitor)}.
+     *
+     * @param A         a coefficient matrix
+     * @param M1        the left preconditioner
+     * @param M2        the right preconditioner
+     * @param b         the right hand side
+     * @param x         the initial guess, overwritten by the solution
+     * @param workspace a workspace of the dimension of <i>A</i>
+     * @return the number of iterations
+     * @throws ConvergenceFailure if the algorithm fails to converge
+     * @see #solve(Matrix, Matrix, Preconditioner, Preconditioner, double[], double[], KrylovWorkspace)
+     */
+    public int solve(Matrix A, Preconditioner M1, Preconditioner M2, double[] b, double[] x, KrylovWorkspace workspace) throws ConvergenceFailure {
+        return solve(A, A.t(), M1, M2, b, x, workspace);
+    }
+
+    /**
+     * Solve <i>Ax = b</i> in the workspace mode, given the transpose of <i>A</i>.
+     * This creates no object if <i>A</i>, <i>A<sup>t</sup></i>, <i>M<sub>1</sub></i> and <i>M<sub>2</sub></i>
+     * support the in-place operations (see {@link KrylovWorkspace}),
+     * so the same transpose and preconditioners can be reused to solve many systems.
+     *
+     * @param A         a coefficient matrix
+     * @param At        the transpose of <i>A</i>
+     * @param M1        the left preconditioner
+     * @param M2        the right preconditioner
+     * @param b         the right hand side
+     * @param x         the initial guess, overwritten by the solution
+     * @param workspace a workspace of the dimension of <i>A</i>
+     * @return the number of iterations
+     * @throws ConvergenceFailure if the algorithm fails to converge
+     */
+    public int solve(Matrix A, Matrix At, Preconditioner M1, Preconditioner M2, double[] b, double[] x, KrylovWorkspace workspace) throws ConvergenceFailure {
+        workspace.check(A, b, x);
+        SuanShuUtils.assertArgument(At.nRows() == A.nCols() && At.nCols() == A.nRows(), "At must be the transpose of A");
+
+        final int maxIteration = Math.min(maxIteration0, A.nCols());
+        final double[] r = workspace.vector(0); // residual
+        final double[] v = workspace.vector(1); // vTilde, scaled in place to v
+        final double[] y = workspace.vector(2);
+        final double[] w = workspace.vector(3); // wTilde, scaled in place to w
+        final double[] z = workspace.vector(4);
+        final double[] p = workspace.vector(5);
+        final double[] q = workspace.vector(6);
+        final double[] d = workspace.vector(7);
+        final double[] s = workspace.vector(8);
+        final double[] pTilde = workspace.vector(9);
+        final double[] t = workspace.vector(10); // yTilde, zTilde and the transpose product in turn
+
+        KrylovWorkspace.residual(A, b, x, r);
+        System.arraycopy(r, 0, v, 0, r.length);
+        KrylovWorkspace.precondition(M1, v, y);
+        double rho = KrylovWorkspace.norm(y);
+        System.arraycopy(r, 0, w, 0, r.length);
+        KrylovWorkspace.transposePrecondition(M2, w, z);
+        double xi = KrylovWorkspace.norm(z);
+        Arrays.fill(p, 0.);
+        Arrays.fill(q, 0.);
+        Arrays.fill(d, 0.);
+        Arrays.fill(s, 0.);
+        double gamma = 1.;
+        double eta = -1.;
+        double epsilon = 1.;
+        double theta = 0.;
+
+        int count = 0;
+        for (boolean isConverged = tolerance.isResidualSmall(KrylovWorkspace.norm(r));
+                !isConverged; ++count, isConverged = tolerance.isResidualSmall(KrylovWorkspace.norm(r))) {
+            if (count >= maxIteration) {
+                throw new ConvergenceFailure(Reason.MAX_ITERATIONS_EXCEEDED, maxIteration + " iterations exceeded");
+            }
+
+            // two-sided Lanczos algorithm
+            if (Double.compare(rho, 0.) == 0) {
+                throw new ConvergenceFailure(Reason.BREAKDOWN, "rho = 0");
+            }
+            if (Double.compare(xi, 0.) == 0) {
+                throw new ConvergenceFailure(Reason.BREAKDOWN, "xi = 0");
+            }
+            scale(1. / rho, v);
+            scale(1. / rho, y);
+            scale(1. / xi, w);
+            scale(1. / xi, z);
+
+            double delta = KrylovWorkspace.dot(z, y);
+            if (Double.compare(delta, 0.) == 0) {
+                throw new ConvergenceFailure(Reason.BREAKDOWN, "delta = 0");
+            }
+
+            KrylovWorkspace.precondition(M2, y, t);
+            KrylovWorkspace.xpay(t, -xi * delta / epsilon, p);
+            KrylovWorkspace.transposePrecondition(M1, z, t);
+            KrylovWorkspace.xpay(t, -rho * delta / epsilon, q);
+
+            KrylovWorkspace.multiply(A, p, pTilde);
+            epsilon = KrylovWorkspace.dot(q, pTilde);
+            if (Double.compare(epsilon, 0.) == 0) {
+                throw new ConvergenceFailure(Reason.BREAKDOWN, "epsilon = 0");
+            }
+
+            double beta = epsilon / delta;
+            if (Double.compare(beta, 0.) == 0) {
+                throw new ConvergenceFailure(Reason.BREAKDOWN, "beta = 0");
+            }
+
+            KrylovWorkspace.xpay(pTilde, -beta, v);
+            KrylovWorkspace.precondition(M1, v, y);
+            double rho1 = KrylovWorkspace.norm(y);
+
+            KrylovWorkspace.multiply(At, q, t);
+            KrylovWorkspace.xpay(t, -beta, w);
+            KrylovWorkspace.transposePrecondition(M2, w, z);
+            xi = KrylovWorkspace.norm(z);
+
+            // compute Givens rotation to zero out T(k + 1, k)
+            double theta1 = rho1 / (gamma * abs(beta));
+            double gamma1 = 1. / sqrt(1 + theta1 * theta1);
+            if (Double.compare(gamma1, 0.) == 0) {
+                throw new ConvergenceFailure(Reason.BREAKDOWN, "gamma = 0");
+            }
+
+            eta = -eta * rho * gamma1 * gamma1 / (beta * gamma * gamma);
+
+            double thetagammasquared = theta * gamma1;
+            thetagammasquared *= thetagammasquared;
+            for (int i = 0; i < d.length; ++i) {
+                d[i] = eta * p[i] + thetagammasquared * d[i];
+                s[i] = eta * pTilde[i] + thetagammasquared * s[i];
+            }
+
+            // compute x and r
+            KrylovWorkspace.axpy(1., d, x);
+            if ((count + 1) % residualRefreshRate != 0) {
+                KrylovWorkspace.axpy(-1., s, r);
+            } else {
+                KrylovWorkspace.residual(A, b, x, r);
+            }
+
+            // shift variables
+            rho = rho1;
+            theta = theta1;
+            gamma = gamma1;
+        }
+
+        return count;
+    }
+
+    /**
+     * Compute <i>x = a * x</i>.
+     */
+    private static void scale(double a, double[] x) {
+        for (int i = 0; i < x.length; ++i) {
+            x[i] *= a;
+        }
+    }
+
     //<editor-fold defaultstate="collapsed" desc="Solution1">    
     /*
      * This implementation is due to
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner;
+
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.CSRSparseMatrix;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+
+/**
+ * The IC(0) preconditioner is an incomplete Cholesky factorization
+ * <i>M = LL<sup>t</sup></i> of a symmetric positive definite coefficient matrix
+ * <i>A</i>, such that <i>L</i> has the same sparsity pattern as the lower
+ * triangular part of <i>A</i>. No fill-in is allowed.
+ * It is the preconditioner of choice for {@link com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.nonstationary.ConjugateGradientSolver}
+ * as <i>M</i> is symmetric positive definite whenever the factorization exists,
+ * e.g., when <i>A</i> is an M-matrix.
+ * <p/>
+ * Only the lower triangular part of <i>A</i> is read.
+ * The factorization works directly on the compressed row arrays of
+ * a {@link CSRSparseMatrix}. Other matrices are converted first.
+ *
+ * @author Ken Yiu
+ * @see
+ * <ul>
+ * <li>"Yousef Saad, "Section 10.3.3, Level of Fill and ILU(p)," <i>Iterative Methods for Sparse Linear Systems</i>, 2nd ed., SIAM, 2003."</li>
+ * <li><a href="http://en.wikipedia.org/wiki/Incomplete_Cholesky_factorization">Wikipedia: Incomplete Cholesky factorization</a></li>
+ * </ul>
+ */
+public class IC0Preconditioner implements InPlacePreconditioner {
+
+    /**
+     * This factory constructs an {@link IC0Preconditioner} for a coefficient matrix.
+     */
+    public static class Factory implements PreconditionerFactory {
+
+        @Override
+        public Preconditioner newInstance(Matrix A) {
+            return new IC0Preconditioner(A);
+        }
+    }
+
+    private final int n;
+    // L in compressed row format, the diagonal entry is the last of each row; the column indices count from 0
+    private final int[] ptr;
+    private final int[] col;
+    private final double[] val;
+
+    /**
+     * Construct an IC(0) preconditioner.
+     *
+     * @param A a symmetric positive definite coefficient matrix
+     * @throws IllegalArgumentException if a diagonal entry is missing or the factorization breaks down
+     */
+    public IC0Preconditioner(Matrix A) {
+        CSRSparseMatrix csr = IncompleteLUFactor.toCSR(A);
+        this.n = csr.nRows();
+        final int[] aPtr = csr.rowPointers();
+        final int[] aCol = csr.columnIndices();
+        final double[] aVal = csr.values();
+
+        // extract the lower triangular part
+        ptr = new int[n + 1];
+        for (int i = 0; i < n; ++i) {
+            int count = 0;
+            for (int k = aPtr[i]; k < aPtr[i + 1] && aCol[k] <= i + 1; ++k) {
+                ++count;
+            }
+            ptr[i + 1] = ptr[i] + count;
+        }
+        col = new int[ptr[n]];
+        val = new double[ptr[n]];
+        for (int i = 0; i < n; ++i) {
+            int last = ptr[i + 1] - 1;
+            if (last < ptr[i] || aCol[aPtr[i] + last - ptr[i]] != i + 1) {
+                throw new IllegalArgumentException("diagonal entries must be non-zero");
+            }
+            for (int k = ptr[i]; k <= last; ++k) {
+                col[k] = aCol[aPtr[i] + k - ptr[i]] - 1;
+                val[k] = aVal[aPtr[i] + k - ptr[i]];
+            }
+        }
+
+        // l_ij = (a_ij - sum_{m < j} l_im * l_jm) / l_jj, row by row in increasing order of j
+        for (int i = 0; i < n; ++i) {
+            for (int k = ptr[i]; k < ptr[i + 1]; ++k) {
+                int j = col[k];
+                double s = val[k];
+                int p1 = ptr[i], p2 = ptr[j];
+                final int end2 = ptr[j + 1] - 1; // excluding l_jj
+                while (p1 < k && p2 < end2) {// sparse dot product of the computed parts of rows i and j
+                    if (col[p1] == col[p2]) {
+                        s -= val[p1++] * val[p2++];
+                    } else if (col[p1] < col[p2]) {
+                        ++p1;
+                    } else {
+                        ++p2;
+                    }
+                }
+
+                if (j < i) {
+                    val[k] = s / val[end2];
+                } else {
+                    if (!(s > 0.)) {
+                        throw new IllegalArgumentException(String.format("IC(0) breaks down at row %d", i + 1));
+                    }
+                    val[k] = Math.sqrt(s);
+                }
+            }
+        }
+    }
+
+    /**
+     * Solve <i>LL<sup>t</sup>v = x</i>.
+     *
+     * @param x a vector
+     * @return <i>M<sup>-1</sup>x</i>
+     */
+    @Override
+    public Vector solve(Vector x) {
+        double[] v = new double[n];
+        IncompleteLUFactor.copy(x, v);
+        solve(v, v);
+        return new DenseVector(v);
+    }
+
+    /**
+     * Solve <i>LL<sup>t</sup>y = x</i> without allocating any memory.
+     *
+     * @param x a vector
+     * @param y the output <i>M<sup>-1</sup>x</i>; can be the same array as {@code x}
+     */
+    @Override
+    public void solve(double[] x, double[] y) {
+        if (x != y) {
+            System.arraycopy(x, 0, y, 0, n);
+        }
+
+        for (int i = 0; i < n; ++i) {// Lz = x
+            final int last = ptr[i + 1] - 1;
+            double yi = y[i];
+            for (int k = ptr[i]; k < last; ++k) {
+                yi -= val[k] * y[col[k]];
+            }
+            y[i] = yi / val[last];
+        }
+
+        for (int i = n - 1; i >= 0; --i) {// L'y = z, column-wise
+            final int last = ptr[i + 1] - 1;
+            double yi = y[i] / val[last];
+            y[i] = yi;
+            for (int k = ptr[i]; k < last; ++k) {
+                y[col[k]] -= val[k] * yi;
+            }
+        }
+    }
+
+    /**
+     * <i>M<sup>t</sup> = M</i> as <i>M</i> is symmetric.
+     *
+     * @param x a vector
+     * @return {@code solve(x)}
+     */
+    @Override
+    public Vector transposeSolve(Vector x) {
+        return solve(x);
+    }
+
+    /**
+     * <i>M<sup>t</sup> = M</i> as <i>M</i> is symmetric.
+     *
+     * @param x a vector
+     * @param y the output <i>M<sup>-t</sup>x</i>; can be the same array as {@code x}
+     */
+    @Override
+    public void transposeSolve(double[] x, double[] y) {
+        solve(x, y);
+    }
+}
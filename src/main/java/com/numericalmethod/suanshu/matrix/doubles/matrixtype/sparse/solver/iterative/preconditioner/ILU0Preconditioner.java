@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner;
+
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.CSRSparseMatrix;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+import java.util.Arrays;
+
+/**
+ * The ILU(0) preconditioner is an incomplete LU factorization <i>M = LU</i>
+ * of the coefficient matrix <i>A</i>, such that <i>L</i> and <i>U</i>
+ * have the same sparsity pattern as the lower and upper parts of <i>A</i>.
+ * No fill-in is allowed, so the factors take the same memory as <i>A</i>.
+ * <p/>
+ * The factorization works directly on the compressed row arrays of
+ * a {@link CSRSparseMatrix}. Other matrices are converted first.
+ * The diagonal entries of <i>A</i> must be non-zero.
+ *
+ * @author Ken Yiu
+ * @see
+ * <ul>
+ * <li>"Yousef Saad, "Section 10.3.2, Zero Fill-in ILU (ILU(0))," <i>Iterative Methods for Sparse Linear Systems</i>, 2nd ed., SIAM, 2003."</li>
+ * <li><a href="http://en.wikipedia.org/wiki/Incomplete_LU_factorization">Wikipedia: Incomplete LU factorization</a></li>
+ * </ul>
+ */
+public class ILU0Preconditioner implements InPlacePreconditioner {
+
+    /**
+     * This factory constructs an {@link ILU0Preconditioner} for a coefficient matrix.
+     */
+    public static class Factory implements PreconditionerFactory {
+
+        @Override
+        public Preconditioner newInstance(Matrix A) {
+            return new ILU0Preconditioner(A);
+        }
+    }
+
+    private final IncompleteLUFactor LU;
+
+    /**
+     * Construct an ILU(0) preconditioner.
+     *
+     * @param A a square coefficient matrix
+     * @throws IllegalArgumentException if a diagonal entry is missing or a zero pivot is encountered
+     */
+    public ILU0Preconditioner(Matrix A) {
+        CSRSparseMatrix csr = IncompleteLUFactor.toCSR(A);
+        final int n = csr.nRows();
+        final int[] ptr = csr.rowPointers();
+        final int nnz = ptr[n];
+        final int[] col = csr.columnIndices(); // copies, factorized in place
+        final double[] val = csr.values();
+        for (int k = 0; k < nnz; ++k) {
+            --col[k]; // count from 0
+        }
+
+        int[] diagPos = new int[n];
+        for (int i = 0; i < n; ++i) {
+            diagPos[i] = Arrays.binarySearch(col, ptr[i], ptr[i + 1], i);
+            if (diagPos[i] < 0) {
+                throw new IllegalArgumentException("diagonal entries must be non-zero");
+            }
+        }
+
+        int[] iw = new int[n]; // the position of column j in the current row, or -1
+        Arrays.fill(iw, -1);
+        for (int i = 0; i < n; ++i) {
+            for (int k = ptr[i]; k < ptr[i + 1]; ++k) {
+                iw[col[k]] = k;
+            }
+
+            for (int k = ptr[i]; k < diagPos[i]; ++k) {// eliminate a_ij, j < i, in increasing order of j
+                int j = col[k];
+                double lij = val[k] / val[diagPos[j]];
+                val[k] = lij;
+                for (int kk = diagPos[j] + 1; kk < ptr[j + 1]; ++kk) {
+                    int pos = iw[col[kk]];
+                    if (pos >= 0) {// drop the fill-ins outside the pattern
+                        val[pos] -= lij * val[kk];
+                    }
+                }
+            }
+
+            if (val[diagPos[i]] == 0.) {
+                throw new IllegalArgumentException(String.format("zero pivot at row %d", i + 1));
+            }
+
+            for (int k = ptr[i]; k < ptr[i + 1]; ++k) {
+                iw[col[k]] = -1;
+            }
+        }
+
+        LU = IncompleteLUFactor.split(n, ptr, col, val, diagPos);
+    }
+
+    /**
+     * Solve <i>LUv = x</i>.
+     *
+     * @param x a vector
+     * @return <i>M<sup>-1</sup>x</i>
+     */
+    @Override
+    public Vector solve(Vector x) {
+        double[] v = new double[LU.size()];
+        IncompleteLUFactor.copy(x, v);
+        LU.solve(v, v);
+        return new DenseVector(v);
+    }
+
+    /**
+     * Solve <i>LUy = x</i> without allocating any memory.
+     *
+     * @param x a vector
+     * @param y the output <i>M<sup>-1</sup>x</i>; can be the same array as {@code x}
+     */
+    @Override
+    public void solve(double[] x, double[] y) {
+        LU.solve(x, y);
+    }
+
+    /**
+     * Solve <i>(LU)<sup>t</sup>v = x</i>.
+     *
+     * @param x a vector
+     * @return <i>M<sup>-t</sup>x</i>
+     */
+    @Override
+    public Vector transposeSolve(Vector x) {
+        double[] v = new double[LU.size()];
+        IncompleteLUFactor.copy(x, v);
+        LU.transposeSolve(v, v);
+        return new DenseVector(v);
+    }
+
+    /**
+     * Solve <i>(LU)<sup>t</sup>y = x</i> without allocating any memory.
+     *
+     * @param x a vector
+     * @param y the output <i>M<sup>-t</sup>x</i>; can be the same array as {@code x}
+     */
+    @Override
+    public void transposeSolve(double[] x, double[] y) {
+        LU.transposeSolve(x, y);
+    }
+}
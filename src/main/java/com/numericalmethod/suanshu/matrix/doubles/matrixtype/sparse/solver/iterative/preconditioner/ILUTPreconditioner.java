@@ -0,0 +1,373 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner;
+
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.CSRSparseMatrix;
+import com.numericalmethod.suanshu.misc.SuanShuUtils;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+import java.util.Arrays;
+
+/**
+ * The ILUT preconditioner is an incomplete LU factorization <i>M = LU</i>
+ * with a dual threshold dropping strategy. Fill-ins are allowed, but
+ * during the elimination of row <i>i</i>,
+ * <ol>
+ * <li>an entry is dropped if its magnitude is less than <i>&tau;</i> times
+ * the 2-norm of row <i>i</i> of <i>A</i>;</li>
+ * <li>at most <i>p</i> entries of the largest magnitudes are kept in each of
+ * the lower and upper parts of the row, in addition to the diagonal.</li>
+ * </ol>
+ * With <i>&tau; = 0</i> and <i>p &ge; n</i>, the factorization is the complete LU
+ * factorization without pivoting. Larger <i>p</i> and smaller <i>&tau;</i> give
+ * a more accurate preconditioner at the cost of memory and set-up time.
+ * <p/>
+ * The factorization works directly on the compressed row arrays of
+ * a {@link CSRSparseMatrix}. Other matrices are converted first.
+ * A zero pivot is replaced by <i>(10<sup>-4</sup> + &tau;)</i> times the row norm.
+ *
+ * @author Ken Yiu
+ * @see
+ * <ul>
+ * <li>"Yousef Saad, "Section 10.4.3, The ILUT Approach," <i>Iterative Methods for Sparse Linear Systems</i>, 2nd ed., SIAM, 2003."</li>
+ * <li>"Yousef Saad, "ILUT: A dual threshold incomplete LU factorization," <i>Numerical Linear Algebra with Applications</i>, 1(4), 387-402, 1994."</li>
+ * </ul>
+ */
+public class ILUTPreconditioner implements InPlacePreconditioner {
+
+    /**
+     * This factory constructs an {@link ILUTPreconditioner} for a coefficient matrix.
+     */
+    public static class Factory implements PreconditionerFactory {
+
+        private final double tau;
+        private final int p;
+
+        /**
+         * Construct a factory of ILUT preconditioners.
+         *
+         * @param tau the relative drop tolerance
+         * @param p   the maximum number of fill-ins in each of <i>L</i> and <i>U</i> per row
+         */
+        public Factory(double tau, int p) {
+            this.tau = tau;
+            this.p = p;
+        }
+
+        @Override
+        public Preconditioner newInstance(Matrix A) {
+            return new ILUTPreconditioner(A, tau, p);
+        }
+    }
+
+    private final IncompleteLUFactor LU;
+
+    /**
+     * Construct an ILUT preconditioner.
+     *
+     * @param A   a square coefficient matrix
+     * @param tau the relative drop tolerance
+     * @param p   the maximum number of fill-ins in each of <i>L</i> and <i>U</i> per row
+     * @throws IllegalArgumentException if <i>A</i> has a zero row
+     */
+    public ILUTPreconditioner(Matrix A, double tau, int p) {
+        SuanShuUtils.assertArgument(tau >= 0, "tau must be non-negative");
+        SuanShuUtils.assertArgument(p >= 0, "p must be non-negative");
+
+        CSRSparseMatrix csr = IncompleteLUFactor.toCSR(A);
+        final int n = csr.nRows();
+        final int[] ptr = csr.rowPointers();
+        final int[] col = csr.columnIndices();
+        final double[] val = csr.values();
+
+        // the factors grow row by row
+        int[] lPtr = new int[n + 1];
+        int[] lCol = new int[Math.max(ptr[n], 1)];
+        double[] lVal = new double[lCol.length];
+        int[] uPtr = new int[n + 1];
+        int[] uCol = new int[Math.max(ptr[n], 1)];
+        double[] uVal = new double[uCol.length];
+        double[] diag = new double[n];
+
+        // workspace for the current row
+        double[] w = new double[n];
+        boolean[] isNonZero = new boolean[n];
+        int[] nonZeros = new int[n]; // all the column indices with an entry in w
+        int[] lower = new int[n]; // the column indices of the kept entries of L
+        int[] upper = new int[n]; // the column indices of the entries of U
+        int[] heap = new int[n]; // the columns of L yet to eliminate
+
+        for (int i = 0; i < n; ++i) {
+            int nNonZeros = 0;
+            int nUpper = 0;
+            int heapSize = 0;
+            double norm = 0;
+
+            w[i] = 0;
+            isNonZero[i] = true;
+            nonZeros[nNonZeros++] = i;
+            for (int k = ptr[i]; k < ptr[i + 1]; ++k) {
+                int j = col[k] - 1;
+                w[j] = val[k];
+                norm += val[k] * val[k];
+                if (j == i) {
+                    continue;
+                }
+
+                isNonZero[j] = true;
+                nonZeros[nNonZeros++] = j;
+                if (j < i) {
+                    heapSize = push(heap, heapSize, j);
+                } else {
+                    upper[nUpper++] = j;
+                }
+            }
+
+            norm = Math.sqrt(norm);
+            if (norm == 0.) {
+                throw new IllegalArgumentException(String.format("row %d is zero", i + 1));
+            }
+            final double tol = tau * norm;
+
+            // eliminate the lower part in increasing order of column, including fill-ins
+            int nLower = 0;
+            while (heapSize > 0) {
+                int k = heap[0];
+                heapSize = pop(heap, heapSize);
+
+                double wk = w[k] / diag[k];
+                if (Math.abs(wk) < tol) {// the first dropping rule
+                    w[k] = 0;
+                    continue;
+                }
+
+                w[k] = wk;
+                lower[nLower++] = k;
+                for (int kk = uPtr[k]; kk < uPtr[k + 1]; ++kk) {
+                    int j = uCol[kk];
+                    w[j] -= wk * uVal[kk];
+                    if (!isNonZero[j]) {// a fill-in
+                        isNonZero[j] = true;
+                        nonZeros[nNonZeros++] = j;
+                        if (j < i) {
+                            heapSize = push(heap, heapSize, j);
+                        } else {
+                            upper[nUpper++] = j;
+                        }
+                    }
+                }
+            }
+
+            // the second dropping rule
+            nLower = largest(lower, nLower, p, w, 0.);
+            nUpper = largest(upper, nUpper, p, w, tol);
+            Arrays.sort(lower, 0, nLower);
+            Arrays.sort(upper, 0, nUpper);
+
+            if (lPtr[i] + nLower > lCol.length) {
+                lCol = Arrays.copyOf(lCol, Math.max(2 * lCol.length, lPtr[i] + nLower));
+                lVal = Arrays.copyOf(lVal, lCol.length);
+            }
+            for (int k = 0; k < nLower; ++k) {
+                lCol[lPtr[i] + k] = lower[k];
+                lVal[lPtr[i] + k] = w[lower[k]];
+            }
+            lPtr[i + 1] = lPtr[i] + nLower;
+
+            if (uPtr[i] + nUpper > uCol.length) {
+                uCol = Arrays.copyOf(uCol, Math.max(2 * uCol.length, uPtr[i] + nUpper));
+                uVal = Arrays.copyOf(uVal, uCol.length);
+            }
+            for (int k = 0; k < nUpper; ++k) {
+                uCol[uPtr[i] + k] = upper[k];
+                uVal[uPtr[i] + k] = w[upper[k]];
+            }
+            uPtr[i + 1] = uPtr[i] + nUpper;
+
+            diag[i] = w[i] != 0. ? w[i] : (1e-4 + tau) * norm;
+
+            for (int k = 0; k < nNonZeros; ++k) {// reset the workspace
+                w[nonZeros[k]] = 0;
+                isNonZero[nonZeros[k]] = false;
+            }
+        }
+
+        LU = new IncompleteLUFactor(
+                n,
+                lPtr, Arrays.copyOf(lCol, lPtr[n]), Arrays.copyOf(lVal, lPtr[n]),
+                uPtr, Arrays.copyOf(uCol, uPtr[n]), Arrays.copyOf(uVal, uPtr[n]),
+                diag);
+    }
+
+    /**
+     * Get the number of stored entries in the factors <i>L</i> and <i>U</i>,
+     * including the diagonal.
+     *
+     * @return the number of stored entries
+     */
+    public int nNonZeros() {
+        return LU.nNonZeros();
+    }
+
+    /**
+     * Solve <i>LUv = x</i>.
+     *
+     * @param x a vector
+     * @return <i>M<sup>-1</sup>x</i>
+     */
+    @Override
+    public Vector solve(Vector x) {
+        double[] v = new double[LU.size()];
+        IncompleteLUFactor.copy(x, v);
+        LU.solve(v, v);
+        return new DenseVector(v);
+    }
+
+    /**
+     * Solve <i>LUy = x</i> without allocating any memory.
+     *
+     * @param x a vector
+     * @param y the output <i>M<sup>-1</sup>x</i>; can be the same array as {@code x}
+     */
+    @Override
+    public void solve(double[] x, double[] y) {
+        LU.solve(x, y);
+    }
+
+    /**
+     * Solve <i>(LU)<sup>t</sup>v = x</i>.
+     *
+     * @param x a vector
+     * @return <i>M<sup>-t</sup>x</i>
+     */
+    @Override
+    public Vector transposeSolve(Vector x) {
+        double[] v = new double[LU.size()];
+        IncompleteLUFactor.copy(x, v);
+        LU.transposeSolve(v, v);
+        return new DenseVector(v);
+    }
+
+    /**
+     * Solve <i>(LU)<sup>t</sup>y = x</i> without allocating any memory.
+     *
+     * @param x a vector
+     * @param y the output <i>M<sup>-t</sup>x</i>; can be the same array as {@code x}
+     */
+    @Override
+    public void transposeSolve(double[] x, double[] y) {
+        LU.transposeSolve(x, y);
+    }
+
+    /**
+     * Move the (at most) {@code p} column indices with the largest entries
+     * in magnitude, that are also not smaller than {@code tol}, to the front.
+     *
+     * @return the number of indices kept
+     */
+    private static int largest(int[] idx, int size, int p, double[] w, double tol) {
+        int m = 0;
+        for (int k = 0; k < size; ++k) {// the first dropping rule
+            if (Math.abs(w[idx[k]]) >= tol) {
+                idx[m++] = idx[k];
+            }
+        }
+        if (m <= p) {
+            return m;
+        }
+
+        // quick select the p largest
+        int lo = 0, hi = m - 1;
+        while (lo < hi) {
+            double pivot = Math.abs(w[idx[(lo + hi) >>> 1]]);
+            int a = lo, b = hi;
+            while (a <= b) {
+                while (Math.abs(w[idx[a]]) > pivot) {
+                    ++a;
+                }
+                while (Math.abs(w[idx[b]]) < pivot) {
+                    --b;
+                }
+                if (a <= b) {
+                    int tmp = idx[a];
+                    idx[a++] = idx[b];
+                    idx[b--] = tmp;
+                }
+            }
+            if (p - 1 <= b) {
+                hi = b;
+            } else if (p - 1 >= a) {
+                lo = a;
+            } else {
+                break;
+            }
+        }
+        return p;
+    }
+
+    /**
+     * Push a column index onto a binary min-heap.
+     *
+     * @return the new heap size
+     */
+    private static int push(int[] heap, int size, int j) {
+        int k = size;
+        while (k > 0) {
+            int parent = (k - 1) >>> 1;
+            if (heap[parent] <= j) {
+                break;
+            }
+            heap[k] = heap[parent];
+            k = parent;
+        }
+        heap[k] = j;
+        return size + 1;
+    }
+
+    /**
+     * Remove the smallest column index from a binary min-heap.
+     *
+     * @return the new heap size
+     */
+    private static int pop(int[] heap, int size) {
+        int last = heap[--size];
+        int k = 0;
+        while (true) {
+            int child = 2 * k + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                ++child;
+            }
+            if (heap[child] >= last) {
+                break;
+            }
+            heap[k] = heap[child];
+            k = child;
+        }
+        heap[k] = last;
+        return size;
+    }
+}
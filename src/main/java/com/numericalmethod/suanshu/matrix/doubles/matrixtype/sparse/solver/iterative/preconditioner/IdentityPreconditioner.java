@@ -31,7 +31,7 @@ import com.numericalmethod.suanshu.vector.doubles.Vector;
  *
  * @author Ken Yiu
  */
-public class IdentityPreconditioner implements Preconditioner {
+public class IdentityPreconditioner implements InPlacePreconditioner {
 
     /**
      * Return the input vector <i>x</i>.
@@ -54,4 +54,26 @@ public class IdentityPreconditioner implements Preconditioner {
     public Vector transposeSolve(Vector x) {
         return x;
     }
+
+    /**
+     * Copy <i>x</i> to <i>y</i>.
+     *
+     * @param x a vector
+     * @param y the output, a copy of <i>x</i>
+     */
+    @Override
+    public void solve(double[] x, double[] y) {
+        System.arraycopy(x, 0, y, 0, x.length);
+    }
+
+    /**
+     * Copy <i>x</i> to <i>y</i>.
+     *
+     * @param x a vector
+     * @param y the output, a copy of <i>x</i>
+     */
+    @Override
+    public void transposeSolve(double[] x, double[] y) {
+        System.arraycopy(x, 0, y, 0, x.length);
+    }
 }
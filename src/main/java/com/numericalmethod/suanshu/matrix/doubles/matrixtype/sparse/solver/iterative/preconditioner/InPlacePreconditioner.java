@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner;
+
+/**
+ * This is a {@link Preconditioner} that can also be applied to primitive arrays
+ * without allocating any memory. The workspace mode of the Krylov solvers, e.g.,
+ * {@link com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.nonstationary.ConjugateGradientSolver#solve(com.numericalmethod.suanshu.matrix.doubles.Matrix, Preconditioner, double[], double[], com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.nonstationary.KrylovWorkspace)},
+ * uses these methods to avoid creating any vector per iteration.
+ *
+ * @author Ken Yiu
+ */
+public interface InPlacePreconditioner extends Preconditioner {
+
+    /**
+     * Solve <i>My = x</i>, where <i>M</i> is the preconditioner matrix.
+     *
+     * @param x a vector
+     * @param y the output <i>M<sup>-1</sup>x</i>; it must not be {@code x}
+     */
+    public void solve(double[] x, double[] y);
+
+    /**
+     * Solve <i>M<sup>t</sup>y = x</i>, where <i>M</i> is the preconditioner matrix.
+     *
+     * @param x a vector
+     * @param y the output <i>M<sup>-t</sup>x</i>; it must not be {@code x}
+     */
+    public void transposeSolve(double[] x, double[] y);
+}
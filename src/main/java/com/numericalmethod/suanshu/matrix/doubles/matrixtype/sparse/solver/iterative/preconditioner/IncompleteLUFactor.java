@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner;
+
+import com.numericalmethod.suanshu.datastructure.DimensionCheck;
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.CSRSparseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.CSRSparseMatrixBuilder;
+import com.numericalmethod.suanshu.misc.SuanShuUtils;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+
+/**
+ * An incomplete factorization <i>M = LU</i> stored in compressed row format,
+ * where <i>L</i> is unit lower triangular and <i>U</i> is upper triangular.
+ * The strict lower part, the strict upper part and the diagonal of the factors
+ * are stored separately. The column indices count from 0.
+ * <p/>
+ * The triangular solves work in place on the output array and do not allocate.
+ *
+ * @author Ken Yiu
+ */
+final class IncompleteLUFactor {
+
+    private final int n;
+    private final int[] lPtr;
+    private final int[] lCol;
+    private final double[] lVal;
+    private final int[] uPtr;
+    private final int[] uCol;
+    private final double[] uVal;
+    private final double[] diag;
+
+    IncompleteLUFactor(int n, int[] lPtr, int[] lCol, double[] lVal, int[] uPtr, int[] uCol, double[] uVal, double[] diag) {
+        this.n = n;
+        this.lPtr = lPtr;
+        this.lCol = lCol;
+        this.lVal = lVal;
+        this.uPtr = uPtr;
+        this.uCol = uCol;
+        this.uVal = uVal;
+        this.diag = diag;
+    }
+
+    /**
+     * Get the size of the factored matrix.
+     *
+     * @return the number of rows
+     */
+    int size() {
+        return n;
+    }
+
+    /**
+     * Get the number of stored entries in <i>L</i> and <i>U</i>, including the diagonal.
+     *
+     * @return the number of stored entries
+     */
+    int nNonZeros() {
+        return lPtr[n] + uPtr[n] + n;
+    }
+
+    /**
+     * Solve <i>LUy = x</i>.
+     *
+     * @param x the right hand side
+     * @param y the solution; can be the same array as {@code x}
+     */
+    void solve(double[] x, double[] y) {
+        if (x != y) {
+            System.arraycopy(x, 0, y, 0, n);
+        }
+
+        for (int i = 0; i < n; ++i) {// Lz = x
+            double yi = y[i];
+            for (int k = lPtr[i]; k < lPtr[i + 1]; ++k) {
+                yi -= lVal[k] * y[lCol[k]];
+            }
+            y[i] = yi;
+        }
+
+        for (int i = n - 1; i >= 0; --i) {// Uy = z
+            double yi = y[i];
+            for (int k = uPtr[i]; k < uPtr[i + 1]; ++k) {
+                yi -= uVal[k] * y[uCol[k]];
+            }
+            y[i] = yi / diag[i];
+        }
+    }
+
+    /**
+     * Solve <i>(LU)<sup>t</sup>y = U<sup>t</sup>L<sup>t</sup>y = x</i>.
+     * The transposed factors are applied column-wise so that no transpose is formed.
+     *
+     * @param x the right hand side
+     * @param y the solution; can be the same array as {@code x}
+     */
+    void transposeSolve(double[] x, double[] y) {
+        if (x != y) {
+            System.arraycopy(x, 0, y, 0, n);
+        }
+
+        for (int i = 0; i < n; ++i) {// U'z = x
+            double yi = y[i] / diag[i];
+            y[i] = yi;
+            for (int k = uPtr[i]; k < uPtr[i + 1]; ++k) {
+                y[uCol[k]] -= uVal[k] * yi;
+            }
+        }
+
+        for (int i = n - 1; i >= 0; --i) {// L'y = z
+            double yi = y[i];
+            for (int k = lPtr[i]; k < lPtr[i + 1]; ++k) {
+                y[lCol[k]] -= lVal[k] * yi;
+            }
+        }
+    }
+
+    /**
+     * Split a factored matrix, stored in place in compressed row format, into
+     * the strict lower part, the diagonal and the strict upper part.
+     * The column indices count from 0 and are sorted within each row.
+     *
+     * @param n       the number of rows
+     * @param ptr     the row pointers
+     * @param col     the column indices
+     * @param val     the factored values
+     * @param diagPos the positions of the diagonal entries
+     * @return the factors
+     */
+    static IncompleteLUFactor split(int n, int[] ptr, int[] col, double[] val, int[] diagPos) {
+        int[] lPtr = new int[n + 1];
+        int[] uPtr = new int[n + 1];
+        for (int i = 0; i < n; ++i) {
+            lPtr[i + 1] = lPtr[i] + (diagPos[i] - ptr[i]);
+            uPtr[i + 1] = uPtr[i] + (ptr[i + 1] - diagPos[i] - 1);
+        }
+
+        int[] lCol = new int[lPtr[n]];
+        double[] lVal = new double[lPtr[n]];
+        int[] uCol = new int[uPtr[n]];
+        double[] uVal = new double[uPtr[n]];
+        double[] diag = new double[n];
+        for (int i = 0; i < n; ++i) {
+            int nL = diagPos[i] - ptr[i];
+            System.arraycopy(col, ptr[i], lCol, lPtr[i], nL);
+            System.arraycopy(val, ptr[i], lVal, lPtr[i], nL);
+            int nU = ptr[i + 1] - diagPos[i] - 1;
+            System.arraycopy(col, diagPos[i] + 1, uCol, uPtr[i], nU);
+            System.arraycopy(val, diagPos[i] + 1, uVal, uPtr[i], nU);
+            diag[i] = val[diagPos[i]];
+        }
+
+        return new IncompleteLUFactor(n, lPtr, lCol, lVal, uPtr, uCol, uVal, diag);
+    }
+
+    /**
+     * Get a square matrix in compressed row format.
+     *
+     * @param A a square matrix
+     * @return <i>A</i> in compressed row format
+     */
+    static CSRSparseMatrix toCSR(Matrix A) {
+        SuanShuUtils.assertArgument(DimensionCheck.isSquare(A), "A must be a square matrix");
+        return CSRSparseMatrixBuilder.toCSR(A);
+    }
+
+    /**
+     * Copy the entries of a vector into an array.
+     *
+     * @param x a vector
+     * @param y the array to fill
+     */
+    static void copy(Vector x, double[] y) {
+        for (int i = 0; i < y.length; ++i) {
+            y[i] = x.get(i + 1);
+        }
+    }
+}
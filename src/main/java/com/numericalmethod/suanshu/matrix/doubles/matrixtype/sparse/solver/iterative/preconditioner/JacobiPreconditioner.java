@@ -36,9 +36,10 @@ import static com.numericalmethod.suanshu.vector.doubles.dense.operation.CreateV
  *
  * @author Ken Yiu
  */
-public class JacobiPreconditioner implements Preconditioner {
+public class JacobiPreconditioner implements InPlacePreconditioner {
 
     private final Vector Dinv;
+    private final double[] dinv;
 
     /**
      * Construct a Jacobi preconditioner.
@@ -58,6 +59,7 @@ public class JacobiPreconditioner implements Preconditioner {
                         return 1. / x;
                     }
                 });
+        dinv = Dinv.toArray();
     }
 
     /**
@@ -86,4 +88,28 @@ public class JacobiPreconditioner implements Preconditioner {
     public Vector transposeSolve(Vector x) {
         return solve(x);
     }
+
+    /**
+     * Compute <i>y<sub>i</sub> = x<sub>i</sub> / A<sub>i,i</sub></i>.
+     *
+     * @param x a vector
+     * @param y the output <i>P<sup>-1</sup>x</i>
+     */
+    @Override
+    public void solve(double[] x, double[] y) {
+        for (int i = 0; i < dinv.length; ++i) {
+            y[i] = x[i] * dinv[i];
+        }
+    }
+
+    /**
+     * <i>P<sup>t</sup> = P<sup>-1</sup></i> for Jacobi preconditioner.
+     *
+     * @param x a vector
+     * @param y the output <i>P<sup>-1</sup>x</i>
+     */
+    @Override
+    public void transposeSolve(double[] x, double[] y) {
+        solve(x, y);
+    }
 }
@@ -23,9 +23,11 @@
 package com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner;
 
 import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.CSRSparseMatrix;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.stationary.SORSweep;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.stationary.SymmetricSuccessiveOverrelaxationSolver;
 import com.numericalmethod.suanshu.vector.doubles.Vector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
 
 /**
  * SSOR preconditioner is derived from a symmetric coefficient matrix <i>A</i>
@@ -46,6 +48,9 @@ import com.numericalmethod.suanshu.vector.doubles.Vector;
  * The optimal <i>&omega;</i> reduces the number of iterations to
  * a lower order. In practice, however, the spectral information for computing
  * the optimal <i>&omega;</i> is expensive to obtain.
+ * <p/>
+ * When <i>A</i> is a {@link CSRSparseMatrix}, possibly wrapped in an immutable matrix,
+ * its arrays are copied once at construction and each solve takes <i>O(nNonZeros)</i> time.
  *
  * @author Ken Yiu
  *
@@ -55,6 +60,10 @@ public class SSORPreconditioner implements Preconditioner {
 
     private final Matrix A;
     private final double omega;
+    // the CSR arrays of A; null if A is not a CSRSparseMatrix
+    private final int[] ptr;
+    private final int[] col;
+    private final double[] val;
 
     /**
      * Construct an SSOR preconditioner with a symmetric coefficient matrix.
@@ -65,6 +74,22 @@ public class SSORPreconditioner implements Preconditioner {
     public SSORPreconditioner(Matrix A, double omega) {
         this.A = A.deepCopy();
         this.omega = omega;
+
+        if (this.A instanceof CSRSparseMatrix) {
+            CSRSparseMatrix csr = (CSRSparseMatrix) this.A;
+            for (int i = 1; i <= csr.nRows(); ++i) {
+                if (Double.compare(csr.get(i, i), 0.) == 0) {
+                    throw new IllegalArgumentException("diagonal entries must be non-zero");
+                }
+            }
+            this.ptr = csr.rowPointers();
+            this.col = csr.columnIndices();
+            this.val = csr.values();
+        } else {
+            this.ptr = null;
+            this.col = null;
+            this.val = null;
+        }
     }
 
     /**
@@ -75,6 +100,14 @@ public class SSORPreconditioner implements Preconditioner {
      */
     @Override
     public Vector solve(Vector x) {
+        if (ptr != null) {
+            double[] b = x.toArray();
+            double[] z = new double[b.length];
+            SORSweep.forward(ptr, col, val, b, z, omega);
+            SORSweep.backward(ptr, col, val, b, z, omega);
+            return new DenseVector(z);
+        }
+
         SORSweep sweep = new SORSweep(A, x, omega);
         Vector f = sweep.forward(x.ZERO());
         Vector b = sweep.backward(f);
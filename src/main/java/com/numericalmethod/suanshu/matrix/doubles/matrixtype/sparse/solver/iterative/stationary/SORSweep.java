@@ -23,7 +23,9 @@
 package com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.stationary;
 
 import com.numericalmethod.suanshu.datastructure.DimensionCheck;
+import com.numericalmethod.suanshu.matrix.doubles.ImmutableMatrix;
 import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.CSRSparseMatrix;
 import com.numericalmethod.suanshu.misc.SuanShuUtils;
 import com.numericalmethod.suanshu.vector.doubles.Vector;
 import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
@@ -35,6 +37,12 @@ import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
  * to perform the forward or backward sweep. That is, solving the <i>n</i> equations in
  * <i>Ax = b</i> sequentially (forward or backward), while using the updated
  * components of <i>x</i> as soon as they are available.
+ * <p/>
+ * When <i>A</i> is a {@link CSRSparseMatrix}, possibly wrapped in an {@link ImmutableMatrix}, a sweep visits only the non-zeros
+ * and takes <i>O(nNonZeros)</i> time; the CSR arrays are copied once at construction.
+ * The static methods perform the sweeps in place on the CSR arrays
+ * without allocating any memory, e.g., as the smoother of a
+ * {@linkplain com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.multigrid.AlgebraicMultigrid multigrid} method.
  *
  * @author Ken Yiu
  */
@@ -44,6 +52,10 @@ public class SORSweep {
     private final Vector b;
     private final int n;
     private final double omega;
+    // the CSR arrays of A; null if A is not a CSRSparseMatrix
+    private final int[] ptr;
+    private final int[] col;
+    private final double[] val;
 
     /**
      * Construct an instance to perform forward or backward sweep for a linear
@@ -55,12 +67,26 @@ public class SORSweep {
      */
     public SORSweep(Matrix A, Vector b, double omega) {
         SuanShuUtils.assertArgument(DimensionCheck.isSquare(A), "A must be a square matrix");
+        if (A instanceof ImmutableMatrix) {
+            A = A.deepCopy(); // unwrap, e.g., LSProblem.A(), to reach the CSR arrays
+        }
         checkMatrix(A);
 
         this.A = A;
         this.b = b;
         this.n = A.nCols();
         this.omega = omega;
+
+        if (A instanceof CSRSparseMatrix) {
+            CSRSparseMatrix csr = (CSRSparseMatrix) A;
+            this.ptr = csr.rowPointers();
+            this.col = csr.columnIndices();
+            this.val = csr.values();
+        } else {
+            this.ptr = null;
+            this.col = null;
+            this.val = null;
+        }
     }
 
     /**
@@ -70,6 +96,12 @@ public class SORSweep {
      * @return the next iterate
      */
     public Vector forward(Vector x) {
+        if (ptr != null) {
+            double[] xNext = x.toArray();
+            forward(ptr, col, val, b.toArray(), xNext, omega);
+            return new DenseVector(xNext);
+        }
+
         Vector xNext = new DenseVector(n).ZERO();
 
         // solve each equation independently
@@ -97,6 +129,12 @@ public class SORSweep {
      * @return the next iterate
      */
     public Vector backward(Vector x) {
+        if (ptr != null) {
+            double[] xNext = x.toArray();
+            backward(ptr, col, val, b.toArray(), xNext, omega);
+            return new DenseVector(xNext);
+        }
+
         Vector xNext = new DenseVector(n).ZERO();
 
         // solve each equation independently
@@ -117,6 +155,63 @@ public class SORSweep {
         return xNext;
     }
 
+    /**
+     * Perform a forward sweep in place for a linear system <i>Ax = b</i>,
+     * where <i>A</i> is given by the arrays of a {@link CSRSparseMatrix}.
+     * The diagonal entries of <i>A</i> must be non-zero.
+     *
+     * @param ptr   the row pointers of <i>A</i>, counting from 0
+     * @param col   the column indices of the non-zeros of <i>A</i>, counting from 1
+     * @param val   the non-zero values of <i>A</i>
+     * @param b     a vector
+     * @param x     the original iterate, overwritten by the next iterate
+     * @param omega the extrapolation factor
+     * @see CSRSparseMatrix#rowPointers()
+     */
+    public static void forward(int[] ptr, int[] col, double[] val, double[] b, double[] x, double omega) {
+        for (int i = 0; i < x.length; ++i) {
+            sweep(ptr, col, val, b, x, omega, i);
+        }
+    }
+
+    /**
+     * Perform a backward sweep in place for a linear system <i>Ax = b</i>,
+     * where <i>A</i> is given by the arrays of a {@link CSRSparseMatrix}.
+     * The diagonal entries of <i>A</i> must be non-zero.
+     *
+     * @param ptr   the row pointers of <i>A</i>, counting from 0
+     * @param col   the column indices of the non-zeros of <i>A</i>, counting from 1
+     * @param val   the non-zero values of <i>A</i>
+     * @param b     a vector
+     * @param x     the original iterate, overwritten by the next iterate
+     * @param omega the extrapolation factor
+     * @see CSRSparseMatrix#rowPointers()
+     */
+    public static void backward(int[] ptr, int[] col, double[] val, double[] b, double[] x, double omega) {
+        for (int i = x.length - 1; i >= 0; --i) {
+            sweep(ptr, col, val, b, x, omega, i);
+        }
+    }
+
+    /**
+     * Update <i>x<sub>i</sub></i> (counting from 0) using the current values of the other components.
+     */
+    private static void sweep(int[] ptr, int[] col, double[] val, double[] b, double[] x, double omega, int i) {
+        double xi = b[i];
+        double aii = 0.;
+        for (int k = ptr[i]; k < ptr[i + 1]; ++k) {
+            int j = col[k] - 1;
+            if (j == i) {
+                aii = val[k];
+            } else {
+                xi -= val[k] * x[j];
+            }
+        }
+
+        xi /= aii;
+        x[i] += omega * (xi - x[i]); // weighted average
+    }
+
     private static void checkMatrix(Matrix A) {
         for (int i = 1; i <= A.nCols(); ++i) {
             if (Double.compare(A.get(i, i), 0.) == 0) {
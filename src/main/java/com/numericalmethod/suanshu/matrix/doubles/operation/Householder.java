@@ -24,14 +24,14 @@ package com.numericalmethod.suanshu.matrix.doubles.operation;
 
 import com.numericalmethod.suanshu.matrix.doubles.Matrix;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrixView;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.SparseVector;
 import com.numericalmethod.suanshu.misc.R;
+import com.numericalmethod.suanshu.misc.SuanShuUtils;
 import static com.numericalmethod.suanshu.number.DoubleUtils.isZero;
 import com.numericalmethod.suanshu.vector.doubles.Vector;
 import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
 import com.numericalmethod.suanshu.vector.doubles.dense.operation.Basis;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * A Householder transformation in the 3-dimensional space is the reflection of a vector in the plane.
@@ -119,13 +119,23 @@ public class Householder {
      * @return <i>H * A</i>
      */
     public Matrix reflect(Matrix A) {
-        List<Vector> vectors = new ArrayList<Vector>(A.nCols());
-        for (int i = 1; i <= A.nCols(); ++i) {
-            Vector v = A.getColumn(i);
-            vectors.add(this.reflect(v));
-        }
+        DenseMatrix HA = new DenseMatrix(A);
+        reflectInPlace(HA.subMatrixView(1, A.nRows(), 1, A.nCols()));
+        return HA;
+    }
 
-        return CreateMatrix.cbind(vectors);
+    /**
+     * Apply the Householder matrix, <i>H</i>, to a matrix (a set of column vectors), <i>A</i>, in place.
+     * <blockquote><pre><i>
+     * A = H * A = A - 2 * v * (A' * v)'
+     * </i></pre></blockquote>
+     * <i>A' * v</i> is accumulated row by row so that the array is read contiguously.
+     *
+     * @param A a (view of a) matrix, modified
+     */
+    public void reflectInPlace(DenseMatrixView A) {
+        Vector Atv = A.tMultiply(v4H);
+        A.rank1UpdateInPlace(-2., v4H, Atv);
     }
 
     /**
@@ -144,13 +154,22 @@ public class Householder {
      * @return <i>A * H</i>
      */
     public Matrix reflectRows(Matrix A) {
-        List<Vector> vectors = new ArrayList<Vector>(A.nRows());
-        for (int i = 1; i <= A.nRows(); ++i) {
-            Vector v = A.getRow(i);
-            vectors.add(this.reflect(v));
-        }
+        DenseMatrix AH = new DenseMatrix(A);
+        reflectRowsInPlace(AH.subMatrixView(1, A.nRows(), 1, A.nCols()));
+        return AH;
+    }
 
-        return CreateMatrix.rbind(vectors);
+    /**
+     * Apply the Householder matrix, <i>H</i>, to a matrix (a set of row vectors), <i>A</i>, in place.
+     * <blockquote><pre><i>
+     * A = A * H = A - 2 * (A * v) * v'
+     * </i></pre></blockquote>
+     *
+     * @param A a (view of a) matrix, modified
+     */
+    public void reflectRowsInPlace(DenseMatrixView A) {
+        Vector Av = A.multiply(v4H);
+        A.rank1UpdateInPlace(-2., Av, v4H);
     }
 
     /**
@@ -195,22 +214,21 @@ public class Householder {
 
         /*
          * Faster implementation
-         * by skipping copying and passing the whole matrices
+         * by reflecting the columns of the identity in place, without copying the matrix
          * at each reflection
          */
-        List<Vector> cols4Q = Basis.getBasis(nRows, nCols);
+        SuanShuUtils.assertArgument(nRows >= nCols, "more columns than the dimension is requested");
+        DenseMatrix Q = new DenseMatrix(nRows, nCols).ONE();
+        DenseMatrixView cols4Q = Q.subMatrixView(1, nRows, 1, nCols);
         int[] indices = R.seq(to, from);//from 'to' to 'from', i.e., backward
 
         for (int i : indices) { //  for (int i = to; i >= from; --i) {
             int j = i;
             if (Hs[j] != null) {
-                for (int k = 0; k < nCols; ++k) {
-                    cols4Q.set(k, Hs[j].reflect(cols4Q.get(k)));//TODO: to be parallelized
-                }
+                Hs[j].reflectInPlace(cols4Q);
             }
         }
 
-        Matrix Q = CreateMatrix.cbind(cols4Q);
         return Q;
     }
 
@@ -0,0 +1,401 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.operation;
+
+import com.numericalmethod.suanshu.datastructure.DimensionCheck;
+import com.numericalmethod.suanshu.matrix.MatrixAccessException;
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.BlockedMatrixMultiplication;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrixView;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This is a matrix expression that is evaluated only when its entries are read.
+ * The operations {@link #add(Matrix)}, {@link #minus(Matrix)}, {@link #scaled(double)}, {@link #opposite()},
+ * {@link #t()} and {@link #multiply(Matrix)} do no arithmetic but record the expression,
+ * which is kept as a sum of terms
+ * <blockquote><i>c<sub>1</sub> * op(M<sub>1</sub>) + c<sub>2</sub> * op(M<sub>2</sub>) + ... + d<sub>1</sub> * L<sub>1</sub> * R<sub>1</sub> + ...</i></blockquote>
+ * where <i>op(M)</i> is either <i>M</i> or <i>M'</i>, and the products have lazy operands.
+ * Scaling and transposition are folded into the terms, e.g., <i>(A * B + C)' * 2 = 2 * B' * A' + 2 * C'</i>.
+ * On evaluation, the products are accumulated into the result by {@link BlockedMatrixMultiplication}.
+ * Then, all the other terms, transposed or not, are added to the result in one blocked pass,
+ * all reading the {@link DenseMatrix} and {@link DenseMatrixView} operands in place.
+ * Hence, no intermediate matrix is created for a sum, a scaling or a transpose of a term.
+ * A factor of a product that is itself an expression, e.g., <i>A * B</i> in <i>A * B * C</i>,
+ * or a transposed operand, is evaluated once into a matrix of its own,
+ * except that <i>X' * Y'</i> is computed as <i>(Y * X)'</i> and added with the other terms.
+ * <p/>
+ * For example, the following evaluates <i>(A * B + C)' * 2</i> into one new matrix.
+ * <blockquote><code>
+ * Matrix X = new LazyMatrix(A).multiply(B).add(C).t().scaled(2);
+ * double x11 = X.get(1, 1);//evaluated here
+ * </code></blockquote>
+ * {@link #multiply(Vector)} does not evaluate the expression either, but applies the terms one by one,
+ * e.g., <i>(A * B) * v = A * (B * v)</i>.
+ * <p/>
+ * The expression is evaluated at most once; the value is kept for the subsequent reads.
+ * The operands must not change before the expression is evaluated.
+ * A lazy matrix is <em>immutable</em>.
+ *
+ * @author Haksun Li
+ * @see "Todd Veldhuizen, "Expression templates," C++ Report, vol. 7, no. 5, p. 26 - 31, 1995."
+ */
+public class LazyMatrix implements Matrix {
+
+    /**
+     * A term of the expression, either <i>c * op(M)</i> or <i>c * L * R</i>.
+     */
+    private static class Term {
+
+        final double c;
+        /** an operand; {@code null} for a product */
+        final Matrix M;
+        /** {@code true} if the term is <i>c * M'</i> */
+        final boolean transposed;
+        /** the multiplicand of a product */
+        final LazyMatrix L;
+        /** the multiplier of a product */
+        final LazyMatrix R;
+
+        Term(double c, Matrix M, boolean transposed) {
+            this.c = c;
+            this.M = M;
+            this.transposed = transposed;
+            this.L = null;
+            this.R = null;
+        }
+
+        Term(double c, LazyMatrix L, LazyMatrix R) {
+            this.c = c;
+            this.M = null;
+            this.transposed = false;
+            this.L = L;
+            this.R = R;
+        }
+
+        boolean isProduct() {
+            return M == null;
+        }
+
+        Term scaled(double s) {
+            return isProduct() ? new Term(c * s, L, R) : new Term(c * s, M, transposed);
+        }
+
+        Term t() {
+            return isProduct() ? new Term(c, R.t(), L.t()) : new Term(c, M, !transposed);
+        }
+    }
+
+    private final int nRows;
+    private final int nCols;
+    private final List<Term> terms;
+    /** the evaluated expression; {@code null} if not yet evaluated */
+    private DenseMatrix value = null;
+
+    /**
+     * Construct a lazy expression of a matrix.
+     *
+     * @param A a matrix
+     */
+    public LazyMatrix(Matrix A) {
+        this.nRows = A.nRows();
+        this.nCols = A.nCols();
+        if (A instanceof LazyMatrix) {
+            this.terms = ((LazyMatrix) A).terms;
+        } else {
+            this.terms = new ArrayList<Term>(1);
+            this.terms.add(new Term(1., A, false));
+        }
+    }
+
+    private LazyMatrix(int nRows, int nCols, List<Term> terms) {
+        this.nRows = nRows;
+        this.nCols = nCols;
+        this.terms = terms;
+    }
+
+    private static LazyMatrix lazy(Matrix A) {
+        return A instanceof LazyMatrix ? (LazyMatrix) A : new LazyMatrix(A);
+    }
+
+    @Override
+    public int nRows() {
+        return nRows;
+    }
+
+    @Override
+    public int nCols() {
+        return nCols;
+    }
+
+    @Override
+    public LazyMatrix add(Matrix that) {
+        DimensionCheck.throwIfDifferentDimension(this, that);
+        List<Term> sum = new ArrayList<Term>(terms);
+        sum.addAll(lazy(that).terms);
+        return new LazyMatrix(nRows, nCols, sum);
+    }
+
+    @Override
+    public LazyMatrix minus(Matrix that) {
+        DimensionCheck.throwIfDifferentDimension(this, that);
+        List<Term> difference = new ArrayList<Term>(terms);
+        for (Term term : lazy(that).terms) {
+            difference.add(term.scaled(-1.));
+        }
+        return new LazyMatrix(nRows, nCols, difference);
+    }
+
+    @Override
+    public LazyMatrix multiply(Matrix that) {
+        DimensionCheck.throwIfIncompatible4Multiplication(this, that);
+        List<Term> product = new ArrayList<Term>(1);
+        product.add(new Term(1., this, lazy(that)));
+        return new LazyMatrix(nRows, that.nCols(), product);
+    }
+
+    @Override
+    public LazyMatrix scaled(double c) {
+        List<Term> scaled = new ArrayList<Term>(terms.size());
+        for (Term term : terms) {
+            scaled.add(term.scaled(c));
+        }
+        return new LazyMatrix(nRows, nCols, scaled);
+    }
+
+    @Override
+    public LazyMatrix opposite() {
+        return scaled(-1.);
+    }
+
+    @Override
+    public LazyMatrix t() {
+        List<Term> transposed = new ArrayList<Term>(terms.size());
+        for (Term term : terms) {
+            transposed.add(term.t());
+        }
+        return new LazyMatrix(nCols, nRows, transposed);
+    }
+
+    /**
+     * Compute the product of the expression and a vector without evaluating the expression.
+     * Each term is applied to the vector separately, e.g., <i>(A * B) * v = A * (B * v)</i>.
+     *
+     * @param v a vector
+     * @return <i>this * v</i>
+     */
+    @Override
+    public Vector multiply(Vector v) {
+        DimensionCheck.throwIfIncompatible4Multiplication(this, v);
+        if (value != null) {
+            return value.multiply(v);
+        }
+
+        double[] result = new double[nRows];
+        for (Term term : terms) {
+            double[] Mv;
+            if (term.isProduct()) {
+                Mv = term.L.multiply(term.R.multiply(v)).toArray();
+            } else if (term.transposed) {
+                Mv = new double[nRows];
+                for (int i = 1; i <= term.M.nRows(); ++i) {
+                    final double vi = v.get(i);
+                    for (int j = 1; j <= nRows; ++j) {
+                        Mv[j - 1] += term.M.get(i, j) * vi;
+                    }
+                }
+            } else {
+                Mv = term.M.multiply(v).toArray();
+            }
+
+            for (int i = 0; i < nRows; ++i) {
+                result[i] += term.c * Mv[i];
+            }
+        }
+
+        return new DenseVector(result);
+    }
+
+    @Override
+    public double get(int i, int j) throws MatrixAccessException {
+        return evaluate().get(i, j);
+    }
+
+    @Override
+    public Vector getRow(int i) throws MatrixAccessException {
+        return evaluate().getRow(i);
+    }
+
+    @Override
+    public Vector getColumn(int j) throws MatrixAccessException {
+        return evaluate().getColumn(j);
+    }
+
+    /**
+     * @deprecated LazyMatrix is immutable
+     */
+    @Deprecated
+    @Override
+    public void set(int i, int j, double value) throws MatrixAccessException {
+        throw new MatrixAccessException("LazyMatrix is immutable.");
+    }
+
+    @Override
+    public Matrix ZERO() {
+        return new DenseMatrix(nRows, nCols).ZERO();
+    }
+
+    @Override
+    public Matrix ONE() {
+        return new DenseMatrix(nRows, nCols).ONE();
+    }
+
+    /**
+     * Evaluate the expression into a new matrix.
+     *
+     * @return the value of the expression
+     */
+    public DenseMatrix materialize() {
+        if (value != null) {
+            return value.deepCopy();
+        }
+
+        return newValue();
+    }
+
+    /**
+     * Evaluate the expression.
+     *
+     * @return the value of the expression
+     */
+    @Override
+    public DenseMatrix deepCopy() {
+        return materialize();
+    }
+
+    @Override
+    public String toString() {
+        return evaluate().toString();
+    }
+
+    /**
+     * Evaluate the expression once and keep the value.
+     */
+    private DenseMatrix evaluate() {
+        if (value == null) {
+            value = newValue();
+        }
+        return value;
+    }
+
+    /**
+     * Get the operand that a single term <i>c * op(M)</i> scales, if <i>M</i> can be read in place.
+     *
+     * @param transposed {@code true} if <i>op(M) = M'</i>; {@code false} if <i>op(M) = M</i>
+     * @return <i>M</i>, or {@code null} if the expression is not such a term
+     */
+    private Matrix plainOperand(boolean transposed) {
+        if (terms.size() == 1) {
+            Term term = terms.get(0);
+            if (!term.isProduct() && term.transposed == transposed
+                    && (term.M instanceof DenseMatrix || term.M instanceof DenseMatrixView)) {
+                return term.M;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Evaluate the expression into a new matrix.
+     * The products are accumulated into the result first.
+     * Then, all the other terms, transposed or not, are added to the result in one blocked pass.
+     */
+    private DenseMatrix newValue() {
+        Matrix M = plainOperand(false);
+        if (M != null && terms.get(0).c == 1.) {
+            return new DenseMatrix(M);
+        }
+
+        DenseMatrix result = new DenseMatrix(nRows, nCols);
+        DenseMatrixView view = result.subMatrixView(1, nRows, 1, nCols);
+
+        final int nTerms = terms.size();
+        double[] c = new double[nTerms];
+        Matrix[] operands = new Matrix[nTerms];
+        boolean[] transposed = new boolean[nTerms];
+        int n = 0;
+
+        //the products are accumulated directly into the result
+        for (Term term : terms) {
+            if (!term.isProduct()) {
+                c[n] = term.c;
+                operands[n] = term.M;
+                transposed[n] = term.transposed;
+                ++n;
+                continue;
+            }
+
+            Matrix Lt = term.L.plainOperand(true);
+            Matrix Rt = term.R.plainOperand(true);
+            if (Lt != null && Rt != null) {//X' * Y' = (Y * X)', which is added with the other terms
+                DenseMatrix YX = new DenseMatrix(nCols, nRows);
+                YX.subMatrixView(1, nCols, 1, nRows).multiplyAddInPlace(1., Rt, Lt);
+                c[n] = term.c * term.L.terms.get(0).c * term.R.terms.get(0).c;
+                operands[n] = YX;
+                transposed[n] = true;
+                ++n;
+                continue;
+            }
+
+            double alpha = term.c;
+            Matrix L = term.L.plainOperand(false);
+            if (L != null) {
+                alpha *= term.L.terms.get(0).c;
+            } else {
+                L = term.L.evaluate();
+            }
+            Matrix R = term.R.plainOperand(false);
+            if (R != null) {
+                alpha *= term.R.terms.get(0).c;
+            } else {
+                R = term.R.evaluate();
+            }
+            view.multiplyAddInPlace(alpha, L, R);
+        }
+
+        //the other terms are added to the result in one pass
+        if (n > 0) {
+            view.addInPlace(
+                    Arrays.copyOf(c, n),
+                    Arrays.copyOf(operands, n),
+                    Arrays.copyOf(transposed, n));
+        }
+
+        return result;
+    }
+}
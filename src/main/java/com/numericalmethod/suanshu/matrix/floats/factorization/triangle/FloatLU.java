@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.floats.factorization.triangle;
+
+import com.numericalmethod.suanshu.matrix.MatrixSingularityException;
+import com.numericalmethod.suanshu.matrix.doubles.factorization.triangle.BlockedLU;
+import com.numericalmethod.suanshu.matrix.floats.matrixtype.dense.FloatDenseMatrix;
+import com.numericalmethod.suanshu.matrix.floats.matrixtype.dense.FloatMatrixMultiplication;
+import com.numericalmethod.suanshu.misc.SuanShuUtils;
+import com.numericalmethod.suanshu.parallel.ParallelExecutor;
+import com.numericalmethod.suanshu.vector.floats.dense.FloatDenseVector;
+
+/**
+ * This is a single-precision counterpart of {@link BlockedLU}, a blocked, right-looking LU decomposition with partial pivoting,
+ * <i>P * A = L * U</i>.
+ * The packed factors are stored in a {@code float[]}, and the trailing updates are computed by {@link FloatMatrixMultiplication}.
+ * <p/>
+ * The factorization is about 3 to 4 significant digits less accurate than in double precision.
+ * It is mainly used as a preconditioner for the mixed-precision iterative refinement in
+ * {@link com.numericalmethod.suanshu.matrix.doubles.linearsystem.LUSolver}.
+ *
+ * @author Haksun Li
+ * @see "E. Anderson et al., "sgetrf," LAPACK Users' Guide, 3rd edition."
+ */
+public class FloatLU {
+
+    /** the number of columns in a panel */
+    public static final int NB = 64;
+    /** the packed factors: the strictly lower part is <i>L</i> (without the unit diagonal); the upper part is <i>U</i> */
+    private final float[] lu;
+    /** row {@code i} is swapped with row {@code ipiv[i]} at step {@code i} (counting from 0) */
+    private final int[] ipiv;
+    private final int dim;
+
+    /**
+     * Run the LU decomposition on a square matrix.
+     *
+     * @param A a square matrix
+     * @throws IllegalArgumentException if <i>A</i> is not square
+     */
+    public FloatLU(FloatDenseMatrix A) {
+        SuanShuUtils.assertArgument(A.nRows() == A.nCols(), "the LU decomposition applies to square matrix only");
+
+        this.dim = A.nRows();
+        this.lu = A.toArray();
+        this.ipiv = new int[dim];
+
+        factorize();
+    }
+
+    /**
+     * Solve <i>Ax = b</i> using the factorization.
+     *
+     * @param b a vector
+     * @return <i>x</i> such that <i>Ax = b</i>
+     * @throws MatrixSingularityException if <i>A</i> is singular
+     */
+    public FloatDenseVector solve(FloatDenseVector b) {
+        SuanShuUtils.assertArgument(b.size() == dim, "the size of b must equal the dimension of A");
+
+        float[] x = b.toArray();
+        solveInPlace(x, 1);
+        return new FloatDenseVector(x);
+    }
+
+    /**
+     * Solve <i>AX = B</i> using the factorization, overwriting <i>B</i> by <i>X</i>.
+     * No memory is allocated.
+     *
+     * @param X    the right hand sides, an <i>n x nRhs</i> matrix in a row-major {@code float[]}
+     * @param nRhs the number of right hand sides, i.e., the number of columns of <i>X</i>
+     * @throws MatrixSingularityException if <i>A</i> is singular
+     */
+    public void solveInPlace(float[] X, int nRhs) {
+        SuanShuUtils.assertArgument(X.length == dim * nRhs, "the size of X does not match the dimension of A");
+
+        for (int i = 0; i < dim; ++i) {
+            if (lu[i * dim + i] == 0f) {
+                throw new MatrixSingularityException("singularity detected during the LU decomposition; the system has no unique solution");
+            }
+        }
+
+        //X = P * B
+        for (int i = 0; i < dim; ++i) {
+            if (ipiv[i] != i) {
+                swapRows(X, nRhs, i, ipiv[i]);
+            }
+        }
+
+        //forward substitution: L * Y = P * B, L has a unit diagonal
+        for (int i = 1; i < dim; ++i) {
+            final int xi = i * nRhs;
+            for (int p = 0; p < i; ++p) {
+                final float l = lu[i * dim + p];
+                if (l != 0f) {
+                    final int xp = p * nRhs;
+                    for (int j = 0; j < nRhs; ++j) {
+                        X[xi + j] -= l * X[xp + j];
+                    }
+                }
+            }
+        }
+
+        //backward substitution: U * X = Y
+        for (int i = dim - 1; i >= 0; --i) {
+            final int xi = i * nRhs;
+            for (int p = i + 1; p < dim; ++p) {
+                final float u = lu[i * dim + p];
+                if (u != 0f) {
+                    final int xp = p * nRhs;
+                    for (int j = 0; j < nRhs; ++j) {
+                        X[xi + j] -= u * X[xp + j];
+                    }
+                }
+            }
+            final float uii = lu[i * dim + i];
+            for (int j = 0; j < nRhs; ++j) {
+                X[xi + j] /= uii;
+            }
+        }
+    }
+
+    /**
+     * Factorize the panels from left to right.
+     */
+    private void factorize() {
+        for (int k0 = 0; k0 < dim; k0 += NB) {
+            final int k1 = Math.min(k0 + NB, dim);
+
+            factorizePanel(k0, k1);
+
+            if (k1 < dim) {
+                //U12 = L11^-1 * A12
+                for (int i = k0 + 1; i < k1; ++i) {
+                    final int ri = i * dim;
+                    for (int p = k0; p < i; ++p) {
+                        final float l = lu[ri + p];
+                        if (l != 0f) {
+                            final int rp = p * dim;
+                            for (int j = k1; j < dim; ++j) {
+                                lu[ri + j] -= l * lu[rp + j];
+                            }
+                        }
+                    }
+                }
+
+                //A22 -= L21 * U12
+                FloatMatrixMultiplication.multiply(
+                        -1f,
+                        lu, k1 * dim + k0, dim,
+                        lu, k0 * dim + k1, dim,
+                        lu, k1 * dim + k1, dim,
+                        dim - k1, k1 - k0, dim - k1,
+                        ParallelExecutor.getSharedInstance());
+            }
+        }
+    }
+
+    /**
+     * Factorize the columns {@code [k0, k1)} below the diagonal by unblocked elimination with partial pivoting.
+     * The whole rows are swapped.
+     */
+    private void factorizePanel(int k0, int k1) {
+        for (int k = k0; k < k1; ++k) {
+            //find the biggest entry in absolute value in column k
+            int pivotRow = k;
+            float maxPivot = Math.abs(lu[k * dim + k]);
+            for (int i = k + 1; i < dim; ++i) {
+                float pivot = Math.abs(lu[i * dim + k]);
+                if (pivot > maxPivot) {
+                    pivotRow = i;
+                    maxPivot = pivot;
+                }
+            }
+
+            ipiv[k] = pivotRow;
+            if (pivotRow != k) {
+                swapRows(lu, dim, k, pivotRow);
+            }
+
+            final int rk = k * dim;
+            final float ukk = lu[rk + k];
+            if (ukk == 0f) {
+                continue;//the column is all 0; nothing to eliminate
+            }
+
+            for (int i = k + 1; i < dim; ++i) {
+                final int ri = i * dim;
+                final float l = lu[ri + k] / ukk;
+                lu[ri + k] = l;
+                if (l != 0f) {
+                    for (int j = k + 1; j < k1; ++j) {//update the rest of the panel only
+                        lu[ri + j] -= l * lu[rk + j];
+                    }
+                }
+            }
+        }
+    }
+
+    private static void swapRows(float[] A, int nCols, int i1, int i2) {
+        final int r1 = i1 * nCols;
+        final int r2 = i2 * nCols;
+        for (int j = 0; j < nCols; ++j) {
+            float tmp = A[r1 + j];
+            A[r1 + j] = A[r2 + j];
+            A[r2 + j] = tmp;
+        }
+    }
+}
@@ -0,0 +1,399 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.floats.matrixtype.dense;
+
+import static com.numericalmethod.suanshu.datastructure.DimensionCheck.*;
+import com.numericalmethod.suanshu.datastructure.Table;
+import com.numericalmethod.suanshu.matrix.MatrixMismatchException;
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix;
+import com.numericalmethod.suanshu.misc.SuanShuUtils;
+import com.numericalmethod.suanshu.parallel.ParallelExecutor;
+import com.numericalmethod.suanshu.vector.floats.dense.FloatDenseVector;
+import java.util.Arrays;
+
+/**
+ * This is a single-precision counterpart of {@link DenseMatrix}.
+ * The entries are stored row by row in a {@code float[]}, which halves the memory and the memory bandwidth of a {@code double[]}.
+ * It suits the big, memory-bound computations where 7 significant digits are enough,
+ * e.g., Monte Carlo scenario matrices or a principal component analysis of noisy data.
+ * <p/>
+ * The core operations of {@link Matrix} are provided with the same names, taking and returning single-precision operands.
+ * The products are computed by {@link FloatMatrixMultiplication}, in parallel for big matrices.
+ * {@link #FloatDenseMatrix(Matrix)} converts a {@code double} matrix by rounding the entries;
+ * {@link #toDense()} converts back exactly.
+ * The indices count from 1, as in {@link Matrix}.
+ *
+ * @author Haksun Li
+ */
+public class FloatDenseMatrix implements Table {
+
+    /** the entries, row by row */
+    private final float[] data;
+    private final int nRows;
+    private final int nCols;
+
+    //<editor-fold defaultstate="collapsed" desc="Ctors">
+    /**
+     * Construct a 0 matrix of dimension <i>nRows x nCols</i>.
+     *
+     * @param nRows the number of rows
+     * @param nCols the number of columns
+     */
+    public FloatDenseMatrix(int nRows, int nCols) {
+        this(new float[nRows * nCols], nRows, nCols);
+    }
+
+    /**
+     * Construct a matrix from a row-major 1D array.
+     * The array is not copied: changing the matrix changes the array and vice versa.
+     *
+     * @param data  the entries, row by row
+     * @param nRows the number of rows
+     * @param nCols the number of columns
+     * @throws IllegalArgumentException when the length of {@code data} is different from <i>nRows * nCols</i>
+     */
+    public FloatDenseMatrix(float[] data, int nRows, int nCols) {
+        SuanShuUtils.assertArgument(data.length == nRows * nCols, "the data length does not match the matrix dimension");
+        this.data = data;
+        this.nRows = nRows;
+        this.nCols = nCols;
+    }
+
+    /**
+     * Construct a matrix from a 2D {@code float[][]} array.
+     *
+     * @param data the 2D array input
+     * @throws IllegalArgumentException when {@code data} is a jagged array
+     */
+    public FloatDenseMatrix(float[][] data) {
+        this(data.length, data[0].length);
+
+        for (int i = 0; i < nRows; ++i) {
+            SuanShuUtils.assertArgument(data[i].length == nCols, "data is a jagged array");
+            System.arraycopy(data[i], 0, this.data, i * nCols, nCols);
+        }
+    }
+
+    /**
+     * Convert a {@code double} matrix to single precision.
+     * Each entry is rounded to the nearest {@code float}.
+     *
+     * @param A a matrix
+     */
+    public FloatDenseMatrix(Matrix A) {
+        this(A.nRows(), A.nCols());
+
+        for (int i = 1, p = 0; i <= nRows; ++i) {
+            for (int j = 1; j <= nCols; ++j) {
+                data[p++] = (float) A.get(i, j);
+            }
+        }
+    }
+
+    /**
+     * Copy constructor.
+     *
+     * @param A a matrix
+     */
+    public FloatDenseMatrix(FloatDenseMatrix A) {
+        this(Arrays.copyOf(A.data, A.data.length), A.nRows, A.nCols);
+    }
+    //</editor-fold>
+
+    @Override
+    public int nRows() {
+        return nRows;
+    }
+
+    @Override
+    public int nCols() {
+        return nCols;
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="setters and getters">
+    /**
+     * Get the matrix entry at [i,j].
+     *
+     * @param i the row index
+     * @param j the column index
+     * @return <i>A[i,j]</i>
+     */
+    public float get(int i, int j) {
+        throwIfInvalidRow(this, i);
+        throwIfInvalidColumn(this, j);
+        return data[(i - 1) * nCols + (j - 1)];
+    }
+
+    /**
+     * Set the matrix entry at [i,j] to a value.
+     *
+     * @param i     the row index
+     * @param j     the column index
+     * @param value the value to set <i>A[i,j]</i> to
+     */
+    public void set(int i, int j, float value) {
+        throwIfInvalidRow(this, i);
+        throwIfInvalidColumn(this, j);
+        data[(i - 1) * nCols + (j - 1)] = value;
+    }
+
+    /**
+     * Get a copy of the <i>i</i>-th row.
+     *
+     * @param i the row index
+     * @return the row
+     */
+    public FloatDenseVector getRow(int i) {
+        throwIfInvalidRow(this, i);
+        return new FloatDenseVector(Arrays.copyOfRange(data, (i - 1) * nCols, i * nCols));
+    }
+
+    /**
+     * Get a copy of the <i>j</i>-th column.
+     *
+     * @param j the column index
+     * @return the column
+     */
+    public FloatDenseVector getColumn(int j) {
+        throwIfInvalidColumn(this, j);
+
+        float[] result = new float[nRows];
+        for (int i = 0, p = j - 1; i < nRows; ++i, p += nCols) {
+            result[i] = data[p];
+        }
+
+        return new FloatDenseVector(result);
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="the math operations">
+    /**
+     * <i>this + that</i>
+     *
+     * @param that a matrix
+     * @return <i>this + that</i>
+     */
+    public FloatDenseMatrix add(FloatDenseMatrix that) {
+        return new FloatDenseMatrix(this).addInPlace(1, that);
+    }
+
+    /**
+     * <i>this - that</i>
+     *
+     * @param that a matrix
+     * @return <i>this - that</i>
+     */
+    public FloatDenseMatrix minus(FloatDenseMatrix that) {
+        return new FloatDenseMatrix(this).addInPlace(-1, that);
+    }
+
+    /**
+     * <i>this += c * that</i>, without allocating a new matrix.
+     *
+     * @param c    a scalar
+     * @param that a matrix
+     * @return {@code this}, modified
+     */
+    public FloatDenseMatrix addInPlace(float c, FloatDenseMatrix that) {
+        throwIfDifferentDimension(this, that);
+
+        for (int p = 0; p < data.length; ++p) {
+            data[p] += c * that.data[p];
+        }
+
+        return this;
+    }
+
+    /**
+     * Scale this matrix by a constant.
+     *
+     * @param c a scalar
+     * @return <i>c * this</i>
+     */
+    public FloatDenseMatrix scaled(float c) {
+        float[] result = new float[data.length];
+        for (int p = 0; p < data.length; ++p) {
+            result[p] = c * data[p];
+        }
+
+        return new FloatDenseMatrix(result, nRows, nCols);
+    }
+
+    /**
+     * Get the opposite of this matrix.
+     *
+     * @return <i>-this</i>
+     */
+    public FloatDenseMatrix opposite() {
+        return scaled(-1);
+    }
+
+    /**
+     * Get the transpose of this matrix.
+     *
+     * @return <i>this'</i>
+     */
+    public FloatDenseMatrix t() {
+        float[] result = new float[data.length];
+        for (int i = 0, p = 0; i < nRows; ++i) {
+            for (int j = 0; j < nCols; ++j) {
+                result[j * nRows + i] = data[p++];
+            }
+        }
+
+        return new FloatDenseMatrix(result, nCols, nRows);
+    }
+
+    /**
+     * <i>this * that</i>
+     *
+     * @param that a matrix
+     * @return <i>this * that</i>
+     */
+    public FloatDenseMatrix multiply(FloatDenseMatrix that) {
+        throwIfIncompatible4Multiplication(this, that);
+
+        final int n = that.nCols;
+        float[] result = new float[nRows * n];
+        FloatMatrixMultiplication.multiply(
+                1f,
+                data, 0, nCols,
+                that.data, 0, n,
+                result, 0, n,
+                nRows, nCols, n,
+                ParallelExecutor.getSharedInstance());
+
+        return new FloatDenseMatrix(result, nRows, n);
+    }
+
+    /**
+     * Right multiply this matrix, <i>A</i>, by a vector.
+     * The products are summed in {@code double} and rounded once.
+     *
+     * @param v a vector
+     * @return <i>Av</i>
+     */
+    public FloatDenseVector multiply(FloatDenseVector v) {
+        if (nCols != v.size()) {
+            throw new MatrixMismatchException("the length of v does not match the number of columns");
+        }
+
+        float[] x = v.toArray();
+        float[] result = new float[nRows];
+        for (int i = 0, p = 0; i < nRows; ++i) {
+            double sum = 0;
+            for (int j = 0; j < nCols; ++j) {
+                sum += (double) data[p++] * x[j];
+            }
+            result[i] = (float) sum;
+        }
+
+        return new FloatDenseVector(result);
+    }
+
+    /**
+     * Get the 0 matrix of the same dimension.
+     *
+     * @return a 0 matrix
+     */
+    public FloatDenseMatrix ZERO() {
+        return new FloatDenseMatrix(nRows, nCols);
+    }
+
+    /**
+     * Get an identity matrix of the same dimension.
+     *
+     * @return an identity matrix
+     */
+    public FloatDenseMatrix ONE() {
+        FloatDenseMatrix result = new FloatDenseMatrix(nRows, nCols);
+        for (int i = 0; i < Math.min(nRows, nCols); ++i) {
+            result.data[i * nCols + i] = 1;
+        }
+
+        return result;
+    }
+    //</editor-fold>
+
+    /**
+     * Get a copy of the entries, row by row.
+     *
+     * @return the entries in a row-major {@code float[]}
+     */
+    public float[] toArray() {
+        return Arrays.copyOf(data, data.length);
+    }
+
+    /**
+     * Convert this matrix to double precision.
+     * The conversion is exact.
+     *
+     * @return a {@code double} copy of this matrix
+     */
+    public DenseMatrix toDense() {
+        double[] result = new double[data.length];
+        for (int p = 0; p < data.length; ++p) {
+            result[p] = data[p];
+        }
+
+        return new DenseMatrix(result, nRows, nCols);
+    }
+
+    /**
+     * Get a deep copy of this matrix.
+     *
+     * @return a copy of this matrix
+     */
+    public FloatDenseMatrix deepCopy() {
+        return new FloatDenseMatrix(this);
+    }
+
+    @Override
+    public String toString() {
+        return toDense().toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final FloatDenseMatrix other = (FloatDenseMatrix) obj;
+        if (this.nRows != other.nRows || this.nCols != other.nCols) {
+            return false;
+        }
+        return Arrays.equals(this.data, other.data);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 5;
+        hash = 37 * hash + this.nRows;
+        hash = 37 * hash + Arrays.hashCode(this.data);
+        return hash;
+    }
+}
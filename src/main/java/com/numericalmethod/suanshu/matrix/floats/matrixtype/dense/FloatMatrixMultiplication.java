@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.floats.matrixtype.dense;
+
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.BlockedMatrixMultiplication;
+import com.numericalmethod.suanshu.parallel.LoopSchedule;
+import com.numericalmethod.suanshu.parallel.ParallelExecutor;
+import com.numericalmethod.suanshu.parallel.RangeLoopBody;
+
+/**
+ * This is a cache-blocked kernel for multiplying two row-major {@code float[]} matrices.
+ * It computes
+ * <blockquote><i>C += &alpha; * A * B</i></blockquote>
+ * where <i>A</i> is <i>m x k</i>, <i>B</i> is <i>k x n</i> and <i>C</i> is <i>m x n</i>.
+ * The addressing by offsets and leading dimensions is the same as in {@link BlockedMatrixMultiplication}.
+ * <p/>
+ * The output is partitioned into tiles of {@value #MC} rows and {@value #NC} columns,
+ * and the inner dimension is swept in panels of {@value #KC} so that the panel of <i>B</i> stays in the cache.
+ * The innermost loop adds a multiple of a row of <i>B</i> to a row of <i>C</i>,
+ * which runs over contiguous memory and is vectorized by the JIT compiler, twice as wide as for {@code double}s.
+ * When the matrices are big, the row tiles are computed in parallel.
+ *
+ * @author Haksun Li
+ */
+public class FloatMatrixMultiplication {
+
+    /** the number of rows of an output tile */
+    public static final int MC = 64;
+    /** the depth of a panel of the inner dimension */
+    public static final int KC = 256;
+    /** the number of columns of an output tile */
+    public static final int NC = 1024;
+    /** the minimum number of multiplications to run in parallel */
+    private static final long PARALLEL_THRESHOLD = 100L * 100L * 100L;
+
+    private FloatMatrixMultiplication() {
+        // private constructor for utility class
+    }
+
+    /**
+     * Compute <i>C += &alpha; * A * B</i>.
+     * <i>C</i> must not overlap with <i>A</i> or <i>B</i>.
+     *
+     * @param alpha    the scaling factor of <i>A * B</i>
+     * @param A        the array storing the multiplicand, an <i>m x k</i> matrix
+     * @param aOffset  the index of <i>A[0][0]</i>
+     * @param lda      the leading dimension of <i>A</i>
+     * @param B        the array storing the multiplier, a <i>k x n</i> matrix
+     * @param bOffset  the index of <i>B[0][0]</i>
+     * @param ldb      the leading dimension of <i>B</i>
+     * @param C        the array storing the accumulator, an <i>m x n</i> matrix
+     * @param cOffset  the index of <i>C[0][0]</i>
+     * @param ldc      the leading dimension of <i>C</i>
+     * @param m        the number of rows of <i>A</i> and <i>C</i>
+     * @param k        the number of columns of <i>A</i> and the number of rows of <i>B</i>
+     * @param n        the number of columns of <i>B</i> and <i>C</i>
+     * @param parallel the executor to compute the tiles in parallel; {@code null} for single-threaded computation
+     */
+    public static void multiply(
+            final float alpha,
+            final float[] A, final int aOffset, final int lda,
+            final float[] B, final int bOffset, final int ldb,
+            final float[] C, final int cOffset, final int ldc,
+            final int m, final int k, final int n,
+            ParallelExecutor parallel) {
+        if (m == 0 || n == 0 || k == 0) {
+            return;
+        }
+
+        final int nTiles = (m + MC - 1) / MC;
+        RangeLoopBody body = new RangeLoopBody() {
+
+            @Override
+            public void run(int from, int to) throws Exception {
+                for (int t = from; t < to; ++t) {
+                    final int i0 = t * MC;
+                    final int i1 = Math.min(i0 + MC, m);
+                    for (int j0 = 0; j0 < n; j0 += NC) {
+                        final int j1 = Math.min(j0 + NC, n);
+                        for (int p0 = 0; p0 < k; p0 += KC) {
+                            final int p1 = Math.min(p0 + KC, k);
+                            multiplyTile(alpha, A, aOffset, lda, B, bOffset, ldb, C, cOffset, ldc, i0, i1, p0, p1, j0, j1);
+                        }
+                    }
+                }
+            }
+        };
+
+        try {
+            if (parallel == null || nTiles == 1 || (long) m * n * k < PARALLEL_THRESHOLD) {
+                body.run(0, nTiles);
+            } else {
+                parallel.forLoop(0, nTiles, LoopSchedule.STATIC, body);
+            }
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private static void multiplyTile(
+            float alpha,
+            float[] A, int aOffset, int lda,
+            float[] B, int bOffset, int ldb,
+            float[] C, int cOffset, int ldc,
+            int i0, int i1, int p0, int p1, int j0, int j1) {
+        for (int i = i0; i < i1; ++i) {
+            final int ci = cOffset + i * ldc;
+            final int ai = aOffset + i * lda;
+            for (int p = p0; p < p1; ++p) {
+                final float a = alpha * A[ai + p];
+                if (a != 0f) {
+                    final int bp = bOffset + p * ldb;
+                    for (int j = j0; j < j1; ++j) {
+                        C[ci + j] += a * B[bp + j];
+                    }
+                }
+            }
+        }
+    }
+}
@@ -22,9 +22,10 @@
  */
 package com.numericalmethod.suanshu.number.doublearray;
 
-import com.numericalmethod.suanshu.parallel.LoopBody;
+import com.numericalmethod.suanshu.parallel.LoopSchedule;
 import com.numericalmethod.suanshu.parallel.MultipleExecutionException;
 import com.numericalmethod.suanshu.parallel.ParallelExecutor;
+import com.numericalmethod.suanshu.parallel.RangeLoopBody;
 
 /**
  * This is a multi-threaded implementation of the array math operations.
@@ -33,17 +34,22 @@ import com.numericalmethod.suanshu.parallel.ParallelExecutor;
  */
 public class ParallelDoubleArrayOperation implements DoubleArrayOperation {
 
-    private final ParallelExecutor parallel = new ParallelExecutor();
+    /**
+     * Each thread takes a contiguous block of the arrays; arrays that are shorter than the grain size are processed in the calling thread.
+     */
+    private static final LoopSchedule SCHEDULE = new LoopSchedule(LoopSchedule.Type.STATIC, 1 << 13);
 
     @Override
     public double[] add(final double[] arr1, final double[] arr2) {
         final double[] result = new double[arr1.length];
         try {
-            parallel.forLoop(0, arr1.length, new LoopBody() {
+            ParallelExecutor.getSharedInstance().forLoop(0, arr1.length, SCHEDULE, new RangeLoopBody() {
 
                 @Override
-                public void run(int i) throws Exception {
-                    result[i] = arr1[i] + arr2[i];
+                public void run(int from, int to) throws Exception {
+                    for (int i = from; i < to; ++i) {
+                        result[i] = arr1[i] + arr2[i];
+                    }
                 }
             });
         } catch (MultipleExecutionException ex) {
@@ -57,11 +63,13 @@ public class ParallelDoubleArrayOperation implements DoubleArrayOperation {
     public double[] minus(final double[] arr1, final double[] arr2) {
         final double[] result = new double[arr1.length];
         try {
-            parallel.forLoop(0, arr1.length, new LoopBody() {
+            ParallelExecutor.getSharedInstance().forLoop(0, arr1.length, SCHEDULE, new RangeLoopBody() {
 
                 @Override
-                public void run(int i) throws Exception {
-                    result[i] = arr1[i] - arr2[i];
+                public void run(int from, int to) throws Exception {
+                    for (int i = from; i < to; ++i) {
+                        result[i] = arr1[i] - arr2[i];
+                    }
                 }
             });
         } catch (MultipleExecutionException ex) {
@@ -75,11 +83,13 @@ public class ParallelDoubleArrayOperation implements DoubleArrayOperation {
     public double[] scaled(final double[] arr, final double c) {
         final double[] result = new double[arr.length];
         try {
-            parallel.forLoop(0, arr.length, new LoopBody() {
+            ParallelExecutor.getSharedInstance().forLoop(0, arr.length, SCHEDULE, new RangeLoopBody() {
 
                 @Override
-                public void run(int i) throws Exception {
-                    result[i] = arr[i] * c;
+                public void run(int from, int to) throws Exception {
+                    for (int i = from; i < to; ++i) {
+                        result[i] = arr[i] * c;
+                    }
                 }
             });
         } catch (MultipleExecutionException ex) {
@@ -30,7 +30,7 @@ import com.numericalmethod.suanshu.optimization.constrained.convex.sdp.socp.qp.l
 import com.numericalmethod.suanshu.optimization.constrained.convex.sdp.socp.qp.lp.simplex.pivoting.SmallestSubscriptRule;
 import com.numericalmethod.suanshu.vector.doubles.ImmutableVector;
 import com.numericalmethod.suanshu.vector.doubles.Vector;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 import javax.management.RuntimeErrorException;
 
@@ -43,7 +43,7 @@ import javax.management.RuntimeErrorException;
  */
 public class LPBoundedMinimizer implements LPSimplexMinimizer {
 
-    private final Set<MyImmutableVector> minimizers = new HashSet<MyImmutableVector>();
+    private final Set<MyImmutableVector> minimizers = new LinkedHashSet<MyImmutableVector>();//in the order found; the identity hash codes must not decide which one is the first
     private final SimplexTable table;
     private final double epsilon;
 
@@ -123,7 +123,7 @@ public class BruteForceIPMinimizer implements IPMinimizer<BruteForceIPProblem, B
 
             final ConcurrentLinkedQueue<Result> results = new ConcurrentLinkedQueue<Result>();
             try {
-                new ParallelExecutor().forEach(
+                ParallelExecutor.getSharedInstance().forEach(
                         domains,
                         new IterationBody<List<Integer>>() {
 
@@ -72,7 +72,7 @@ public class GridSearch implements UnivariateMinimizer {
             final double[] fx = new double[x.length];
 
             try {// try multi-thread
-                new ParallelExecutor().forLoop(
+                ParallelExecutor.getSharedInstance().forLoop(
                         0,
                         x.length,
                         new LoopBody() {
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ * 
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ * 
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT, 
+ * TITLE AND USEFULNESS.
+ * 
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.parallel;
+
+import com.numericalmethod.suanshu.misc.SuanShuUtils;
+
+/**
+ * This specifies how the iterations of a parallel for-loop are divided into
+ * chunks and assigned to threads, similar to the {@code schedule} clause in
+ * OpenMP.
+ * <p/>
+ * The grain size is the smallest number of iterations in a chunk. A loop
+ * that has no more iterations than the grain size is run in the calling
+ * thread, so that small loops do not pay for the thread coordination.
+ * A longer loop uses at most one thread per grain size of iterations, up to
+ * the concurrency of the executor.
+ * <p/>
+ * The grain size, i.e., the sequential cutoff, is set by the caller and is
+ * not tuned automatically, because the cost of an iteration is unknown to the
+ * executor. Choose it so that a chunk does enough work, e.g., some
+ * microseconds, to outweigh the cost of handing it to a thread.
+ *
+ * @author Ken Yiu
+ * @see <a href="http://www.openmp.org/mp-documents/spec30.pdf">OpenMP Application Program Interface, Version 3.0, Section 2.5.1, Loop Construct</a>
+ */
+public class LoopSchedule {
+
+    /**
+     * the ways to divide a loop into chunks
+     */
+    public static enum Type {
+
+        /**
+         * The iterations are divided into equal chunks, one for each thread.
+         * This has the least overhead when all iterations take about the same time.
+         */
+        STATIC,
+        /**
+         * Each thread takes the next chunk of grain size iterations whenever it finishes a chunk.
+         * This balances the load when iterations take different times.
+         */
+        DYNAMIC,
+        /**
+         * Each thread takes the next chunk whenever it finishes a chunk.
+         * The chunk size is proportional to the number of remaining iterations divided by the number of threads,
+         * and decreases down to the grain size.
+         * This balances the load with fewer chunks than {@link #DYNAMIC}.
+         */
+        GUIDED
+    }
+    /**
+     * the static schedule that parallelizes any loop with more than one iteration
+     */
+    public static final LoopSchedule STATIC = new LoopSchedule(Type.STATIC, 1);
+    private final Type type;
+    private final int grainSize;
+
+    /**
+     * Construct a loop schedule.
+     *
+     * @param type      the way to divide a loop into chunks
+     * @param grainSize the minimum number of iterations in a chunk, and the
+     *                  number of iterations up to which a loop runs sequentially
+     */
+    public LoopSchedule(Type type, int grainSize) {
+        SuanShuUtils.assertArgument(grainSize >= 1, "grain size must be at least 1");
+        this.type = type;
+        this.grainSize = grainSize;
+    }
+
+    /**
+     * Get the way to divide a loop into chunks.
+     *
+     * @return the schedule type
+     */
+    public Type type() {
+        return type;
+    }
+
+    /**
+     * Get the minimum number of iterations in a chunk.
+     * This is also the manual sequential cutoff of a loop.
+     *
+     * @return the grain size
+     */
+    public int grainSize() {
+        return grainSize;
+    }
+}
@@ -22,33 +22,71 @@
  */
 package com.numericalmethod.suanshu.parallel;
 
+import com.numericalmethod.suanshu.misc.SuanShuUtils;
 import com.numericalmethod.suanshu.parallel.SynchronizedIterator.Element;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * This class provides a framework for executing an algorithm in parallel. A
- * thread pool is created when executing a list of tasks.
+ * This class provides a framework for executing an algorithm in parallel.
+ * There are these modes of execution.
+ * <ul>
+ * <li>By default, a thread pool is created when executing a list of tasks.
+ * <li>When constructed with an {@link Executor}, the tasks are submitted to the executor supplied by the application,
+ * e.g., its own request thread pool or a virtual-thread-per-task executor (see {@link #newVirtualThreadExecutor(int)}).
+ * The calling thread runs the tasks that the executor has not yet started,
+ * so a call completes even if the executor is saturated or is the pool that the caller runs in.
+ * <li>{@link #getInlineInstance()} runs all tasks one by one in the calling thread.
+ * It lets an application that already runs many independent jobs concurrently switch off the parallelism inside the library.
+ * <li>When constructed with a {@link ForkJoinPool}, the tasks are run by work-stealing.
+ * A for-loop is recursively split into ranges, which idle threads steal from busy threads.
+ * A thread waiting for its sub-tasks helps execute the other tasks in the pool instead of blocking.
+ * Therefore, parallel calls can be safely nested, e.g., a parallel matrix multiplication inside a parallel optimizer loop.
+ * </ul>
+ * {@link #getSharedInstance()} gives the executor that all parallel code in the library shares.
+ * It is a work-stealing executor by default, and can be replaced process-wide by {@link #setSharedInstance(ParallelExecutor)},
+ * or for the duration of a call by {@link #callAsSharedInstance(Callable)}.
+ * For example, to cap a batch job to 2 threads of the shared pool,
+ * <pre><code>
+ * ParallelExecutor.getSharedInstance().withConcurrency(2).callAsSharedInstance(job);
+ * </code></pre>
  *
  * <p>
  * Caution: Avoid using another executor within parallelized calls, this would
  * create numerous threads, leading to much memory consumption and huge overhead
  * for thread switching. It is recommended to parallelize the outermost-scoped
  * tasks.
+ * To prevent such oversubscription, a thread pool executor called from within a parallel task
+ * runs the nested tasks sequentially in the calling thread.
  *
  * @author Ken Yiu
  */
 public class ParallelExecutor {
 
+    /** the process-wide shared instance; lazily created */
+    private static volatile ParallelExecutor sharedInstance = null;
+    /** the shared instance for the current thread, which overrides the process-wide one */
+    private static final ThreadLocal<ParallelExecutor> scopedSharedInstance = new ThreadLocal<ParallelExecutor>();
+    /** the number of leaf ranges per thread when splitting a for-loop for work-stealing */
+    private static final int RANGES_PER_THREAD = 8;
+    /** {@code true} if the current thread is executing a task of a thread pool executor */
+    private static final ThreadLocal<Boolean> isInParallelTask = new ThreadLocal<Boolean>() {
+
+        @Override
+        protected Boolean initialValue() {
+            return Boolean.FALSE;
+        }
+    };
     private static final AtomicLong executorCount = new AtomicLong(0);
     private final int concurrency;
-    private final ThreadPoolExecutor executor;
-    private final AtomicLong threadCount = new AtomicLong(0);
-    private final long executorId = executorCount.incrementAndGet();
-    private final String namePrefix = String.format("parallel-executor-%d-thread-", executorId);
+    /** the executor to run the tasks; {@code null} when running by work-stealing or inline */
+    private final Executor executor;
+    private final ForkJoinPool forkJoinPool;
 
     /**
      * Creates an instance using default concurrency number, which is the
@@ -67,8 +105,21 @@ public class ParallelExecutor {
      * @param concurrency the maximum number of threads can be used when executing a list of tasks
      */
     public ParallelExecutor(int concurrency) {
+        this(concurrency, String.format("parallel-executor-%d-thread-", executorCount.incrementAndGet()), false);
+    }
+
+    /**
+     * Creates an instance with a specified concurrency number, and specifies how the threads are created.
+     *
+     * @param concurrency      the maximum number of threads can be used when executing a list of tasks
+     * @param threadNamePrefix the prefix of the thread names, followed by a thread count
+     * @param isDaemon         {@code true} if the threads are daemon threads, which do not prevent the JVM from exiting
+     */
+    public ParallelExecutor(int concurrency, final String threadNamePrefix, final boolean isDaemon) {
+        final AtomicLong threadCount = new AtomicLong(0);
         this.concurrency = concurrency;
-        this.executor = new ThreadPoolExecutor(
+        this.forkJoinPool = null;
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
                 concurrency,
                 concurrency,
                 500, // keep threads in the pool alive for a short time period
@@ -78,10 +129,10 @@ public class ParallelExecutor {
 
                     @Override
                     public Thread newThread(Runnable r) {
-                        String threadLabel = namePrefix + threadCount.incrementAndGet();
+                        String threadLabel = threadNamePrefix + threadCount.incrementAndGet();
                         Thread t = new Thread(r, threadLabel);
-                        if (t.isDaemon()) {
-                            t.setDaemon(false);
+                        if (t.isDaemon() != isDaemon) {
+                            t.setDaemon(isDaemon);
                         }
                         if (t.getPriority() != Thread.NORM_PRIORITY) {
                             t.setPriority(Thread.NORM_PRIORITY);
@@ -96,7 +147,206 @@ public class ParallelExecutor {
          *
          * Ref.: see javadoc for ThreadPoolExecutor
          */
-        this.executor.allowCoreThreadTimeOut(true);
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+    }
+
+    /**
+     * Creates an instance that submits the tasks to an executor supplied by the application.
+     * The executor is not shut down by this instance.
+     *
+     * @param executor    the executor to run the tasks
+     * @param concurrency the maximum number of tasks a list of tasks or a for-loop is divided into
+     */
+    public ParallelExecutor(Executor executor, int concurrency) {
+        SuanShuUtils.assertArgument(concurrency >= 1, "concurrency must be at least 1");
+        this.concurrency = concurrency;
+        this.executor = executor;
+        this.forkJoinPool = null;
+    }
+
+    /**
+     * Creates an instance that runs the tasks inline.
+     */
+    private ParallelExecutor(Void inline) {
+        this.concurrency = 1;
+        this.executor = null;
+        this.forkJoinPool = null;
+    }
+
+    private static class InlineInstanceHolder { // thread-safe lazy initialization idiom
+
+        private static final ParallelExecutor instance = new ParallelExecutor((Void) null);
+    }
+
+    /**
+     * Gets an executor that runs all tasks one by one in the calling thread.
+     * When an application already runs many independent jobs concurrently, e.g., one model fit per request thread,
+     * the parallelism inside the library only competes with the application for the processors.
+     * To switch it off for a job, use
+     * <pre><code>
+     * ParallelExecutor.getInlineInstance().callAsSharedInstance(job);
+     * </code></pre>
+     * or {@code setSharedInstance(ParallelExecutor.getInlineInstance())} to switch it off process-wide.
+     *
+     * @return the inline executor
+     */
+    public static ParallelExecutor getInlineInstance() {
+        return InlineInstanceHolder.instance;
+    }
+
+    /**
+     * Creates an instance that runs each task in a new virtual thread.
+     * Virtual threads are cheap to create and block, and are scheduled by the JVM on a small pool of carrier threads,
+     * so many concurrent jobs can each use the library in parallel without creating more platform threads.
+     * This requires Java 21 or later.
+     *
+     * @param concurrency the maximum number of tasks a list of tasks or a for-loop is divided into
+     * @return an executor that runs tasks in virtual threads
+     * @throws UnsupportedOperationException if the JVM does not support virtual threads
+     */
+    public static ParallelExecutor newVirtualThreadExecutor(int concurrency) {
+        Executor executor;
+        try {// by reflection so that the library still runs on older JVMs
+            executor = (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (Exception ex) {
+            throw new UnsupportedOperationException("virtual threads are not supported by this JVM", ex);
+        }
+        return new ParallelExecutor(executor, concurrency);
+    }
+
+    /**
+     * Creates an instance that runs tasks by work-stealing in a {@link ForkJoinPool}.
+     * The concurrency number is the parallelism of the pool.
+     *
+     * @param pool the pool to run the tasks
+     */
+    public ParallelExecutor(ForkJoinPool pool) {
+        this.concurrency = pool.getParallelism();
+        this.forkJoinPool = pool;
+        this.executor = null;
+    }
+
+    /**
+     * Creates an instance that runs tasks by work-stealing in a new {@link ForkJoinPool},
+     * and specifies how the threads are created.
+     *
+     * @param concurrency      the number of threads in the pool
+     * @param threadNamePrefix the prefix of the thread names, followed by a thread count
+     * @param isDaemon         {@code true} if the threads are daemon threads, which do not prevent the JVM from exiting
+     * @return a work-stealing executor
+     */
+    public static ParallelExecutor newForkJoinExecutor(int concurrency, final String threadNamePrefix, final boolean isDaemon) {
+        final AtomicLong threadCount = new AtomicLong(0);
+        ForkJoinPool pool = new ForkJoinPool(
+                concurrency,
+                new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+
+                    @Override
+                    public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+                        ForkJoinWorkerThread t = new ForkJoinWorkerThread(pool) {
+                        };
+                        t.setName(threadNamePrefix + threadCount.incrementAndGet());
+                        t.setDaemon(isDaemon);
+                        return t;
+                    }
+                },
+                null,
+                false);
+        return new ParallelExecutor(pool);
+    }
+
+    /**
+     * Creates a view of an executor that uses the same threads but at most {@code concurrency} of them in each call.
+     */
+    private ParallelExecutor(ParallelExecutor that, int concurrency) {
+        this.concurrency = concurrency;
+        this.executor = that.executor;
+        this.forkJoinPool = that.forkJoinPool;
+    }
+
+    /**
+     * Gets an executor that runs on the same threads as this executor,
+     * but uses at most {@code maxConcurrency} threads in each call.
+     * This caps the resources used by a job without creating another pool.
+     *
+     * @param maxConcurrency the maximum number of threads used in each call
+     * @return an executor with the capped concurrency number
+     */
+    public ParallelExecutor withConcurrency(int maxConcurrency) {
+        SuanShuUtils.assertArgument(maxConcurrency >= 1, "concurrency must be at least 1");
+        return new ParallelExecutor(this, Math.min(maxConcurrency, concurrency));
+    }
+
+    /**
+     * Gets the executor shared by all parallel algorithms in the library.
+     * Unless replaced, it is a work-stealing executor whose pool has as many threads as the number of available processors.
+     * The threads are daemon threads so they do not prevent the JVM from exiting.
+     * Within {@link #callAsSharedInstance(Callable)}, this returns the executor of that call instead.
+     *
+     * @return the shared executor
+     */
+    public static ParallelExecutor getSharedInstance() {
+        ParallelExecutor scoped = scopedSharedInstance.get();
+        if (scoped != null) {
+            return scoped;
+        }
+
+        ParallelExecutor instance = sharedInstance;
+        if (instance == null) {
+            synchronized (ParallelExecutor.class) {
+                instance = sharedInstance;
+                if (instance == null) {
+                    instance = newForkJoinExecutor(Runtime.getRuntime().availableProcessors(), "suanshu-compute-", true);
+                    sharedInstance = instance;
+                }
+            }
+        }
+
+        return instance;
+    }
+
+    /**
+     * Replaces the executor shared by all parallel algorithms in the library, process-wide.
+     * This allows an application to choose the pool size, the thread names, whether the threads are daemon,
+     * or to run the library on a pool that the application already has.
+     * The previous shared executor is not shut down.
+     *
+     * @param executor the new shared executor; {@code null} to restore the default
+     */
+    public static void setSharedInstance(ParallelExecutor executor) {
+        synchronized (ParallelExecutor.class) {
+            sharedInstance = executor;
+        }
+    }
+
+    /**
+     * Runs a task with this executor as the shared instance.
+     * All parallel algorithms in the library called by the task, in the calling thread or in the threads it spawns,
+     * use this executor instead of the process-wide shared instance.
+     *
+     * @param <T>  the type of result
+     * @param task the task
+     * @return the result of the task
+     * @throws Exception if the task throws an exception
+     */
+    public <T> T callAsSharedInstance(Callable<T> task) throws Exception {
+        ParallelExecutor previous = scopedSharedInstance.get();
+        scopedSharedInstance.set(this);
+        try {
+            return task.call();
+        } finally {
+            scopedSharedInstance.set(previous);
+        }
+    }
+
+    /**
+     * Gets the maximum number of threads used when executing a list of tasks.
+     *
+     * @return the concurrency number
+     */
+    public int getConcurrency() {
+        return concurrency;
     }
 
     /**
@@ -110,10 +360,49 @@ public class ParallelExecutor {
      */
     public <T> List<T> executeAll(List<? extends Callable<T>> tasks)
             throws MultipleExecutionException {
+        if (forkJoinPool != null) {
+            return executeAllByForkJoin(tasks);
+        }
+
+        if (executor == null || tasks.size() <= 1 || isNested()) {
+            return executeAllInCallerThread(tasks);
+        }
+
+        final ParallelExecutor scope = scopedSharedInstance.get();
+        List<FutureTask<T>> futures = new ArrayList<FutureTask<T>>(tasks.size());
+        for (final Callable<T> task : tasks) {
+            futures.add(new FutureTask<T>(new Callable<T>() {
+
+                @Override
+                public T call() throws Exception {
+                    Boolean wasInParallelTask = isInParallelTask.get();
+                    ParallelExecutor previous = scopedSharedInstance.get();
+                    isInParallelTask.set(Boolean.TRUE);
+                    scopedSharedInstance.set(scope);
+                    try {
+                        return task.call();
+                    } finally {
+                        isInParallelTask.set(wasInParallelTask);
+                        scopedSharedInstance.set(previous);
+                    }
+                }
+            }));
+        }
+
+        for (int i = 1; i < futures.size(); ++i) {
+            try {
+                executor.execute(futures.get(i));
+            } catch (RejectedExecutionException ex) {
+                break; // the remaining tasks are run by the calling thread
+            }
+        }
+        // the calling thread runs the tasks not yet started by the executor; running a started task is a no-op
+        for (FutureTask<T> future : futures) {
+            future.run();
+        }
+
         List<T> results = new ArrayList<T>(tasks.size());
         try {
-            List<Future<T>> futures = executor.invokeAll(tasks);
-
             List<ExecutionException> exceptions = new ArrayList<ExecutionException>(futures.size());
             boolean exceptionCaught = false;
             for (Future<T> future : futures) {
@@ -136,6 +425,150 @@ public class ParallelExecutor {
         return results;
     }
 
+    /**
+     * Checks if the current thread is already running a parallel task, in which case spawning more threads
+     * from a thread pool only oversubscribes the processors.
+     *
+     * @return {@code true} if the current thread is a worker of a thread pool executor or a fork-join pool
+     */
+    private static boolean isNested() {
+        return isInParallelTask.get() || ForkJoinTask.inForkJoinPool();
+    }
+
+    /**
+     * Runs the tasks one by one in the calling thread.
+     */
+    private static <T> List<T> executeAllInCallerThread(List<? extends Callable<T>> tasks)
+            throws MultipleExecutionException {
+        List<T> results = new ArrayList<T>(tasks.size());
+        List<ExecutionException> exceptions = new ArrayList<ExecutionException>(tasks.size());
+        boolean exceptionCaught = false;
+        for (Callable<T> task : tasks) {
+            try {
+                results.add(task.call());
+                exceptions.add(null);
+            } catch (Exception ex) {
+                results.add(null);
+                exceptions.add(new ExecutionException(ex));
+                exceptionCaught = true;
+            }
+        }
+        if (exceptionCaught) {
+            throw new MultipleExecutionException(results, exceptions);
+        }
+
+        return results;
+    }
+
+    /**
+     * A fork-join task that remembers the exception thrown by a {@link Callable}.
+     */
+    private static class CallableTask<T> extends RecursiveTask<T> {
+
+        private static final long serialVersionUID = 1L;
+        private final Callable<T> callable;
+        private final ParallelExecutor scope = scopedSharedInstance.get();
+        private Exception exception = null;
+
+        private CallableTask(Callable<T> callable) {
+            this.callable = callable;
+        }
+
+        @Override
+        protected T compute() {
+            ParallelExecutor previous = scopedSharedInstance.get();
+            scopedSharedInstance.set(scope);
+            try {
+                return callable.call();
+            } catch (Exception ex) {
+                exception = ex;
+                return null;
+            } finally {
+                scopedSharedInstance.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Forks all but the first task, runs the first task in the current thread, and then joins the others.
+     * While joining, the current thread helps run the queued tasks.
+     */
+    private static void forkAndJoin(List<? extends ForkJoinTask<?>> tasks) {
+        for (int i = tasks.size() - 1; i > 0; --i) {
+            tasks.get(i).fork();
+        }
+        if (!tasks.isEmpty()) {
+            tasks.get(0).invoke();
+        }
+        for (int i = 1; i < tasks.size(); ++i) {
+            tasks.get(i).join();
+        }
+    }
+
+    /**
+     * Groups the tasks into no more than {@link #concurrency} lanes, each running its tasks one after another,
+     * so that a capped executor does not occupy more threads of the pool than its concurrency.
+     */
+    private <T> List<CallableTask<Void>> toLanes(final List<CallableTask<T>> tasks) {
+        final int nLanes = Math.min(tasks.size(), concurrency);
+        List<CallableTask<Void>> lanes = new ArrayList<CallableTask<Void>>(nLanes);
+        for (int i = 0; i < nLanes; ++i) {
+            final int lane = i;
+            lanes.add(new CallableTask<Void>(new Callable<Void>() {
+
+                @Override
+                public Void call() throws Exception {
+                    for (int j = lane; j < tasks.size(); j += nLanes) {
+                        tasks.get(j).invoke();//exceptions are recorded in the task
+                    }
+                    return null;
+                }
+            }));
+        }
+        return lanes;
+    }
+
+    private <T> List<T> executeAllByForkJoin(List<? extends Callable<T>> tasks)
+            throws MultipleExecutionException {
+        final List<CallableTask<T>> fjTasks = new ArrayList<CallableTask<T>>(tasks.size());
+        for (Callable<T> task : tasks) {
+            fjTasks.add(new CallableTask<T>(task));
+        }
+
+        final List<? extends ForkJoinTask<?>> lanes = concurrency < forkJoinPool.getParallelism() ? toLanes(fjTasks) : fjTasks;
+        if (ForkJoinTask.getPool() == forkJoinPool) {//nested call from a worker of the same pool
+            forkAndJoin(lanes);
+        } else {
+            forkJoinPool.invoke(new RecursiveAction() {
+
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected void compute() {
+                    forkAndJoin(lanes);
+                }
+            });
+        }
+
+        List<T> results = new ArrayList<T>(tasks.size());
+        List<ExecutionException> exceptions = new ArrayList<ExecutionException>(tasks.size());
+        boolean exceptionCaught = false;
+        for (CallableTask<T> task : fjTasks) {
+            results.add(task.getRawResult());
+            if (task.exception != null) {
+                exceptions.add(new ExecutionException(task.exception));
+                exceptionCaught = true;
+            } else {
+                exceptions.add(null);
+            }
+        }
+        if (exceptionCaught) {
+            throw new MultipleExecutionException(results, exceptions);
+        }
+
+        return results;
+    }
+
     /**
      * Executes an arbitrary number of {@link Callable} tasks, and returns a
      * list of results in the same order. This is a convenient method and is the
@@ -165,13 +598,34 @@ public class ParallelExecutor {
     public <T> T executeAny(List<? extends Callable<T>> tasks) throws ExecutionException {
         T result = null;
         try {
-            result = executor.invokeAny(tasks);
+            if (forkJoinPool != null) {
+                result = forkJoinPool.invokeAny(tasks);
+            } else if (executor instanceof ExecutorService) {
+                result = ((ExecutorService) executor).invokeAny(tasks);
+            } else {
+                result = executeAnyInCallerThread(tasks);
+            }
         } catch (InterruptedException ex) {
             throw new RuntimeException(ex);
         }
         return result;
     }
 
+    /**
+     * Runs the tasks one by one in the calling thread until one successfully completes.
+     */
+    private static <T> T executeAnyInCallerThread(List<? extends Callable<T>> tasks) throws ExecutionException {
+        Exception lastException = null;
+        for (Callable<T> task : tasks) {
+            try {
+                return task.call();
+            } catch (Exception ex) {
+                lastException = ex;
+            }
+        }
+        throw new ExecutionException(lastException);
+    }
+
     /**
      * Executes a list of tasks in parallel, and returns the result from the
      * earliest successfully completed tasks (without throwing an exception).
@@ -206,6 +660,11 @@ public class ParallelExecutor {
      * @throws MultipleExecutionException if one or more partitioned for-loop throws an exception
      */
     public void forLoop(int start, int end, final int increment, final LoopBody body) throws MultipleExecutionException {
+        if (forkJoinPool != null) {
+            forLoopByForkJoin(start, end, increment, body);
+            return;
+        }
+
         List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(concurrency);
 
         // divide the loop into equal portions among threads
@@ -234,6 +693,110 @@ public class ParallelExecutor {
         executeAll(tasks);
     }
 
+    /**
+     * A range of loop iterations, which is split into halves recursively until it is no bigger than the grain size.
+     */
+    private static class RangeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        private final int start;
+        private final int increment;
+        private final int from;
+        private final int to;
+        private final int grainSize;
+        private final LoopBody body;
+        private final Queue<ExecutionException> exceptions;
+        private final ParallelExecutor scope;
+
+        /**
+         * @param from the first iteration count (inclusive)
+         * @param to   the last iteration count (exclusive)
+         */
+        private RangeTask(int start, int increment, int from, int to, int grainSize, LoopBody body, Queue<ExecutionException> exceptions, ParallelExecutor scope) {
+            this.start = start;
+            this.increment = increment;
+            this.from = from;
+            this.to = to;
+            this.grainSize = grainSize;
+            this.body = body;
+            this.exceptions = exceptions;
+            this.scope = scope;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > grainSize) {
+                int mid = (from + to) >>> 1;
+                RangeTask right = new RangeTask(start, increment, mid, to, grainSize, body, exceptions, scope);
+                right.fork();
+                new RangeTask(start, increment, from, mid, grainSize, body, exceptions, scope).compute();
+                right.join();
+                return;
+            }
+
+            ParallelExecutor previous = scopedSharedInstance.get();
+            scopedSharedInstance.set(scope);
+            try {
+                for (int k = from, i = start + from * increment; k < to; ++k, i += increment) {
+                    body.run(i);
+                }
+            } catch (Exception ex) {
+                exceptions.add(new ExecutionException(ex));
+            } finally {
+                scopedSharedInstance.set(previous);
+            }
+        }
+    }
+
+    private void forLoopByForkJoin(final int start, int end, final int increment, final LoopBody body) throws MultipleExecutionException {
+        final int nIterations = (end - start + increment - 1) / increment;
+        if (nIterations <= 0) {
+            return;
+        }
+
+        if (concurrency < forkJoinPool.getParallelism()) {
+            /*
+             * A capped executor divides the loop into exactly min(concurrency, nIterations) ranges,
+             * and runs them as lanes, so no more threads than its concurrency run the loop.
+             * Recursively split ranges could be more, and could be stolen by any worker of the pool.
+             */
+            final int nRanges = Math.min(concurrency, nIterations);
+            List<Callable<Void>> ranges = new ArrayList<Callable<Void>>(nRanges);
+            for (int r = 0; r < nRanges; ++r) {
+                final int from = (int) ((long) nIterations * r / nRanges);
+                final int to = (int) ((long) nIterations * (r + 1) / nRanges);
+                ranges.add(new Callable<Void>() {
+
+                    @Override
+                    public Void call() throws Exception {
+                        for (int k = from, i = start + from * increment; k < to; ++k, i += increment) {
+                            body.run(i);
+                        }
+                        return null;
+                    }
+                });
+            }
+            executeAllByForkJoin(ranges);
+            return;
+        }
+
+        final int grainSize = Math.max(1, nIterations / (RANGES_PER_THREAD * concurrency));
+        final Queue<ExecutionException> exceptions = new ConcurrentLinkedQueue<ExecutionException>();
+        RangeTask task = new RangeTask(start, increment, 0, nIterations, grainSize, body, exceptions, scopedSharedInstance.get());
+        if (ForkJoinTask.getPool() == forkJoinPool) {//nested call from a worker of the same pool
+            task.invoke();
+        } else {
+            forkJoinPool.invoke(task);
+        }
+
+        if (!exceptions.isEmpty()) {
+            List<ExecutionException> exceptionList = new ArrayList<ExecutionException>(exceptions);
+            throw new MultipleExecutionException(
+                    Arrays.asList(new Void[exceptionList.size()]),
+                    exceptionList);
+        }
+    }
+
     /**
      * Calls {@link #forLoop(int, int, int, com.numericalmethod.suanshu.parallel.LoopBody) forLoop}
      * with {@code increment} of 1.
@@ -247,6 +810,125 @@ public class ParallelExecutor {
         forLoop(start, end, 1, body);
     }
 
+    /**
+     * Runs a for-loop in parallel, chunk by chunk. The loop is divided into
+     * chunks of consecutive indices according to {@code schedule}, and each
+     * chunk is run by one call to {@code body}. This is similar to running a
+     * normal for-loop construct:
+     * <pre><code>
+     * for (int i = start; i &lt; end; ++i) {
+     *     // body of index i
+     * }
+     * </code></pre>
+     * A loop that has no more iterations than the grain size of the schedule
+     * is run in the calling thread.
+     *
+     * @param start    the first loop index (inclusive)
+     * @param end      the last loop index (exclusive)
+     * @param schedule the way to divide the loop into chunks
+     * @param body     the loop body for a chunk
+     * @throws MultipleExecutionException if one or more chunks throws an exception
+     */
+    public void forLoop(final int start, final int end, LoopSchedule schedule, final RangeLoopBody body) throws MultipleExecutionException {
+        final int nIterations = end - start;
+        if (nIterations <= 0) {
+            return;
+        }
+
+        final int grainSize = schedule.grainSize();
+        if (nIterations <= grainSize || concurrency == 1) {
+            try {
+                body.run(start, end);
+            } catch (Exception ex) {
+                throw new MultipleExecutionException(
+                        Arrays.<Void>asList((Void) null),
+                        Arrays.<ExecutionException>asList(new ExecutionException(ex)));
+            }
+            return;
+        }
+
+        final int nThreads = (int) Math.min(concurrency, ((long) nIterations + grainSize - 1) / grainSize);
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(nThreads);
+        switch (schedule.type()) {
+            case STATIC: {
+                final int chunkSize = (nIterations + nThreads - 1) / nThreads;
+                for (int i = 0; i < nThreads; ++i) {
+                    final int from = start + i * chunkSize;
+                    if (from >= end) {
+                        break;
+                    }
+                    final int to = (int) Math.min((long) from + chunkSize, end);
+                    tasks.add(
+                            new Callable<Void>() {
+
+                                @Override
+                                public Void call() throws Exception {
+                                    body.run(from, to);
+                                    return null;
+                                }
+                            });
+                }
+                break;
+            }
+            case DYNAMIC:
+            case GUIDED: {
+                final boolean isGuided = schedule.type() == LoopSchedule.Type.GUIDED;
+                final AtomicInteger next = new AtomicInteger(start);
+                for (int i = 0; i < nThreads; ++i) {
+                    tasks.add(
+                            new Callable<Void>() {
+
+                                @Override
+                                public Void call() throws Exception {
+                                    for (;;) {
+                                        final int from = next.get();
+                                        if (from >= end) {
+                                            return null;
+                                        }
+                                        int chunkSize = grainSize;
+                                        if (isGuided) {
+                                            chunkSize = Math.max(grainSize, (end - from) / (2 * nThreads));
+                                        }
+                                        final int to = (int) Math.min((long) from + chunkSize, end);
+                                        if (next.compareAndSet(from, to)) {//claim the chunk
+                                            body.run(from, to);
+                                        }
+                                    }
+                                }
+                            });
+                }
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("unknown schedule: " + schedule.type());
+        }
+
+        executeAll(tasks);
+    }
+
+    /**
+     * Runs a for-loop in parallel, chunk by chunk, calling {@code body} once for each index.
+     * This is the same as calling {@link #forLoop(int, int, com.numericalmethod.suanshu.parallel.LoopSchedule, com.numericalmethod.suanshu.parallel.RangeLoopBody) forLoop}
+     * with a range body that loops over the chunk.
+     *
+     * @param start    the first loop index (inclusive)
+     * @param end      the last loop index (exclusive)
+     * @param schedule the way to divide the loop into chunks
+     * @param body     the loop body
+     * @throws MultipleExecutionException if one or more chunks throws an exception
+     */
+    public void forLoop(int start, int end, LoopSchedule schedule, final LoopBody body) throws MultipleExecutionException {
+        forLoop(start, end, schedule, new RangeLoopBody() {
+
+            @Override
+            public void run(int from, int to) throws Exception {
+                for (int i = from; i < to; ++i) {
+                    body.run(i);
+                }
+            }
+        });
+    }
+
     /**
      * Runs a parallel for-loop only if {@code conditionToParallelize} is {@code true}.
      * Otherwise, the loop body will be executed in a single thread.
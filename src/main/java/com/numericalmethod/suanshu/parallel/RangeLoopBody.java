@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ * 
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ * 
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT, 
+ * TITLE AND USEFULNESS.
+ * 
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.parallel;
+
+/**
+ * The implementation of this interface contains the code inside a for-loop
+ * construct for a contiguous range of loop indices.
+ * Compared to {@link LoopBody}, a parallel loop calls the body once per chunk
+ * instead of once per index, so the loop overhead is paid per chunk, and the
+ * body can keep the loop variables in registers.
+ *
+ * @author Ken Yiu
+ */
+public interface RangeLoopBody {
+
+    /**
+     * This method contains the code inside the for-loop for the indices from
+     * {@code from} (inclusive) to {@code to} (exclusive), as in a native
+     * for-loop like this:
+     * <pre><code>
+     * for (int i = from; i &lt; to; ++i) {
+     *     // loop body
+     * }
+     * </code></pre>
+     *
+     * @param from the first loop index of the chunk (inclusive)
+     * @param to   the last loop index of the chunk (exclusive)
+     * @throws Exception any exception thrown during execution
+     */
+    public void run(int from, int to) throws Exception;
+}
@@ -32,6 +32,7 @@ import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.triangle.Lowe
 import com.numericalmethod.suanshu.matrix.doubles.operation.CongruentMatrix;
 import com.numericalmethod.suanshu.matrix.doubles.operation.Inverse;
 import static com.numericalmethod.suanshu.misc.SuanShuUtils.assertArgument;
+import static com.numericalmethod.suanshu.misc.SuanShuUtils.autoEpsilon;
 import com.numericalmethod.suanshu.stats.timeseries.multivariate.realtime.SimpleMultiVariateTimeSeries;
 import com.numericalmethod.suanshu.vector.doubles.ImmutableVector;
 import com.numericalmethod.suanshu.vector.doubles.Vector;
@@ -107,7 +108,7 @@ public class CointegrationMLE {
         Matrix s_inv = new Inverse(s);
         Matrix S = s_inv.multiply(s_21).multiply(new Inverse(s_11)).multiply(s_12).multiply(s_inv.t());
 
-        Eigen eigen = new Eigen(S);
+        Eigen eigen = new Eigen(S, Eigen.Method.SYMMETRY, autoEpsilon(S));//S is symmetric, up to rounding errors
         this.eigenvalues = new ImmutableVector(new DenseVector(eigen.getRealEigenvalues()));
 
         int nRealEigenvalues = this.eigenvalues.size();
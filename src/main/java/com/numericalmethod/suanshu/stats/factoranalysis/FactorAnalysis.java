@@ -32,6 +32,7 @@ import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.diagonal.Diag
 import com.numericalmethod.suanshu.matrix.doubles.operation.Inverse;
 import com.numericalmethod.suanshu.matrix.doubles.operation.MatrixUtils;
 import com.numericalmethod.suanshu.misc.R;
+import static com.numericalmethod.suanshu.misc.SuanShuUtils.autoEpsilon;
 import com.numericalmethod.suanshu.misc.SuanShuUtils;
 import static com.numericalmethod.suanshu.number.DoubleUtils.foreach;
 import static com.numericalmethod.suanshu.number.doublearray.DoubleArrayMath.sum;
@@ -279,7 +280,7 @@ public class FactorAnalysis {
 
         Matrix S_STAR = PSI_INV_SQRT.multiply(S).multiply(PSI_INV_SQRT); //(4.11) on p. 28 of Lawley and Maxwell (1971)
 
-        Eigen eigen = new Eigen(S_STAR); //find the eigenvalues of S_STAR (theta_1, ..., theta_p)
+        Eigen eigen = new Eigen(S_STAR, Eigen.Method.SYMMETRY, autoEpsilon(S_STAR)); //find the eigenvalues of S_STAR (theta_1, ..., theta_p)
         double[] theta = Arrays.copyOfRange(eigen.getRealEigenvalues(), 0, k); //list the k largest eigenvalues (theta_1, ..., theta_k) in descending order
 
         Matrix DELTA_SQRT = new DiagonalMatrix(foreach(
@@ -28,9 +28,10 @@ import com.numericalmethod.suanshu.analysis.function.rn2r1.univariate.Univariate
 import com.numericalmethod.suanshu.analysis.function.rn2rm.RealVectorFunction;
 import com.numericalmethod.suanshu.matrix.doubles.ImmutableMatrix;
 import com.numericalmethod.suanshu.matrix.doubles.Matrix;
-import com.numericalmethod.suanshu.matrix.doubles.factorization.eigen.Eigen;
+import com.numericalmethod.suanshu.matrix.doubles.factorization.eigen.SymmetricQLAlgorithm;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.diagonal.DiagonalMatrix;
 import com.numericalmethod.suanshu.matrix.doubles.operation.Inverse;
+import static com.numericalmethod.suanshu.misc.SuanShuUtils.autoEpsilon;
 import com.numericalmethod.suanshu.misc.SuanShuUtils;
 import static com.numericalmethod.suanshu.number.DoubleUtils.foreach;
 import com.numericalmethod.suanshu.number.doublearray.DoubleArrayMath;
@@ -217,7 +218,7 @@ class FactorAnalysisMLE {
                     })); //forms the diagonal matrix Psi^{-1/2} used in (4.11) of Lawley and Maxwell (1971)
             Matrix S_STAR = PSI_INV_SQRT.multiply(S).multiply(PSI_INV_SQRT); //(4.11) on p. 28 of Lawley and Maxwell (1971)
 
-            Eigen eigen = new Eigen(S_STAR);
+            SymmetricQLAlgorithm eigen = new SymmetricQLAlgorithm(S_STAR, 0, autoEpsilon(S_STAR));//only the eigenvalues are needed
             double[] theta = Arrays.copyOfRange(eigen.getRealEigenvalues(), k, p);//There are always p real eigenvalues for a properly defined p by p (sample) covariance/correlation matrix.
 
             //1st stage in the minimization:
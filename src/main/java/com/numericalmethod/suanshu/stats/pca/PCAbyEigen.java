@@ -29,6 +29,7 @@ import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix;
 import com.numericalmethod.suanshu.matrix.doubles.operation.MatrixMeasure;
 import com.numericalmethod.suanshu.misc.R;
 import static com.numericalmethod.suanshu.misc.SuanShuUtils.assertArgument;
+import static com.numericalmethod.suanshu.misc.SuanShuUtils.autoEpsilon;
 import com.numericalmethod.suanshu.number.doublearray.DoubleArrayMath;
 import com.numericalmethod.suanshu.stats.descriptive.CorrelationMatrix;
 import com.numericalmethod.suanshu.stats.descriptive.CovarianceMatrix;
@@ -140,7 +141,8 @@ public class PCAbyEigen extends PCAImpl {
      * @return the eigenvalue decomposition of the correlation (or covariance) matrix
      */
     public Eigen eigen() {
-        return new Eigen(V());
+        Matrix cov = V();
+        return new Eigen(cov, Eigen.Method.SYMMETRY, autoEpsilon(cov));//a covariance or correlation matrix is symmetric
     }
 
     /**
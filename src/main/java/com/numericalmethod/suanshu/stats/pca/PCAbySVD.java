@@ -23,7 +23,10 @@
 package com.numericalmethod.suanshu.stats.pca;
 
 import com.numericalmethod.suanshu.matrix.doubles.factorization.svd.SVD;
+import com.numericalmethod.suanshu.matrix.doubles.factorization.svd.SVDDecomposition;
+import com.numericalmethod.suanshu.matrix.doubles.factorization.svd.TruncatedSVD;
 import com.numericalmethod.suanshu.misc.R;
+import com.numericalmethod.suanshu.misc.SuanShuUtils;
 import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
 import com.numericalmethod.suanshu.matrix.doubles.Matrix;
 import com.numericalmethod.suanshu.vector.doubles.Vector;
@@ -35,6 +38,9 @@ import com.numericalmethod.suanshu.vector.doubles.ImmutableVector;
  *
  * <nFactors>
  * The R equivalent function is {@code prcomp}.
+ * <p/>
+ * When only the first few principal components are wanted, e.g., for a panel of many observations of hundreds of variables,
+ * the number of components can be given so that only those are computed by a {@link TruncatedSVD}.
  *
  * @author Kevin Sun
  *
@@ -51,10 +57,13 @@ public class PCAbySVD extends PCAImpl {
     private final boolean scaled;
     private final ImmutableVector mean;//make sure this does change anywhere in and out of this class
     private final ImmutableVector scale;//make sure this does change anywhere in and out of this class
+    private final int nComponents;//0 if all components are computed
+    private SVDDecomposition decomposition;//computed on first use; the accessors share it
 
     /**
      * Perform a Principal Component Analysis, using the preferred SVD method,
-     * on a given data matrix with (optional) mean vector and scaling vector provided.
+     * on a given data matrix with (optional) mean vector and scaling vector provided,
+     * computing only the first {@code nComponents} principal components.
      *
      * @param data a matrix which provides the original data for the principal component analysis
      * @param centered a logical value indicating whether the variables should be shifted to be zero centered
@@ -62,14 +71,56 @@ public class PCAbySVD extends PCAImpl {
      * (N.B. in general scaling is advisable; however, it should only be used if there is no constant variable)
      * @param mean an optional mean vector (of length equal to nFactors) to be subtracted regardless of the flag 'centered'
      * @param scale an optional scaling vector (of length equal to nFactors) to be divided regardless of the flag 'scaled'
+     * @param nComponents the number of principal components to compute; 0 for all
      */
-    public PCAbySVD(Matrix data, boolean centered, boolean scaled, Vector mean, Vector scale) {
+    public PCAbySVD(Matrix data, boolean centered, boolean scaled, Vector mean, Vector scale, int nComponents) {
         super(data);
+        SuanShuUtils.assertArgument(nComponents >= 0, "the number of components must be non-negative; 0 for all");
 
         this.centered = centered;
         this.scaled = scaled;
         this.mean = mean != null ? new ImmutableVector(mean) : null;
         this.scale = scale != null ? new ImmutableVector(scale) : null;
+        this.nComponents = nComponents;
+    }
+
+    /**
+     * Get the decomposition of X, computing it on first use.
+     */
+    private synchronized SVDDecomposition decomposition() {
+        if (decomposition == null) {
+            decomposition = nComponents > 0 ? new TruncatedSVD(X(), nComponents) : new SVD(X(), true);
+        }
+        return decomposition;
+    }
+
+    /**
+     * Perform a Principal Component Analysis, using the preferred SVD method,
+     * on a given data matrix with (optional) mean vector and scaling vector provided.
+     *
+     * @param data a matrix which provides the original data for the principal component analysis
+     * @param centered a logical value indicating whether the variables should be shifted to be zero centered
+     * @param scaled a logical value indicating whether the variables should be scaled to have unit variance before the analysis takes place
+     * (N.B. in general scaling is advisable; however, it should only be used if there is no constant variable)
+     * @param mean an optional mean vector (of length equal to nFactors) to be subtracted regardless of the flag 'centered'
+     * @param scale an optional scaling vector (of length equal to nFactors) to be divided regardless of the flag 'scaled'
+     */
+    public PCAbySVD(Matrix data, boolean centered, boolean scaled, Vector mean, Vector scale) {
+        this(data, centered, scaled, mean, scale, 0);
+    }
+
+    /**
+     * Perform a principal component analysis, using the preferred SVD method, on a given data matrix (possibly centered and/or scaled),
+     * computing only the first {@code nComponents} principal components.
+     *
+     * @param data a matrix which provides the original data for the principal component analysis
+     * @param centered a logical value indicating whether the variables should be shifted to be zero centered
+     * @param scaled a logical value indicating whether the variables should be scaled to have unit variance before the analysis takes place
+     * (N.B. in general scaling is advisable; however, it should only be used if there is no constant variable)
+     * @param nComponents the number of principal components to compute; 0 for all
+     */
+    public PCAbySVD(Matrix data, boolean centered, boolean scaled, int nComponents) {
+        this(data, centered, scaled, null, null, nComponents);
     }
 
     /**
@@ -136,6 +187,10 @@ public class PCAbySVD extends PCAImpl {
      * @return the singular value decomposition (SVD) of matrix X
      */
     public SVD svd() {
+        if (nComponents == 0) {
+            return (SVD) decomposition();
+        }
+
         SVD svd = new SVD(X(), true);
         return svd;
     }
@@ -148,8 +203,7 @@ public class PCAbySVD extends PCAImpl {
      * @return the standard deviations of the principal components
      */
     public DenseVector sdPrincipalComponent() {
-        SVD svd = svd();
-        double[] singular_values = svd.getSingularValues();
+        double[] singular_values = decomposition().getSingularValues();
         int length = singular_values.length;
 
         final double n = Math.sqrt(Math.max(1, this.nObs() - 1));
@@ -167,7 +221,37 @@ public class PCAbySVD extends PCAImpl {
      * @return the matrix of variable loadings
      */
     public Matrix loadings() {
-        SVD svd = svd();
-        return svd.V();
+        return decomposition().V();
+    }
+
+    /**
+     * Get the proportion of overall variance explained by each of the principal components.
+     * When only the first few components are computed,
+     * the overall variance is the trace of the sample covariance matrix of X, i.e., the sum of the variances of all components.
+     *
+     * @return the proportion of overall variance explained by each of the (computed) principal components
+     */
+    @Override
+    public Vector proportionVar() {
+        if (nComponents == 0) {
+            return super.proportionVar();
+        }
+
+        Matrix X = X();
+        double total_var = 0.;
+        for (int i = 1; i <= X.nRows(); ++i) {
+            for (int j = 1; j <= X.nCols(); ++j) {
+                total_var += X.get(i, j) * X.get(i, j);
+            }
+        }
+        total_var /= Math.max(1, this.nObs() - 1);
+
+        Vector sd = sdPrincipalComponent();
+        double[] var = new double[sd.size()];
+        for (int i = 0; i < var.length; ++i) {
+            var[i] = Math.pow(sd.get(i + 1), 2) / total_var;
+        }
+
+        return new DenseVector(var);
     }
 }
@@ -100,7 +100,7 @@ public class BootstrapEstimator {
 
     private void sim() throws MultipleExecutionException {
         final Object lock = new Object();
-        new ParallelExecutor().conditionalForLoop(isParallel, 0, B,
+        ParallelExecutor.getSharedInstance().conditionalForLoop(isParallel, 0, B,
                                                   new LoopBody() {
 
             public void run(int i) throws Exception {
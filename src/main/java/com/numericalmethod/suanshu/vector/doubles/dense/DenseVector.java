@@ -135,6 +135,15 @@ public class DenseVector implements Vector {//TODO: java.io.Serializable {
     }
     //</editor-fold>
 
+    /**
+     * Get the backing array, without copying, for the fast paths of {@link DenseVectorView}.
+     *
+     * @return the data storage
+     */
+    double[] data() {
+        return data;
+    }
+
     @Override
     public int size() {
         return length;
@@ -0,0 +1,362 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.vector.doubles.dense;
+
+import com.numericalmethod.suanshu.matrix.doubles.AreMatrices;
+import com.numericalmethod.suanshu.number.Real;
+import com.numericalmethod.suanshu.vector.doubles.IsVector;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+
+/**
+ * This is a writable view of equally spaced entries of a {@code double[]}, e.g., a row or a column of a row-major matrix.
+ * The <i>i</i>-th entry (counting from 1) is {@code data[offset + (i - 1) * stride]}.
+ * No data is copied: changing the view changes the array and vice versa.
+ * <p/>
+ * The arithmetic operations of {@link Vector}, e.g., {@link #add(Vector)}, return new {@link DenseVector}s.
+ * The in-place operations, e.g., {@link #addInPlace(double, Vector)}, modify the underlying array directly,
+ * and have fast paths when the other operand is also a view or a {@link DenseVector}.
+ *
+ * @author Haksun Li
+ */
+public class DenseVectorView implements Vector {
+
+    private final double[] data;
+    /** the index of the first entry */
+    private final int offset;
+    /** the distance between two consecutive entries */
+    private final int stride;
+    private final int length;
+    private final VectorMathOperation math = new VectorMathOperation();
+
+    /**
+     * Construct a view of the entries {@code data[offset]}, {@code data[offset + stride]}, ...,
+     * {@code data[offset + (length - 1) * stride]}.
+     *
+     * @param data   an array
+     * @param offset the index of the first entry
+     * @param stride the distance between two consecutive entries
+     * @param length the number of entries
+     * @throws IllegalArgumentException if the view goes beyond the array
+     */
+    public DenseVectorView(double[] data, int offset, int stride, int length) {
+        if (length < 0 || offset < 0 || (length > 0 && (stride < 1 || offset + (length - 1) * stride >= data.length))) {
+            throw new IllegalArgumentException("the view goes beyond the array");
+        }
+
+        this.data = data;
+        this.offset = offset;
+        this.stride = stride;
+        this.length = length;
+    }
+
+    /**
+     * Construct a view of a whole array.
+     *
+     * @param data an array
+     */
+    public DenseVectorView(double[] data) {
+        this(data, 0, 1, data.length);
+    }
+
+    /**
+     * Construct a view of a whole {@code DenseVector}.
+     *
+     * @param v a vector
+     */
+    public DenseVectorView(DenseVector v) {
+        this(v.data());
+    }
+
+    /**
+     * Get a view of the sub-vector from the {@code from}-th entry to the {@code to}-th entry, inclusively.
+     *
+     * @param from the beginning index, counting from 1
+     * @param to   the ending index, counting from 1
+     * @return a view of the sub-vector
+     */
+    public DenseVectorView subVectorView(int from, int to) {
+        IsVector.throwIfInvalidIndex(this, from);
+        IsVector.throwIfInvalidIndex(this, to);
+        return new DenseVectorView(data, index(from), stride, to - from + 1);
+    }
+
+    private int index(int i) {
+        return offset + (i - 1) * stride;
+    }
+
+    @Override
+    public int size() {
+        return length;
+    }
+
+    @Override
+    public double get(int i) {
+        IsVector.throwIfInvalidIndex(this, i);
+        return data[index(i)];
+    }
+
+    @Override
+    public void set(int i, double value) {
+        IsVector.throwIfInvalidIndex(this, i);
+        data[index(i)] = value;
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="in-place operations">
+    /**
+     * <i>this = that</i>, entry by entry.
+     *
+     * @param that a vector
+     * @return {@code this}, modified
+     */
+    public DenseVectorView copyFrom(Vector that) {
+        IsVector.throwIfNotEqualSize(this, that);
+
+        if (that instanceof DenseVectorView) {
+            DenseVectorView other = (DenseVectorView) that;
+            double[] tmp = other.toArray();//the two views may overlap
+            for (int i = 0, p = offset; i < length; ++i, p += stride) {
+                data[p] = tmp[i];
+            }
+        } else {
+            for (int i = 0, p = offset; i < length; ++i, p += stride) {
+                data[p] = that.get(i + 1);
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * <i>this *= c</i>.
+     *
+     * @param c a scalar
+     * @return {@code this}, modified
+     */
+    public DenseVectorView scaleInPlace(double c) {
+        for (int i = 0, p = offset; i < length; ++i, p += stride) {
+            data[p] *= c;
+        }
+
+        return this;
+    }
+
+    /**
+     * <i>this += c * that</i>.
+     *
+     * @param c    a scalar
+     * @param that a vector
+     * @return {@code this}, modified
+     */
+    public DenseVectorView addInPlace(double c, Vector that) {
+        IsVector.throwIfNotEqualSize(this, that);
+
+        if (that instanceof DenseVectorView) {
+            DenseVectorView other = (DenseVectorView) that;
+            if (other.data == data) {//the two may overlap
+                other = new DenseVectorView(other.toArray());
+            }
+            for (int i = 0, p = offset, q = other.offset; i < length; ++i, p += stride, q += other.stride) {
+                data[p] += c * other.data[q];
+            }
+        } else if (that instanceof DenseVector) {
+            double[] other = ((DenseVector) that).data();
+            for (int i = 0, p = offset; i < length; ++i, p += stride) {
+                data[p] += c * other[i];
+            }
+        } else {
+            for (int i = 0, p = offset; i < length; ++i, p += stride) {
+                data[p] += c * that.get(i + 1);
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * Apply a plane rotation to this and another vector of the same length, in place.
+     * <blockquote><i>
+     * this = c * this + s * that<br/>
+     * that = -s * this + c * that
+     * </i></blockquote>
+     *
+     * @param that another vector, which must not overlap with this
+     * @param c    the cosine of the rotation angle
+     * @param s    the sine of the rotation angle
+     */
+    public void rotateInPlace(DenseVectorView that, double c, double s) {
+        IsVector.throwIfNotEqualSize(this, that);
+
+        for (int i = 0, p = offset, q = that.offset; i < length; ++i, p += stride, q += that.stride) {
+            final double t1 = data[p];
+            final double t2 = that.data[q];
+            data[p] = c * t1 + s * t2;
+            that.data[q] = -s * t1 + c * t2;
+        }
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="arithmetic operations">
+    @Override
+    public Vector add(Vector that) {
+        return new DenseVector(toArray()).add(that);
+    }
+
+    @Override
+    public Vector minus(Vector that) {
+        return new DenseVector(toArray()).minus(that);
+    }
+
+    @Override
+    public Vector multiply(Vector that) {
+        return new DenseVector(toArray()).multiply(that);
+    }
+
+    @Override
+    public Vector divide(Vector that) {
+        return new DenseVector(toArray()).divide(that);
+    }
+
+    @Override
+    public DenseVector add(double c) {
+        return new DenseVector(toArray()).add(c);
+    }
+
+    @Override
+    public DenseVector minus(double c) {
+        return new DenseVector(toArray()).minus(c);
+    }
+
+    @Override
+    public DenseVector pow(double c) {
+        return new DenseVector(toArray()).pow(c);
+    }
+
+    @Override
+    public DenseVector scaled(double c) {
+        double[] result = new double[length];
+        for (int i = 0, p = offset; i < length; ++i, p += stride) {
+            result[i] = data[p] * c;
+        }
+
+        return new DenseVector(result);
+    }
+
+    @Override
+    public DenseVector scaled(Real c) {
+        return scaled(c.doubleValue());
+    }
+
+    @Override
+    public DenseVector opposite() {
+        return scaled(-1);
+    }
+
+    @Override
+    public double innerProduct(Vector that) {
+        IsVector.throwIfNotEqualSize(this, that);
+
+        double result = 0;
+        if (that instanceof DenseVectorView) {
+            DenseVectorView other = (DenseVectorView) that;
+            for (int i = 0, p = offset, q = other.offset; i < length; ++i, p += stride, q += other.stride) {
+                result += data[p] * other.data[q];
+            }
+        } else if (that instanceof DenseVector) {
+            double[] other = ((DenseVector) that).data();
+            for (int i = 0, p = offset; i < length; ++i, p += stride) {
+                result += data[p] * other[i];
+            }
+        } else {
+            return math.innerProduct(this, that);
+        }
+
+        return result;
+    }
+    //</editor-fold>
+
+    @Override
+    public double norm(int p) {
+        return new DenseVector(toArray()).norm(p);
+    }
+
+    @Override
+    public double norm() {
+        return norm(2);
+    }
+
+    @Override
+    public double angle(Vector that) {
+        return math.angle(this, that);
+    }
+
+    @Override
+    public DenseVector ZERO() {
+        return new DenseVector(length);
+    }
+
+    @Override
+    public double[] toArray() {
+        double[] result = new double[length];
+        for (int i = 0, p = offset; i < length; ++i, p += stride) {
+            result[i] = data[p];
+        }
+
+        return result;
+    }
+
+    /**
+     * Copy the entries to a new {@link DenseVector}.
+     * <em>The copy is no longer a view.</em>
+     *
+     * @return a copy of the entries
+     */
+    @Override
+    public DenseVector deepCopy() {
+        return new DenseVector(toArray());
+    }
+
+    @Override
+    public String toString() {
+        return new DenseVector(toArray()).toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null) {
+            return false;
+        }
+        if (!(obj instanceof Vector)) {
+            return false;
+        }
+        final Vector that = (Vector) obj;
+        if (!AreMatrices.equal(this, that, 0.)) {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return new DenseVector(toArray()).hashCode();
+    }
+}
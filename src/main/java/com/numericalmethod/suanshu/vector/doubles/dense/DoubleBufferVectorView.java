@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.vector.doubles.dense;
+
+import com.numericalmethod.suanshu.matrix.doubles.AreMatrices;
+import com.numericalmethod.suanshu.number.Real;
+import com.numericalmethod.suanshu.vector.doubles.IsVector;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+import java.nio.DoubleBuffer;
+
+/**
+ * This is a writable view of consecutive entries of a {@link DoubleBuffer}, e.g., a row of a memory-mapped matrix.
+ * The <i>i</i>-th entry (counting from 1) is {@code buffer.get(offset + i - 1)}.
+ * No data is copied: changing the view changes the buffer and vice versa.
+ * <p/>
+ * Only the absolute get and put methods of the buffer are used, so the view does not change the position of the buffer,
+ * and many views of the same buffer can be used concurrently.
+ * The arithmetic operations of {@link Vector}, e.g., {@link #add(Vector)}, return new {@link DenseVector}s.
+ *
+ * @author Haksun Li
+ */
+public class DoubleBufferVectorView implements Vector {
+
+    private final DoubleBuffer buffer;
+    /** the index of the first entry */
+    private final int offset;
+    private final int length;
+    private final VectorMathOperation math = new VectorMathOperation();
+
+    /**
+     * Construct a view of the entries {@code buffer.get(offset)}, ..., {@code buffer.get(offset + length - 1)}.
+     *
+     * @param buffer a buffer
+     * @param offset the index of the first entry
+     * @param length the number of entries
+     * @throws IllegalArgumentException if the view goes beyond the buffer
+     */
+    public DoubleBufferVectorView(DoubleBuffer buffer, int offset, int length) {
+        if (length < 0 || offset < 0 || offset + length > buffer.limit()) {
+            throw new IllegalArgumentException("the view goes beyond the buffer");
+        }
+
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Get a view of the sub-vector from the {@code from}-th entry to the {@code to}-th entry, inclusively.
+     *
+     * @param from the beginning index, counting from 1
+     * @param to   the ending index, counting from 1
+     * @return a view of the sub-vector
+     */
+    public DoubleBufferVectorView subVectorView(int from, int to) {
+        IsVector.throwIfInvalidIndex(this, from);
+        IsVector.throwIfInvalidIndex(this, to);
+        return new DoubleBufferVectorView(buffer, offset + from - 1, to - from + 1);
+    }
+
+    @Override
+    public int size() {
+        return length;
+    }
+
+    @Override
+    public double get(int i) {
+        IsVector.throwIfInvalidIndex(this, i);
+        return buffer.get(offset + i - 1);
+    }
+
+    @Override
+    public void set(int i, double value) {
+        IsVector.throwIfInvalidIndex(this, i);
+        buffer.put(offset + i - 1, value);
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="in-place operations">
+    /**
+     * <i>this = that</i>, entry by entry.
+     *
+     * @param that a vector
+     * @return {@code this}, modified
+     */
+    public DoubleBufferVectorView copyFrom(Vector that) {
+        IsVector.throwIfNotEqualSize(this, that);
+
+        double[] values = that.toArray();
+        DoubleBuffer dst = buffer.duplicate();
+        dst.position(offset);
+        dst.put(values);
+
+        return this;
+    }
+
+    /**
+     * <i>this *= c</i>.
+     *
+     * @param c a scalar
+     * @return {@code this}, modified
+     */
+    public DoubleBufferVectorView scaleInPlace(double c) {
+        for (int p = offset, end = offset + length; p < end; ++p) {
+            buffer.put(p, buffer.get(p) * c);
+        }
+
+        return this;
+    }
+
+    /**
+     * <i>this += c * that</i>.
+     *
+     * @param c    a scalar
+     * @param that a vector
+     * @return {@code this}, modified
+     */
+    public DoubleBufferVectorView addInPlace(double c, Vector that) {
+        IsVector.throwIfNotEqualSize(this, that);
+
+        double[] other = that.toArray();
+        for (int i = 0, p = offset; i < length; ++i, ++p) {
+            buffer.put(p, buffer.get(p) + c * other[i]);
+        }
+
+        return this;
+    }
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="arithmetic operations">
+    @Override
+    public Vector add(Vector that) {
+        return new DenseVector(toArray()).add(that);
+    }
+
+    @Override
+    public Vector minus(Vector that) {
+        return new DenseVector(toArray()).minus(that);
+    }
+
+    @Override
+    public Vector multiply(Vector that) {
+        return new DenseVector(toArray()).multiply(that);
+    }
+
+    @Override
+    public Vector divide(Vector that) {
+        return new DenseVector(toArray()).divide(that);
+    }
+
+    @Override
+    public DenseVector add(double c) {
+        return new DenseVector(toArray()).add(c);
+    }
+
+    @Override
+    public DenseVector minus(double c) {
+        return new DenseVector(toArray()).minus(c);
+    }
+
+    @Override
+    public DenseVector pow(double c) {
+        return new DenseVector(toArray()).pow(c);
+    }
+
+    @Override
+    public DenseVector scaled(double c) {
+        return new DenseVector(toArray()).scaled(c);
+    }
+
+    @Override
+    public DenseVector scaled(Real c) {
+        return scaled(c.doubleValue());
+    }
+
+    @Override
+    public DenseVector opposite() {
+        return scaled(-1);
+    }
+
+    @Override
+    public double innerProduct(Vector that) {
+        IsVector.throwIfNotEqualSize(this, that);
+
+        if (that instanceof DenseVector || that instanceof DenseVectorView || that instanceof DoubleBufferVectorView) {
+            double[] other = that.toArray();
+            double result = 0;
+            for (int i = 0, p = offset; i < length; ++i, ++p) {
+                result += buffer.get(p) * other[i];
+            }
+
+            return result;
+        }
+
+        return math.innerProduct(this, that);
+    }
+    //</editor-fold>
+
+    @Override
+    public double norm(int p) {
+        return new DenseVector(toArray()).norm(p);
+    }
+
+    @Override
+    public double norm() {
+        return norm(2);
+    }
+
+    @Override
+    public double angle(Vector that) {
+        return math.angle(this, that);
+    }
+
+    @Override
+    public DenseVector ZERO() {
+        return new DenseVector(length);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The entries are copied by a bulk get of the buffer.
+     */
+    @Override
+    public double[] toArray() {
+        double[] result = new double[length];
+        DoubleBuffer src = buffer.duplicate();
+        src.position(offset);
+        src.get(result);
+        return result;
+    }
+
+    /**
+     * Copy the entries to a new {@link DenseVector}.
+     * <em>The copy is no longer a view.</em>
+     *
+     * @return a copy of the entries
+     */
+    @Override
+    public DenseVector deepCopy() {
+        return new DenseVector(toArray());
+    }
+
+    @Override
+    public String toString() {
+        return new DenseVector(toArray()).toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null) {
+            return false;
+        }
+        if (!(obj instanceof Vector)) {
+            return false;
+        }
+        final Vector that = (Vector) obj;
+        if (!AreMatrices.equal(this, that, 0.)) {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return new DenseVector(toArray()).hashCode();
+    }
+}
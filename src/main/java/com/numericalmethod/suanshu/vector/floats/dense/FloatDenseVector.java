@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.vector.floats.dense;
+
+import com.numericalmethod.suanshu.vector.doubles.IsVector;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+import java.util.Arrays;
+
+/**
+ * This is a single-precision counterpart of {@link DenseVector}.
+ * The entries are stored in a {@code float[]}, which halves the memory and the memory bandwidth of a {@code double[]}.
+ * It suits the big, memory-bound computations where 7 significant digits are enough,
+ * e.g., Monte Carlo scenarios or a principal component analysis of noisy data.
+ * <p/>
+ * The entries are rounded to the nearest {@code float} when converted from {@code double}s, e.g., by {@link #FloatDenseVector(Vector)}.
+ * The sums in the inner product and the norm are accumulated in {@code double} to avoid the loss of accuracy in long vectors.
+ * The indices count from 1, as in {@link Vector}.
+ *
+ * @author Haksun Li
+ */
+public class FloatDenseVector {
+
+    private final float[] data;
+
+    /**
+     * Construct a vector of length {@code length}, initialized to 0.
+     *
+     * @param length the length of the vector
+     */
+    public FloatDenseVector(int length) {
+        this(new float[length]);
+    }
+
+    /**
+     * Construct a vector, initialized by a {@code float[]}.
+     * The array is not copied.
+     *
+     * @param data an 1D array
+     */
+    public FloatDenseVector(float... data) {
+        this.data = data;
+    }
+
+    /**
+     * Convert a {@code double} vector to single precision.
+     *
+     * @param v a vector
+     */
+    public FloatDenseVector(Vector v) {
+        this(v.size());
+
+        double[] values = v.toArray();
+        for (int i = 0; i < data.length; ++i) {
+            data[i] = (float) values[i];
+        }
+    }
+
+    /**
+     * Copy constructor.
+     *
+     * @param v a vector
+     */
+    public FloatDenseVector(FloatDenseVector v) {
+        this(Arrays.copyOf(v.data, v.data.length));
+    }
+
+    /**
+     * Get the length of this vector.
+     *
+     * @return the vector length
+     */
+    public int size() {
+        return data.length;
+    }
+
+    /**
+     * Get the value at position <i>i</i>.
+     *
+     * @param i the position of a vector entry, counting from 1
+     * @return <i>v[i]</i>
+     */
+    public float get(int i) {
+        throwIfInvalidIndex(i);
+        return data[i - 1];
+    }
+
+    /**
+     * Change the value of an entry in this vector.
+     *
+     * @param i     the index of the entry to change, counting from 1
+     * @param value the value to change to
+     */
+    public void set(int i, float value) {
+        throwIfInvalidIndex(i);
+        data[i - 1] = value;
+    }
+
+    private void throwIfInvalidIndex(int i) {
+        if (i < 1 || i > data.length) {
+            throw new IsVector.VectorAccessException(data.length, i);
+        }
+    }
+
+    private void throwIfNotEqualSize(FloatDenseVector that) {
+        if (data.length != that.data.length) {
+            throw new IsVector.SizeMismatch(data.length, that.data.length);
+        }
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="arithmetic operations">
+    /**
+     * <i>this + that</i>
+     *
+     * @param that a vector
+     * @return <i>this + that</i>
+     */
+    public FloatDenseVector add(FloatDenseVector that) {
+        return new FloatDenseVector(this).addInPlace(1, that);
+    }
+
+    /**
+     * <i>this - that</i>
+     *
+     * @param that a vector
+     * @return <i>this - that</i>
+     */
+    public FloatDenseVector minus(FloatDenseVector that) {
+        return new FloatDenseVector(this).addInPlace(-1, that);
+    }
+
+    /**
+     * Multiply {@code this} by {@code that}, entry-by-entry.
+     *
+     * @param that a vector
+     * @return <i>this .* that</i>
+     */
+    public FloatDenseVector multiply(FloatDenseVector that) {
+        throwIfNotEqualSize(that);
+
+        float[] result = new float[data.length];
+        for (int i = 0; i < data.length; ++i) {
+            result[i] = data[i] * that.data[i];
+        }
+
+        return new FloatDenseVector(result);
+    }
+
+    /**
+     * Scale this vector by a constant.
+     *
+     * @param c a scalar
+     * @return <i>c * this</i>
+     */
+    public FloatDenseVector scaled(float c) {
+        float[] result = new float[data.length];
+        for (int i = 0; i < data.length; ++i) {
+            result[i] = c * data[i];
+        }
+
+        return new FloatDenseVector(result);
+    }
+
+    /**
+     * Get the opposite of this vector.
+     *
+     * @return <i>-this</i>
+     */
+    public FloatDenseVector opposite() {
+        return scaled(-1);
+    }
+
+    /**
+     * <i>this += c * that</i>, without allocating a new vector.
+     *
+     * @param c    a scalar
+     * @param that a vector
+     * @return {@code this}, modified
+     */
+    public FloatDenseVector addInPlace(float c, FloatDenseVector that) {
+        throwIfNotEqualSize(that);
+
+        for (int i = 0; i < data.length; ++i) {
+            data[i] += c * that.data[i];
+        }
+
+        return this;
+    }
+
+    /**
+     * Inner product in the Euclidean space is the dot product.
+     * The products are summed in {@code double}.
+     *
+     * @param that a vector
+     * @return <i>this &middot; that</i>
+     */
+    public double innerProduct(FloatDenseVector that) {
+        throwIfNotEqualSize(that);
+
+        double result = 0;
+        for (int i = 0; i < data.length; ++i) {
+            result += (double) data[i] * that.data[i];
+        }
+
+        return result;
+    }
+
+    /**
+     * Get the Euclidean norm of this vector.
+     * The squares are summed in {@code double}.
+     *
+     * @return <i>|this|</i>
+     */
+    public double norm() {
+        return Math.sqrt(innerProduct(this));
+    }
+    //</editor-fold>
+
+    /**
+     * Cast this vector into a 1D {@code float[]}.
+     *
+     * @return a copy of all vector entries
+     */
+    public float[] toArray() {
+        return Arrays.copyOf(data, data.length);
+    }
+
+    /**
+     * Convert this vector to double precision.
+     * The conversion is exact.
+     *
+     * @return a {@code double} copy of this vector
+     */
+    public DenseVector toDoubleVector() {
+        double[] result = new double[data.length];
+        for (int i = 0; i < data.length; ++i) {
+            result[i] = data[i];
+        }
+
+        return new DenseVector(result);
+    }
+
+    /**
+     * Get a deep copy of this vector.
+     *
+     * @return a copy of this vector
+     */
+    public FloatDenseVector deepCopy() {
+        return new FloatDenseVector(this);
+    }
+
+    @Override
+    public String toString() {
+        return toDoubleVector().toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final FloatDenseVector other = (FloatDenseVector) obj;
+        return Arrays.equals(this.data, other.data);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 3;
+        hash = 19 * hash + Arrays.hashCode(this.data);
+        return hash;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.datastructure;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Haksun Li
+ */
+public class LongDoubleHashMapTest {
+
+    @Test
+    public void test_0010() {
+        LongDoubleHashMap map = new LongDoubleHashMap();
+        map.put(1L, 1.5);
+        map.put(-7L, 2.5);
+        map.put(Long.MIN_VALUE, 3.5);
+        map.put(1L, 4.5);
+
+        assertEquals(3, map.size());
+        assertEquals(4.5, map.get(1L), 0);
+        assertEquals(2.5, map.get(-7L), 0);
+        assertEquals(3.5, map.get(Long.MIN_VALUE), 0);
+        assertEquals(0., map.get(2L), 0);
+        assertFalse(map.containsKey(2L));
+
+        assertEquals(5.5, map.add(-7L, 3.), 0);
+        assertEquals(1., map.add(2L, 1.), 0);
+        assertEquals(4, map.size());
+
+        assertTrue(map.remove(1L));
+        assertFalse(map.remove(1L));
+        assertEquals(3, map.size());
+        assertFalse(map.containsKey(1L));
+
+        double sum = 0;
+        int count = 0;
+        for (int slot = map.nextSlot(0); slot >= 0; slot = map.nextSlot(slot + 1)) {
+            sum += map.valueAt(slot);
+            ++count;
+        }
+        assertEquals(3, count);
+        assertEquals(10., sum, 0);
+    }
+
+    /**
+     * Compare with {@code HashMap} under many random insertions and removals, which exercise growing and the backward shifts.
+     */
+    @Test
+    public void test_0020() {
+        Random random = new Random(1234567890L);
+        LongDoubleHashMap map = new LongDoubleHashMap(4);
+        Map<Long, Double> expected = new HashMap<Long, Double>();
+        for (int k = 0; k < 200000; ++k) {
+            long key = random.nextInt(5000) * 4096L;//keys that collide in the low bits
+            if (random.nextDouble() < 0.4) {
+                assertEquals(expected.remove(key) != null, map.remove(key));
+            } else {
+                double value = random.nextDouble();
+                map.put(key, value);
+                expected.put(key, value);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Long, Double> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()), 0);
+        }
+
+        LongDoubleHashMap copy = new LongDoubleHashMap(map);
+        assertEquals(map, copy);
+        assertEquals(map.hashCode(), copy.hashCode());
+        copy.put(-1L, 1.);
+        assertFalse(map.equals(copy));
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertEquals(-1, map.nextSlot(0));
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.factorization.eigen;
+
+import com.numericalmethod.suanshu.matrix.doubles.AreMatrices;
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.factorization.qr.HouseholderReflection;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.diagonal.DiagonalMatrix;
+import com.numericalmethod.suanshu.stats.random.multivariate.IID;
+import com.numericalmethod.suanshu.stats.random.univariate.uniform.UniformRng;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Haksun Li
+ */
+public class SymmetricQLAlgorithmTest {
+
+    private static Matrix randomSymmetric(int n) {
+        UniformRng rng = new UniformRng();
+        rng.seed(1234567890L);
+        IID iid = new IID(rng, n * n);
+        Matrix A = new DenseMatrix(iid.nextVector(), n, n);
+        return A.add(A.t()).scaled(0.5);
+    }
+
+    private static void assertEigenpairs(Matrix A, SymmetricQLAlgorithm instance, double epsilon) {
+        double[] lambda = instance.getRealEigenvalues();
+        for (int i = 1; i < lambda.length; ++i) {
+            assertTrue(lambda[i - 1] >= lambda[i]);
+        }
+
+        Matrix V = instance.getEigenvectors();
+        int k = instance.nEigenvectors();
+        assertTrue(AreMatrices.equal(V.t().multiply(V), new DenseMatrix(k, k).ONE(), epsilon));
+        for (int j = 0; j < k; ++j) {
+            Vector v = instance.getEigenvector(j);
+            assertTrue(AreMatrices.equal(
+                    new DenseMatrix(A.multiply(v)),
+                    new DenseMatrix(v.scaled(lambda[j])),
+                    epsilon));
+        }
+    }
+
+    @Test
+    public void test_0010() {
+        Matrix A = new DenseMatrix(new double[][]{
+                    {1, 5, 7},
+                    {5, 0, 6},
+                    {7, 6, 1}
+                });
+        SymmetricQLAlgorithm instance = new SymmetricQLAlgorithm(A);
+        assertEquals(2., instance.getRealEigenvalues()[0] + instance.getRealEigenvalues()[1] + instance.getRealEigenvalues()[2], 1e-13);//trace
+        assertEigenpairs(A, instance, 1e-13);
+
+        Eigen eigen = new Eigen(A, Eigen.Method.QR, 1e-8);
+        assertArrayEquals(eigen.getRealEigenvalues(), instance.getRealEigenvalues(), 1e-12);
+        for (int i = 0; i < 3; ++i) {//the same up to sign
+            Vector v = eigen.getProperty(i).eigenVector();
+            assertEquals(1., Math.abs(v.innerProduct(instance.getEigenvector(i))) / v.norm(), 1e-12);
+        }
+    }
+
+    /**
+     * multiple panels of Householder reflections and a matrix with close eigenvalues
+     */
+    @Test
+    public void test_0020() {
+        Matrix A = randomSymmetric(150);
+        SymmetricQLAlgorithm instance = new SymmetricQLAlgorithm(A, 0);
+        assertEquals(150, instance.nEigenvectors());
+        assertEigenpairs(A, instance, 1e-12);
+    }
+
+    /**
+     * The top-<i>k</i> eigenvectors by inverse iteration are the same as those by the QL rotations.
+     */
+    @Test
+    public void test_topK_0010() {
+        Matrix A = randomSymmetric(100);
+        SymmetricQLAlgorithm all = new SymmetricQLAlgorithm(A, 0);
+        SymmetricQLAlgorithm top = new SymmetricQLAlgorithm(A, 5, 0);
+
+        assertEquals(5, top.nEigenvectors());
+        assertArrayEquals(all.getRealEigenvalues(), top.getRealEigenvalues(), 1e-12);
+        assertEigenpairs(A, top, 1e-12);
+        for (int j = 0; j < 5; ++j) {
+            assertTrue(AreMatrices.equal(
+                    new DenseMatrix(all.getEigenvector(j)),
+                    new DenseMatrix(top.getEigenvector(j)),
+                    1e-10));
+        }
+    }
+
+    /**
+     * repeated eigenvalues
+     */
+    @Test
+    public void test_topK_0020() {
+        Matrix Q = new HouseholderReflection(randomSymmetric(6)).squareQ();
+        Matrix D = new DiagonalMatrix(new double[]{3, 3, 3, 1, 1, -2});
+        Matrix A = Q.multiply(D).multiply(Q.t());
+        A = A.add(A.t()).scaled(0.5);
+
+        SymmetricQLAlgorithm instance = new SymmetricQLAlgorithm(A, 5, 1e-14);
+        assertArrayEquals(new double[]{3, 3, 3, 1, 1, -2}, instance.getRealEigenvalues(), 1e-13);
+        assertEigenpairs(A, instance, 1e-12);
+    }
+
+    @Test
+    public void test_diagonal_0010() {
+        Matrix A = new DiagonalMatrix(new double[]{1, 4, 0, 2});
+        SymmetricQLAlgorithm instance = new SymmetricQLAlgorithm(A, 2, 0);
+        assertArrayEquals(new double[]{4, 2, 1, 0}, instance.getRealEigenvalues(), 0);
+        assertArrayEquals(new double[]{0, 1, 0, 0}, instance.getEigenvector(0).toArray(), 1e-15);
+        assertArrayEquals(new double[]{0, 0, 0, 1}, instance.getEigenvector(1).toArray(), 1e-15);
+    }
+
+    @Test
+    public void test_zero_0010() {
+        Matrix A = new DenseMatrix(3, 3).ZERO();
+        SymmetricQLAlgorithm instance = new SymmetricQLAlgorithm(A, 2, 0);
+        assertArrayEquals(new double[]{0, 0, 0}, instance.getRealEigenvalues(), 0);
+        assertEigenpairs(A, instance, 1e-15);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_notSymmetric_0010() {
+        new SymmetricQLAlgorithm(new DenseMatrix(new double[][]{
+                    {1, 2},
+                    {3, 4}
+                }));
+    }
+
+    /**
+     * just to check speed against the general QR algorithm
+     */
+    @Test
+    public void test_speed_0010() {
+        Matrix A = randomSymmetric(120);
+
+        long start = System.currentTimeMillis();
+        Eigen eigen = new Eigen(A, Eigen.Method.QR, 1e-8);
+        long t1 = System.currentTimeMillis() - start;
+
+        start = System.currentTimeMillis();
+        SymmetricQLAlgorithm instance = new SymmetricQLAlgorithm(A, 0);
+        long t2 = System.currentTimeMillis() - start;
+
+        Matrix B = randomSymmetric(1000);
+        long t0 = System.currentTimeMillis();
+        SymmetricQLAlgorithm big = new SymmetricQLAlgorithm(B, 10, 0);
+        long t3 = System.currentTimeMillis() - t0;
+
+        System.out.println(String.format("time taken (120 x 120): QR = %d ms; symmetric QL = %d ms; (1000 x 1000, top 10): %d ms", t1, t2, t3));
+        assertArrayEquals(eigen.getRealEigenvalues(), instance.getRealEigenvalues(), 1e-10);
+        assertEigenpairs(B, big, 1e-10);
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.factorization.qr;
+
+import com.numericalmethod.suanshu.matrix.MatrixSingularityException;
+import com.numericalmethod.suanshu.matrix.doubles.AreMatrices;
+import com.numericalmethod.suanshu.matrix.doubles.IsMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.triangle.UpperTriangularMatrix;
+import com.numericalmethod.suanshu.stats.random.multivariate.IID;
+import com.numericalmethod.suanshu.stats.random.univariate.uniform.UniformRng;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Haksun Li
+ */
+public class BlockedHouseholderQRTest {
+
+    static Matrix random(int nRows, int nCols) {
+        UniformRng rng = new UniformRng();
+        rng.seed(1234567890L);
+        IID iid = new IID(rng, nRows * nCols);
+        return new DenseMatrix(iid.nextVector(), nRows, nCols);
+    }
+
+    @Test
+    public void test_0010() {
+        Matrix A1 = new DenseMatrix(new double[][]{
+                    {3, 2},
+                    {1, 2}
+                });
+        BlockedHouseholderQR instance = new BlockedHouseholderQR(A1, 0);
+        assertEquals(2, instance.rank());
+
+        Matrix Q = instance.Q();
+        assertTrue(IsMatrix.orthogonal(Q, 1e-15));
+        Matrix Qexpected = new DenseMatrix(new double[][]{
+                    {-0.948683298050514, -0.31622776601683},
+                    {-0.316227766016838, 0.948683298050514}
+                });
+        assertTrue(AreMatrices.equal(Qexpected, Q, 1e-14));
+        assertTrue(AreMatrices.equal(Qexpected, instance.squareQ(), 1e-14));
+
+        UpperTriangularMatrix R = instance.R();
+        UpperTriangularMatrix Rexpected = new UpperTriangularMatrix(new double[][]{
+                    {-3.16227766016838, -2.52982212813470},
+                    {1.26491106406735}
+                });
+        assertTrue(AreMatrices.equal(Rexpected, R, 1e-14));
+        assertTrue(AreMatrices.equal(Rexpected, instance.tallR(), 1e-14));
+        assertTrue(AreMatrices.equal(A1, Q.multiply(R), 1e-14));
+    }
+
+    /**
+     * The same as {@link HouseholderReflection} for a tall matrix with linearly dependent columns.
+     */
+    @Test
+    public void test_0020() {
+        Matrix A1 = new DenseMatrix(new double[][]{
+                    {1, 2, 3},
+                    {6, 7, 8},
+                    {11, 12, 13},
+                    {16, 17, 18},
+                    {21, 22, 23}
+                });
+        BlockedHouseholderQR instance = new BlockedHouseholderQR(A1, 1e-8);
+        HouseholderReflection expected = new HouseholderReflection(A1, 1e-8);
+        assertEquals(2, instance.rank());
+        assertEquals(expected.rank(), instance.rank());
+
+        assertTrue(AreMatrices.equal(expected.R(), instance.R(), 1e-12));
+        assertTrue(AreMatrices.equal(A1, instance.Q().multiply(instance.R()), 1e-12));
+        assertTrue(IsMatrix.orthogonal(instance.squareQ(), 1e-14));
+    }
+
+    /**
+     * multiple panels, the last of which is partial
+     */
+    @Test
+    public void test_0030() {
+        int n = 3 * BlockedHouseholderQR.NB + 5;
+        Matrix A = random(2 * n, n);
+        BlockedHouseholderQR instance = new BlockedHouseholderQR(A);
+        assertEquals(n, instance.rank());
+
+        Matrix Q = instance.Q();
+        assertEquals(2 * n, Q.nRows());
+        assertEquals(n, Q.nCols());
+        assertTrue(AreMatrices.equal(Q.t().multiply(Q), new DenseMatrix(n, n).ONE(), 1e-12));
+        assertTrue(AreMatrices.equal(A, Q.multiply(instance.R()), 1e-12));
+        assertTrue(AreMatrices.equal(A, instance.squareQ().multiply(instance.tallR()), 1e-12));
+    }
+
+    /**
+     * Apply <i>Q</i> and <i>Q'</i> without forming <i>Q</i>.
+     */
+    @Test
+    public void test_applyQ_0010() {
+        int m = 150, n = 70;
+        Matrix A = random(m, n);
+        BlockedHouseholderQR instance = new BlockedHouseholderQR(A);
+        Matrix Q = instance.squareQ();
+
+        Vector b = random(m, 1).getColumn(1);
+        Vector Qtb = instance.applyQt(b);
+        assertTrue(AreMatrices.equal(
+                new DenseMatrix(Q.t().multiply(b)),
+                new DenseMatrix(Qtb),
+                1e-12));
+        assertTrue(AreMatrices.equal(
+                new DenseMatrix(Q.multiply(b)),
+                new DenseMatrix(instance.applyQ(b)),
+                1e-12));
+        assertTrue(AreMatrices.equal(
+                new DenseMatrix(b),
+                new DenseMatrix(instance.applyQ(Qtb)),
+                1e-12));
+    }
+
+    /**
+     * least squares
+     */
+    @Test
+    public void test_solve_0010() {
+        Matrix A = new DenseMatrix(new double[][]{
+                    {1, 1},
+                    {1, 2},
+                    {1, 3},
+                    {1, 4}
+                });
+        Vector b = new DenseVector(new double[]{6, 5, 7, 10});
+        BlockedHouseholderQR instance = new BlockedHouseholderQR(A);
+        Vector x = instance.solve(b);
+        assertArrayEquals(new double[]{3.5, 1.4}, x.toArray(), 1e-14);
+    }
+
+    @Test(expected = MatrixSingularityException.class)
+    public void test_solve_0020() {
+        Matrix A = new DenseMatrix(new double[][]{
+                    {1, 2},
+                    {2, 4},
+                    {3, 6}
+                });
+        BlockedHouseholderQR instance = new BlockedHouseholderQR(A, 1e-10);
+        instance.solve(new DenseVector(new double[]{1, 2, 3}));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_fat_0010() {
+        new BlockedHouseholderQR(random(3, 5));
+    }
+
+    /**
+     * just to check speed against {@link HouseholderReflection}
+     */
+    @Test
+    public void test_speed_0010() {
+        Matrix A = random(2000, 200);
+
+        long start = System.currentTimeMillis();
+        HouseholderReflection hr = new HouseholderReflection(A, 0);
+        UpperTriangularMatrix R1 = hr.R();
+        long t1 = System.currentTimeMillis() - start;
+
+        start = System.currentTimeMillis();
+        BlockedHouseholderQR instance = new BlockedHouseholderQR(A, 0);
+        UpperTriangularMatrix R2 = instance.R();
+        long t2 = System.currentTimeMillis() - start;
+
+        System.out.println(String.format("time taken (2000 x 200): Householder = %d ms; blocked = %d ms", t1, t2));
+        assertTrue(AreMatrices.equal(R1, R2, 1e-10));
+    }
+}
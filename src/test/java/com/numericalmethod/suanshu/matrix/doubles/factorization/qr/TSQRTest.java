@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.factorization.qr;
+
+import com.numericalmethod.suanshu.matrix.doubles.AreMatrices;
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.triangle.UpperTriangularMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.operation.SubMatrixRef;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Haksun Li
+ */
+public class TSQRTest {
+
+    /**
+     * <i>R</i> is unique up to the signs of its rows, so compare <i>R'R = A'A</i>.
+     */
+    private static void assertSameR(UpperTriangularMatrix expected, UpperTriangularMatrix actual, double epsilon) {
+        for (int i = 1; i <= expected.nRows(); ++i) {
+            double sign = Math.signum(expected.get(i, i)) * Math.signum(actual.get(i, i));
+            for (int j = i; j <= expected.nCols(); ++j) {
+                assertEquals(expected.get(i, j), sign * actual.get(i, j), epsilon);
+            }
+        }
+    }
+
+    @Test
+    public void test_add_0010() {
+        int m = 1000, n = 37;
+        Matrix A = BlockedHouseholderQRTest.random(m, n);
+
+        TSQR instance = new TSQR(n);
+        for (int i = 1; i <= m; i += 130) {
+            instance.add(new SubMatrixRef(A, i, Math.min(i + 129, m), 1, n));
+        }
+        assertEquals(m, instance.nRowsSeen());
+
+        UpperTriangularMatrix R = new BlockedHouseholderQR(A).R();
+        assertSameR(R, instance.R(), 1e-10);
+    }
+
+    /**
+     * chunks with fewer rows than columns
+     */
+    @Test
+    public void test_add_0020() {
+        int m = 50, n = 10;
+        Matrix A = BlockedHouseholderQRTest.random(m, n);
+
+        TSQR instance = new TSQR(n);
+        for (int i = 1; i <= m; i += 3) {
+            instance.add(new SubMatrixRef(A, i, Math.min(i + 2, m), 1, n));
+        }
+
+        UpperTriangularMatrix R = new BlockedHouseholderQR(A).R();
+        assertSameR(R, instance.R(), 1e-12);
+    }
+
+    @Test
+    public void test_factorize_0010() {
+        int m = 5000, n = 50;
+        Matrix A = BlockedHouseholderQRTest.random(m, n);
+
+        TSQR instance = TSQR.factorize(A, 700);
+        assertEquals(m, instance.nRowsSeen());
+
+        UpperTriangularMatrix R = new BlockedHouseholderQR(A).R();
+        assertSameR(R, instance.R(), 1e-10);
+        assertTrue(AreMatrices.equal(A.t().multiply(A), instance.R().t().multiply(instance.R()), 1e-9));
+    }
+
+    /**
+     * least squares by appending <i>b</i> as the last column
+     */
+    @Test
+    public void test_leastSquares_0010() {
+        Matrix Ab = new DenseMatrix(new double[][]{
+                    {1, 1, 6},
+                    {1, 2, 5},
+                    {1, 3, 7},
+                    {1, 4, 10}
+                });
+        TSQR instance = new TSQR(3);
+        instance.add(new SubMatrixRef(Ab, 1, 2, 1, 3));
+        instance.add(new SubMatrixRef(Ab, 3, 4, 1, 3));
+        UpperTriangularMatrix R = instance.R();
+
+        //R[1:2, 1:2] * x = R[1:2, 3]
+        double x2 = R.get(2, 3) / R.get(2, 2);
+        double x1 = (R.get(1, 3) - R.get(1, 2) * x2) / R.get(1, 1);
+        assertEquals(3.5, x1, 1e-13);
+        assertEquals(1.4, x2, 1e-13);
+        assertEquals(Math.sqrt(4.2), Math.abs(R.get(3, 3)), 1e-13);//residual norm
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.factorization.svd;
+
+import com.numericalmethod.suanshu.matrix.doubles.AreMatrices;
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.factorization.eigen.SymmetricQLAlgorithm;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.diagonal.DiagonalMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.triangle.SymmetricMatrix;
+import com.numericalmethod.suanshu.stats.random.univariate.normal.StandardNormalRng;
+import java.util.Arrays;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Haksun Li
+ */
+public class TruncatedSVDTest {
+
+    /**
+     * Generate a Gaussian random matrix whose <i>j</i>-th column is scaled by <i>decay<sup>j</sup></i>,
+     * so that the singular values decay geometrically.
+     */
+    private static Matrix random(int nRows, int nCols, double decay) {
+        StandardNormalRng rng = new StandardNormalRng();
+        rng.seed(1234567890L);
+        double[] A = new double[nRows * nCols];
+        for (int i = 0, a = 0; i < nRows; ++i) {
+            for (int j = 0; j < nCols; ++j) {
+                A[a++] = rng.nextDouble() * Math.pow(decay, j);
+            }
+        }
+        return new DenseMatrix(A, nRows, nCols);
+    }
+
+    private static void assertOrthonormalColumns(Matrix Q, double epsilon) {
+        Matrix I = new DiagonalMatrix(Q.nCols()).ONE();
+        assertTrue(AreMatrices.equal(I, Q.t().multiply(Q), epsilon));
+    }
+
+    /**
+     * A rank-4 matrix is recovered exactly by its top 4 singular triplets.
+     */
+    @Test
+    public void test_0010() {
+        Matrix X = random(300, 4, 1.);
+        Matrix Y = random(4, 80, 1.);
+        Matrix A = X.multiply(Y);
+
+        TruncatedSVD instance = new TruncatedSVD(A, 4);
+        Matrix U = instance.U();
+        Matrix V = instance.V();
+        assertEquals(300, U.nRows());
+        assertEquals(4, U.nCols());
+        assertEquals(80, V.nRows());
+        assertEquals(4, V.nCols());
+        assertOrthonormalColumns(U, 1e-12);
+        assertOrthonormalColumns(V, 1e-12);
+
+        Matrix UDVt = U.multiply(instance.D()).multiply(V.t());
+        assertTrue(AreMatrices.equal(A, UDVt, 1e-9));
+
+        double[] expected = Arrays.copyOf(new SVD(A, true).getSingularValues(), 4);
+        assertArrayEquals(expected, instance.getSingularValues(), 1e-9);
+    }
+
+    /**
+     * The top singular values of a matrix with a decaying spectrum.
+     */
+    @Test
+    public void test_0020() {
+        Matrix A = random(400, 60, 0.5);
+
+        SVD svd = new SVD(A, true);
+        TruncatedSVD instance = new TruncatedSVD(A, 5);
+
+        double[] expected = Arrays.copyOf(svd.getSingularValues(), 5);
+        double[] sigma = instance.getSingularValues();
+        for (int i = 0; i < 5; ++i) {
+            assertEquals(expected[i], sigma[i], expected[i] * 1e-10);
+        }
+
+        //the singular vectors are unique up to sign
+        for (int j = 1; j <= 5; ++j) {
+            double cos = Math.abs(svd.V().getColumn(j).innerProduct(instance.V().getColumn(j)));
+            assertEquals(1., cos, 1e-8);
+            cos = Math.abs(svd.U().getColumn(j).innerProduct(instance.U().getColumn(j)));
+            assertEquals(1., cos, 1e-8);
+        }
+    }
+
+    /**
+     * a fat matrix
+     */
+    @Test
+    public void test_0030() {
+        Matrix A = random(60, 400, 0.5);
+
+        TruncatedSVD instance = new TruncatedSVD(A, 3);
+        assertEquals(60, instance.U().nRows());
+        assertEquals(400, instance.V().nRows());
+        assertOrthonormalColumns(instance.U(), 1e-12);
+        assertOrthonormalColumns(instance.V(), 1e-12);
+
+        double[] expected = Arrays.copyOf(new SVD(A, true).getSingularValues(), 3);
+        assertArrayEquals(expected, instance.getSingularValues(), expected[0] * 1e-10);
+
+        //A' * U = V * D
+        Matrix AtU = A.t().multiply(instance.U());
+        Matrix VD = instance.V().multiply(instance.D());
+        assertTrue(AreMatrices.equal(AtU, VD, 1e-8));
+    }
+
+    /**
+     * The power iterations improve the accuracy when the spectrum decays slowly.
+     */
+    @Test
+    public void test_0040() {
+        Matrix A = random(500, 100, 0.97);
+        double[] expected = new SymmetricQLAlgorithm(A.t().multiply(A), 0, 1e-12).getRealEigenvalues();
+        for (int i = 0; i < expected.length; ++i) {
+            expected[i] = Math.sqrt(expected[i]);
+        }
+
+        double[] sigma0 = new TruncatedSVD(A, 10, 10, 0, 1234567890L).getSingularValues();
+        double[] sigma3 = new TruncatedSVD(A, 10, 10, 3, 1234567890L).getSingularValues();
+
+        double error0 = 0., error3 = 0.;
+        for (int i = 0; i < 10; ++i) {
+            error0 += Math.abs(expected[i] - sigma0[i]);
+            error3 += Math.abs(expected[i] - sigma3[i]);
+            assertTrue(sigma3[i] <= expected[i] * (1. + 1e-10));//the Ritz values never exceed the singular values
+        }
+        assertTrue(error3 < error0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_0050() {
+        new TruncatedSVD(new SymmetricMatrix(3).ONE(), 4);
+    }
+
+    /**
+     * just to check speed against the full SVD, for a tall matrix
+     */
+    @Test
+    public void test_0060() {
+        Matrix A = random(2000, 100, 0.98);
+
+        long start = System.currentTimeMillis();
+        SVD svd = new SVD(A, true);
+        long t1 = System.currentTimeMillis() - start;
+
+        start = System.currentTimeMillis();
+        TruncatedSVD instance = new TruncatedSVD(A, 10);
+        long t2 = System.currentTimeMillis() - start;
+
+        System.out.println(String.format("time taken (2000 x 100, top 10): full SVD = %d ms; truncated SVD = %d ms", t1, t2));
+        assertEquals(svd.getSingularValues()[0], instance.getSingularValues()[0], svd.getSingularValues()[0] * 1e-2);
+    }
+}
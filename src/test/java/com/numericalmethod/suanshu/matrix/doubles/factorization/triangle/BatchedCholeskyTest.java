@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.factorization.triangle;
+
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.MatrixBatch;
+import com.numericalmethod.suanshu.stats.random.univariate.uniform.UniformRng;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Haksun Li
+ */
+public class BatchedCholeskyTest {
+
+    /**
+     * Generate a batch of <i>M' * M + I</i>, which are symmetric and positive definite.
+     */
+    private static MatrixBatch randomSPD(int size, int dim, long seed) {
+        UniformRng rng = new UniformRng();
+        rng.seed(seed);
+        MatrixBatch batch = new MatrixBatch(size, dim, dim);
+        for (int k = 1; k <= size; ++k) {
+            Matrix M = new DenseMatrix(dim, dim);
+            for (int i = 1; i <= dim; ++i) {
+                for (int j = 1; j <= dim; ++j) {
+                    M.set(i, j, rng.nextDouble());
+                }
+            }
+            batch.set(k, M.t().multiply(M).add(M.ONE()));
+        }
+        return batch;
+    }
+
+    /**
+     * Compare with {@link BlockedCholesky}.
+     */
+    @Test
+    public void test_0010() {
+        MatrixBatch A = randomSPD(500, 6, 1234567890L);
+        BatchedCholesky instance = new BatchedCholesky(A);
+
+        for (int k = 1; k <= A.size(); k += 61) {
+            assertTrue(instance.isPositiveDefinite(k));
+            Matrix L = new BlockedCholesky(A.view(k)).L();
+            Matrix packed = instance.L().view(k);
+            for (int i = 1; i <= 6; ++i) {
+                for (int j = 1; j <= i; ++j) {
+                    assertEquals(L.get(i, j), packed.get(i, j), 1e-13);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test_0020() {
+        MatrixBatch A = randomSPD(3000, 4, 987654321L);
+        UniformRng rng = new UniformRng();
+        rng.seed(13579L);
+        MatrixBatch B = new MatrixBatch(3000, 4, 2);
+        for (int i = 0; i < B.asArray().length; ++i) {
+            B.asArray()[i] = rng.nextDouble();
+        }
+        MatrixBatch X = new MatrixBatch(B.asArray().clone(), 3000, 4, 2);
+
+        new BatchedCholesky(A).solve(X);
+
+        assertArrayEquals(B.asArray(), A.multiply(X).asArray(), 1e-12);
+    }
+
+    /**
+     * Only the lower triangle is read; an indefinite matrix is flagged.
+     */
+    @Test
+    public void test_0030() {
+        MatrixBatch A = new MatrixBatch(2, 2, 2);
+        A.set(1, new DenseMatrix(new double[][]{
+                    {1, 2},
+                    {2, 1}
+                }));
+        A.set(2, new DenseMatrix(new double[][]{
+                    {4, Double.NaN},
+                    {2, 2}
+                }));
+        MatrixBatch B = new MatrixBatch(new double[]{1, 1, 8, 6}, 2, 2, 1);
+
+        BatchedCholesky instance = new BatchedCholesky(A);
+        instance.solve(B);
+
+        assertFalse(instance.isPositiveDefinite(1));
+        assertTrue(instance.isPositiveDefinite(2));
+        assertTrue(Double.isNaN(B.get(1, 1, 1)));
+        assertEquals(1., B.get(2, 1, 1), 1e-15);
+        assertEquals(2., B.get(2, 2, 1), 1e-15);
+    }
+}
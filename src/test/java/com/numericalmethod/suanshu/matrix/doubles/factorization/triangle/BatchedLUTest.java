@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.factorization.triangle;
+
+import com.numericalmethod.suanshu.matrix.doubles.AreMatrices;
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.MatrixBatch;
+import com.numericalmethod.suanshu.stats.random.univariate.uniform.UniformRng;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Haksun Li
+ */
+public class BatchedLUTest {
+
+    private static MatrixBatch random(int size, int nRows, int nCols, long seed) {
+        UniformRng rng = new UniformRng();
+        rng.seed(seed);
+        MatrixBatch batch = new MatrixBatch(size, nRows, nCols);
+        double[] data = batch.asArray();
+        for (int i = 0; i < data.length; ++i) {
+            data[i] = rng.nextDouble();
+        }
+        return batch;
+    }
+
+    /**
+     * Compare with {@link BlockedLU}.
+     */
+    @Test
+    public void test_0010() {
+        MatrixBatch A = random(1000, 5, 5, 1234567890L);
+        BatchedLU instance = new BatchedLU(A);
+
+        for (int k = 1; k <= A.size(); k += 111) {
+            assertFalse(instance.isSingular(k));
+            BlockedLU lu = new BlockedLU(A.view(k));
+            Matrix packed = instance.LU().view(k);
+            for (int i = 1; i <= 5; ++i) {
+                for (int j = 1; j <= 5; ++j) {
+                    double expected = i > j ? lu.L().get(i, j) : lu.U().get(i, j);
+                    assertEquals(expected, packed.get(i, j), 1e-14);
+                }
+            }
+        }
+    }
+
+    /**
+     * Solve many small systems with several right hand sides, and re-use the workspace.
+     */
+    @Test
+    public void test_0020() {
+        BatchedLU instance = new BatchedLU(2000, 8);
+        for (long seed = 1; seed <= 2; ++seed) {
+            MatrixBatch A = random(2000, 8, 8, seed);
+            MatrixBatch B = random(2000, 8, 3, seed + 100);
+            MatrixBatch X = new MatrixBatch(B.asArray().clone(), 2000, 8, 3);
+
+            instance.factorize(A).solve(X);
+
+            MatrixBatch AX = A.multiply(X);
+            assertArrayEquals(B.asArray(), AX.asArray(), 1e-10);
+        }
+    }
+
+    /**
+     * A singular matrix does not affect the others.
+     */
+    @Test
+    public void test_0030() {
+        MatrixBatch A = new MatrixBatch(2, 2, 2);
+        A.set(1, new DenseMatrix(new double[][]{
+                    {1, 2},
+                    {2, 4}
+                }));
+        A.set(2, new DenseMatrix(new double[][]{
+                    {0, 2},
+                    {1, 1}
+                }));
+        MatrixBatch B = new MatrixBatch(new double[]{1, 1, 4, 3}, 2, 2, 1);
+
+        BatchedLU instance = new BatchedLU(A);
+        instance.solve(B);
+
+        assertTrue(instance.isSingular(1));
+        assertFalse(instance.isSingular(2));
+        assertTrue(Double.isNaN(B.get(1, 1, 1)));
+        assertTrue(Double.isNaN(B.get(1, 2, 1)));
+        assertEquals(1., B.get(2, 1, 1), 1e-15);
+        assertEquals(2., B.get(2, 2, 1), 1e-15);
+    }
+}
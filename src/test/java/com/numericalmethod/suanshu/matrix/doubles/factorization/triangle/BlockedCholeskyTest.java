@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.factorization.triangle;
+
+import com.numericalmethod.suanshu.matrix.doubles.AreMatrices;
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.triangle.LowerTriangularMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.triangle.SymmetricMatrix;
+import com.numericalmethod.suanshu.stats.random.multivariate.IID;
+import com.numericalmethod.suanshu.stats.random.univariate.uniform.UniformRng;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Haksun Li
+ */
+public class BlockedCholeskyTest {
+
+    /**
+     * Generate a random positive definite matrix <i>X' * X + n * I</i>.
+     */
+    private static Matrix randomSPD(int n) {
+        UniformRng rng = new UniformRng();
+        rng.seed(1234567890L);
+        IID iid = new IID(rng, n * n);
+        Matrix X = new DenseMatrix(iid.nextVector(), n, n);
+        Matrix A = X.t().multiply(X);
+        A = A.add(A.t()).scaled(0.5);//make it exactly symmetric
+        for (int i = 1; i <= n; ++i) {
+            A.set(i, i, A.get(i, i) + n);
+        }
+        return A;
+    }
+
+    @Test
+    public void test_0010() {
+        Matrix A = new DenseMatrix(new double[][]{
+                    {4, 12, -16},
+                    {12, 37, -43},
+                    {-16, -43, 98}
+                });
+        BlockedCholesky instance = new BlockedCholesky(A);
+        LowerTriangularMatrix L = instance.L();
+        assertEquals(new LowerTriangularMatrix(new double[][]{
+                    {2},
+                    {6, 1},
+                    {-8, 5, 3}
+                }), L);
+        assertEquals(A, L.multiply(instance.Lt()));
+    }
+
+    /**
+     * The dimension spans several panels and the trailing updates run in parallel.
+     */
+    @Test
+    public void test_0020() {
+        int n = BlockedCholesky.NB * 5 + 7;
+        Matrix A = randomSPD(n);
+        BlockedCholesky instance = new BlockedCholesky(A);
+        LowerTriangularMatrix L = instance.L();
+        assertTrue(AreMatrices.equal(A, L.multiply(L.t()), 1e-9));
+    }
+
+    /**
+     * A packed symmetric matrix gives the same factor as its dense copy.
+     */
+    @Test
+    public void test_0040() {
+        int n = BlockedCholesky.NB * 2 + 5;
+        Matrix A = randomSPD(n);
+        SymmetricMatrix S = new SymmetricMatrix(A);
+        assertTrue(AreMatrices.equal(new BlockedCholesky(A).L(), new BlockedCholesky(S).L(), 0));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void test_0030() {
+        Matrix A = new DenseMatrix(new double[][]{
+                    {1, 2},
+                    {2, 1}
+                });
+        new BlockedCholesky(A);
+    }
+
+    @Test
+    public void test_solve_0010() {
+        int n = BlockedCholesky.NB * 2 + 3;
+        Matrix A = randomSPD(n);
+        BlockedCholesky instance = new BlockedCholesky(A);
+
+        Vector b = new DenseVector(n, 1.);
+        Vector x = instance.solve(b);
+        assertArrayEquals(b.toArray(), A.multiply(x).toArray(), 1e-10);
+
+        IID iid = new IID(new UniformRng(), n * 5);
+        Matrix B = new DenseMatrix(iid.nextVector(), n, 5);
+        Matrix X = instance.solve(B);
+        assertTrue(AreMatrices.equal(B, A.multiply(X), 1e-10));
+
+        double[] Y = new double[n * 2];
+        for (int i = 0; i < n; ++i) {
+            Y[i * 2] = 1.;
+            Y[i * 2 + 1] = 2.;
+        }
+        instance.solveInPlace(Y, 2);
+        for (int i = 0; i < n; ++i) {
+            assertEquals(x.get(i + 1), Y[i * 2], 1e-14);
+            assertEquals(2 * x.get(i + 1), Y[i * 2 + 1], 1e-14);
+        }
+    }
+
+    @Test
+    public void test_update_0010() {
+        int n = 50;
+        Matrix A = randomSPD(n);
+        double[] data = new double[n];
+        for (int i = 0; i < n; ++i) {
+            data[i] = Math.sin(i);
+        }
+        Vector x = new DenseVector(data);
+        Matrix xxt = new DenseMatrix(x).multiply(new DenseMatrix(x).t());
+
+        BlockedCholesky instance = new BlockedCholesky(A);
+        instance.update(x);
+        Matrix A1 = A.add(xxt);
+        assertTrue(AreMatrices.equal(new BlockedCholesky(A1).L(), instance.L(), 1e-10));
+
+        instance.downdate(x);
+        assertTrue(AreMatrices.equal(new BlockedCholesky(A).L(), instance.L(), 1e-10));
+    }
+
+    /**
+     * A failed downdate leaves the factor unchanged.
+     */
+    @Test
+    public void test_downdate_0010() {
+        Matrix A = new DenseMatrix(new double[][]{
+                    {4, 12, -16},
+                    {12, 37, -43},
+                    {-16, -43, 98}
+                });
+        BlockedCholesky instance = new BlockedCholesky(A);
+        LowerTriangularMatrix L = instance.L();
+        try {
+            instance.downdate(new DenseVector(3., 0., 0.));
+            fail("A - x * x' is not positive definite");
+        } catch (RuntimeException ex) {
+            assertEquals(L, instance.L());
+        }
+    }
+
+    /**
+     * just to check speed
+     */
+    @Test
+    public void test_speed_0010() {
+        int n = 1000;
+        Matrix A = randomSPD(n);
+
+        long start = System.currentTimeMillis();
+        BlockedCholesky instance = new BlockedCholesky(A);
+        long t = System.currentTimeMillis() - start;
+
+        System.out.println(String.format("time taken (%d x %d): blocked = %d ms", n, n, t));
+        Vector b = new DenseVector(n, 1.);
+        assertArrayEquals(b.toArray(), A.multiply(instance.solve(b)).toArray(), 1e-10);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.factorization.triangle;
+
+import com.numericalmethod.suanshu.matrix.MatrixSingularityException;
+import com.numericalmethod.suanshu.matrix.doubles.AreMatrices;
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.PermutationMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.triangle.LowerTriangularMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.triangle.UpperTriangularMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.operation.MatrixMeasure;
+import com.numericalmethod.suanshu.stats.random.multivariate.IID;
+import com.numericalmethod.suanshu.stats.random.univariate.uniform.UniformRng;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Haksun Li
+ */
+public class BlockedLUTest {
+
+    private static Matrix random(int nRows, int nCols) {
+        UniformRng rng = new UniformRng();
+        rng.seed(1234567890L);
+        IID iid = new IID(rng, nRows * nCols);
+        return new DenseMatrix(iid.nextVector(), nRows, nCols);
+    }
+
+    @Test
+    public void test_0010() {
+        Matrix A = new DenseMatrix(new double[][]{
+                    {5, 2, 3, 4},
+                    {5, 6, 7, 4},
+                    {1, 3, 2, 3},
+                    {1, 7, 6, 2}
+                });
+        BlockedLU instance = new BlockedLU(A);
+        LowerTriangularMatrix L = instance.L();
+        UpperTriangularMatrix U = instance.U();
+        PermutationMatrix P = instance.P();
+
+        assertTrue(AreMatrices.equal(P.multiply(A), L.multiply(U), 1e-14));
+
+        double det = P.sign();
+        for (int i = 1; i <= 4; ++i) {
+            assertEquals(1., L.get(i, i), 0);
+            det *= U.get(i, i);
+        }
+        assertEquals(24, det, 1e-13);
+    }
+
+    /**
+     * The dimension spans several panels.
+     */
+    @Test
+    public void test_0020() {
+        int n = BlockedLU.NB * 3 + 5;
+        Matrix A = random(n, n);
+        BlockedLU instance = new BlockedLU(A);
+
+        Matrix PA = instance.P().multiply(A);
+        Matrix LU = instance.L().multiply(instance.U());
+        assertTrue(AreMatrices.equal(PA, LU, 1e-12));
+
+        //partial pivoting bounds the multipliers by 1
+        LowerTriangularMatrix L = instance.L();
+        for (int i = 1; i <= n; ++i) {
+            for (int j = 1; j < i; ++j) {
+                assertTrue(Math.abs(L.get(i, j)) <= 1.);
+            }
+        }
+    }
+
+    @Test
+    public void test_solve_0010() {
+        int n = BlockedLU.NB * 2 + 3;
+        Matrix A = random(n, n);
+        BlockedLU instance = new BlockedLU(A);
+
+        Vector b = new DenseVector(n, 1.);
+        Vector x = instance.solve(b);
+        assertArrayEquals(b.toArray(), A.multiply(x).toArray(), 1e-10);
+
+        Matrix B = random(n, 7);
+        Matrix X = instance.solve(B);
+        assertTrue(AreMatrices.equal(B, A.multiply(X), 1e-10));
+    }
+
+    @Test(expected = MatrixSingularityException.class)
+    public void test_solve_0020() {
+        Matrix A = new DenseMatrix(new double[][]{
+                    {1, 2, 3},
+                    {4, 5, 6},
+                    {7, 8, 9}
+                });
+        BlockedLU instance = new BlockedLU(A);
+        assertTrue(AreMatrices.equal(instance.P().multiply(A), instance.L().multiply(instance.U()), 1e-14));
+        instance.solve(new DenseVector(1., 2., 3.));
+    }
+
+    @Test
+    public void test_singular_0010() {
+        Matrix A = new DenseMatrix(new double[][]{
+                    {0, 1, 2},
+                    {0, 3, 4},
+                    {0, 5, 6}
+                });
+        BlockedLU instance = new BlockedLU(A);
+        assertTrue(AreMatrices.equal(instance.P().multiply(A), instance.L().multiply(instance.U()), 1e-14));
+        assertEquals(0., MatrixMeasure.det(A), 0);
+    }
+
+    /**
+     * just to check speed against {@link Doolittle}
+     */
+    @Test
+    public void test_speed_0010() {
+        int n = 500;
+        Matrix A = random(n, n);
+
+        long start = System.currentTimeMillis();
+        Doolittle doolittle = new Doolittle(A);
+        long t1 = System.currentTimeMillis() - start;
+
+        start = System.currentTimeMillis();
+        BlockedLU blocked = new BlockedLU(A);
+        long t2 = System.currentTimeMillis() - start;
+
+        System.out.println(String.format("time taken (%d x %d): Doolittle = %d ms; blocked = %d ms", n, n, t1, t2));
+        assertTrue(AreMatrices.equal(doolittle.U(), blocked.U(), 1e-8));
+    }
+}
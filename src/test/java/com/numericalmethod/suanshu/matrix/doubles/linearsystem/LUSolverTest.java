@@ -336,4 +336,46 @@ public class LUSolverTest {
         Vector x = instance.solve(new LSProblem(M, b));
         assertArrayEquals(b.toArray(), M.multiply(x).toArray(), 1e-11);
     }
+
+    /**
+     * Test of class LUSolver.
+     * The single-precision factorization is refined to double-precision accuracy.
+     */
+    @Test
+    public void test_mixedPrecision_0010() {
+        final int n = 200;
+        double[][] data = new double[n][n];
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                data[i][j] = Math.sin(i * n + j);
+            }
+            data[i][i] += n;
+        }
+        Matrix A = new DenseMatrix(data);
+        Vector b = new DenseVector(n, 1.);
+
+        Vector x = new LUSolver(true).solve(new LSProblem(A, b));
+        assertArrayEquals(b.toArray(), A.multiply(x).toArray(), 1e-12);
+        assertArrayEquals(new LUSolver().solve(new LSProblem(A, b)).toArray(), x.toArray(), 1e-14);
+    }
+
+    /**
+     * Test of class LUSolver.
+     * The matrix is too ill-conditioned for the refinement; it falls back to double precision.
+     */
+    @Test
+    public void test_mixedPrecision_0020() {
+        final int n = 10;
+        double[][] data = new double[n][n];//the Hilbert matrix
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                data[i][j] = 1. / (i + j + 1);
+            }
+        }
+        Matrix A = new DenseMatrix(data);
+        Vector b = new DenseVector(n, 1.);
+
+        Vector x = new LUSolver(true).solve(new LSProblem(A, b));
+        assertArrayEquals(new LUSolver().solve(new LSProblem(A, b)).toArray(), x.toArray(), 0);
+    }
 }
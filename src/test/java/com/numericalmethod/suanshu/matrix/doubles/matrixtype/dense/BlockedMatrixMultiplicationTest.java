@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense;
+
+import com.numericalmethod.suanshu.matrix.doubles.AreMatrices;
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.mathoperation.SimpleMatrixMathOperation;
+import com.numericalmethod.suanshu.parallel.ParallelExecutor;
+import com.numericalmethod.suanshu.stats.random.multivariate.IID;
+import com.numericalmethod.suanshu.stats.random.univariate.uniform.UniformRng;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Haksun Li
+ */
+public class BlockedMatrixMultiplicationTest {
+
+    /**
+     * the textbook algorithm that {@link DenseMatrix#multiply(Matrix)} used before the blocked kernel:
+     * transpose the multiplier, then take the dot product of each row pair
+     */
+    private static double[] multiplyByTranspose(double[] A, double[] B, int m, int k, int n) {
+        double[] Bt = new double[k * n];
+        for (int p = 0; p < k; ++p) {
+            for (int j = 0; j < n; ++j) {
+                Bt[j * k + p] = B[p * n + j];
+            }
+        }
+
+        double[] C = new double[m * n];
+        for (int i = 0, c = 0; i < m; ++i) {
+            for (int j = 0; j < n; ++j) {
+                double sum = 0.;
+                for (int p = i * k, q = j * k; p < (i + 1) * k; ++p, ++q) {
+                    sum += A[p] * Bt[q];
+                }
+                C[c++] = sum;
+            }
+        }
+
+        return C;
+    }
+
+    private static double[] random(int length) {
+        UniformRng rng = new UniformRng();
+        rng.seed(1234567890L);
+        double[] x = new double[length];
+        for (int i = 0; i < length; ++i) {
+            x[i] = rng.nextDouble();
+        }
+        return x;
+    }
+
+    @Test
+    public void test_multiply_0010() {
+        int m = 3, k = 2, n = 4;
+        double[] A = new double[]{
+            1, 2,
+            3, 4,
+            5, 6};
+        double[] B = new double[]{
+            1, 2, 3, 4,
+            5, 6, 7, 8};
+
+        double[] C = BlockedMatrixMultiplication.multiply(A, B, m, k, n, null);
+        assertArrayEquals(new double[]{
+                    11, 14, 17, 20,
+                    23, 30, 37, 44,
+                    35, 46, 57, 68}, C, 0);
+    }
+
+    /**
+     * The dimensions are not multiples of the tile sizes nor the register tile.
+     */
+    @Test
+    public void test_multiply_0020() {
+        int m = BlockedMatrixMultiplication.MC * 2 + 3;
+        int k = BlockedMatrixMultiplication.KC + 5;
+        int n = BlockedMatrixMultiplication.NC + 7;
+        double[] A = random(m * k);
+        double[] B = random(k * n);
+
+        double[] expected = multiplyByTranspose(A, B, m, k, n);
+        double[] C1 = BlockedMatrixMultiplication.multiply(A, B, m, k, n, null);
+        assertArrayEquals(expected, C1, 1e-10);
+
+        double[] C2 = BlockedMatrixMultiplication.multiply(A, B, m, k, n, new ParallelExecutor());
+        assertArrayEquals(expected, C2, 1e-10);
+    }
+
+    /**
+     * Multiply sub-matrices of bigger arrays and accumulate to the existing content.
+     */
+    @Test
+    public void test_multiply_0030() {
+        double[] A = new double[]{
+            0, 0, 0,
+            0, 1, 2,
+            0, 3, 4};//A[2:3, 2:3]
+        double[] B = new double[]{
+            0, 1, 2, 0,
+            0, 3, 4, 0};//B[1:2, 2:3]
+        double[] C = new double[]{
+            1, 1, 9,
+            1, 1, 9};//C[1:2, 1:2]
+
+        BlockedMatrixMultiplication.multiply(A, 4, 3, B, 1, 4, C, 0, 3, 2, 2, 2, null);
+        assertArrayEquals(new double[]{
+                    8, 11, 9,
+                    16, 23, 9}, C, 0);
+    }
+
+    @Test
+    public void test_multiply_0040() {
+        Matrix A1 = new DenseMatrix(random(37 * 19), 37, 19);
+        Matrix A2 = new DenseMatrix(random(19 * 23), 19, 23);
+
+        Matrix expected = new SimpleMatrixMathOperation().multiply(A1, A2);
+        Matrix instance = A1.multiply(A2);
+        assertTrue(AreMatrices.equal(expected, instance, 1e-12));
+    }
+
+    /**
+     * just to check speed against the transposed dot-product algorithm, for a square and a tall-skinny matrix
+     */
+    @Test
+    public void test_multiply_0050() {
+        int[][] shapes = new int[][]{
+            {1000, 1000, 1000},//square
+            {20000, 200, 50}//tall-skinny
+        };
+
+        for (int[] shape : shapes) {
+            int m = shape[0], k = shape[1], n = shape[2];
+            IID iid = new IID(new UniformRng(), m * k);
+            double[] A = iid.nextVector();
+            iid = new IID(new UniformRng(), k * n);
+            double[] B = iid.nextVector();
+
+            long start = System.currentTimeMillis();
+            double[] expected = multiplyByTranspose(A, B, m, k, n);
+            long t1 = System.currentTimeMillis() - start;
+
+            start = System.currentTimeMillis();
+            double[] C = BlockedMatrixMultiplication.multiply(A, B, m, k, n, null);
+            long t2 = System.currentTimeMillis() - start;
+
+            System.out.println(String.format("time taken (%d x %d x %d): transpose = %d ms; blocked = %d ms", m, k, n, t1, t2));
+            assertArrayEquals(expected, C, 1e-8);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense;
+
+import com.numericalmethod.suanshu.matrix.doubles.AreMatrices;
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Haksun Li
+ */
+public class ColumnMajorMatrixTest {
+
+    private static final double[][] DATA = new double[][]{
+        {1, 2, 3},
+        {4, 5, 6}
+    };
+
+    @Test
+    public void test_ctor_0010() {
+        ColumnMajorMatrix A = new ColumnMajorMatrix(DATA);
+        assertEquals(2, A.nRows());
+        assertEquals(3, A.nCols());
+        assertTrue(AreMatrices.equal(new DenseMatrix(DATA), A, 0));
+        assertTrue(AreMatrices.equal(new DenseMatrix(DATA), new ColumnMajorMatrix(new DenseMatrix(DATA)), 0));
+        assertTrue(AreMatrices.equal(new DenseMatrix(DATA), A.toDense(), 0));
+
+        //column by column
+        double[] data = new double[]{1, 4, 2, 5, 3, 6};
+        assertEquals(A, new ColumnMajorMatrix(data, 2, 3));
+    }
+
+    @Test
+    public void test_views_0010() {
+        ColumnMajorMatrix A = new ColumnMajorMatrix(DATA);
+        assertArrayEquals(new double[]{2, 5}, A.columnView(2).toArray(), 0);
+        assertArrayEquals(new double[]{4, 5, 6}, A.rowView(2).toArray(), 0);
+
+        A.columnView(3).scaleInPlace(10);
+        assertEquals(60, A.get(2, 3), 0);
+
+        //the transpose shares the array
+        DenseMatrix At = A.transposeView();
+        assertTrue(AreMatrices.equal(A.t(), At, 0));
+        At.set(1, 2, -4);
+        assertEquals(-4, A.get(2, 1), 0);
+
+        ColumnMajorMatrix B = At.transposeView();
+        B.set(1, 1, -1);
+        assertEquals(-1, A.get(1, 1), 0);
+    }
+
+    @Test
+    public void test_multiply_0010() {
+        ColumnMajorMatrix A = new ColumnMajorMatrix(DATA);
+        Matrix B = new DenseMatrix(new double[][]{
+                    {1, 0},
+                    {2, 1},
+                    {0, -1}
+                });
+        Matrix AB = new DenseMatrix(DATA).multiply(B);
+        assertTrue(AreMatrices.equal(AB, A.multiply(B), 0));
+        assertTrue(AreMatrices.equal(AB, A.multiply(new ColumnMajorMatrix(B)), 0));
+
+        Vector v = new DenseVector(new double[]{1, -1, 2});
+        assertArrayEquals(new double[]{5, 11}, A.multiply(v).toArray(), 0);
+        assertArrayEquals(new double[]{9, 12, 15}, A.tMultiply(new DenseVector(new double[]{1, 2})).toArray(), 0);
+    }
+
+    @Test
+    public void test_arithmetic_0010() {
+        ColumnMajorMatrix A = new ColumnMajorMatrix(DATA);
+        DenseMatrix D = new DenseMatrix(DATA);
+        assertTrue(AreMatrices.equal(D.add(D), A.add(D), 0));
+        assertTrue(AreMatrices.equal(D.ZERO(), A.minus(A), 0));
+        assertTrue(AreMatrices.equal(D.scaled(3), A.scaled(3), 0));
+        assertTrue(AreMatrices.equal(D.ONE(), A.ONE(), 0));
+
+        A.addInPlace(2, D);
+        assertTrue(AreMatrices.equal(D.scaled(3), A, 0));
+    }
+}
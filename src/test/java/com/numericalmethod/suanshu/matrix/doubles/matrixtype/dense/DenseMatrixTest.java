@@ -23,6 +23,7 @@
 package com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense;
 
 import com.numericalmethod.suanshu.matrix.MatrixMismatchException;
+import com.numericalmethod.suanshu.matrix.doubles.AreMatrices;
 import com.numericalmethod.suanshu.matrix.doubles.Matrix;
 import static com.numericalmethod.suanshu.matrix.doubles.operation.MatrixUtils.*;
 import com.numericalmethod.suanshu.misc.R;
@@ -684,6 +685,71 @@ public class DenseMatrixTest {
     }
     //</editor-fold>
 
+    //<editor-fold defaultstate="collapsed" desc="tests for in-place operations">
+    @Test
+    public void test_addInPlace_0010() {
+        DenseMatrix A1 = new DenseMatrix(new double[][]{
+                    {1, 2},
+                    {3, 4}});
+        Matrix A2 = new DenseMatrix(new double[][]{
+                    {5, 6},
+                    {7, 8}});
+
+        DenseMatrix result = A1.addInPlace(A2).minusInPlace(A2).addInPlace(0.5, A2);
+        assertSame(A1, result);
+        assertEquals(new DenseMatrix(new double[][]{
+                    {3.5, 5},
+                    {6.5, 8}}), A1);
+    }
+
+    @Test
+    public void test_scaleInPlace_0010() {
+        DenseMatrix A1 = new DenseMatrix(new double[][]{
+                    {1, 2},
+                    {3, 4}});
+
+        A1.scaleInPlace(-2);
+        assertEquals(new DenseMatrix(new double[][]{
+                    {-2, -4},
+                    {-6, -8}}), A1);
+    }
+
+    /**
+     * C = 2 * A * B - C, reusing C over iterations.
+     */
+    @Test
+    public void test_multiplyInto_0010() {
+        IID iid = new IID(new UniformRng(), 150 * 120);
+        DenseMatrix A = new DenseMatrix(iid.nextVector(), 150, 120);
+        iid = new IID(new UniformRng(), 120 * 130);
+        DenseMatrix B = new DenseMatrix(iid.nextVector(), 120, 130);
+        DenseMatrix C = new DenseMatrix(150, 130);
+
+        Matrix expected = new DenseMatrix(150, 130);
+        for (int i = 0; i < 3; ++i) {
+            expected = A.multiply(B).scaled(2).minus(expected);
+            A.multiplyInto(B, C, 2, -1);
+        }
+
+        assertTrue(AreMatrices.equal(expected, C, 1e-10));
+    }
+
+    /**
+     * A = A * A, using A as the workspace
+     */
+    @Test
+    public void test_multiplyInto_0020() {
+        DenseMatrix A = new DenseMatrix(new double[][]{
+                    {1, 2},
+                    {3, 4}});
+
+        A.multiplyInto(A, A, 1, 0);
+        assertEquals(new DenseMatrix(new double[][]{
+                    {7, 10},
+                    {15, 22}}), A);
+    }
+    //</editor-fold>
+
     /**
      * This test makes sure the returned value of {@code toDense} is a new independent copy.
      */
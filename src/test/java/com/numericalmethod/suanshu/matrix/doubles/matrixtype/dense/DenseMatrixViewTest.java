@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense;
+
+import com.numericalmethod.suanshu.matrix.MatrixAccessException;
+import com.numericalmethod.suanshu.matrix.MatrixMismatchException;
+import com.numericalmethod.suanshu.matrix.doubles.AreMatrices;
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.operation.CreateMatrix;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVectorView;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Haksun Li
+ */
+public class DenseMatrixViewTest {
+
+    private static DenseMatrix A() {
+        return new DenseMatrix(new double[][]{
+                    {1, 2, 3, 4},
+                    {5, 6, 7, 8},
+                    {9, 10, 11, 12}
+                });
+    }
+
+    @Test
+    public void test_rowView_0010() {
+        DenseMatrix A = A();
+        DenseVectorView row = A.rowView(2);
+        assertArrayEquals(new double[]{5, 6, 7, 8}, row.toArray(), 0);
+
+        row.set(3, 70);
+        assertEquals(70, A.get(2, 3), 0);
+
+        A.set(2, 4, 80);
+        assertEquals(80, row.get(4), 0);
+
+        DenseVectorView sub = A.rowView(3, 2, 3);
+        assertArrayEquals(new double[]{10, 11}, sub.toArray(), 0);
+    }
+
+    @Test
+    public void test_columnView_0010() {
+        DenseMatrix A = A();
+        DenseVectorView col = A.columnView(3);
+        assertArrayEquals(new double[]{3, 7, 11}, col.toArray(), 0);
+
+        col.scaleInPlace(2);
+        assertArrayEquals(new double[]{6, 14, 22}, A.getColumn(3).toArray(), 0);
+
+        DenseVectorView sub = A.columnView(1, 2, 3);
+        sub.addInPlace(-1, new DenseVector(new double[]{5, 9}));
+        assertArrayEquals(new double[]{1, 0, 0}, A.getColumn(1).toArray(), 0);
+
+        assertEquals(2 * 6 + 6 * 14 + 10 * 22, A.columnView(2).innerProduct(A.columnView(3)), 0);
+    }
+
+    @Test
+    public void test_subMatrixView_0010() {
+        DenseMatrix A = A();
+        DenseMatrixView sub = A.subMatrixView(2, 3, 2, 4);
+        assertEquals(2, sub.nRows());
+        assertEquals(3, sub.nCols());
+        assertTrue(AreMatrices.equal(CreateMatrix.subMatrix(A, 2, 3, 2, 4), sub, 0));
+
+        //a view of a view
+        DenseMatrixView sub2 = sub.subMatrixView(2, 2, 2, 3);
+        sub2.set(1, 2, -12);
+        assertEquals(-12, A.get(3, 4), 0);
+        assertArrayEquals(new double[]{11, -12}, sub.rowView(2).subVectorView(2, 3).toArray(), 0);
+
+        sub.copyFrom(new DenseMatrix(2, 3));
+        assertTrue(AreMatrices.equal(new DenseMatrix(new double[][]{
+                    {1, 2, 3, 4},
+                    {5, 0, 0, 0},
+                    {9, 0, 0, 0}
+                }), A, 0));
+    }
+
+    @Test
+    public void test_subMatrixView_0020() {
+        DenseMatrix A = A();
+        DenseMatrixView sub = A.subMatrixView(1, 2, 2, 3);//[2 3; 6 7]
+
+        Matrix B = new DenseMatrix(new double[][]{
+                    {1, 2},
+                    {3, 4}
+                });
+        assertTrue(AreMatrices.equal(new DenseMatrix(new double[][]{
+                    {11, 16},
+                    {27, 40}
+                }), sub.multiply(B), 0));
+        assertTrue(AreMatrices.equal(new DenseMatrix(new double[][]{
+                    {14, 17},
+                    {30, 37}
+                }), B.multiply(sub), 0));
+        assertTrue(AreMatrices.equal(new DenseMatrix(new double[][]{
+                    {2, 6},
+                    {3, 7}
+                }), sub.t(), 0));
+        assertTrue(AreMatrices.equal(new DenseMatrix(new double[][]{
+                    {3, 5},
+                    {9, 11}
+                }), sub.add(B), 0));
+
+        Vector v = new DenseVector(new double[]{1, -1});
+        assertArrayEquals(new double[]{-1, -1}, sub.multiply(v).toArray(), 0);
+        assertArrayEquals(new double[]{-4, -4}, sub.tMultiply(v).toArray(), 0);
+
+        sub.rank1UpdateInPlace(2, v, new DenseVector(new double[]{1, 1}));
+        assertTrue(AreMatrices.equal(new DenseMatrix(new double[][]{
+                    {1, 4, 5, 4},
+                    {5, 4, 5, 8},
+                    {9, 10, 11, 12}
+                }), A, 0));
+
+        //a copy is not a view
+        Matrix copy = sub.deepCopy();
+        copy.set(1, 1, 0);
+        assertEquals(4, A.get(1, 2), 0);
+    }
+
+    @Test
+    public void test_subMatrixView_0030() {
+        DenseMatrix A = A();
+        DenseMatrixView sub = A.subMatrixView(1, 2, 1, 2);
+        sub.addInPlace(1, A.subMatrixView(2, 3, 3, 4));//overlapping with the same array
+        assertTrue(AreMatrices.equal(new DenseMatrix(new double[][]{
+                    {8, 10, 3, 4},
+                    {16, 18, 7, 8},
+                    {9, 10, 11, 12}
+                }), A, 0));
+    }
+
+    @Test
+    public void test_multiplyAddInPlace_0010() {
+        DenseMatrix A = A();
+        DenseMatrixView C = new DenseMatrix(2, 2).subMatrixView(1, 2, 1, 2);
+        C.multiplyAddInPlace(1, A.subMatrixView(1, 2, 1, 3), A.subMatrixView(1, 3, 3, 4));
+        assertTrue(AreMatrices.equal(new DenseMatrix(new double[][]{
+                    {50, 56},
+                    {134, 152}
+                }), C, 0));
+
+        A.subMatrixView(1, 2, 1, 2).multiplyAddInPlace(2, A.subMatrixView(2, 3, 1, 2), A.subMatrixView(1, 2, 3, 4));//overlapping with the same array
+        assertTrue(AreMatrices.equal(new DenseMatrix(new double[][]{
+                    {115, 138, 3, 4},
+                    {199, 238, 7, 8},
+                    {9, 10, 11, 12}
+                }), A, 0));
+    }
+
+    @Test
+    public void test_addInPlace_0010() {
+        DenseMatrix A = A();
+        DenseMatrix B = new DenseMatrix(new double[][]{
+                    {1, 0, 2},
+                    {0, 1, 0},
+                    {3, 0, 1},
+                    {0, 2, 0}
+                });
+        DenseMatrixView C = new DenseMatrix(3, 4).subMatrixView(1, 3, 1, 4);
+        C.addInPlace(new double[]{1, 2, -1}, new Matrix[]{A, B, A.t()}, new boolean[]{false, true, true});
+        assertTrue(AreMatrices.equal(B.t().scaled(2), C, 0));
+
+        A.subMatrixView(1, 2, 1, 2).addInPlace(new double[]{1}, new Matrix[]{A.subMatrixView(2, 3, 2, 3)}, new boolean[]{true});//overlapping with the same array
+        assertTrue(AreMatrices.equal(new DenseMatrix(new double[][]{
+                    {7, 12, 3, 4},
+                    {12, 17, 7, 8},
+                    {9, 10, 11, 12}
+                }), A, 0));
+    }
+
+    @Test
+    public void test_addInPlace_0020() {
+        final int m = 130, n = 70;//more than one tile in each dimension
+        DenseMatrix A = new DenseMatrix(m, n);
+        DenseMatrix B = new DenseMatrix(n, m);
+        for (int i = 1; i <= m; ++i) {
+            for (int j = 1; j <= n; ++j) {
+                A.set(i, j, i * 1000 + j);
+                B.set(j, i, i - j * 1000);
+            }
+        }
+
+        DenseMatrixView C = new DenseMatrix(m, n).subMatrixView(1, m, 1, n);
+        C.addInPlace(new double[]{2, 3}, new Matrix[]{A, B}, new boolean[]{false, true});
+        assertTrue(AreMatrices.equal(A.scaled(2).add(B.t().scaled(3)), C, 0));
+    }
+
+    @Test(expected = MatrixMismatchException.class)
+    public void test_addInPlace_0030() {
+        A().subMatrixView(1, 3, 1, 4).addInPlace(new double[]{1}, new Matrix[]{A()}, new boolean[]{true});
+    }
+
+    @Test
+    public void test_rotateInPlace_0010() {
+        DenseMatrix A = A();
+        double c = Math.cos(0.3), s = Math.sin(0.3);
+        A.rowView(1).rotateInPlace(A.rowView(3), c, s);
+        for (int k = 1; k <= 4; ++k) {
+            assertEquals(c * k + s * (k + 8), A.get(1, k), 1e-15);
+            assertEquals(-s * k + c * (k + 8), A.get(3, k), 1e-15);
+        }
+    }
+
+    @Test(expected = MatrixAccessException.class)
+    public void test_subMatrixView_0040() {
+        A().subMatrixView(2, 3, 2, 4).get(1, 4);
+    }
+}
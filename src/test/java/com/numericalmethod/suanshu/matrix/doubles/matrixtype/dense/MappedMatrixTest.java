@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense;
+
+import com.numericalmethod.suanshu.matrix.doubles.AreMatrices;
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.stats.random.multivariate.IID;
+import com.numericalmethod.suanshu.stats.random.univariate.uniform.UniformRng;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DoubleBufferVectorView;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ReadOnlyBufferException;
+import static org.junit.Assert.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ * @author Haksun Li
+ */
+public class MappedMatrixTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Matrix random(int nRows, int nCols) {
+        UniformRng rng = new UniformRng();
+        rng.seed(1234567890L);
+        IID iid = new IID(rng, nRows * nCols);
+        return new DenseMatrix(iid.nextVector(), nRows, nCols);
+    }
+
+    @Test
+    public void test_0010() throws IOException {
+        File file = folder.newFile();
+        Matrix A = new DenseMatrix(new double[][]{
+                    {1, 2, 3},
+                    {4, 5, 6}
+                });
+
+        MappedMatrix M1 = new MappedMatrix(file, A);
+        assertEquals(2, M1.nRows());
+        assertEquals(3, M1.nCols());
+        assertTrue(AreMatrices.equal(A, M1, 0));
+        assertEquals(MappedMatrix.HEADER_SIZE + 6 * 8, file.length());
+
+        M1.set(2, 2, -5);
+        M1.force();
+
+        MappedMatrix M2 = new MappedMatrix(file);//reopen
+        assertEquals(-5, M2.get(2, 2), 0);
+        assertArrayEquals(new double[]{4, -5, 6}, M2.getRow(2).toArray(), 0);
+        assertArrayEquals(new double[]{2, -5}, M2.getColumn(2).toArray(), 0);
+    }
+
+    /**
+     * The rows are spread over many chunks.
+     */
+    @Test
+    public void test_chunks_0010() throws IOException {
+        File file = folder.newFile();
+        final int nRows = 157, nCols = 23;
+        Matrix A = random(nRows, nCols);
+
+        new MappedMatrix(file, nRows, nCols, 100).force();//4 rows per chunk
+        MappedMatrix M = new MappedMatrix(file, false, 100);
+        for (int i = 1; i <= nRows; ++i) {
+            M.rowView(i).copyFrom(A.getRow(i));
+        }
+        assertTrue(AreMatrices.equal(A, M, 0));
+        assertTrue(AreMatrices.equal(A, M.toDense(), 0));
+        assertTrue(AreMatrices.equal(A.t(), M.t(), 0));
+
+        Vector v = random(nCols, 1).getColumn(1);
+        assertArrayEquals(A.multiply(v).toArray(), M.multiply(v).toArray(), 1e-14);
+
+        Matrix B = random(nCols, 7);
+        assertTrue(AreMatrices.equal(A.multiply(B), M.multiply(B), 1e-13));
+    }
+
+    @Test
+    public void test_rowView_0010() throws IOException {
+        MappedMatrix M = new MappedMatrix(folder.newFile(), 3, 4, 8);//2 rows per chunk
+        DoubleBufferVectorView row = M.rowView(3);
+        row.copyFrom(new DenseVector(new double[]{1, 2, 3, 4}));
+        assertArrayEquals(new double[]{1, 2, 3, 4}, M.getRow(3).toArray(), 0);
+
+        row.scaleInPlace(2).addInPlace(1, new DenseVector(4, 1.));
+        assertEquals(9, M.get(3, 4), 0);
+        assertEquals(3 + 5 + 7 + 9, row.innerProduct(new DenseVector(4, 1.)), 0);
+
+        row.subVectorView(2, 3).set(1, 0);
+        assertEquals(0, M.get(3, 2), 0);
+        assertEquals(0, M.get(2, 2), 0);
+    }
+
+    @Test(expected = ReadOnlyBufferException.class)
+    public void test_readOnly_0010() throws IOException {
+        File file = folder.newFile();
+        new MappedMatrix(file, 2, 2).force();
+        new MappedMatrix(file).set(1, 1, 1);
+    }
+
+    @Test(expected = IOException.class)
+    public void test_notAMatrix_0010() throws IOException {
+        File file = folder.newFile();
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(new byte[32]);
+        out.close();
+        new MappedMatrix(file);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense;
+
+import com.numericalmethod.suanshu.matrix.MatrixMismatchException;
+import com.numericalmethod.suanshu.matrix.doubles.AreMatrices;
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.stats.random.univariate.uniform.UniformRng;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Haksun Li
+ */
+public class MatrixBatchTest {
+
+    private static MatrixBatch random(int size, int nRows, int nCols, long seed) {
+        UniformRng rng = new UniformRng();
+        rng.seed(seed);
+        MatrixBatch batch = new MatrixBatch(size, nRows, nCols);
+        double[] data = batch.asArray();
+        for (int i = 0; i < data.length; ++i) {
+            data[i] = rng.nextDouble();
+        }
+        return batch;
+    }
+
+    @Test
+    public void test_0010() {
+        MatrixBatch batch = new MatrixBatch(3, 2, 2);
+        batch.set(2, new DenseMatrix(new double[][]{
+                    {1, 2},
+                    {3, 4}
+                }));
+        batch.set(3, 2, 1, 5.);
+
+        assertArrayEquals(new double[]{0, 0, 0, 0, 1, 2, 3, 4, 0, 0, 5, 0}, batch.asArray(), 0);
+        assertEquals(3., batch.get(2, 2, 1), 0);
+        assertEquals(4, batch.offset(2));
+
+        //the view writes through
+        batch.view(1).set(1, 2, 6.);
+        assertEquals(6., batch.asArray()[1], 0);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void test_0020() {
+        MatrixBatch batch = new MatrixBatch(3, 2, 2);
+        batch.get(4, 1, 1);
+    }
+
+    /**
+     * The batch is big enough to run in parallel.
+     */
+    @Test
+    public void test_0030() {
+        MatrixBatch A = random(5000, 3, 4, 1234567890L);
+        MatrixBatch B = random(5000, 4, 2, 987654321L);
+        MatrixBatch C = A.multiply(B);
+
+        assertEquals(5000, C.size());
+        assertEquals(3, C.nRows());
+        assertEquals(2, C.nCols());
+        for (int k = 1; k <= A.size(); k += 499) {
+            Matrix expected = A.view(k).toDense().multiply(B.view(k).toDense());
+            assertTrue(AreMatrices.equal(expected, C.view(k), 1e-14));
+        }
+
+        //the result is overwritten, not accumulated
+        A.multiply(B, C);
+        Matrix expected = A.view(5000).toDense().multiply(B.view(5000).toDense());
+        assertTrue(AreMatrices.equal(expected, C.view(5000), 1e-14));
+    }
+
+    @Test(expected = MatrixMismatchException.class)
+    public void test_0040() {
+        MatrixBatch A = new MatrixBatch(3, 2, 2);
+        MatrixBatch B = new MatrixBatch(3, 3, 2);
+        A.multiply(B);
+    }
+}
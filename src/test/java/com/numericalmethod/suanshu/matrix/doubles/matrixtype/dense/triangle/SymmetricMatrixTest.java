@@ -91,6 +91,25 @@ public class SymmetricMatrixTest {
 
 //        System.out.println(String.format("%s", instance.toString(), 0));
     }
+
+    /**
+     * Test of SymmetricMatrix method, of class SymmetricMatrix.
+     * Packing the lower triangular part of a dense matrix.
+     */
+    @Test
+    public void testSymmetricMatrix_004() {
+        Matrix A = new DenseMatrix(new double[][]{
+                    {1, 2, 4},
+                    {2, 3, 5},
+                    {4, 5, 6}
+                });
+        SymmetricMatrix instance = new SymmetricMatrix(A);
+        assertTrue(AreMatrices.equal(A, instance, 0));
+        assertTrue(AreMatrices.equal(A, instance.toDense(), 0));
+
+        DenseVector v = new DenseVector(new double[]{1, -2, 3});
+        assertArrayEquals(A.multiply(v).toArray(), instance.multiply(v).toArray(), 0);
+    }
     //</editor-fold>
 
     //<editor-fold defaultstate="collapsed" desc="tests for add, minus, multiply, scaled methods of class SymmetricMatrix">
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.mathoperation;
+
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.MatrixAccess;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+
+/**
+ * The in-place operations of an implementation that does not override them
+ * are the default methods of {@link MatrixMathOperation}.
+ *
+ * @author Haksun Li
+ */
+public class DefaultMatrixMathOperationTest extends MatrixMathOperationTest {
+
+    @Override
+    public MatrixMathOperation newInstance() {
+        final MatrixMathOperation math = new SimpleMatrixMathOperation();
+        return new MatrixMathOperation() {
+
+            @Override
+            public Matrix add(MatrixAccess A1, MatrixAccess A2) {
+                return math.add(A1, A2);
+            }
+
+            @Override
+            public Matrix minus(MatrixAccess A1, MatrixAccess A2) {
+                return math.minus(A1, A2);
+            }
+
+            @Override
+            public Matrix multiply(MatrixAccess A1, MatrixAccess A2) {
+                return math.multiply(A1, A2);
+            }
+
+            @Override
+            public Vector multiply(MatrixAccess A, Vector v) {
+                return math.multiply(A, v);
+            }
+
+            @Override
+            public Matrix scaled(MatrixAccess A, double c) {
+                return math.scaled(A, c);
+            }
+
+            @Override
+            public Matrix transpose(MatrixAccess A) {
+                return math.transpose(A);
+            }
+        };
+    }
+}
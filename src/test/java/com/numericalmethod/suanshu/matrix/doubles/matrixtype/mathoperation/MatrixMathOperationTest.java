@@ -24,9 +24,17 @@ package com.numericalmethod.suanshu.matrix.doubles.matrixtype.mathoperation;
 
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.mathoperation.MatrixMathOperation;
 import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+import com.numericalmethod.suanshu.matrix.MatrixAccessException;
 import com.numericalmethod.suanshu.matrix.MatrixMismatchException;
+import com.numericalmethod.suanshu.matrix.doubles.AreMatrices;
 import com.numericalmethod.suanshu.matrix.doubles.Matrix;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.diagonal.DiagonalMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.diagonal.TridiagonalMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.triangle.LowerTriangularMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.triangle.UpperTriangularMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.CSRSparseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.DOKSparseMatrix;
 import com.numericalmethod.suanshu.vector.doubles.Vector;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -267,4 +275,291 @@ public abstract class MatrixMathOperationTest {
         Matrix result = newInstance().transpose(A1);
         assertEquals(expected, result);
     }
+
+    @Test
+    public void test_multiplyInto_0010() {
+        Matrix A1 = new DenseMatrix(new double[][]{
+                    {1, 2},
+                    {3, 4}}); //2x2
+
+        Matrix A2 = new DenseMatrix(new double[][]{
+                    {5, 6, 7},
+                    {8, 9, 10}});//2x3
+
+        DenseMatrix C = new DenseMatrix(new double[][]{
+                    {1, 1, 1},
+                    {2, 2, 2}});
+
+        Matrix expected = new DenseMatrix(new double[][]{
+                    {2 * 21 + 3, 2 * 24 + 3, 2 * 27 + 3},
+                    {2 * 47 + 6, 2 * 54 + 6, 2 * 61 + 6}});
+
+        newInstance().multiplyInto(A1, A2, C, 2, 3);
+        assertEquals(expected, C);
+    }
+
+    /**
+     * The content of C is ignored when beta is 0.
+     */
+    @Test
+    public void test_multiplyInto_0020() {
+        Matrix A1 = new LowerTriangularMatrix(new double[][]{
+                    {1},
+                    {3, 4}}); //2x2
+
+        Matrix A2 = new DenseMatrix(new double[][]{
+                    {5, 6, 7},
+                    {8, 9, 10}});//2x3
+
+        DenseMatrix C = new DenseMatrix(new double[][]{
+                    {Double.NaN, 1, 1},
+                    {2, 2, Double.POSITIVE_INFINITY}});
+
+        Matrix expected = new DenseMatrix(new double[][]{
+                    {5, 6, 7},
+                    {47, 54, 61}});
+
+        newInstance().multiplyInto(A1, A2, C, 1, 0);
+        assertEquals(expected, C);
+    }
+
+    /**
+     * C is also an operand.
+     */
+    @Test
+    public void test_multiplyInto_0030() {
+        DenseMatrix A = new DenseMatrix(new double[][]{
+                    {1, 2},
+                    {3, 4}}); //2x2
+
+        Matrix expected = new DenseMatrix(new double[][]{
+                    {7 + 1, 10 + 2},
+                    {15 + 3, 22 + 4}});
+
+        newInstance().multiplyInto(A, A, A, 1, 1);
+        assertEquals(expected, A);
+    }
+
+    @Test(expected = MatrixMismatchException.class)
+    public void test_multiplyInto_0040() {
+        Matrix A1 = new DenseMatrix(2, 2);
+        Matrix A2 = new DenseMatrix(2, 3);
+        Matrix C = new DenseMatrix(2, 2);
+        newInstance().multiplyInto(A1, A2, C, 1, 0);
+    }
+
+    @Test
+    public void test_addInPlace_0010() {
+        DenseMatrix A1 = new DenseMatrix(new double[][]{
+                    {1, 2},
+                    {3, 4}}); //2x2
+
+        Matrix A2 = new DenseMatrix(new double[][]{
+                    {5, 6},
+                    {7, 8}}); //2x2
+
+        Matrix expected = new DenseMatrix(new double[][]{
+                    {-4, -4},
+                    {-4, -4}});
+
+        newInstance().addInPlace(A1, A2, -1);
+        assertEquals(expected, A1);
+    }
+
+    @Test
+    public void test_addInPlace_0020() {
+        LowerTriangularMatrix A1 = new LowerTriangularMatrix(new double[][]{
+                    {1},
+                    {3, 4}}); //2x2
+
+        Matrix A2 = new LowerTriangularMatrix(new double[][]{
+                    {5},
+                    {7, 8}}); //2x2
+
+        Matrix expected = new LowerTriangularMatrix(new double[][]{
+                    {11},
+                    {17, 20}});
+
+        newInstance().addInPlace(A1, A2, 2);
+        assertTrue(AreMatrices.equal(expected, A1, 0));
+    }
+
+    @Test
+    public void test_scaleInPlace_0010() {
+        DenseMatrix A1 = new DenseMatrix(new double[][]{
+                    {1, 2, 3},
+                    {4, 5, 6},
+                    {7, 8, 9}});
+
+        Matrix expected = new DenseMatrix(new double[][]{
+                    {1.5, 3., 4.5},
+                    {6., 7.5, 9.},
+                    {10.5, 12., 13.5}});
+
+        newInstance().scaleInPlace(A1, 1.5);
+        assertEquals(expected, A1);
+    }
+
+    @Test
+    public void test_multiplyInto_0050() {
+        CSRSparseMatrix A1 = new CSRSparseMatrix(3, 3,
+                new int[]{1, 2, 3, 3},
+                new int[]{1, 2, 1, 3},
+                new double[]{1, 2, 3, 4});
+
+        DenseMatrix A2 = new DenseMatrix(new double[][]{
+                    {1, 2},
+                    {3, 4},
+                    {5, 6}});
+
+        DenseMatrix C = new DenseMatrix(new double[][]{
+                    {Double.NaN, Double.NaN},
+                    {Double.NaN, Double.NaN},
+                    {Double.NaN, Double.NaN}});
+
+        Matrix expected = new DenseMatrix(new double[][]{
+                    {1, 2},
+                    {6, 8},
+                    {23, 30}});
+
+        newInstance().multiplyInto(A1, A2, C, 1, 0);
+        assertTrue(AreMatrices.equal(expected, C, 0));
+    }
+
+    @Test
+    public void test_multiplyInto_0060() {
+        CSRSparseMatrix A1 = new CSRSparseMatrix(3, 3,
+                new int[]{1, 2, 3},
+                new int[]{1, 2, 3},
+                new double[]{1, 2, 3});
+
+        CSRSparseMatrix A2 = new CSRSparseMatrix(3, 3,
+                new int[]{1, 3},
+                new int[]{2, 3},
+                new double[]{4, 5});
+
+        CSRSparseMatrix C = new CSRSparseMatrix(3, 3,
+                new int[]{1, 2},
+                new int[]{2, 2},
+                new double[]{1, 1});
+
+        Matrix expected = new DenseMatrix(new double[][]{
+                    {0, 6, 0},
+                    {0, 2, 0},
+                    {0, 0, 15}});
+
+        newInstance().multiplyInto(A1, A2, C, 1, 2);
+        assertTrue(AreMatrices.equal(expected, C, 0));
+        assertEquals(3, C.nNonZeros());
+    }
+
+    @Test
+    public void test_addInPlace_0030() {
+        CSRSparseMatrix A1 = new CSRSparseMatrix(3, 3,
+                new int[]{1, 2, 3},
+                new int[]{1, 2, 3},
+                new double[]{1, 2, 3});
+
+        CSRSparseMatrix A2 = new CSRSparseMatrix(3, 3,
+                new int[]{1, 3},
+                new int[]{1, 3},
+                new double[]{1, 1});
+
+        Matrix expected = new DenseMatrix(new double[][]{
+                    {3, 0, 0},
+                    {0, 2, 0},
+                    {0, 0, 5}});
+
+        newInstance().addInPlace(A1, A2, 2);
+        assertTrue(AreMatrices.equal(expected, A1, 0));
+        assertEquals(3, A1.nNonZeros());
+
+        DOKSparseMatrix A3 = new DOKSparseMatrix(3, 3,
+                new int[]{1},
+                new int[]{3},
+                new double[]{4});
+
+        expected = new DenseMatrix(new double[][]{
+                    {3, 0, 4},
+                    {0, 2, 0},
+                    {0, 0, 5}});
+
+        newInstance().addInPlace(A1, A3, 1);
+        assertTrue(AreMatrices.equal(expected, A1, 0));
+        assertEquals(4, A1.nNonZeros());
+    }
+
+    @Test
+    public void test_addInPlace_0040() {
+        UpperTriangularMatrix A1 = new UpperTriangularMatrix(new double[][]{
+                    {1, 2, 3},
+                    {4, 5},
+                    {6}});
+
+        TridiagonalMatrix A2 = new TridiagonalMatrix(new double[][]{
+                    {1, 1},
+                    {1, 1, 1},
+                    {0, 0}});
+
+        Matrix expected = new UpperTriangularMatrix(new double[][]{
+                    {2, 3, 3},
+                    {5, 6},
+                    {7}});
+
+        newInstance().addInPlace(A1, A2, 1);
+        assertTrue(AreMatrices.equal(expected, A1, 0));
+    }
+
+    @Test(expected = MatrixAccessException.class)
+    public void test_addInPlace_0050() {
+        UpperTriangularMatrix A1 = new UpperTriangularMatrix(new double[][]{
+                    {1, 2},
+                    {3}});
+
+        LowerTriangularMatrix A2 = new LowerTriangularMatrix(new double[][]{
+                    {1},
+                    {1, 1}});
+
+        newInstance().addInPlace(A1, A2, 1);
+    }
+
+    @Test
+    public void test_scaleInPlace_0020() {
+        CSRSparseMatrix A1 = new CSRSparseMatrix(3, 3,
+                new int[]{1, 2, 3},
+                new int[]{1, 3, 2},
+                new double[]{1, 2, 3});
+
+        Matrix expected = new DenseMatrix(new double[][]{
+                    {2, 0, 0},
+                    {0, 0, 4},
+                    {0, 6, 0}});
+
+        newInstance().scaleInPlace(A1, 2);
+        assertTrue(AreMatrices.equal(expected, A1, 0));
+        assertEquals(3, A1.nNonZeros());
+
+        DOKSparseMatrix A2 = new DOKSparseMatrix(3, 3,
+                new int[]{1, 2, 3},
+                new int[]{1, 3, 2},
+                new double[]{1, 2, 3});
+
+        newInstance().scaleInPlace(A2, 2);
+        assertTrue(AreMatrices.equal(expected, A2, 0));
+        assertEquals(3, A2.nNonZeros());
+    }
+
+    @Test
+    public void test_scaleInPlace_0030() {
+        DiagonalMatrix A1 = new DiagonalMatrix(new double[]{1, 2, 3});
+        newInstance().scaleInPlace(A1, -1);
+        assertTrue(AreMatrices.equal(new DiagonalMatrix(new double[]{-1, -2, -3}), A1, 0));
+
+        TridiagonalMatrix A2 = new TridiagonalMatrix(new double[][]{
+                    {1, 2},
+                    {3, 4, 5},
+                    {6, 7}});
+        newInstance().scaleInPlace(A2, 0);
+        assertTrue(AreMatrices.equal(new TridiagonalMatrix(3), A2, 0));
+    }
 }
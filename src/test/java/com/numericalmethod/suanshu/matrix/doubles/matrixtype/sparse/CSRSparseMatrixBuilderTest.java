@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse;
+
+import com.numericalmethod.suanshu.matrix.MatrixAccessException;
+import com.numericalmethod.suanshu.matrix.doubles.AreMatrices;
+import com.numericalmethod.suanshu.matrix.doubles.ImmutableMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix;
+import java.util.Random;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Ken Yiu
+ */
+public class CSRSparseMatrixBuilderTest {
+
+    /**
+     * The duplicated coordinates are summed; the entries that sum to 0 are dropped.
+     */
+    @Test
+    public void test_0010() {
+        CSRSparseMatrixBuilder builder = new CSRSparseMatrixBuilder(3, 4, 1);
+        builder.add(3, 2, 1.)
+                .add(1, 4, 2.)
+                .add(1, 1, 3.)
+                .add(3, 2, 4.)
+                .add(2, 3, 5.)
+                .add(2, 3, -5.)
+                .add(1, 4, 6.);
+        assertEquals(7, builder.size());
+
+        CSRSparseMatrix A = builder.build();
+        assertEquals(3, A.nNonZeros());
+        assertTrue(AreMatrices.equal(
+                new DenseMatrix(new double[][]{
+                    {3, 0, 0, 8},
+                    {0, 0, 0, 0},
+                    {0, 5, 0, 0}
+                }),
+                A.toDense(), 0));
+        assertArrayEquals(new int[]{0, 2, 2, 3}, A.rowPointers());
+        assertArrayEquals(new int[]{1, 4, 2}, A.columnIndices());
+        assertArrayEquals(new double[]{3, 8, 5}, A.values(), 0);
+
+        A.values()[0] = 100.;//a copy, so the matrix is not changed
+        A.columnIndices()[0] = 2;
+        assertEquals(3., A.get(1, 1), 0);
+
+        builder.clear();
+        assertEquals(0, builder.build().nNonZeros());
+    }
+
+    /**
+     * The constructor from triplets takes the last value of the duplicated coordinates.
+     */
+    @Test
+    public void test_0020() {
+        CSRSparseMatrix A = new CSRSparseMatrix(2, 2,
+                                                new int[]{2, 1, 2, 1},
+                                                new int[]{1, 2, 1, 1},
+                                                new double[]{1, 2, 3, 0});
+        assertEquals(2, A.nNonZeros());
+        assertEquals(3., A.get(2, 1), 0);
+        assertEquals(2., A.get(1, 2), 0);
+        assertEquals(0., A.get(1, 1), 0);
+    }
+
+    /**
+     * Assemble a tridiagonal matrix from element contributions in random order.
+     */
+    @Test
+    public void test_0030() {
+        final int n = 1000;
+        CSRSparseMatrixBuilder builder = new CSRSparseMatrixBuilder(n, n);
+        DOKSparseMatrix expected = new DOKSparseMatrix(n, n);
+        Random random = new Random(1234567890L);
+        for (int k = 0; k < 20000; ++k) {
+            int e = 1 + random.nextInt(n - 1);//the element connecting node e and e + 1
+            builder.add(e, e, 1.).add(e + 1, e + 1, 1.).add(e, e + 1, -1.).add(e + 1, e, -1.);
+            expected.set(e, e, expected.get(e, e) + 1.);
+            expected.set(e + 1, e + 1, expected.get(e + 1, e + 1) + 1.);
+            expected.set(e, e + 1, expected.get(e, e + 1) - 1.);
+            expected.set(e + 1, e, expected.get(e + 1, e) - 1.);
+        }
+
+        CSRSparseMatrix A = builder.build();
+        assertEquals(expected.nNonZeros(), A.nNonZeros());
+        assertEquals(new CSRSparseMatrix(n, n, expected.getEntrytList()), A);
+    }
+
+    @Test(expected = MatrixAccessException.class)
+    public void test_0040() {
+        new CSRSparseMatrixBuilder(3, 3).add(1, 4, 1.);
+    }
+
+    /**
+     * a wrapped sparse matrix is converted from its entries, not by scanning all n<sup>2</sup> cells
+     */
+    @Test
+    public void test_toCSR_0010() {
+        int n = 100000;
+        DOKSparseMatrix A = new DOKSparseMatrix(n, n);
+        for (int i = 1; i <= n; ++i) {
+            A.set(i, i, 2.);
+            if (i > 1) {
+                A.set(i, i - 1, -1.);
+            }
+        }
+
+        CSRSparseMatrix A1 = CSRSparseMatrixBuilder.toCSR(new ImmutableMatrix(A));
+        assertEquals(2 * n - 1, A1.nNonZeros());
+        assertEquals(new CSRSparseMatrix(n, n, A.getEntrytList()), A1);
+
+        CSRSparseMatrix A2 = CSRSparseMatrixBuilder.toCSR(new ImmutableMatrix(A1));
+        assertEquals(A1, A2);
+        assertNotSame(A1, A2);//a copy, so that the caller cannot change the wrapped matrix
+    }
+}
@@ -21,7 +21,10 @@
  */
 package com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse;
 
+import com.numericalmethod.suanshu.stats.random.univariate.uniform.UniformRng;
 import java.util.List;
+import static org.junit.Assert.*;
+import org.junit.Test;
 
 /**
  *
@@ -29,6 +32,35 @@ import java.util.List;
  */
 public class CSRSparseMatrixTest extends SparseMatrixTestCase<CSRSparseMatrix> {
 
+    /**
+     * Generate a random matrix whose row lengths vary from 0 to {@code maxLength}.
+     */
+    static CSRSparseMatrix random(int nRows, int nCols, int maxLength, long seed) {
+        UniformRng rng = new UniformRng();
+        rng.seed(seed);
+        DOKSparseMatrix A = new DOKSparseMatrix(nRows, nCols);
+        for (int i = 1; i <= nRows; ++i) {
+            int length = (int) (rng.nextDouble() * (maxLength + 1));
+            for (int k = 0; k < length; ++k) {
+                A.set(i, 1 + (int) (rng.nextDouble() * nCols), rng.nextDouble() - 0.5);
+            }
+        }
+        return new CSRSparseMatrix(nRows, nCols, A.getEntrytList());
+    }
+
+    /**
+     * Generate a random vector with entries in [0, 1).
+     */
+    static double[] random(int n, long seed) {
+        UniformRng rng = new UniformRng();
+        rng.seed(seed);
+        double[] x = new double[n];
+        for (int i = 0; i < n; ++i) {
+            x[i] = rng.nextDouble();
+        }
+        return x;
+    }
+
     @Override
     public Class<CSRSparseMatrix> getImplementationClass() {
         return CSRSparseMatrix.class;
@@ -48,4 +80,29 @@ public class CSRSparseMatrixTest extends SparseMatrixTestCase<CSRSparseMatrix> {
     public CSRSparseMatrix newInstance(int nRows, int nCols, List<SparseEntry> elementList) {
         return new CSRSparseMatrix(nRows, nCols, elementList);
     }
+
+    /**
+     * A block multiplication gives the same results as multiplying the vectors one by one,
+     * for both the single-threaded and the parallel paths.
+     */
+    @Test
+    public void test_multiplyBlock_0010() {
+        for (CSRSparseMatrix A : new CSRSparseMatrix[]{random(50, 40, 5, 13579L), random(3000, 2000, 20, 97531L)}) {
+            int m = 7;
+            double[][] X = new double[m][];
+            double[][] Y = new double[m][];
+            double[][] expected = new double[m][];
+            for (int j = 0; j < m; ++j) {
+                X[j] = random(A.nCols(), 100L + j);
+                Y[j] = random(A.nRows(), 200L + j);
+                expected[j] = Y[j].clone();
+                A.multiply(0.5, X[j], 3., expected[j]);
+            }
+
+            A.multiply(0.5, X, 3., Y);
+            for (int j = 0; j < m; ++j) {
+                assertArrayEquals(expected[j], Y[j], 1e-12);
+            }
+        }
+    }
 }
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse;
+
+import com.numericalmethod.suanshu.matrix.MatrixAccessException;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+import java.util.Arrays;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Ken Yiu
+ */
+public class SELLSparseMatrixTest {
+
+    @Test
+    public void test_0010() {
+        CSRSparseMatrix A = new CSRSparseMatrix(3, 4,
+                                                new int[]{1, 1, 2, 2, 3},
+                                                new int[]{1, 2, 2, 3, 2},
+                                                new double[]{1, 2, 3, 9, 1});
+        SELLSparseMatrix instance = new SELLSparseMatrix(A, 2, 1);
+        assertEquals(5, instance.nNonZeros());
+        assertEquals(6, instance.nStoredEntries());
+        assertEquals(9., instance.get(2, 3), 0);
+
+        Vector x = new DenseVector(1., 2., 3., 4.);
+        Vector Ax = instance.multiply(x);
+        assertArrayEquals(new double[]{5, 33, 2}, Ax.toArray(), 0);
+        assertArrayEquals(A.toDense().multiply(x).toArray(), Ax.toArray(), 0);
+    }
+
+    /**
+     * Sorting reduces the padding.
+     */
+    @Test
+    public void test_0020() {
+        CSRSparseMatrix A = new CSRSparseMatrix(4, 4,
+                                                new int[]{1, 2, 2, 2, 3, 4, 4, 4},
+                                                new int[]{1, 1, 2, 3, 3, 2, 3, 4},
+                                                new double[]{1, 2, 3, 4, 5, 6, 7, 8});
+        assertEquals(12, new SELLSparseMatrix(A, 2, 1).nStoredEntries());
+        SELLSparseMatrix instance = new SELLSparseMatrix(A, 2, 4);
+        assertEquals(8, instance.nStoredEntries());
+
+        double[] y = {1, 1, 1, 1};
+        instance.multiply(2., new double[]{1, 1, 1, 1}, -1., y);
+        assertArrayEquals(new double[]{1, 17, 9, 41}, y, 0);
+    }
+
+    /**
+     * The matrix is big enough to run in parallel.
+     */
+    @Test
+    public void test_0030() {
+        CSRSparseMatrix A = CSRSparseMatrixTest.random(20000, 3000, 8, 1234567890L);
+        double[] x = CSRSparseMatrixTest.random(3000, 987654321L);
+        double[] y0 = CSRSparseMatrixTest.random(20000, 13579L);
+
+        double[] expected = y0.clone();
+        for (int i = 1; i <= A.nRows(); ++i) {
+            expected[i - 1] = 0.5 * A.getRow(i).innerProduct(new DenseVector(x)) + 3. * expected[i - 1];
+        }
+
+        double[] y = y0.clone();
+        A.multiply(0.5, x, 3., y);
+        assertArrayEquals(expected, y, 1e-13);
+
+        y = y0.clone();
+        new SELLSparseMatrix(A).multiply(0.5, x, 3., y);
+        assertArrayEquals(expected, y, 1e-13);
+
+        y = y0.clone();
+        new SELLSparseMatrix(A, 4, 1).multiply(0.5, x, 3., y);
+        assertArrayEquals(expected, y, 1e-13);
+    }
+
+    /**
+     * When beta is 0, y is not read.
+     */
+    @Test
+    public void test_0040() {
+        CSRSparseMatrix A = CSRSparseMatrixTest.random(50, 40, 5, 24680L);
+        double[] x = CSRSparseMatrixTest.random(40, 11111L);
+        double[] y = new double[50];
+        Arrays.fill(y, Double.NaN);
+
+        A.multiply(1., x, 0., y);
+        assertArrayEquals(A.multiply(new DenseVector(x)).toArray(), y, 0);
+
+        Arrays.fill(y, Double.NaN);
+        new SELLSparseMatrix(A, 3, 6).multiply(1., x, 0., y);
+        assertArrayEquals(A.multiply(new DenseVector(x)).toArray(), y, 1e-15);
+    }
+
+    @Test
+    public void test_0050() {
+        int[] row_ptr = {0, 10, 10, 10, 11, 12, 20, 30, 40};
+        int[] bounds = SparseMatrixVectorMultiplication.partition(row_ptr, 8, 4);
+        assertArrayEquals(new int[]{0, 3, 6, 7, 8}, bounds);
+
+        bounds = SparseMatrixVectorMultiplication.partition(new int[]{0, 0, 0}, 2, 3);
+        assertArrayEquals(new int[]{0, 2, 2, 2}, bounds);
+    }
+
+    @Test(expected = MatrixAccessException.class)
+    public void test_0060() {
+        SELLSparseMatrix instance = new SELLSparseMatrix(CSRSparseMatrixTest.random(5, 5, 2, 1L));
+        instance.set(1, 1, 1.);
+    }
+}
@@ -831,4 +831,38 @@ public class SparseVectorTest {
 
         assertArrayEquals(expected, v.toArray(), 1e-15);
     }
+
+    @Test
+    public void test_cursor_0010() {
+        SparseVector v = new SparseVector(10);
+        v.set(5, 11);
+        v.set(2, 7);
+        v.set(10, -13);
+        v.set(7, 3);
+        v.set(5, 0);//remove
+
+        int[] indices = new int[]{2, 7, 10};
+        double[] values = new double[]{7, 3, -13};
+        assertEquals(3, v.nNonZeros());
+        for (int k = 0; k < v.nNonZeros(); ++k) {
+            assertEquals(indices[k], v.indexAt(k));
+            assertEquals(values[k], v.valueAt(k), 0);
+        }
+        assertEquals(0., v.get(5), 0);
+        assertEquals(3., v.get(7), 0);
+    }
+
+    @Test
+    public void test_scatterGather_0010() {
+        SparseVector v = SparseVector.gather(new double[]{0, 1, 0, 0, 2, 0});
+        assertEquals(6, v.size());
+        assertEquals(2, v.nNonZeros());
+        assertEquals(2, v.indexAt(0));
+        assertEquals(5, v.indexAt(1));
+
+        double[] y = new double[]{1, 1, 1, 1, 1, 1};
+        v.scatter(2., y);
+        assertArrayEquals(new double[]{1, 3, 1, 1, 5, 1}, y, 0);
+        assertEquals(1. * 3 + 2. * 5, v.innerProduct(y), 0);
+    }
 }
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative;
+
+import com.numericalmethod.suanshu.algorithm.iterative.tolerance.AbsoluteTolerance;
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.CSRSparseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.nonstationary.GeneralizedMinimalResidualSolver;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Ken Yiu
+ */
+public class MultipleRightHandSideSolverTest {
+
+    @Test
+    public void test_solve_0010() throws ConvergenceFailure {
+        Matrix A = new CSRSparseMatrix(4, 4,
+                new int[]{1, 1, 2, 2, 3, 3, 4, 4},
+                new int[]{1, 2, 2, 3, 1, 3, 2, 4},
+                new double[]{4, 1, 5, -2, 1, 3, -1, 6});
+        Vector[] B = new Vector[]{
+            new DenseVector(1., 0., 0., 0.),
+            new DenseVector(0., 2., 0., 1.),
+            new DenseVector(0., 0., 4., 0.),
+            new DenseVector(-1., 3., 2., 5.)
+        };
+        Vector[] X0 = new Vector[]{new DenseVector(4), new DenseVector(4), new DenseVector(4), new DenseVector(1., 1., 1., 1.)};
+
+        MultipleRightHandSideSolver solver = new MultipleRightHandSideSolver(
+                new GeneralizedMinimalResidualSolver(100, new AbsoluteTolerance(1e-12)));
+        Vector[] X = solver.solve(A, B, X0);
+
+        for (int j = 0; j < B.length; ++j) {
+            assertArrayEquals(B[j].toArray(), A.multiply(X[j]).toArray(), 1e-10);
+        }
+    }
+
+    @Test(expected = ConvergenceFailure.class)
+    public void test_solve_0020() throws ConvergenceFailure {
+        Matrix A = new CSRSparseMatrix(3, 3,
+                new int[]{1, 2, 3},
+                new int[]{1, 2, 3},
+                new double[]{1, 2, 3});
+        Vector[] B = new Vector[]{new DenseVector(1., 1., 1.), new DenseVector(3)};
+
+        MultipleRightHandSideSolver solver = new MultipleRightHandSideSolver(
+                new GeneralizedMinimalResidualSolver(1, new AbsoluteTolerance(1e-12)));
+        solver.solve(A, B, new Vector[]{new DenseVector(3), new DenseVector(3)});
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative;
+
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.CSRSparseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.CSRSparseMatrixBuilder;
+
+/**
+ * The test matrices shared by the tests of the iterative solvers and the preconditioners.
+ *
+ * @author Ken Yiu
+ */
+public final class TestMatrices {
+
+    private TestMatrices() {
+        // utility class has no instance
+    }
+
+    /**
+     * The 5-point upwind discretization of <i>-&Delta;u + c u<sub>x</sub></i>
+     * on an <i>m</i> by <i>m</i> grid.
+     * The matrix is non-symmetric for <i>c &ne; 0</i>.
+     *
+     * @param m the number of grid points in each direction
+     * @param c the convection coefficient
+     * @return the coefficient matrix of size <i>m<sup>2</sup></i>
+     */
+    public static CSRSparseMatrix convectionDiffusion(int m, double c) {
+        int n = m * m;
+        CSRSparseMatrixBuilder builder = new CSRSparseMatrixBuilder(n, n);
+        for (int r = 0; r < m; ++r) {
+            for (int col = 0; col < m; ++col) {
+                int i = r * m + col + 1;
+                builder.add(i, i, 4 + c);
+                if (col > 0) {
+                    builder.add(i, i - 1, -1 - c);
+                }
+                if (col < m - 1) {
+                    builder.add(i, i + 1, -1);
+                }
+                if (r > 0) {
+                    builder.add(i, i - m, -1);
+                }
+                if (r < m - 1) {
+                    builder.add(i, i + m, -1);
+                }
+            }
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.multigrid;
+
+import com.numericalmethod.suanshu.algorithm.iterative.monitor.CountMonitor;
+import com.numericalmethod.suanshu.algorithm.iterative.tolerance.AbsoluteTolerance;
+import com.numericalmethod.suanshu.matrix.doubles.linearsystem.LSProblem;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.CSRSparseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.ConvergenceFailure;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.nonstationary.ConjugateGradientSolver;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Ken Yiu
+ */
+public class AlgebraicMultigridPreconditionerTest {
+
+    /**
+     * The number of AMG-preconditioned CG iterations does not grow with the grid size.
+     */
+    @Test
+    public void test_CG_0010() throws ConvergenceFailure {
+        int[] counts = new int[3];
+        int[] sizes = new int[]{16, 32, 64};
+        for (int k = 0; k < sizes.length; ++k) {
+            CSRSparseMatrix A = AlgebraicMultigridTest.poisson2D(sizes[k]);
+            Vector x0 = new DenseVector(A.nCols(), 1.);
+            LSProblem problem = new LSProblem(A, A.multiply(x0));
+
+            ConjugateGradientSolver solver = new ConjugateGradientSolver(
+                    new AlgebraicMultigridPreconditioner.Factory(), 50, Integer.MAX_VALUE, new AbsoluteTolerance(1e-8));
+            CountMonitor<Vector> monitor = new CountMonitor<Vector>();
+            Vector x = solver.solve(problem, monitor).search(new DenseVector(A.nCols()));
+
+            assertArrayEquals(x0.toArray(), x.toArray(), 1e-7);
+            counts[k] = monitor.getCount();
+        }
+
+        assertTrue(counts[2] <= counts[0] + 3);
+        assertTrue(counts[2] < 20);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.multigrid;
+
+import com.numericalmethod.suanshu.algorithm.iterative.monitor.CountMonitor;
+import com.numericalmethod.suanshu.algorithm.iterative.tolerance.AbsoluteTolerance;
+import com.numericalmethod.suanshu.matrix.doubles.linearsystem.LSProblem;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.CSRSparseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.ConvergenceFailure;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Ken Yiu
+ */
+public class AlgebraicMultigridSolverTest {
+
+    @Test
+    public void test_solve_0010() throws ConvergenceFailure {
+        CSRSparseMatrix A = AlgebraicMultigridTest.poisson2D(32);
+        Vector x0 = new DenseVector(A.nCols(), 1.);
+        LSProblem problem = new LSProblem(A, A.multiply(x0));
+
+        AlgebraicMultigridSolver solver = new AlgebraicMultigridSolver(100, new AbsoluteTolerance(1e-10));
+        CountMonitor<Vector> monitor = new CountMonitor<Vector>();
+        Vector x = solver.solve(problem, monitor).search(new DenseVector(A.nCols()));
+
+        assertArrayEquals(x0.toArray(), x.toArray(), 1e-9);
+        assertTrue(monitor.getCount() < 30);
+    }
+
+    @Test(expected = ConvergenceFailure.class)
+    public void test_solve_0020() throws ConvergenceFailure {
+        CSRSparseMatrix A = AlgebraicMultigridTest.poisson2D(32);
+        LSProblem problem = new LSProblem(A, A.multiply(new DenseVector(A.nCols(), 1.)));
+
+        AlgebraicMultigridSolver solver = new AlgebraicMultigridSolver(1, new AbsoluteTolerance(1e-10));
+        solver.solve(problem).search(new DenseVector(A.nCols()));
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.multigrid;
+
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.CSRSparseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.CSRSparseMatrixBuilder;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.SparseEntry;
+import com.numericalmethod.suanshu.parallel.LoopBody;
+import com.numericalmethod.suanshu.parallel.MultipleExecutionException;
+import com.numericalmethod.suanshu.parallel.ParallelExecutor;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Ken Yiu
+ */
+public class AlgebraicMultigridTest {
+
+    @Test
+    public void test_hierarchy_0010() {
+        CSRSparseMatrix A = poisson2D(64);
+        AlgebraicMultigrid amg = new AlgebraicMultigrid(A);
+
+        assertTrue(amg.nLevels() > 2);
+        assertSame(A, amg.A(1));
+        for (int l = 2; l <= amg.nLevels(); ++l) {
+            assertTrue(amg.A(l).nRows() < amg.A(l - 1).nRows() / 2);
+        }
+        assertTrue(amg.A(amg.nLevels()).nRows() <= AlgebraicMultigrid.DEFAULT_MAX_COARSE_SIZE);
+        assertTrue(amg.operatorComplexity() < 2);
+
+        // the Galerkin coarse matrices of a symmetric matrix are symmetric
+        CSRSparseMatrix A2 = amg.A(2);
+        for (SparseEntry entry : A2.getEntrytList()) {
+            assertEquals(entry.value, A2.get(entry.coordinates.j, entry.coordinates.i), 1e-14);
+        }
+    }
+
+    /**
+     * A V-cycle reduces the error by about the same factor for all grid sizes.
+     */
+    @Test
+    public void test_vcycle_0010() {
+        for (int m : new int[]{16, 32, 64}) {
+            CSRSparseMatrix A = poisson2D(m);
+            int n = A.nRows();
+            double[] b = new double[n];
+            double[] x = new double[n];
+            for (int i = 0; i < n; ++i) {
+                x[i] = Math.sin(7. * i) + 1.; // the error of the 0 solution, with both smooth and oscillatory components
+            }
+            double[] x0 = x.clone();
+
+            AlgebraicMultigrid amg = new AlgebraicMultigrid(A);
+            for (int k = 0; k < 10; ++k) {
+                amg.vcycle(b, x);
+            }
+            assertTrue(norm(x) / norm(x0) < Math.pow(0.5, 10));
+        }
+    }
+
+    /**
+     * A small system is solved directly.
+     */
+    @Test
+    public void test_vcycle_0020() {
+        CSRSparseMatrix A = poisson2D(5);
+        AlgebraicMultigrid amg = new AlgebraicMultigrid(A);
+        assertEquals(1, amg.nLevels());
+
+        double[] b = new double[25];
+        b[12] = 1.;
+        double[] x = new double[25];
+        amg.vcycle(b, x);
+
+        double[] Ax = new double[25];
+        A.multiply(1., x, 0., Ax);
+        assertArrayEquals(b, Ax, 1e-14);
+    }
+
+    /**
+     * The threads run V-cycles concurrently on their own work arrays.
+     */
+    @Test
+    public void test_vcycle_0030() throws MultipleExecutionException {
+        CSRSparseMatrix A = poisson2D(32);
+        final int n = A.nRows();
+        final AlgebraicMultigrid amg = new AlgebraicMultigrid(A);
+
+        final int m = 8;
+        final double[][] B = new double[m][n];
+        final double[][] X = new double[m][n];
+        double[][] expected = new double[m][n];
+        for (int j = 0; j < m; ++j) {
+            for (int i = 0; i < n; ++i) {
+                B[j][i] = Math.sin((j + 1) * i);
+            }
+            for (int k = 0; k < 5; ++k) {
+                amg.vcycle(B[j], expected[j]);
+            }
+        }
+
+        new ParallelExecutor(4).forLoop(0, m, new LoopBody() {
+
+            @Override
+            public void run(int j) {
+                for (int k = 0; k < 5; ++k) {
+                    amg.vcycle(B[j], X[j]);
+                }
+            }
+        });
+        for (int j = 0; j < m; ++j) {
+            assertArrayEquals(expected[j], X[j], 0);
+        }
+    }
+
+    private static double norm(double[] v) {
+        double sum = 0;
+        for (double vi : v) {
+            sum += vi * vi;
+        }
+        return Math.sqrt(sum);
+    }
+
+    /**
+     * The 5-point Laplacian on an <i>m</i> by <i>m</i> grid with Dirichlet boundary conditions.
+     */
+    static CSRSparseMatrix poisson2D(int m) {
+        int n = m * m;
+        CSRSparseMatrixBuilder builder = new CSRSparseMatrixBuilder(n, n, 5 * n);
+        for (int r = 0; r < m; ++r) {
+            for (int c = 0; c < m; ++c) {
+                int i = r * m + c + 1;
+                builder.add(i, i, 4);
+                if (c > 0) {
+                    builder.add(i, i - 1, -1);
+                }
+                if (c < m - 1) {
+                    builder.add(i, i + 1, -1);
+                }
+                if (r > 0) {
+                    builder.add(i, i - m, -1);
+                }
+                if (r < m - 1) {
+                    builder.add(i, i + m, -1);
+                }
+            }
+        }
+        return builder.build();
+    }
+}
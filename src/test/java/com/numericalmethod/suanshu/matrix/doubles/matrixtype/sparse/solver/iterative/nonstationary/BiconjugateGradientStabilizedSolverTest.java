@@ -31,6 +31,7 @@ import com.numericalmethod.suanshu.matrix.doubles.linearsystem.LSProblem;
 import com.numericalmethod.suanshu.algorithm.iterative.tolerance.AbsoluteTolerance;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.SparseVector;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.IterativeLinearSystemSolver;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner.ILU0Preconditioner;
 import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
 import com.numericalmethod.suanshu.vector.doubles.Vector;
 import org.junit.Test;
@@ -198,4 +199,45 @@ public class BiconjugateGradientStabilizedSolverTest {
         IterativeLinearSystemSolver.Solution soln = solver.solve(problem);
         Vector x = soln.search(new SparseVector(A.nCols()));
     }
+
+    /**
+     * The workspace mode gives the same iterates as the vector mode, and the workspace is reusable.
+     */
+    @Test
+    public void test_workspace_0010() throws ConvergenceFailure {
+        int n = 50;
+        int[] rows = new int[3 * n - 2];
+        int[] cols = new int[3 * n - 2];
+        double[] values = new double[3 * n - 2];
+        for (int i = 1, k = 0; i <= n; ++i) {
+            rows[k] = i;
+            cols[k] = i;
+            values[k++] = 2. + i / (double) n;
+            if (i < n) {
+                rows[k] = i;
+                cols[k] = i + 1;
+                values[k++] = -1.;
+                rows[k] = i + 1;
+                cols[k] = i;
+                values[k++] = -0.5;
+            }
+        }
+        CSRSparseMatrix A = new CSRSparseMatrix(n, n, rows, cols, values);
+        double[] b = new double[n];
+        b[0] = 1.;
+        b[n - 1] = 2.;
+
+        BiconjugateGradientStabilizedSolver solver = new BiconjugateGradientStabilizedSolver(
+                new ILU0Preconditioner.Factory(), 10, Integer.MAX_VALUE, new AbsoluteTolerance(1e-10));
+        CountMonitor<Vector> monitor = new CountMonitor<Vector>();
+        Vector expected = solver.solve(new LSProblem(A, new DenseVector(b)), monitor).search(new DenseVector(n));
+
+        KrylovWorkspace workspace = new KrylovWorkspace(n);
+        for (int k = 0; k < 2; ++k) {
+            double[] x = new double[n];
+            int count = solver.solve(A, b, x, workspace);
+            assertEquals(monitor.getCount() - 1, count);
+            assertArrayEquals(expected.toArray(), x, 1e-12);
+        }
+    }
 }
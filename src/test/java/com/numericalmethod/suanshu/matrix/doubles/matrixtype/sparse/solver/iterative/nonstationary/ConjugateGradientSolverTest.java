@@ -31,6 +31,7 @@ import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.itera
 import com.numericalmethod.suanshu.algorithm.iterative.tolerance.AbsoluteTolerance;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.SparseVector;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.IterativeLinearSystemSolver;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner.IC0Preconditioner;
 import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
 import com.numericalmethod.suanshu.vector.doubles.Vector;
 import org.junit.Test;
@@ -201,4 +202,89 @@ public class ConjugateGradientSolverTest {
         IterativeLinearSystemSolver.Solution soln = solver.solve(problem);
         Vector x = soln.search(new SparseVector(A.nCols()));
     }
+
+    /**
+     * The workspace mode gives the same iterates as the vector mode, and the workspace is reusable.
+     */
+    @Test
+    public void test_workspace_0010() throws ConvergenceFailure {
+        int n = 50;
+        CSRSparseMatrix A = tridiagonal(n);
+        double[] b = new double[n];
+        b[0] = 1.;
+        b[n - 1] = 2.;
+
+        ConjugateGradientSolver solver = new ConjugateGradientSolver(
+                new IC0Preconditioner.Factory(), 10, Integer.MAX_VALUE, new AbsoluteTolerance(1e-10));
+        CountMonitor<Vector> monitor = new CountMonitor<Vector>();
+        Vector expected = solver.solve(new LSProblem(A, new DenseVector(b)), monitor).search(new DenseVector(n));
+
+        KrylovWorkspace workspace = new KrylovWorkspace(n);
+        for (int k = 0; k < 2; ++k) {
+            double[] x = new double[n];
+            int count = solver.solve(A, b, x, workspace);
+            assertEquals(monitor.getCount() - 1, count);
+            assertArrayEquals(expected.toArray(), x, 1e-12);
+        }
+    }
+
+    /**
+     * Each column of a multiple right hand side solve takes the same iterations as solving it alone.
+     */
+    @Test
+    public void test_multipleRHS_0010() throws ConvergenceFailure {
+        for (int n : new int[]{50, 20000}) {
+            CSRSparseMatrix A = tridiagonal(n);
+            ConjugateGradientSolver solver = new ConjugateGradientSolver(
+                    new IC0Preconditioner.Factory(), 10, Integer.MAX_VALUE, new AbsoluteTolerance(1e-10));
+
+            int m = 5;
+            double[][] B = new double[m][n];
+            double[][] X = new double[m][n];
+            for (int j = 1; j < m; ++j) { // B[0] = 0 converges immediately
+                B[j][j - 1] = 1.;
+                B[j][n - j] = j;
+            }
+
+            int[] counts = solver.solve(A, B, X);
+
+            assertEquals(0, counts[0]);
+            assertArrayEquals(new double[n], X[0], 0);
+            for (int j = 1; j < m; ++j) {
+                CountMonitor<Vector> monitor = new CountMonitor<Vector>();
+                Vector expected = solver.solve(new LSProblem(A, new DenseVector(B[j])), monitor).search(new DenseVector(n));
+                assertEquals(monitor.getCount() - 1, counts[j]);
+                assertArrayEquals(expected.toArray(), X[j], 1e-12);
+            }
+        }
+    }
+
+    @Test(expected = ConvergenceFailure.class)
+    public void test_multipleRHS_0020() throws ConvergenceFailure {
+        int n = 50;
+        ConjugateGradientSolver solver = new ConjugateGradientSolver(3, new AbsoluteTolerance(1e-10));
+        double[][] B = new double[][]{new double[n], new double[n]};
+        B[1][0] = 1.;
+        solver.solve(tridiagonal(n), B, new double[2][n]);
+    }
+
+    private static CSRSparseMatrix tridiagonal(int n) {
+        int[] rows = new int[3 * n - 2];
+        int[] cols = new int[3 * n - 2];
+        double[] values = new double[3 * n - 2];
+        for (int i = 1, k = 0; i <= n; ++i) {
+            rows[k] = i;
+            cols[k] = i;
+            values[k++] = 2. + i / (double) n;
+            if (i < n) {
+                rows[k] = i;
+                cols[k] = i + 1;
+                values[k++] = -1.;
+                rows[k] = i + 1;
+                cols[k] = i;
+                values[k++] = -1.;
+            }
+        }
+        return new CSRSparseMatrix(n, n, rows, cols, values);
+    }
 }
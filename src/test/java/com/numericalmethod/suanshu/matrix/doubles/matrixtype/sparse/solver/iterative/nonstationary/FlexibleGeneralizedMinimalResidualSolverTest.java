@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.nonstationary;
+
+import com.numericalmethod.suanshu.algorithm.iterative.monitor.IteratesMonitor;
+import com.numericalmethod.suanshu.algorithm.iterative.tolerance.AbsoluteTolerance;
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.linearsystem.LSProblem;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.CSRSparseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.ConvergenceFailure;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.TestMatrices;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner.ILU0Preconditioner;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner.JacobiPreconditioner;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner.Preconditioner;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner.PreconditionerFactory;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+import java.util.List;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Ken Yiu
+ */
+public class FlexibleGeneralizedMinimalResidualSolverTest {
+
+    @Test
+    public void test_solve_0010() throws ConvergenceFailure {
+        Matrix A = new CSRSparseMatrix(5, 5,
+                                       new int[]{1, 1, 1, 2, 2, 3, 3, 3, 4, 4, 4, 5, 5},
+                                       new int[]{1, 2, 4, 1, 2, 3, 4, 5, 1, 3, 4, 2, 5},
+                                       new double[]{1, -1, -3, -2, 5, 4, 6, 4, -4, 2, 7, 8, -5});
+        Vector b = new DenseVector(1, 1, 1, 1, 1);
+
+        double tolerance = 1e-8;
+        FlexibleGeneralizedMinimalResidualSolver solver = new FlexibleGeneralizedMinimalResidualSolver(10, 100, new AbsoluteTolerance(tolerance));
+        Vector x = solver.solve(new LSProblem(A, b)).search(new DenseVector(5));
+
+        Vector expResult = new DenseVector(
+                new double[]{
+                    -0.522321429,
+                    -0.00892857143,
+                    1.22098214,
+                    -0.504464286,
+                    -0.214285714
+                });
+        assertArrayEquals(expResult.toArray(), x.toArray(), tolerance);
+    }
+
+    /**
+     * The preconditioner alternates between Jacobi and ILU(0) in each iteration.
+     */
+    @Test
+    public void test_solve_0020() throws ConvergenceFailure {
+        final Matrix A = TestMatrices.convectionDiffusion(20, 0.5);
+        Vector b = new DenseVector(A.nRows(), 1.);
+
+        double tolerance = 1e-8;
+        FlexibleGeneralizedMinimalResidualSolver solver = new FlexibleGeneralizedMinimalResidualSolver(
+                new PreconditionerFactory() {
+
+                    @Override
+                    public Preconditioner newInstance(final Matrix A) {
+                        return new Preconditioner() {
+
+                            private final Preconditioner jacobi = new JacobiPreconditioner(A);
+                            private final Preconditioner ilu = new ILU0Preconditioner(A);
+                            private int count = 0;
+
+                            @Override
+                            public Vector solve(Vector x) {
+                                return (count++ % 2 == 0 ? jacobi : ilu).solve(x);
+                            }
+
+                            @Override
+                            public Vector transposeSolve(Vector x) {
+                                throw new UnsupportedOperationException();
+                            }
+                        };
+                    }
+                },
+                10, 1000, new AbsoluteTolerance(tolerance));
+        IteratesMonitor<Double> residuals = new IteratesMonitor<Double>();
+        Vector x = solver.solve(new LSProblem(A, b), new IteratesMonitor<Vector>(), residuals).search(new DenseVector(A.nCols()));
+
+        assertEquals(0., b.minus(A.multiply(x)).norm(), tolerance * 10);
+
+        List<Double> history = residuals.getIterates();
+        assertEquals(b.norm(), history.get(0), 1e-12);
+        for (int i = 1; i < history.size(); ++i) {
+            assertTrue(history.get(i) <= history.get(i - 1) * (1 + 1e-12));
+        }
+    }
+}
@@ -22,6 +22,7 @@
 package com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.nonstationary;
 
 import com.numericalmethod.suanshu.algorithm.iterative.monitor.CountMonitor;
+import com.numericalmethod.suanshu.algorithm.iterative.monitor.IteratesMonitor;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix;
 import com.numericalmethod.suanshu.matrix.doubles.Matrix;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.triangle.SymmetricMatrix;
@@ -31,8 +32,10 @@ import com.numericalmethod.suanshu.matrix.doubles.linearsystem.LSProblem;
 import com.numericalmethod.suanshu.algorithm.iterative.tolerance.AbsoluteTolerance;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.SparseVector;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.IterativeLinearSystemSolver;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.TestMatrices;
 import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
 import com.numericalmethod.suanshu.vector.doubles.Vector;
+import java.util.List;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -198,4 +201,31 @@ public class GeneralizedMinimalResidualSolverTest {
         IterativeLinearSystemSolver.Solution soln = solver.solve(problem);
         Vector x = soln.search(new SparseVector(A.nCols()));
     }
+
+    /**
+     * The residual norms are recorded at every restart, and they never increase.
+     */
+    @Test
+    public void test_restart_0010() throws ConvergenceFailure {
+        Matrix A = TestMatrices.convectionDiffusion(20, 0.5);
+        Vector b = new DenseVector(A.nRows(), 1.);
+        double tolerance = 1e-8;
+
+        for (int m : new int[]{5, 20}) {
+            GeneralizedMinimalResidualSolver solver = new GeneralizedMinimalResidualSolver(m, 10000, new AbsoluteTolerance(tolerance));
+            CountMonitor<Vector> monitor = new CountMonitor<Vector>();
+            IteratesMonitor<Double> residuals = new IteratesMonitor<Double>();
+            Vector x = solver.solve(new LSProblem(A, b), monitor, residuals).search(new DenseVector(A.nCols()));
+
+            assertEquals(b.norm(), residuals.getIterates().get(0), 1e-12);
+            int nIterations = monitor.getCount() - 1;
+            List<Double> history = residuals.getIterates();
+            assertEquals((nIterations + m - 1) / m + 1, history.size()); // the initial guess and one per cycle
+            for (int i = 1; i < history.size(); ++i) {
+                assertTrue(history.get(i) <= history.get(i - 1) * (1 + 1e-12));
+            }
+            assertTrue(history.get(history.size() - 1) <= tolerance);
+            assertEquals(0., b.minus(A.multiply(x)).norm(), tolerance * 10);
+        }
+    }
 }
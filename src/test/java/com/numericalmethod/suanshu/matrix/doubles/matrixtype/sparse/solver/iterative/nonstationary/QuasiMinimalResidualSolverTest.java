@@ -31,6 +31,11 @@ import com.numericalmethod.suanshu.matrix.doubles.linearsystem.LSProblem;
 import com.numericalmethod.suanshu.algorithm.iterative.tolerance.AbsoluteTolerance;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.SparseVector;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.IterativeLinearSystemSolver;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.TestMatrices;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner.ILU0Preconditioner;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner.IdentityPreconditioner;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner.Preconditioner;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner.PreconditionerFactory;
 import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
 import com.numericalmethod.suanshu.vector.doubles.Vector;
 import org.junit.Test;
@@ -198,4 +203,63 @@ public class QuasiMinimalResidualSolverTest {
         IterativeLinearSystemSolver.Solution soln = solver.solve(problem);
         Vector x = soln.search(new SparseVector(A.nCols()));
     }
+
+    /**
+     * The workspace mode gives the same iterates as the vector mode, and the workspace is reusable.
+     */
+    @Test
+    public void test_workspace_0010() throws ConvergenceFailure {
+        CSRSparseMatrix A = TestMatrices.convectionDiffusion(10, 0.5);
+        int n = A.nRows();
+        double[] b = new double[n];
+        b[0] = 1.;
+        b[n - 1] = 2.;
+
+        QuasiMinimalResidualSolver solver = new QuasiMinimalResidualSolver(
+                new ILU0Preconditioner.Factory(),
+                new PreconditionerFactory() {
+
+                    @Override
+                    public Preconditioner newInstance(Matrix A) {
+                        return new IdentityPreconditioner();
+                    }
+                },
+                10, Integer.MAX_VALUE, new AbsoluteTolerance(1e-10));
+        CountMonitor<Vector> monitor = new CountMonitor<Vector>();
+        Vector expected = solver.solve(new LSProblem(A, new DenseVector(b)), monitor).search(new DenseVector(n));
+
+        KrylovWorkspace workspace = new KrylovWorkspace(n);
+        for (int k = 0; k < 2; ++k) {
+            double[] x = new double[n];
+            int count = solver.solve(A, b, x, workspace);
+            assertEquals(monitor.getCount() - 1, count);
+            assertArrayEquals(expected.toArray(), x, 1e-12);
+        }
+    }
+
+    /**
+     * The transpose and the preconditioners can be computed once for many solves.
+     */
+    @Test
+    public void test_workspace_0020() throws ConvergenceFailure {
+        CSRSparseMatrix A = TestMatrices.convectionDiffusion(10, 0.5);
+        int n = A.nRows();
+        double[] b = new double[n];
+        b[0] = 1.;
+        b[n - 1] = 2.;
+
+        QuasiMinimalResidualSolver solver = new QuasiMinimalResidualSolver(100, new AbsoluteTolerance(1e-10));
+        Preconditioner M1 = new ILU0Preconditioner(A);
+        Preconditioner M2 = new IdentityPreconditioner();
+        KrylovWorkspace workspace = new KrylovWorkspace(n);
+        double[] expected = new double[n];
+        int expectedCount = solver.solve(A, M1, M2, b, expected, workspace);
+
+        Matrix At = A.t();
+        for (int k = 0; k < 2; ++k) {
+            double[] x = new double[n];
+            assertEquals(expectedCount, solver.solve(A, At, M1, M2, b, x, workspace));
+            assertArrayEquals(expected, x, 0);
+        }
+    }
 }
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner;
+
+import com.numericalmethod.suanshu.algorithm.iterative.monitor.CountMonitor;
+import com.numericalmethod.suanshu.algorithm.iterative.tolerance.AbsoluteTolerance;
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.linearsystem.LSProblem;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.CSRSparseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.CSRSparseMatrixBuilder;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.ConvergenceFailure;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.nonstationary.ConjugateGradientSolver;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Ken Yiu
+ */
+public class IC0PreconditionerTest {
+
+    /**
+     * IC(0) of a tridiagonal matrix is the complete Cholesky factorization.
+     */
+    @Test
+    public void test_solve_0010() {
+        Matrix A = new DenseMatrix(new double[][]{
+                    {4, -1, 0, 0},
+                    {-1, 4, -1, 0},
+                    {0, -1, 4, -1},
+                    {0, 0, -1, 4}
+                });
+        Vector x = new DenseVector(new double[]{1, 2, 3, 4});
+
+        IC0Preconditioner M = new IC0Preconditioner(A);
+        assertArrayEquals(x.toArray(), M.solve(A.multiply(x)).toArray(), 1e-14);
+        assertArrayEquals(x.toArray(), M.transposeSolve(A.multiply(x)).toArray(), 1e-14);
+
+        double[] y = A.multiply(x).toArray();
+        M.solve(y, y);
+        assertArrayEquals(x.toArray(), y, 1e-14);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_indefinite_0010() {
+        Matrix A = new DenseMatrix(new double[][]{
+                    {1, 2},
+                    {2, 1}
+                });
+        new IC0Preconditioner(A);
+    }
+
+    /**
+     * IC(0) reduces the number of CG iterations for an anisotropic 2D Laplacian.
+     */
+    @Test
+    public void test_CG_0010() throws ConvergenceFailure {
+        CSRSparseMatrix A = laplacian(20, 100.);
+        Vector b = A.multiply(new DenseVector(A.nCols(), 1.));
+        LSProblem problem = new LSProblem(A, b);
+
+        CountMonitor<Vector> monitor1 = new CountMonitor<Vector>();
+        new ConjugateGradientSolver(Integer.MAX_VALUE, new AbsoluteTolerance(1e-8)).solve(problem, monitor1).search(new DenseVector(A.nCols()));
+
+        CountMonitor<Vector> monitor2 = new CountMonitor<Vector>();
+        Vector x = new ConjugateGradientSolver(
+                new IC0Preconditioner.Factory(), 50, Integer.MAX_VALUE, new AbsoluteTolerance(1e-8)).solve(problem, monitor2).search(new DenseVector(A.nCols()));
+
+        assertArrayEquals(new DenseVector(A.nCols(), 1.).toArray(), x.toArray(), 1e-6);
+        assertTrue(monitor2.getCount() < monitor1.getCount() / 2);
+    }
+
+    /**
+     * The 5-point Laplacian on an <i>m</i> by <i>m</i> grid,
+     * with the coupling in the y-direction scaled by <i>eps</i>.
+     */
+    static CSRSparseMatrix laplacian(int m, double eps) {
+        int n = m * m;
+        CSRSparseMatrixBuilder builder = new CSRSparseMatrixBuilder(n, n);
+        for (int r = 0; r < m; ++r) {
+            for (int c = 0; c < m; ++c) {
+                int i = r * m + c + 1;
+                builder.add(i, i, 2 + 2 * eps);
+                if (c > 0) {
+                    builder.add(i, i - 1, -1);
+                }
+                if (c < m - 1) {
+                    builder.add(i, i + 1, -1);
+                }
+                if (r > 0) {
+                    builder.add(i, i - m, -eps);
+                }
+                if (r < m - 1) {
+                    builder.add(i, i + m, -eps);
+                }
+            }
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner;
+
+import com.numericalmethod.suanshu.algorithm.iterative.monitor.CountMonitor;
+import com.numericalmethod.suanshu.algorithm.iterative.tolerance.AbsoluteTolerance;
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.linearsystem.LSProblem;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.CSRSparseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.ConvergenceFailure;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.TestMatrices;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.nonstationary.BiconjugateGradientStabilizedSolver;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Ken Yiu
+ */
+public class ILU0PreconditionerTest {
+
+    /**
+     * ILU(0) of a tridiagonal matrix is the complete LU factorization.
+     */
+    @Test
+    public void test_solve_0010() {
+        Matrix A = new DenseMatrix(new double[][]{
+                    {4, 1, 0, 0},
+                    {-2, 5, 2, 0},
+                    {0, 3, 6, -1},
+                    {0, 0, 1, 3}
+                });
+        Vector x = new DenseVector(new double[]{1, -2, 3, -4});
+
+        ILU0Preconditioner M = new ILU0Preconditioner(A);
+        assertArrayEquals(x.toArray(), M.solve(A.multiply(x)).toArray(), 1e-14);
+        assertArrayEquals(x.toArray(), M.transposeSolve(A.t().multiply(x)).toArray(), 1e-14);
+
+        double[] y = new double[4];
+        M.transposeSolve(A.t().multiply(x).toArray(), y);
+        assertArrayEquals(x.toArray(), y, 1e-14);
+    }
+
+    /**
+     * The fill-in at (3, 2) is dropped.
+     */
+    @Test
+    public void test_solve_0020() {
+        CSRSparseMatrix A = new CSRSparseMatrix(3, 3,
+                new int[]{1, 1, 1, 2, 2, 3, 3},
+                new int[]{1, 2, 3, 1, 2, 1, 3},
+                new double[]{4, 1, 1, 1, 4, 1, 4});
+        ILU0Preconditioner M = new ILU0Preconditioner(A);
+
+        // L = [1 0 0; 0.25 1 0; 0.25 0 1], U = [4 1 1; 0 3.75 0; 0 0 3.75], the (2, 3) and (3, 2) fill-ins are dropped
+        Matrix LU = new DenseMatrix(new double[][]{
+                    {4, 1, 1},
+                    {1, 4, 0.25},
+                    {1, 0.25, 4}
+                });
+        Vector x = new DenseVector(new double[]{1, 2, 3});
+        double[] fill = new double[]{0, 0.25 * 3, 0.25 * 2}; // LU - A
+        assertArrayEquals(x.toArray(), M.solve(A.multiply(x).add(new DenseVector(fill))).toArray(), 1e-14);
+        assertArrayEquals(x.toArray(), M.solve(LU.multiply(x)).toArray(), 1e-14);
+    }
+
+    @Test
+    public void test_BiCGSTAB_0010() throws ConvergenceFailure {
+        CSRSparseMatrix A = TestMatrices.convectionDiffusion(20, 0.5);
+        Vector b = A.multiply(new DenseVector(A.nCols(), 1.));
+        LSProblem problem = new LSProblem(A, b);
+
+        CountMonitor<Vector> monitor1 = new CountMonitor<Vector>();
+        new BiconjugateGradientStabilizedSolver(Integer.MAX_VALUE, new AbsoluteTolerance(1e-8)).solve(problem, monitor1).search(new DenseVector(A.nCols()));
+
+        CountMonitor<Vector> monitor2 = new CountMonitor<Vector>();
+        Vector x = new BiconjugateGradientStabilizedSolver(
+                new ILU0Preconditioner.Factory(), 50, Integer.MAX_VALUE, new AbsoluteTolerance(1e-8)).solve(problem, monitor2).search(new DenseVector(A.nCols()));
+
+        assertArrayEquals(new DenseVector(A.nCols(), 1.).toArray(), x.toArray(), 1e-6);
+        assertTrue(monitor2.getCount() < monitor1.getCount() / 2);
+    }
+}
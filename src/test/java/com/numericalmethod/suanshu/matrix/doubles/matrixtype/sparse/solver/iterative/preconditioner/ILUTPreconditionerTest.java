@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.preconditioner;
+
+import com.numericalmethod.suanshu.algorithm.iterative.monitor.CountMonitor;
+import com.numericalmethod.suanshu.algorithm.iterative.tolerance.AbsoluteTolerance;
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.linearsystem.LSProblem;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.CSRSparseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.ConvergenceFailure;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.TestMatrices;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.nonstationary.GeneralizedMinimalResidualSolver;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Ken Yiu
+ */
+public class ILUTPreconditionerTest {
+
+    /**
+     * No dropping gives the complete LU factorization.
+     */
+    @Test
+    public void test_solve_0010() {
+        Matrix A = new DenseMatrix(new double[][]{
+                    {4, 1, 2, 0},
+                    {-2, 5, 2, 1},
+                    {1, 3, 6, -1},
+                    {2, 0, 1, 3}
+                });
+        Vector x = new DenseVector(new double[]{1, -2, 3, -4});
+
+        ILUTPreconditioner M = new ILUTPreconditioner(A, 0., 4);
+        assertEquals(15, M.nNonZeros()); // no fill-in in the first row
+        assertArrayEquals(x.toArray(), M.solve(A.multiply(x)).toArray(), 1e-13);
+        assertArrayEquals(x.toArray(), M.transposeSolve(A.t().multiply(x)).toArray(), 1e-13);
+    }
+
+    /**
+     * With <i>p = 0</i>, only the diagonal of <i>U</i> is kept.
+     */
+    @Test
+    public void test_solve_0020() {
+        Matrix A = new DenseMatrix(new double[][]{
+                    {4, 1, 2},
+                    {-2, 5, 2},
+                    {1, 3, 8}
+                });
+
+        ILUTPreconditioner M = new ILUTPreconditioner(A, 0., 0);
+        assertEquals(3, M.nNonZeros());
+        assertArrayEquals(new double[]{0.25, 0.2, 0.125}, M.solve(new DenseVector(1., 1., 1.)).toArray(), 1e-15);
+    }
+
+    @Test
+    public void test_GMRES_0010() throws ConvergenceFailure {
+        CSRSparseMatrix A = TestMatrices.convectionDiffusion(20, 0.5);
+        Vector b = A.multiply(new DenseVector(A.nCols(), 1.));
+        LSProblem problem = new LSProblem(A, b);
+
+        CountMonitor<Vector> monitor1 = new CountMonitor<Vector>();
+        new GeneralizedMinimalResidualSolver(Integer.MAX_VALUE, new AbsoluteTolerance(1e-8)).solve(problem, monitor1).search(new DenseVector(A.nCols()));
+
+        CountMonitor<Vector> monitor2 = new CountMonitor<Vector>();
+        ILUTPreconditioner.Factory factory = new ILUTPreconditioner.Factory(1e-3, 10);
+        Vector x = new GeneralizedMinimalResidualSolver(
+                factory, Integer.MAX_VALUE, Integer.MAX_VALUE, new AbsoluteTolerance(1e-8)).solve(problem, monitor2).search(new DenseVector(A.nCols()));
+
+        assertArrayEquals(new DenseVector(A.nCols(), 1.).toArray(), x.toArray(), 1e-6);
+        assertTrue(monitor2.getCount() < monitor1.getCount() / 2);
+    }
+}
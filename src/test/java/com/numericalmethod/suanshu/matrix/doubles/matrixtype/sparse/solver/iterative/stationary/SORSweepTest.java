@@ -21,7 +21,9 @@
  */
 package com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.solver.iterative.stationary;
 
+import com.numericalmethod.suanshu.matrix.doubles.ImmutableMatrix;
 import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.sparse.CSRSparseMatrixBuilder;
 import com.numericalmethod.suanshu.matrix.doubles.Matrix;
 import com.numericalmethod.suanshu.misc.R;
 import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
@@ -74,4 +76,27 @@ public class SORSweepTest {
         x = sweep.backward(x);
         assertArrayEquals(new double[]{-3, -3, -3, -3, 13}, x.toArray(), 1e-15);
     }
+
+    /**
+     * A CSR matrix wrapped in an immutable matrix, e.g., by LSProblem, is swept in O(nNonZeros) time.
+     */
+    @Test(timeout = 10000)
+    public void test_forward_0020() {
+        int n = 100000;
+        CSRSparseMatrixBuilder builder = new CSRSparseMatrixBuilder(n, n);
+        for (int i = 1; i <= n; ++i) {
+            builder.add(i, i, 2.);
+            if (i > 1) {
+                builder.add(i, i - 1, -1.);
+            }
+        }
+        Vector b = new DenseVector(R.rep(1., n));
+
+        SORSweep sweep = new SORSweep(new ImmutableMatrix(builder.build()), b, 1);
+        Vector x = sweep.forward(new DenseVector(n).ZERO());
+        assertEquals(0.5, x.get(1), 1e-15);
+        assertEquals(0.75, x.get(2), 1e-15);
+        assertEquals(0.875, x.get(3), 1e-15);
+        assertEquals(1., x.get(n), 1e-15);
+    }
 }
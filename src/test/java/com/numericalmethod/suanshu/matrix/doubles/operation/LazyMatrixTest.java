@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.doubles.operation;
+
+import com.numericalmethod.suanshu.matrix.MatrixAccessException;
+import com.numericalmethod.suanshu.matrix.MatrixMismatchException;
+import com.numericalmethod.suanshu.matrix.doubles.AreMatrices;
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrixView;
+import com.numericalmethod.suanshu.stats.random.multivariate.IID;
+import com.numericalmethod.suanshu.stats.random.univariate.uniform.UniformRng;
+import com.numericalmethod.suanshu.vector.doubles.Vector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Haksun Li
+ */
+public class LazyMatrixTest {
+
+    private static Matrix random(int nRows, int nCols) {
+        UniformRng rng = new UniformRng();
+        rng.seed(1234567890L + nRows * 31 + nCols);
+        return new DenseMatrix(new IID(rng, nRows * nCols).nextVector(), nRows, nCols);
+    }
+
+    @Test
+    public void test_0010() {
+        Matrix A = new DenseMatrix(new double[][]{
+                    {1, 2, 3},
+                    {4, 5, 6}
+                });
+        Matrix B = new DenseMatrix(new double[][]{
+                    {1, 2},
+                    {3, 4},
+                    {5, 6}
+                });
+        Matrix C = new DenseMatrix(new double[][]{
+                    {1, 0},
+                    {0, 1}
+                });
+
+        Matrix expected = A.multiply(B).add(C).scaled(2).t();
+        Matrix instance = new LazyMatrix(A).multiply(B).add(C).scaled(2).t();
+        assertEquals(2, instance.nRows());
+        assertEquals(2, instance.nCols());
+        assertTrue(AreMatrices.equal(expected, instance, 1e-14));
+        assertTrue(AreMatrices.equal(new DenseMatrix(new double[][]{
+                    {46, 98},
+                    {56, 130}
+                }), instance, 1e-14));
+    }
+
+    /**
+     * sums, differences, opposites and transposes of operands of different shapes
+     */
+    @Test
+    public void test_0020() {
+        Matrix A = random(7, 5);
+        Matrix B = random(5, 7);
+        Matrix C = random(7, 5);
+
+        Matrix expected = A.add(B.t()).minus(C.scaled(3)).t().opposite().add(B);
+        LazyMatrix instance = new LazyMatrix(A).add(B.t()).minus(C.scaled(3)).t().opposite().add(B);
+        assertTrue(AreMatrices.equal(expected, instance, 1e-14));
+        assertTrue(AreMatrices.equal(expected, instance.materialize(), 1e-14));
+    }
+
+    /**
+     * nested products, e.g., a Kalman filter covariance update <i>R - K * F * R</i> and <i>F * R * F' + V</i>
+     */
+    @Test
+    public void test_0030() {
+        Matrix R = random(6, 6);
+        Matrix F = random(4, 6);
+        Matrix K = random(6, 4);
+        Matrix V = random(4, 4);
+
+        Matrix expected1 = R.minus(K.multiply(F).multiply(R));
+        Matrix instance1 = new LazyMatrix(R).minus(new LazyMatrix(K).multiply(F).multiply(R));
+        assertTrue(AreMatrices.equal(expected1, instance1, 1e-13));
+
+        Matrix expected2 = F.multiply(R).multiply(F.t()).add(V);
+        Matrix instance2 = new LazyMatrix(F).multiply(R).multiply(new LazyMatrix(F).t()).add(V);
+        assertTrue(AreMatrices.equal(expected2, instance2, 1e-13));
+
+        //the transpose of a product
+        Matrix expected3 = K.multiply(F).t().scaled(-0.5);
+        Matrix instance3 = new LazyMatrix(K).multiply(F).t().scaled(-0.5);
+        assertTrue(AreMatrices.equal(expected3, instance3, 1e-13));
+    }
+
+    /**
+     * the scaled operands and the views are read in place
+     */
+    @Test
+    public void test_0035() {
+        DenseMatrix A = (DenseMatrix) random(6, 6);
+        DenseMatrixView B = A.subMatrixView(2, 5, 3, 6);
+        Matrix C = random(4, 4);
+
+        Matrix expected = B.scaled(2).multiply(C.scaled(-3)).minus(B).add(C.t());
+        Matrix instance = new LazyMatrix(B).scaled(2).multiply(new LazyMatrix(C).scaled(-3)).minus(B).add(new LazyMatrix(C).t());
+        assertTrue(AreMatrices.equal(expected, instance, 1e-13));
+    }
+
+    /**
+     * multiplying a vector does not evaluate the products
+     */
+    @Test
+    public void test_0040() {
+        Matrix A = random(8, 3);
+        Matrix B = random(3, 8);
+        Matrix C = random(8, 8);
+        Vector v = new DenseVector(1, 2, 3, 4, 5, 6, 7, 8);
+
+        Vector expected = A.multiply(B).add(C.t()).scaled(2).multiply(v);
+        Vector instance = new LazyMatrix(A).multiply(B).add(new LazyMatrix(C).t()).scaled(2).multiply(v);
+        assertArrayEquals(expected.toArray(), instance.toArray(), 1e-13);
+    }
+
+    /**
+     * a lazy matrix is a snapshot once evaluated
+     */
+    @Test
+    public void test_0050() {
+        Matrix A = new DenseMatrix(new double[][]{
+                    {1, 2},
+                    {3, 4}
+                });
+        LazyMatrix instance = new LazyMatrix(A).scaled(2);
+        assertEquals(4., instance.get(1, 2), 0);
+
+        A.set(1, 2, 100);
+        assertEquals(4., instance.get(1, 2), 0);
+
+        DenseMatrix copy = instance.materialize();
+        copy.set(1, 2, -1);
+        assertEquals(4., instance.get(1, 2), 0);
+    }
+
+    @Test(expected = MatrixAccessException.class)
+    public void test_0060() {
+        new LazyMatrix(random(2, 2)).set(1, 1, 0);
+    }
+
+    @Test(expected = MatrixMismatchException.class)
+    public void test_0070() {
+        new LazyMatrix(random(2, 3)).multiply(random(2, 3));
+    }
+
+    /**
+     * just to check speed against the eager evaluation of <i>(A * B + C + D')' * 2</i>
+     */
+    /**
+     * The lazy evaluation of <i>(A * B + C + D')' * 2</i> must be no slower than the eager one.
+     * The inner dimension of <i>A * B</i> is small so that the time is not all in the multiplication, which both do alike.
+     * The best of a few runs of each is compared, after a warm-up.
+     */
+    @Test
+    public void test_0080() {
+        final int n = 1000;
+        final int k = 8;
+        Matrix A = random(n, k);
+        Matrix B = random(k, n);
+        Matrix C = random(n, n);
+        Matrix D = random(n, n);
+
+        Matrix expected = null;
+        Matrix instance = null;
+        long t1 = Long.MAX_VALUE;
+        long t2 = Long.MAX_VALUE;
+        for (int run = 0; run < 8; ++run) {//the 1st run is a warm-up
+            long start = System.nanoTime();
+            expected = A.multiply(B).add(C).add(D.t()).t().scaled(2);
+            long eager = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            instance = new LazyMatrix(A).multiply(B).add(C).add(new LazyMatrix(D).t()).t().scaled(2).materialize();
+            long lazy = System.nanoTime() - start;
+
+            if (run > 0) {
+                t1 = Math.min(t1, eager);
+                t2 = Math.min(t2, lazy);
+            }
+        }
+
+        System.out.println(String.format("time taken (%d x %d x %d): eager = %d ms; lazy = %d ms", n, k, n, t1 / 1000000, t2 / 1000000));
+        assertTrue(AreMatrices.equal(expected, instance, 1e-10));
+        assertTrue("the lazy evaluation is slower than the eager one", t2 <= t1);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.matrix.floats.matrixtype.dense;
+
+import com.numericalmethod.suanshu.matrix.doubles.AreMatrices;
+import com.numericalmethod.suanshu.matrix.doubles.Matrix;
+import com.numericalmethod.suanshu.matrix.doubles.matrixtype.dense.DenseMatrix;
+import com.numericalmethod.suanshu.stats.random.multivariate.IID;
+import com.numericalmethod.suanshu.stats.random.univariate.uniform.UniformRng;
+import com.numericalmethod.suanshu.vector.floats.dense.FloatDenseVector;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Haksun Li
+ */
+public class FloatDenseMatrixTest {
+
+    private static Matrix random(int nRows, int nCols) {
+        UniformRng rng = new UniformRng();
+        rng.seed(1234567890L);
+        IID iid = new IID(rng, nRows * nCols);
+        return new DenseMatrix(iid.nextVector(), nRows, nCols);
+    }
+
+    @Test
+    public void test_ctor_0010() {
+        FloatDenseMatrix A = new FloatDenseMatrix(new float[][]{
+                    {1, 2, 3},
+                    {4, 5, 6}
+                });
+        assertEquals(2, A.nRows());
+        assertEquals(3, A.nCols());
+        assertEquals(6f, A.get(2, 3), 0);
+        assertArrayEquals(new float[]{4, 5, 6}, A.getRow(2).toArray(), 0);
+        assertArrayEquals(new float[]{3, 6}, A.getColumn(3).toArray(), 0);
+
+        //the conversions
+        DenseMatrix D = A.toDense();
+        assertTrue(AreMatrices.equal(new DenseMatrix(new double[][]{
+                    {1, 2, 3},
+                    {4, 5, 6}
+                }), D, 0));
+        assertEquals(A, new FloatDenseMatrix(D));
+
+        FloatDenseMatrix B = new FloatDenseMatrix(new DenseMatrix(new double[][]{{0.1}}));
+        assertEquals(0.1f, B.get(1, 1), 0);
+    }
+
+    @Test
+    public void test_arithmetic_0010() {
+        FloatDenseMatrix A = new FloatDenseMatrix(new float[][]{
+                    {1, 2},
+                    {3, 4}
+                });
+        assertEquals(new FloatDenseMatrix(new float[][]{{2, 4}, {6, 8}}), A.add(A));
+        assertEquals(A.ZERO(), A.minus(A));
+        assertEquals(new FloatDenseMatrix(new float[][]{{-1, -2}, {-3, -4}}), A.opposite());
+        assertEquals(new FloatDenseMatrix(new float[][]{{1, 3}, {2, 4}}), A.t());
+        assertEquals(A, A.multiply(A.ONE()));
+        assertEquals(new FloatDenseMatrix(new float[][]{{7, 10}, {15, 22}}), A.multiply(A));
+        assertArrayEquals(new float[]{-1, -1}, A.multiply(new FloatDenseVector(1, -1)).toArray(), 0);
+    }
+
+    /**
+     * The product spans several tiles and runs in parallel.
+     */
+    @Test
+    public void test_multiply_0010() {
+        Matrix A = random(150, 300);
+        Matrix B = random(300, 70);
+        FloatDenseMatrix AB = new FloatDenseMatrix(A).multiply(new FloatDenseMatrix(B));
+        assertTrue(AreMatrices.equal(A.multiply(B), AB.toDense(), 1e-3));
+    }
+}
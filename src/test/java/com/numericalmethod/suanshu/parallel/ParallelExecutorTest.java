@@ -31,9 +31,15 @@ import com.numericalmethod.suanshu.stats.random.univariate.uniform.UniformRng;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import static org.junit.Assert.*;
 import org.junit.Test;
@@ -289,4 +295,469 @@ public class ParallelExecutorTest {
 
         assertEquals(Arrays.asList(2), results2);
     }
+
+    @Test
+    public void test_forkJoin_executeAll_0010() throws MultipleExecutionException {
+        @SuppressWarnings("unchecked")
+        List<Integer> results = new ParallelExecutor(new ForkJoinPool(2)).executeAll(
+                new Callable<Integer>() {
+
+                    @Override
+                    public Integer call() throws Exception {
+                        return 1;
+                    }
+                },
+                new Callable<Integer>() {
+
+                    @Override
+                    public Integer call() throws Exception {
+                        return 2;
+                    }
+                },
+                new Callable<Integer>() {
+
+                    @Override
+                    public Integer call() throws Exception {
+                        return 3;
+                    }
+                });
+
+        assertEquals(
+                "results should be in the same sequential order as input tasks",
+                Arrays.asList(1, 2, 3), results);
+    }
+
+    @Test
+    public void test_forkJoin_executeAll_0020() {
+        try {
+            @SuppressWarnings("unchecked")
+            List<Integer> results = ParallelExecutor.getSharedInstance().executeAll(
+                    new Callable<Integer>() {
+
+                        @Override
+                        public Integer call() throws Exception {
+                            return 1;
+                        }
+                    },
+                    new Callable<Integer>() {
+
+                        @Override
+                        public Integer call() throws Exception {
+                            throw new Exception("test");
+                        }
+                    });
+            fail("an exception should be thrown");
+        } catch (MultipleExecutionException ex) {
+            assertEquals(Arrays.asList(1, null), ex.getResults());
+            assertNull(ex.getExceptions().get(0));
+            assertEquals("test", ex.getExceptions().get(1).getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void test_forkJoin_forLoop_0010() throws MultipleExecutionException {
+        final int increment = 3;
+        final double[] array = new double[1000];
+        new ParallelExecutor(new ForkJoinPool(4)).forLoop(1, array.length, increment, new LoopBody() {
+
+            @Override
+            public void run(int i) throws Exception {
+                array[i] += i;
+            }
+        });
+
+        double[] expResult = new double[1000];
+        for (int i = 1; i < expResult.length; i += increment) {
+            expResult[i] = i;
+        }
+
+        assertArrayEquals(expResult, array, 1e-15);
+    }
+
+    /**
+     * Nested parallel loops share the same pool, and the waiting threads help run the inner loops.
+     */
+    @Test(timeout = 10000)
+    public void test_forkJoin_forLoop_0020() throws MultipleExecutionException {
+        final ParallelExecutor parallel = new ParallelExecutor(new ForkJoinPool(2));
+        final int[][] array2d = new int[50][200];
+        parallel.forLoop(0, array2d.length, new LoopBody() {
+
+            @Override
+            public void run(final int i) throws Exception {
+                parallel.forLoop(0, array2d[i].length, new LoopBody() {
+
+                    @Override
+                    public void run(int j) throws Exception {
+                        array2d[i][j]++;
+                    }
+                });
+            }
+        });
+
+        for (int i = 0; i < array2d.length; ++i) {
+            for (int j = 0; j < array2d[i].length; ++j) {
+                assertEquals("all 1's", 1, array2d[i][j]);
+            }
+        }
+    }
+
+    /**
+     * A parallel matrix multiplication inside a parallel loop
+     */
+    @Test(timeout = 60000)
+    public void test_forkJoin_forLoop_0030() throws MultipleExecutionException {
+        final int matrixSize = 150;
+        IID iid = new IID(new UniformRng(), matrixSize * matrixSize);
+        final Matrix A = new DenseMatrix(iid.nextVector(), matrixSize, matrixSize);
+        final Matrix expected = A.multiply(A);
+        final Matrix[] results = new Matrix[8];
+        ParallelExecutor.getSharedInstance().forLoop(0, results.length, new LoopBody() {
+
+            @Override
+            public void run(int i) throws Exception {
+                results[i] = A.multiply(A);
+            }
+        });
+
+        for (Matrix result : results) {
+            assertTrue(AreMatrices.equal(expected, result, 1e-15));
+        }
+    }
+
+    @Test
+    public void test_forkJoin_forLoop_0040() {
+        try {
+            new ParallelExecutor(new ForkJoinPool(2)).forLoop(0, 100, new LoopBody() {
+
+                @Override
+                public void run(int i) throws Exception {
+                    if (i == 50) {
+                        throw new IllegalStateException("test");
+                    }
+                }
+            });
+            fail("an exception should be thrown");
+        } catch (MultipleExecutionException ex) {
+            assertEquals(1, ex.getExceptions().size());
+            assertTrue(ex.getExceptions().get(0).getCause() instanceof IllegalStateException);
+        }
+    }
+
+    /**
+     * A thread pool executor with only one thread runs a nested loop in the calling thread instead of waiting for itself.
+     */
+    @Test(timeout = 10000)
+    public void test_nested_0010() throws MultipleExecutionException {
+        final ParallelExecutor parallel = new ParallelExecutor(1);
+        final AtomicInteger sum = new AtomicInteger(0);
+        parallel.forLoop(0, 10, new LoopBody() {
+
+            @Override
+            public void run(int i) throws Exception {
+                parallel.forLoop(0, 10, new LoopBody() {
+
+                    @Override
+                    public void run(int j) throws Exception {
+                        sum.incrementAndGet();
+                    }
+                });
+            }
+        });
+
+        assertEquals(100, sum.get());
+    }
+
+    private static void assertEachIndexRunOnce(ParallelExecutor parallel, LoopSchedule schedule) throws MultipleExecutionException {
+        final int[] counts = new int[10007];
+        parallel.forLoop(3, counts.length, schedule, new RangeLoopBody() {
+
+            @Override
+            public void run(int from, int to) throws Exception {
+                for (int i = from; i < to; ++i) {
+                    counts[i]++;
+                }
+            }
+        });
+
+        for (int i = 0; i < counts.length; ++i) {
+            assertEquals(i < 3 ? 0 : 1, counts[i]);
+        }
+    }
+
+    @Test
+    public void test_forLoop_schedule_0010() throws MultipleExecutionException {
+        ParallelExecutor[] executors = new ParallelExecutor[]{
+            new ParallelExecutor(4),
+            new ParallelExecutor(new ForkJoinPool(4))
+        };
+        for (ParallelExecutor parallel : executors) {
+            assertEachIndexRunOnce(parallel, LoopSchedule.STATIC);
+            assertEachIndexRunOnce(parallel, new LoopSchedule(LoopSchedule.Type.STATIC, 5000));
+            assertEachIndexRunOnce(parallel, new LoopSchedule(LoopSchedule.Type.DYNAMIC, 1));
+            assertEachIndexRunOnce(parallel, new LoopSchedule(LoopSchedule.Type.DYNAMIC, 100));
+            assertEachIndexRunOnce(parallel, new LoopSchedule(LoopSchedule.Type.GUIDED, 1));
+            assertEachIndexRunOnce(parallel, new LoopSchedule(LoopSchedule.Type.GUIDED, 100));
+        }
+    }
+
+    /**
+     * A loop not bigger than the grain size is run in one chunk in the calling thread.
+     */
+    @Test
+    public void test_forLoop_schedule_0020() throws MultipleExecutionException {
+        final Thread caller = Thread.currentThread();
+        final AtomicInteger nChunks = new AtomicInteger(0);
+        new ParallelExecutor(4).forLoop(0, 100, new LoopSchedule(LoopSchedule.Type.DYNAMIC, 100), new RangeLoopBody() {
+
+            @Override
+            public void run(int from, int to) throws Exception {
+                assertSame(caller, Thread.currentThread());
+                assertEquals(0, from);
+                assertEquals(100, to);
+                nChunks.incrementAndGet();
+            }
+        });
+
+        assertEquals(1, nChunks.get());
+    }
+
+    @Test
+    public void test_forLoop_schedule_0030() throws MultipleExecutionException {
+        final AtomicInteger sum = new AtomicInteger(0);
+        new ParallelExecutor().forLoop(1, 101, new LoopSchedule(LoopSchedule.Type.GUIDED, 7), new LoopBody() {
+
+            @Override
+            public void run(int i) throws Exception {
+                sum.addAndGet(i);
+            }
+        });
+
+        assertEquals("sum of indices", 5050, sum.get());
+    }
+
+    @Test(expected = MultipleExecutionException.class)
+    public void test_forLoop_schedule_0040() throws MultipleExecutionException {
+        new ParallelExecutor(2).forLoop(0, 1000, new LoopSchedule(LoopSchedule.Type.DYNAMIC, 10), new RangeLoopBody() {
+
+            @Override
+            public void run(int from, int to) throws Exception {
+                if (from <= 500 && 500 < to) {
+                    throw new Exception("test");
+                }
+            }
+        });
+    }
+
+    @Test
+    public void test_sharedInstance_0010() {
+        ParallelExecutor defaultInstance = ParallelExecutor.getSharedInstance();
+        assertSame(defaultInstance, ParallelExecutor.getSharedInstance());
+
+        ParallelExecutor instance = new ParallelExecutor(2);
+        ParallelExecutor.setSharedInstance(instance);
+        try {
+            assertSame(instance, ParallelExecutor.getSharedInstance());
+        } finally {
+            ParallelExecutor.setSharedInstance(null);
+        }
+        assertNotSame(instance, ParallelExecutor.getSharedInstance());
+    }
+
+    @Test
+    public void test_sharedInstance_0020() throws Exception {
+        final ParallelExecutor capped = ParallelExecutor.getSharedInstance().withConcurrency(1);
+        ParallelExecutor result = capped.callAsSharedInstance(new Callable<ParallelExecutor>() {
+
+            @Override
+            public ParallelExecutor call() throws Exception {
+                final List<ParallelExecutor> inner = Collections.synchronizedList(new ArrayList<ParallelExecutor>());
+                ParallelExecutor.getSharedInstance().forLoop(0, 10, new LoopBody() {
+
+                    @Override
+                    public void run(int i) throws Exception {
+                        inner.add(ParallelExecutor.getSharedInstance());//the scope is inherited by the workers
+                    }
+                });
+                assertEquals(10, inner.size());
+                for (ParallelExecutor executor : inner) {
+                    assertSame(capped, executor);
+                }
+                return ParallelExecutor.getSharedInstance();
+            }
+        });
+        assertSame(capped, result);
+        assertNotSame(capped, ParallelExecutor.getSharedInstance());
+    }
+
+    @Test
+    public void test_withConcurrency_0010() throws MultipleExecutionException {
+        ParallelExecutor executor = ParallelExecutor.newForkJoinExecutor(4, "test-", true).withConcurrency(2);
+        assertEquals(2, executor.getConcurrency());
+
+        final Set<String> threads = Collections.synchronizedSet(new HashSet<String>());
+        final AtomicInteger sum = new AtomicInteger(0);
+        executor.forLoop(1, 101, new LoopBody() {
+
+            @Override
+            public void run(int i) throws Exception {
+                threads.add(Thread.currentThread().getName());
+                sum.addAndGet(i);
+            }
+        });
+        assertEquals(5050, sum.get());
+        assertTrue(threads.size() <= 2);
+
+        List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+        for (int i = 0; i < 10; ++i) {
+            final int I = i;
+            tasks.add(new Callable<Integer>() {
+
+                @Override
+                public Integer call() throws Exception {
+                    return I;
+                }
+            });
+        }
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), executor.executeAll(tasks));
+    }
+
+    @Test
+    public void test_withConcurrency_0020() throws MultipleExecutionException {
+        ParallelExecutor executor = ParallelExecutor.newForkJoinExecutor(8, "test-", true).withConcurrency(3);
+
+        for (final int n : new int[]{2, 9, 100}) {
+            final Set<Thread> threads = Collections.synchronizedSet(new HashSet<Thread>());
+            final AtomicInteger count = new AtomicInteger(0);
+            executor.forLoop(0, n, new LoopBody() {
+
+                @Override
+                public void run(int i) throws Exception {
+                    threads.add(Thread.currentThread());
+                    count.incrementAndGet();
+                    Thread.sleep(5);//gives the idle workers of the pool the time to steal
+                }
+            });
+            assertEquals(n, count.get());
+            assertTrue(threads.size() <= Math.min(3, n));
+        }
+    }
+
+    @Test
+    public void test_threadFactory_0010() throws MultipleExecutionException {
+        Callable<Thread> task = new Callable<Thread>() {
+
+            @Override
+            public Thread call() throws Exception {
+                return Thread.currentThread();
+            }
+        };
+
+        for (ParallelExecutor executor : Arrays.asList(
+                new ParallelExecutor(2, "my-pool-", true),
+                ParallelExecutor.newForkJoinExecutor(2, "my-pool-", true))) {
+            List<Thread> threads = executor.executeAll(Arrays.asList(task, task, task));
+            for (Thread thread : threads) {
+                if (thread != Thread.currentThread()) {//the first fork-join task may run in the caller
+                    assertTrue(thread.getName().startsWith("my-pool-"));
+                    assertTrue(thread.isDaemon());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test_inline_0010() throws MultipleExecutionException {
+        final Thread caller = Thread.currentThread();
+        final AtomicInteger sum = new AtomicInteger(0);
+        ParallelExecutor.getInlineInstance().forLoop(1, 101, new LoopBody() {
+
+            @Override
+            public void run(int i) throws Exception {
+                assertSame(caller, Thread.currentThread());
+                sum.addAndGet(i);
+            }
+        });
+        assertEquals(5050, sum.get());
+    }
+
+    @Test
+    public void test_executor_0010() throws MultipleExecutionException, ExecutionException {
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        try {
+            ParallelExecutor executor = new ParallelExecutor(pool, 4);
+            assertEquals(4, executor.getConcurrency());
+
+            final AtomicInteger sum = new AtomicInteger(0);
+            executor.forLoop(1, 101, new LoopBody() {
+
+                @Override
+                public void run(int i) throws Exception {
+                    sum.addAndGet(i);
+                }
+            });
+            assertEquals(5050, sum.get());
+
+            Callable<Integer> task = new Callable<Integer>() {
+
+                @Override
+                public Integer call() throws Exception {
+                    return 1;
+                }
+            };
+            assertEquals(Arrays.asList(1, 1, 1, 1, 1), executor.executeAll(Arrays.asList(task, task, task, task, task)));
+            assertEquals(1, executor.executeAny(task, task).intValue());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * The caller runs in the only thread of the supplied executor; the calling thread runs the tasks itself.
+     */
+    @Test
+    public void test_executor_0020() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            final ParallelExecutor executor = new ParallelExecutor(pool, 4);
+            Integer sum = pool.submit(new Callable<Integer>() {
+
+                @Override
+                public Integer call() throws Exception {
+                    final AtomicInteger sum = new AtomicInteger(0);
+                    executor.forLoop(1, 101, new LoopBody() {
+
+                        @Override
+                        public void run(int i) throws Exception {
+                            sum.addAndGet(i);
+                        }
+                    });
+                    return sum.get();
+                }
+            }).get(10, TimeUnit.SECONDS);
+            assertEquals(5050, sum.intValue());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void test_virtualThread_0010() throws MultipleExecutionException {
+        ParallelExecutor executor;
+        try {
+            executor = ParallelExecutor.newVirtualThreadExecutor(8);
+        } catch (UnsupportedOperationException ex) {
+            return; // virtual threads require Java 21
+        }
+
+        final AtomicInteger sum = new AtomicInteger(0);
+        executor.forLoop(1, 101, new LoopBody() {
+
+            @Override
+            public void run(int i) throws Exception {
+                sum.addAndGet(i);
+            }
+        });
+        assertEquals(5050, sum.get());
+    }
 }
@@ -224,4 +224,39 @@ public class PCAbySVDTest {
                 scores_2.getRow(2).toArray(),
                 1e-5);
     }
+
+    /**
+     * Compute only the first 2 principal components of test_0020.
+     */
+    @Test
+    public void test_0030() {
+        PCAbySVD pca_3 = new PCAbySVD(USArrests, true, true, 2);
+
+        Vector sdev_3 = pca_3.sdPrincipalComponent();
+        Matrix loadings_3 = pca_3.loadings();
+        Vector proportion_3 = pca_3.proportionVar();
+        Vector cumprop_3 = pca_3.cumulativeProportionVar();
+
+        assertArrayEquals(
+                new double[]{1.5748783, 0.9948694},
+                sdev_3.toArray(),
+                1e-5);
+        assertEquals(4, loadings_3.nRows());
+        assertEquals(2, loadings_3.nCols());
+        double[][] expected = new double[][]{
+            {0.5358995, 0.5831836, 0.2781909, 0.5434321},
+            {-0.4181809, -0.1879856, 0.8728062, 0.1673186}};
+        for (int j = 0; j < 2; ++j) {//The signs of the columns of the loading are arbitrary.
+            double sign = Math.signum(loadings_3.get(1, j + 1) * expected[j][0]);
+            assertArrayEquals(expected[j], loadings_3.getColumn(j + 1).scaled(sign).toArray(), 1e-5);
+        }
+        assertArrayEquals(
+                new double[]{0.62006039, 0.24744129},
+                proportion_3.toArray(),
+                1e-5);
+        assertArrayEquals(
+                new double[]{0.6200604, 0.8675017},
+                cumprop_3.toArray(),
+                1e-5);
+    }
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) Numerical Method Inc.
+ * http://www.numericalmethod.com/
+ *
+ * THIS SOFTWARE IS LICENSED, NOT SOLD.
+ *
+ * YOU MAY USE THIS SOFTWARE ONLY AS DESCRIBED IN THE LICENSE.
+ * IF YOU ARE NOT AWARE OF AND/OR DO NOT AGREE TO THE TERMS OF THE LICENSE,
+ * DO NOT USE THIS SOFTWARE.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITH NO WARRANTY WHATSOEVER,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING, WITHOUT LIMITATION,
+ * ANY WARRANTIES OF ACCURACY, ACCESSIBILITY, COMPLETENESS,
+ * FITNESS FOR A PARTICULAR PURPOSE, MERCHANTABILITY, NON-INFRINGEMENT,
+ * TITLE AND USEFULNESS.
+ *
+ * IN NO EVENT AND UNDER NO LEGAL THEORY,
+ * WHETHER IN ACTION, CONTRACT, NEGLIGENCE, TORT, OR OTHERWISE,
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR
+ * ANY CLAIMS, DAMAGES OR OTHER LIABILITIES,
+ * ARISING AS A RESULT OF USING OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.numericalmethod.suanshu.vector.floats.dense;
+
+import com.numericalmethod.suanshu.vector.doubles.IsVector;
+import com.numericalmethod.suanshu.vector.doubles.dense.DenseVector;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Haksun Li
+ */
+public class FloatDenseVectorTest {
+
+    @Test
+    public void test_0010() {
+        FloatDenseVector v1 = new FloatDenseVector(1, 2, 3);
+        FloatDenseVector v2 = new FloatDenseVector(new DenseVector(new double[]{4, 5, 6}));
+        assertEquals(3, v2.size());
+        assertEquals(5f, v2.get(2), 0);
+
+        assertArrayEquals(new float[]{5, 7, 9}, v1.add(v2).toArray(), 0);
+        assertArrayEquals(new float[]{-3, -3, -3}, v1.minus(v2).toArray(), 0);
+        assertArrayEquals(new float[]{4, 10, 18}, v1.multiply(v2).toArray(), 0);
+        assertArrayEquals(new float[]{2, 4, 6}, v1.scaled(2).toArray(), 0);
+        assertEquals(32, v1.innerProduct(v2), 0);
+        assertEquals(Math.sqrt(14), v1.norm(), 1e-15);
+        assertEquals(new DenseVector(new double[]{1, 2, 3}), v1.toDoubleVector());
+
+        v1.addInPlace(-1, v2);
+        assertEquals(new FloatDenseVector(-3, -3, -3), v1);
+    }
+
+    @Test(expected = IsVector.SizeMismatch.class)
+    public void test_0020() {
+        new FloatDenseVector(1, 2).add(new FloatDenseVector(1, 2, 3));
+    }
+}